@@ -2265,11 +2265,13 @@ public class CodeAttribute implements Generatable {
     currentStack -= popCount;
     
     writeOpCode(opCode);
-    write2(constantPool.addMethodref(methodClass, methodName, returnType, argTypes));
     
     if (opCode == 0xB9) { // invokeinterface (historical)     
+      write2(constantPool.addInterfaceMethodref(methodClass, methodName, returnType, argTypes));
       write1(popCount);
       write1(0);
+    } else {
+      write2(constantPool.addMethodref(methodClass, methodName, returnType, argTypes));
     }
     
     incrementStack(returnType.getSize());
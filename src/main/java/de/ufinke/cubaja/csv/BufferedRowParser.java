@@ -0,0 +1,509 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.IOException;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Common logic of the parsers which work on a large reusable buffer.
+ * <p>
+ * Rows and columns are recorded as offsets into the buffer.
+ * The buffer is accessed by index only, so the same row and column splitting
+ * serves buffers of bytes as well as buffers of characters.
+ * Subclasses fill the buffer and decode its content.
+ * @author Uwe Finke
+ */
+abstract class BufferedRowParser implements DirectRowParser {
+
+  static private final Text text = Text.getPackageInstance(BufferedRowParser.class);
+
+  static private final int FIELD_START = 0;
+  static private final int FIELD = 1;
+  static private final int ESCAPED = 2;
+  static private final int ESCAPE_SEEN = 3;
+
+  char separator;
+  char escapeChar;
+  boolean escapeDefined;
+
+  private int limit;
+  private int position;
+  private boolean eof;
+  private boolean skipLF;
+
+  private int lineCount;
+  private int rowStart;
+  private int rowEnd;
+
+  private int count;
+  private int[] startArray;
+  private int[] endArray;
+  private boolean[] escapeArray; // true: column contains double escape chars or line breaks
+
+  BufferedRowParser() {
+
+    startArray = new int[32];
+    endArray = new int[32];
+    escapeArray = new boolean[32];
+  }
+
+  /**
+   * Returns the character at a buffer position.
+   * Bytes are returned as unsigned values.
+   */
+  abstract int charAt(int index);
+
+  /**
+   * Moves <code>length</code> elements starting at <code>keep</code> to the buffer's start
+   * and reads more input behind them.
+   * The buffer has to be enlarged if it is completely occupied by the elements to keep.
+   * @return number of elements read, or <code>-1</code> at EOF
+   */
+  abstract int compactAndRead(int keep, int length) throws IOException;
+
+  /**
+   * Returns the content of a buffer range.
+   * @param start start index
+   * @param end end index (exclusive)
+   * @param clean whether the range contains double escapes or line breaks to be cleaned
+   * @param removeEscapes whether double escapes are reduced to a single escape character
+   */
+  abstract CharSequence decode(int start, int end, boolean clean, boolean removeEscapes);
+
+  /**
+   * Creates a new parser with the same settings, e.g. for another thread.
+   */
+  abstract BufferedRowParser copy();
+
+  /**
+   * Resets the parser state for a new input.
+   */
+  void reset(char separator, Character escapeChar) {
+
+    this.separator = separator;
+    escapeDefined = (escapeChar != null);
+    if (escapeDefined) {
+      this.escapeChar = escapeChar;
+    }
+
+    limit = 0;
+    position = 0;
+    eof = false;
+    skipLF = false;
+    lineCount = 0;
+    count = 0;
+  }
+
+  /**
+   * Reads the next row.
+   * The row is not decoded; the result is an empty string
+   * as long as there is a row, and <code>null</code> at EOF.
+   * The row's content is available with {@link #getRow getRow}.
+   */
+  public String readRow() throws IOException, CsvException {
+
+    if (! findRow()) {
+      count = 0;
+      return null;
+    }
+
+    if (escapeDefined) {
+      splitEscape();
+    } else {
+      splitSimple();
+    }
+
+    return "";
+  }
+
+  private boolean findRow() throws IOException, CsvException {
+
+    if (skipLF) {
+      if (position == limit && ! fill(position)) {
+        return false;
+      }
+      if (charAt(position) == '\n') {
+        position++;
+      }
+      skipLF = false;
+    }
+
+    if (position == limit && ! fill(position)) {
+      return false;
+    }
+
+    rowStart = position;
+    lineCount++;
+
+    final char sep = separator;
+    final char esc = escapeChar;
+    final boolean escapes = escapeDefined;
+
+    int state = FIELD_START;
+    boolean lastCR = false;
+    int pos = position;
+
+    while (true) {
+
+      if (pos == limit) {
+        position = pos;
+        if (! fill(rowStart)) {
+          if (state == ESCAPED) {
+            throw new CsvException(text.get("eofEscaped"));
+          }
+          rowEnd = limit;
+          position = limit;
+          return true;
+        }
+        pos = position;
+      }
+
+      final int c = charAt(pos);
+
+      if (state == ESCAPED) {
+        if (c == esc) {
+          state = ESCAPE_SEEN;
+        } else if (c == '\r') {
+          lineCount++;
+        } else if (c == '\n' && ! lastCR) {
+          lineCount++;
+        }
+        lastCR = (c == '\r');
+        pos++;
+        continue;
+      }
+
+      if (state == ESCAPE_SEEN && c == esc) {
+        state = ESCAPED;
+        pos++;
+        continue;
+      }
+
+      if (c == '\n' || c == '\r') {
+        rowEnd = pos;
+        position = pos + 1;
+        skipLF = (c == '\r');
+        return true;
+      }
+
+      if (c == sep) {
+        state = FIELD_START;
+      } else if (state == FIELD_START && escapes && c == esc) {
+        state = ESCAPED;
+        lastCR = false;
+      } else {
+        state = FIELD;
+      }
+      pos++;
+    }
+  }
+
+  /**
+   * Keeps the elements from <code>keep</code> up to <code>limit</code> and reads more input.
+   */
+  private boolean fill(int keep) throws IOException {
+
+    if (eof) {
+      return false;
+    }
+
+    int remaining = limit - keep;
+    int n = compactAndRead(keep, remaining);
+
+    rowStart -= keep;
+    position -= keep;
+    limit = remaining;
+
+    if (n < 0) {
+      eof = true;
+      return false;
+    }
+    limit += n;
+    return true;
+  }
+
+  private void splitSimple() {
+
+    final char sep = separator;
+    final int end = rowEnd;
+
+    int[] start = startArray;
+    int[] stop = endArray;
+    boolean[] flag = escapeArray;
+
+    int i = 0;
+    int startIndex = rowStart;
+
+    while (startIndex <= end) {
+
+      i++;
+
+      if (i == start.length) {
+        enlargeArrays();
+        start = startArray;
+        stop = endArray;
+        flag = escapeArray;
+      }
+
+      int endIndex = startIndex;
+      while (endIndex < end && charAt(endIndex) != sep) {
+        endIndex++;
+      }
+
+      start[i] = startIndex;
+      stop[i] = endIndex;
+      flag[i] = false;
+
+      startIndex = endIndex + 1;
+    }
+
+    count = i;
+  }
+
+  private void splitEscape() throws CsvException {
+
+    final char sep = separator;
+    final char esc = escapeChar;
+    final int end = rowEnd;
+
+    int[] start = startArray;
+    int[] stop = endArray;
+    boolean[] flag = escapeArray;
+
+    int i = 0;
+    int startIndex = rowStart;
+    int nextColStart = 0;
+
+    while (startIndex <= end) {
+
+      i++;
+
+      if (i == start.length) {
+        enlargeArrays();
+        start = startArray;
+        stop = endArray;
+        flag = escapeArray;
+      }
+
+      flag[i] = false;
+      int endIndex = startIndex;
+
+      if (startIndex < end && charAt(startIndex) == esc) { // escaped
+
+        startIndex++;
+        endIndex++;
+        boolean escaped = true;
+
+        while (escaped) {
+
+          final int c = charAt(endIndex);
+          if (c == esc) {
+            nextColStart = endIndex + 1;
+            if (nextColStart < end) {
+              int nextChar = charAt(nextColStart);
+              if (nextChar == sep) {
+                escaped = false;
+                nextColStart++;
+              } else if (nextChar == esc) {
+                flag[i] = true;
+                endIndex += 2;
+              } else {
+                throw new CsvException(text.get("escapeInEscape"));
+              }
+            } else {
+              escaped = false;
+            }
+          } else {
+            if (c == '\r' || c == '\n') {
+              flag[i] = true;
+            }
+            endIndex++;
+          }
+        }
+
+      } else { // non-escaped
+
+        while (endIndex < end && charAt(endIndex) != sep) {
+          endIndex++;
+        }
+
+        nextColStart = endIndex + 1;
+
+      } // end escaped / non-escaped
+
+      start[i] = startIndex;
+      stop[i] = endIndex;
+
+      startIndex = nextColStart;
+    }
+
+    count = i;
+  }
+
+  /**
+   * Returns number of columns of current row.
+   */
+  public int getColumnCount() {
+
+    return count;
+  }
+
+  /**
+   * Returns the number of raw lines.
+   */
+  public int getLineCount() {
+
+    return lineCount;
+  }
+
+  /**
+   * Tells whether all column data have zero length.
+   */
+  public boolean isEmptyRow() {
+
+    for (int i = 1; i <= count; i++) {
+      if (startArray[i] != endArray[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the content of the current row.
+   * Line breaks within escaped columns are represented by a single LF (<code>\n</code>).
+   * @return row
+   */
+  public String getRow() {
+
+    if (count == 0) {
+      return null;
+    }
+    return decode(rowStart, rowEnd, true, false).toString();
+  }
+
+  /**
+   * Returns column content.
+   */
+  public String getColumn(int index) {
+
+    CharSequence column = getColumnSequence(index);
+    return (column == null) ? null : column.toString();
+  }
+
+  /**
+   * Returns column content as character sequence.
+   * The sequence may be a view which is valid until the next call to this parser.
+   */
+  public CharSequence getColumnSequence(int index) {
+
+    int start = startArray[index];
+    int end = endArray[index];
+    if (start == end) {
+      return null;
+    }
+    return decode(start, end, escapeArray[index], true);
+  }
+
+  /**
+   * Tells whether a column is empty or consists of whitespace only.
+   */
+  public boolean isBlank(int index) {
+
+    final int end = endArray[index];
+    for (int i = startArray[index]; i < end; i++) {
+      if (charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a column as <code>int</code> value without decoding it.
+   */
+  public int getInt(int index) throws NumberFormatException {
+
+    return (int) parseLong(index, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Parses a column as <code>long</code> value without decoding it.
+   */
+  public long getLong(int index) throws NumberFormatException {
+
+    return parseLong(index, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  private long parseLong(int index, long min, long max) throws NumberFormatException {
+
+    if (escapeArray[index]) {
+      throw new NumberFormatException();
+    }
+
+    int start = startArray[index];
+    int end = endArray[index];
+
+    while (start < end && charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      throw new NumberFormatException();
+    }
+
+    // accumulate negatively like Long.parseLong to cover MIN_VALUE
+    boolean negative = false;
+    long bound = -max;
+    int c = charAt(start);
+    if (c == '-' || c == '+') {
+      negative = (c == '-');
+      if (negative) {
+        bound = min;
+      }
+      start++;
+      if (start == end) {
+        throw new NumberFormatException();
+      }
+    }
+
+    final long multBound = bound / 10;
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      final int digit = charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < multBound) {
+        throw new NumberFormatException();
+      }
+      result *= 10;
+      if (result < bound + digit) {
+        throw new NumberFormatException();
+      }
+      result -= digit;
+    }
+
+    return negative ? result : -result;
+  }
+
+  private void enlargeArrays() {
+
+    int oldCapacity = startArray.length;
+    int newCapacity = oldCapacity << 1;
+
+    int[] newStartArray = new int[newCapacity];
+    System.arraycopy(startArray, 0, newStartArray, 0, oldCapacity);
+    startArray = newStartArray;
+
+    int[] newEndArray = new int[newCapacity];
+    System.arraycopy(endArray, 0, newEndArray, 0, oldCapacity);
+    endArray = newEndArray;
+
+    boolean[] newEscapeArray = new boolean[newCapacity];
+    System.arraycopy(escapeArray, 0, newEscapeArray, 0, oldCapacity);
+    escapeArray = newEscapeArray;
+  }
+
+}
@@ -0,0 +1,214 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * <p>
+ * <code>RowParser</code> which works on raw bytes.
+ * </p><p>
+ * The input is read from an <code>InputStream</code> into a large byte array.
+ * Line breaks, separators and escape characters are recognized on byte level,
+ * without decoding the input into characters.
+ * A column is decoded only when its content is requested as <code>String</code>;
+ * columns consisting of ASCII characters only are decoded without a <code>CharsetDecoder</code>.
+ * The <code>CsvReader</code> methods for integral numbers, booleans and characters
+ * read the columns directly from the bytes, provided the column has no
+ * <code>nullValue</code>, replacement or editor.
+ * </p><p>
+ * The charset must encode the separator, the escape character and the line break characters
+ * as single bytes with their ASCII values; this is true for UTF-8 and the ISO-8859 charsets,
+ * but not for UTF-16 or EBCDIC.
+ * Escape characters are handled like in {@link DefaultRowParser}.
+ * </p><p>
+ * The parser needs an <code>InputStream</code>.
+ * A <code>CsvReader</code> which is constructed with a <code>CsvConfig</code> only
+ * or with an <code>InputStream</code> passes the stream to the parser;
+ * a <code>CsvReader</code> constructed with a <code>Reader</code> can't use this parser.
+ * </p>
+ * @author Uwe Finke
+ */
+public class ByteRowParser extends BufferedRowParser {
+
+  static private final Text text = Text.getPackageInstance(ByteRowParser.class);
+
+  static private final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+  static private final int MIN_BUFFER_SIZE = 1024;
+
+  static private final byte CR = '\r';
+  static private final byte LF = '\n';
+
+  private final int bufferSize;
+
+  private InputStream in;
+  private Charset charset;
+  private byte[] buffer;
+
+  private byte[] cleanBytes;
+  private char[] chars;
+  private final CharView view = new CharView();
+
+  /**
+   * Constructor with default buffer size (1 MB).
+   */
+  public ByteRowParser() {
+
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor with explicit buffer size.
+   * The buffer grows when a single row is larger than the buffer.
+   * @param bufferSize initial buffer size
+   */
+  public ByteRowParser(int bufferSize) {
+
+    this.bufferSize = Math.max(MIN_BUFFER_SIZE, bufferSize);
+
+    cleanBytes = new byte[256];
+    chars = new char[256];
+  }
+
+  BufferedRowParser copy() {
+
+    return new ByteRowParser(bufferSize);
+  }
+
+  /**
+   * Always throws an exception because this parser needs an <code>InputStream</code>.
+   */
+  public void init(Reader in, CsvConfig config) throws CsvException {
+
+    throw new CsvException(text.get("byteParserReader"));
+  }
+
+  /**
+   * Initializes the parser.
+   * @param in input stream
+   * @param config CSV configuration
+   * @throws CsvException if the charset is not suitable for this parser
+   */
+  public void init(InputStream in, CsvConfig config) throws CsvException {
+
+    charset = config.getCharset();
+
+    asciiByte(config.getSeparator());
+    if (config.getEscapeChar() != null) {
+      asciiByte(config.getEscapeChar());
+    }
+    asciiByte('\r');
+    asciiByte('\n');
+
+    this.in = in;
+    if (buffer == null) {
+      buffer = new byte[bufferSize];
+    }
+    reset(config.getSeparator(), config.getEscapeChar());
+  }
+
+  private void asciiByte(char c) throws CsvException {
+
+    byte[] encoded = String.valueOf(c).getBytes(charset);
+    if (c > 0x7F || encoded.length != 1 || encoded[0] != (byte) c) {
+      throw new CsvException(text.get("byteParserCharset", charset.name(), Integer.toHexString(c)));
+    }
+  }
+
+  int charAt(int index) {
+
+    return buffer[index] & 0xFF;
+  }
+
+  int compactAndRead(int keep, int length) throws IOException {
+
+    if (length == buffer.length) {
+      byte[] newBuffer = new byte[buffer.length << 1];
+      System.arraycopy(buffer, keep, newBuffer, 0, length);
+      buffer = newBuffer;
+    } else if (keep > 0) {
+      System.arraycopy(buffer, keep, buffer, 0, length);
+    }
+
+    int n = in.read(buffer, length, buffer.length - length);
+    while (n == 0) {
+      n = in.read(buffer, length, buffer.length - length);
+    }
+    return n;
+  }
+
+  /**
+   * Decodes a range of the buffer.
+   * Ranges consisting of ASCII characters only are returned as a view
+   * which is valid until the next call to this parser.
+   */
+  CharSequence decode(int start, int end, boolean clean, boolean removeEscapes) {
+
+    byte[] bytes = buffer;
+    int offset = start;
+    int length = end - start;
+
+    if (clean) {
+      length = clean(start, end, removeEscapes);
+      bytes = cleanBytes;
+      offset = 0;
+    }
+
+    final int stop = offset + length;
+    for (int i = offset; i < stop; i++) {
+      if (bytes[i] < 0) {
+        return new String(bytes, offset, length, charset);
+      }
+    }
+
+    char[] c = chars;
+    if (c.length < length) {
+      c = new char[Math.max(length, c.length << 1)];
+      chars = c;
+    }
+    for (int i = 0; i < length; i++) {
+      c[i] = (char) bytes[offset + i];
+    }
+    return view.set(c, 0, length);
+  }
+
+  /**
+   * Copies a range into <code>cleanBytes</code>, removing double escapes
+   * and replacing CR / LF combinations by a single LF.
+   */
+  private int clean(int start, int end, boolean removeEscapes) {
+
+    byte[] target = cleanBytes;
+    if (target.length < end - start) {
+      target = new byte[Math.max(end - start, target.length << 1)];
+      cleanBytes = target;
+    }
+
+    final byte[] buf = buffer;
+    final byte esc = (byte) escapeChar;
+    final boolean escapes = removeEscapes && escapeDefined;
+    int length = 0;
+    int i = start;
+    while (i < end) {
+      byte b = buf[i];
+      if (b == esc && escapes) {
+        i++;
+      } else if (b == CR) {
+        b = LF;
+        if (i + 1 < end && buf[i + 1] == LF) {
+          i++;
+        }
+      }
+      target[length++] = b;
+      i++;
+    }
+
+    return length;
+  }
+
+}
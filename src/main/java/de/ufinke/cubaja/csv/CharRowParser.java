@@ -0,0 +1,146 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>
+ * <code>RowParser</code> which works on a reusable character buffer.
+ * </p><p>
+ * The input is read in large blocks into a <code>char</code> array.
+ * Rows and columns are recorded as offsets into this array;
+ * neither rows nor columns are copied into <code>String</code> objects
+ * unless the application requests a column as <code>String</code>.
+ * The <code>CsvReader</code> methods for numeric, boolean and character values
+ * parse the columns directly from the buffer, provided the column has no
+ * <code>nullValue</code>, replacement or editor.
+ * Reading a row therefore doesn't allocate any memory
+ * as long as no <code>String</code> columns are read.
+ * </p><p>
+ * Escaped columns spanning several lines are kept within the buffer,
+ * which grows when a single row doesn't fit.
+ * Escape characters and line breaks are handled like in {@link DefaultRowParser}.
+ * </p>
+ * @author Uwe Finke
+ */
+public class CharRowParser extends BufferedRowParser {
+
+  static private final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  static private final int MIN_BUFFER_SIZE = 1024;
+
+  private final int bufferSize;
+
+  private Reader in;
+  private char[] buffer;
+
+  private char[] cleanChars;
+  private final CharView view = new CharView();
+
+  /**
+   * Constructor with default buffer size (64K characters).
+   */
+  public CharRowParser() {
+
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor with explicit buffer size.
+   * The buffer grows when a single row is larger than the buffer.
+   * @param bufferSize initial buffer size in characters
+   */
+  public CharRowParser(int bufferSize) {
+
+    this.bufferSize = Math.max(MIN_BUFFER_SIZE, bufferSize);
+
+    cleanChars = new char[256];
+  }
+
+  BufferedRowParser copy() {
+
+    return new CharRowParser(bufferSize);
+  }
+
+  /**
+   * Initializes the parser.
+   */
+  public void init(Reader in, CsvConfig config) {
+
+    this.in = in;
+    if (buffer == null) {
+      buffer = new char[bufferSize];
+    }
+    reset(config.getSeparator(), config.getEscapeChar());
+  }
+
+  int charAt(int index) {
+
+    return buffer[index];
+  }
+
+  int compactAndRead(int keep, int length) throws IOException {
+
+    if (length == buffer.length) {
+      char[] newBuffer = new char[buffer.length << 1];
+      System.arraycopy(buffer, keep, newBuffer, 0, length);
+      buffer = newBuffer;
+    } else if (keep > 0) {
+      System.arraycopy(buffer, keep, buffer, 0, length);
+    }
+
+    int n = in.read(buffer, length, buffer.length - length);
+    while (n == 0) {
+      n = in.read(buffer, length, buffer.length - length);
+    }
+    return n;
+  }
+
+  /**
+   * Returns a view into the buffer, or into <code>cleanChars</code> if the range has to be cleaned.
+   */
+  CharSequence decode(int start, int end, boolean clean, boolean removeEscapes) {
+
+    if (clean) {
+      return view.set(cleanChars, 0, clean(start, end, removeEscapes));
+    }
+    return view.set(buffer, start, end - start);
+  }
+
+  /**
+   * Copies a range into <code>cleanChars</code>, removing double escapes
+   * and replacing CR / LF combinations by a single LF.
+   */
+  private int clean(int start, int end, boolean removeEscapes) {
+
+    char[] target = cleanChars;
+    if (target.length < end - start) {
+      target = new char[Math.max(end - start, target.length << 1)];
+      cleanChars = target;
+    }
+
+    final char[] buf = buffer;
+    final char esc = escapeChar;
+    final boolean escapes = removeEscapes && escapeDefined;
+    int length = 0;
+    int i = start;
+    while (i < end) {
+      char c = buf[i];
+      if (c == esc && escapes) {
+        i++;
+      } else if (c == '\r') {
+        c = '\n';
+        if (i + 1 < end && buf[i + 1] == '\n') {
+          i++;
+        }
+      }
+      target[length++] = c;
+      i++;
+    }
+
+    return length;
+  }
+
+}
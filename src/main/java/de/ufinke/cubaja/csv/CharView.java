@@ -0,0 +1,49 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+/**
+ * Reusable <code>CharSequence</code> over a part of a <code>char</code> array.
+ * @author Uwe Finke
+ */
+final class CharView implements CharSequence {
+
+  private char[] array;
+  private int offset;
+  private int length;
+
+  CharView set(char[] array, int offset, int length) {
+
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+    return this;
+  }
+
+  public int length() {
+
+    return length;
+  }
+
+  public char charAt(int index) {
+
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+    return array[offset + index];
+  }
+
+  public CharSequence subSequence(int start, int end) {
+
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException();
+    }
+    return new String(array, offset + start, end - start);
+  }
+
+  public String toString() {
+
+    return new String(array, offset, length);
+  }
+}
@@ -0,0 +1,105 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Transformation steps of a column, compiled from its <code>ColConfig</code>.
+ * <p>
+ * Readers and writers create a pipeline once per column position.
+ * Steps which don't apply to the column are left out.
+ * @author Uwe Finke
+ */
+final class ColumnPipeline {
+
+  private final ColConfig colConfig;
+  private final boolean trim;
+  private final String nullValue;
+  private final Pattern[] patterns;
+  private final String[] replacements;
+  private final ColumnEditor editor;
+
+  ColumnPipeline(ColConfig colConfig) {
+
+    this.colConfig = colConfig;
+    trim = colConfig.isTrim();
+    nullValue = colConfig.getNullValue();
+    editor = colConfig.getEditor();
+
+    List<ReplaceConfig> replaceList = colConfig.getReplaceList();
+    int count = (replaceList == null) ? 0 : replaceList.size();
+    patterns = new Pattern[count];
+    replacements = new String[count];
+    for (int i = 0; i < count; i++) {
+      ReplaceConfig replace = replaceList.get(i);
+      patterns[i] = replace.getPattern();
+      replacements[i] = replace.getReplacement();
+    }
+  }
+
+  ColConfig getColConfig() {
+
+    return colConfig;
+  }
+
+  /**
+   * Tells whether the column content is passed unchanged, apart from trimming.
+   */
+  boolean isPlain() {
+
+    return nullValue == null && patterns.length == 0 && editor == null;
+  }
+
+  /**
+   * Transforms the content of a column read from a CSV source.
+   */
+  String read(String s) throws CsvException {
+
+    if (trim && s != null) {
+      s = s.trim();
+      if (s.length() == 0) {
+        s = null;
+      }
+    }
+
+    if (s == null) {
+      s = nullValue;
+    }
+
+    if (s != null) {
+      s = replace(s);
+    }
+
+    if (editor != null) {
+      s = editor.editColumn(s, colConfig);
+    }
+
+    return s;
+  }
+
+  /**
+   * Transforms the content of a column written to a CSV target.
+   */
+  String write(String s) throws CsvException {
+
+    s = replace(s);
+
+    if (editor != null) {
+      s = editor.editColumn(s, colConfig);
+    }
+
+    return s;
+  }
+
+  private String replace(String s) {
+
+    final Pattern[] patterns = this.patterns;
+    for (int i = 0; i < patterns.length; i++) {
+      s = patterns[i].matcher(s).replaceAll(replacements[i]);
+    }
+    return s;
+  }
+}
@@ -0,0 +1,64 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+/**
+ * Column pipelines of a reader or writer, indexed by column position.
+ * @author Uwe Finke
+ */
+final class ColumnPipelines {
+
+  private final CsvConfig config;
+  private ColumnPipeline[] array;
+  private ColumnPipeline defaultPipeline;
+
+  ColumnPipelines(CsvConfig config) {
+
+    this.config = config;
+  }
+
+  /**
+   * Returns the pipeline for a column position.
+   * Positions without explicit column configuration share the pipeline of the default column.
+   * Only positions up to the highest configured column are cached.
+   */
+  ColumnPipeline get(int position) {
+
+    if (array == null) {
+      array = new ColumnPipeline[config.getMaxPosition() + 1];
+    }
+
+    if (position < 0 || position >= array.length) {
+      return create(position);
+    }
+
+    ColumnPipeline pipeline = array[position];
+    if (pipeline == null) {
+      pipeline = create(position);
+      array[position] = pipeline;
+    }
+    return pipeline;
+  }
+
+  private ColumnPipeline create(int position) {
+
+    ColConfig colConfig = config.getColConfig(position);
+    if (colConfig.getPosition() != position) { // default column
+      if (defaultPipeline == null || defaultPipeline.getColConfig() != colConfig) {
+        defaultPipeline = new ColumnPipeline(colConfig);
+      }
+      return defaultPipeline;
+    }
+    return new ColumnPipeline(colConfig);
+  }
+
+  /**
+   * Discards all pipelines after a change of the column configuration.
+   */
+  void clear() {
+
+    array = null;
+    defaultPipeline = null;
+  }
+}
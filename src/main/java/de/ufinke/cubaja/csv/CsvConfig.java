@@ -3,6 +3,7 @@
 
 package de.ufinke.cubaja.csv;
 
+import java.nio.charset.Charset;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -63,7 +64,7 @@ import de.ufinke.cubaja.util.Util;
  * </tr>
  * <tr>
  * <td style="text-align:left;vertical-align:top"><code>parser</code></td>
- * <td style="text-align:left;vertical-align:top">class name of a {@link RowParser} implementation (default: {@link DefaultRowParser})</td>
+ * <td style="text-align:left;vertical-align:top">class name of a {@link RowParser} implementation (default: {@link DefaultRowParser}; {@link CharRowParser} and {@link ByteRowParser} avoid copying column content)</td>
  * <td style="text-align:center;vertical-align:top">A</td>
  * <td style="text-align:center;vertical-align:top"></td>
  * <td style="text-align:center;vertical-align:top">x</td>
@@ -269,6 +270,19 @@ public class CsvConfig {
     return (result == null) ? defaultColConfig : result;
   }
   
+  /**
+   * Returns the highest position of all explicitly configured columns.
+   * @return maximum position, or <code>0</code> if there are no columns
+   */
+  int getMaxPosition() {
+    
+    if (positionArray == null) {
+      buildPositionArray();
+    }
+    
+    return positionArray.length - 1;
+  }
+  
   private void buildPositionArray() {
 
     int maxPosition = 0;
@@ -325,6 +339,17 @@ public class CsvConfig {
     this.charset = charset;
   }
 
+  /**
+   * Returns the charset.
+   * If no charset name is set, this is the platform's default charset.
+   * 
+   * @return charset
+   */
+  public Charset getCharset() {
+
+    return (charset == null) ? Charset.defaultCharset() : Charset.forName(charset);
+  }
+
   /**
    * Returns a <code>FileConfig</code>.
    * @return file config
@@ -3,13 +3,17 @@
 
 package de.ufinke.cubaja.csv;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.text.DateFormat;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import de.ufinke.cubaja.config.ConfigException;
 import de.ufinke.cubaja.util.ColumnReader;
@@ -52,6 +56,10 @@ import de.ufinke.cubaja.util.Util;
  * An exception will also be thrown if there is an attempt to
  * read any data after a call to <code>nextRow</code>
  * returned <code>false</code>, or after the reader was closed.
+ * </p><p>
+ * The column configuration is compiled when a column position is read for the first time.
+ * Later changes of the <code>ColConfig</code> objects are not recognized,
+ * except for editors set with {@link #setColumnEditor(int, ColumnEditor) setColumnEditor}.
  * <p>
  * @author Uwe Finke
  */
@@ -60,10 +68,11 @@ public class CsvReader implements ColumnReader {
   static private final Text text = Text.getPackageInstance(CsvReader.class);
   
   private CsvConfig config;
-  private Reader in;
+  private Closeable in;
   private int rowCount;
   
   private RowParser parser;
+  private DirectRowParser directParser;
   private RowFilter rowFilter;
   private ErrorHandler errorHandler;
   
@@ -72,6 +81,9 @@ public class CsvReader implements ColumnReader {
   private String row;
   private int currentIndex;    
   private ColConfig colConfig;
+  private ColumnPipelines pipelines;
+  
+  private Map<DateFormat, DateFormat> dateFormats;
   
   private ObjectFactoryGenerator generator;
   private Class<?> dataClass;
@@ -88,7 +100,20 @@ public class CsvReader implements ColumnReader {
    */
   public CsvReader(CsvConfig config) throws IOException, ConfigException, CsvException {
     
-    this(config.getFile().createReader(), config);
+    this.config = config;
+    parser = config.getParser();
+    
+    if (parser instanceof ByteRowParser) {
+      InputStream stream = config.getFile().createInputStream();
+      in = stream;
+      ((ByteRowParser) parser).init(stream, config);
+    } else {
+      Reader reader = config.getFile().createReader();
+      in = reader;
+      parser.init(reader, config);
+    }
+    
+    initialize(true);
   }
 
   /**
@@ -116,13 +141,64 @@ public class CsvReader implements ColumnReader {
     in = reader;
     
     parser = config.getParser();
-    parser.init(in, config);
+    parser.init(reader, config);
+    
+    initialize(true);
+  }
+  
+  /**
+   * Constructor with input stream and configuration.
+   * With a {@link ByteRowParser}, the stream's bytes are parsed without decoding;
+   * otherwise, the stream is read with the configuration's charset.
+   * @param stream passed input stream
+   * @param config configuration
+   * @throws IOException when reader can't be opened
+   * @throws CsvException when a CSV interpretation problem occurs
+   */
+  public CsvReader(InputStream stream, CsvConfig config) throws IOException, CsvException {
+  
+    this(stream, config, config.getParser(), true);
+  }
+  
+  /**
+   * Constructor for the workers of a <code>ParallelCsvReader</code>.
+   * The parser is exclusively used by this reader;
+   * date formats are cloned because the configuration is shared by several threads.
+   */
+  CsvReader(InputStream stream, CsvConfig config, RowParser parser, boolean headerRow) throws IOException, CsvException {
+  
+    this.config = config;
+    this.parser = parser;
+    
+    if (! headerRow) {
+      dateFormats = new IdentityHashMap<DateFormat, DateFormat>();
+    }
+    
+    if (parser instanceof ByteRowParser) {
+      in = stream;
+      ((ByteRowParser) parser).init(stream, config);
+    } else {
+      Reader reader = new InputStreamReader(stream, config.getCharset());
+      in = reader;
+      parser.init(reader, config);
+    }
+    
+    initialize(headerRow);
+  }
+  
+  private void initialize(boolean headerRow) throws IOException, CsvException {
+    
+    if (parser instanceof DirectRowParser) {
+      directParser = (DirectRowParser) parser;
+    }
     
     rowFilter = config.getRowFilter();
     errorHandler = new DefaultErrorHandler();
+    pipelines = new ColumnPipelines(config);
     
-    if (config.hasHeaderRow()) {
+    if (headerRow && config.hasHeaderRow()) {
       processHeaderRow();
+      pipelines.clear(); // column configuration may have changed
     }
   }
   
@@ -160,7 +236,7 @@ public class CsvReader implements ColumnReader {
       if (header != null) {
         Integer position = headerMap.get(header);
         if (position == null) {
-          throw new CsvException(text.get("headerNotFound", header), parser.getLineCount(), 0, row);
+          throw new CsvException(text.get("headerNotFound", header), parser.getLineCount(), 0, currentRow());
         }
         col.setInternalPosition(position);
       }
@@ -246,7 +322,12 @@ public class CsvReader implements ColumnReader {
   public String getPlainRow() throws CsvException {
     
     checkEOF();
-    return row;
+    return currentRow();
+  }
+  
+  private String currentRow() {
+    
+    return (directParser == null) ? row : directParser.getRow();
   }
   
   /**
@@ -268,6 +349,7 @@ public class CsvReader implements ColumnReader {
   public void setColumnEditor(int columnPosition, ColumnEditor editor) {
     
     config.getColConfig(columnPosition).setEditor(editor);
+    pipelines.clear();
   }
   
   /**
@@ -287,31 +369,80 @@ public class CsvReader implements ColumnReader {
     
     String s = (index < 1 || index > parser.getColumnCount()) ? null : parser.getColumn(index);
     
-    colConfig = config.getColConfig(index);
+    ColumnPipeline pipeline = pipelines.get(index);
+    colConfig = pipeline.getColConfig();
     
-    if (colConfig.isTrim() && s != null) {
-      s = s.trim();
-      if (s.length() == 0) {
-        s = null;
-      }
+    return pipeline.read(s);
+  }
+  
+  /**
+   * Tells whether a column may be read from the <code>DirectRowParser</code>.
+   * This is the case when the column exists and has no <code>nullValue</code>, replacement or editor.
+   */
+  private boolean isDirect(int index) throws CsvException {
+    
+    if (directParser == null) {
+      return false;
     }
     
-    if (s == null) {
-      s = colConfig.getNullValue();
+    checkEOF();
+    
+    currentIndex = index;
+    ColumnPipeline pipeline = pipelines.get(index);
+    colConfig = pipeline.getColConfig();
+    
+    return index >= 1 && index <= directParser.getColumnCount() && pipeline.isPlain();
+  }
+  
+  private String directColumn(int index) throws CsvException {
+    
+    return directParser.getColumn(index).trim();
+  }
+  
+  private int directInt(int index, int min, int max) throws NumberFormatException {
+    
+    int value = directParser.getInt(index);
+    if (value < min || value > max) {
+      throw new NumberFormatException();
     }
+    return value;
+  }
+  
+  private char directChar(int index) {
     
-    List<ReplaceConfig> replaceList = colConfig.getReplaceList();
-    if (replaceList != null && s != null) {
-      for (ReplaceConfig replace : replaceList) {
-        s = s.replaceAll(replace.getRegex(), replace.getReplacement());
+    CharSequence column = directParser.getColumnSequence(index);
+    int length = column.length();
+    for (int i = 0; i < length; i++) {
+      char c = column.charAt(i);
+      if (c > ' ') {
+        return c;
       }
     }
+    return ' ';
+  }
+  
+  private boolean directBoolean(int index) {
     
-    if (colConfig.getEditor() != null) {
-      s = colConfig.getEditor().editColumn(s, colConfig);
+    CharSequence column = directParser.getColumnSequence(index);
+    int start = 0;
+    int end = column.length();
+    while (start < end && column.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && column.charAt(end - 1) <= ' ') {
+      end--;
     }
     
-    return s;
+    String trueValue = colConfig.getTrueValue();
+    if (trueValue.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (trueValue.charAt(i - start) != column.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
   
   public int getColumnPosition(String columnName) throws CsvException {
@@ -321,7 +452,7 @@ public class CsvReader implements ColumnReader {
   
   private void handleParseError(Throwable cause, String value, String type) throws CsvException {
 
-    CsvException error = new CsvException(text.get("parseError", value, type), cause, getLineCount(), getRowCount(), row, currentIndex, colConfig.getName(), value);
+    CsvException error = new CsvException(text.get("parseError", value, type), cause, getLineCount(), getRowCount(), currentRow(), currentIndex, colConfig.getName(), value);
     errorHandler.handleError(error);
   }
   
@@ -366,6 +497,10 @@ public class CsvReader implements ColumnReader {
   
   public boolean readBoolean(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      return directParser.getColumnSequence(columnPosition) != null && directBoolean(columnPosition);
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return false;
@@ -380,6 +515,13 @@ public class CsvReader implements ColumnReader {
   
   public Boolean readBooleanObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.getColumnSequence(columnPosition) == null || (colConfig.isTrim() && directParser.isBlank(columnPosition))) {
+        return null;
+      }
+      return Boolean.valueOf(directBoolean(columnPosition));
+    }
+    
     String s = getColumn(columnPosition);    
     return (s == null || s.length() == 0) ? null : Boolean.valueOf(getBoolean(s));
   }
@@ -391,6 +533,19 @@ public class CsvReader implements ColumnReader {
   
   public byte readByte(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return 0;
+      }
+      try {
+        return (byte) directInt(columnPosition, Byte.MIN_VALUE, Byte.MAX_VALUE);
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "byte");
+        return 0;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return 0;
@@ -414,6 +569,19 @@ public class CsvReader implements ColumnReader {
   
   public Byte readByteObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return null;
+      }
+      try {
+        return Byte.valueOf((byte) directInt(columnPosition, Byte.MIN_VALUE, Byte.MAX_VALUE));
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "byte");
+        return null;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return null;
@@ -437,6 +605,19 @@ public class CsvReader implements ColumnReader {
   
   public short readShort(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return 0;
+      }
+      try {
+        return (short) directInt(columnPosition, Short.MIN_VALUE, Short.MAX_VALUE);
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "short");
+        return 0;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return 0;
@@ -460,6 +641,19 @@ public class CsvReader implements ColumnReader {
   
   public Short readShortObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return null;
+      }
+      try {
+        return Short.valueOf((short) directInt(columnPosition, Short.MIN_VALUE, Short.MAX_VALUE));
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "short");
+        return null;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return null;
@@ -483,6 +677,10 @@ public class CsvReader implements ColumnReader {
   
   public char readChar(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      return directParser.isBlank(columnPosition) ? ' ' : directChar(columnPosition);
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return ' ';
@@ -501,6 +699,10 @@ public class CsvReader implements ColumnReader {
   
   public Character readCharObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      return directParser.isBlank(columnPosition) ? null : Character.valueOf(directChar(columnPosition));
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return null;
@@ -519,6 +721,19 @@ public class CsvReader implements ColumnReader {
   
   public int readInt(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return 0;
+      }
+      try {
+        return directParser.getInt(columnPosition);
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "int");
+        return 0;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return 0;
@@ -542,6 +757,19 @@ public class CsvReader implements ColumnReader {
   
   public Integer readIntObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return null;
+      }
+      try {
+        return Integer.valueOf(directParser.getInt(columnPosition));
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "int");
+        return null;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return null;
@@ -565,6 +793,19 @@ public class CsvReader implements ColumnReader {
   
   public long readLong(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return 0;
+      }
+      try {
+        return directParser.getLong(columnPosition);
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "long");
+        return 0;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return 0;
@@ -588,6 +829,19 @@ public class CsvReader implements ColumnReader {
   
   public Long readLongObject(int columnPosition) throws CsvException {
     
+    if (isDirect(columnPosition)) {
+      if (directParser.isBlank(columnPosition)) {
+        return null;
+      }
+      try {
+        return Long.valueOf(directParser.getLong(columnPosition));
+      } catch (NumberFormatException e) {
+        String s = directColumn(columnPosition);
+        handleParseError(e, s, "long");
+        return null;
+      }
+    }
+    
     String s = getColumn(columnPosition);
     if (s == null) {
       return null;
@@ -786,7 +1040,16 @@ public class CsvReader implements ColumnReader {
       return null;
     }
     try {      
-      return colConfig.getDateFormat().parse(s);
+      DateFormat format = colConfig.getDateFormat();
+      if (dateFormats != null) {
+        DateFormat privateFormat = dateFormats.get(format);
+        if (privateFormat == null) {
+          privateFormat = (DateFormat) format.clone();
+          dateFormats.put(format, privateFormat);
+        }
+        format = privateFormat;
+      }
+      return format.parse(s);
     } catch (Exception e) {
       handleParseError(e, s, "Date");
       return null;
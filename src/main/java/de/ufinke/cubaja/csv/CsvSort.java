@@ -0,0 +1,242 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import de.ufinke.cubaja.config.ConfigException;
+import de.ufinke.cubaja.sort.SortConfig;
+import de.ufinke.cubaja.sort.Sorter;
+import de.ufinke.cubaja.util.Util;
+
+/**
+ * Sorts CSV rows by key columns.
+ * <p>
+ * The rows are not converted into data objects.
+ * Only the key columns are parsed according to their {@link SortKeyType};
+ * the rows are sorted together with these key values by a {@link Sorter}
+ * and written out unchanged.
+ * A header row (see {@link CsvConfig#hasHeaderRow hasHeaderRow}) is written first.
+ * <p>
+ * Key columns are interpreted with the column properties of the configuration
+ * (e.g. <code>trim</code>, <code>nullValue</code>, <code>decimalChar</code>, <code>datePattern</code>).
+ * Empty columns are <code>null</code> keys which are less than any other value.
+ * Rows with equal keys keep their input sequence only if the sort algorithm is stable.
+ * <p>
+ * Example:
+ * <pre>
+ *   CsvSort sort = new CsvSort(csvConfig);
+ *   sort.addKey("branch", SortKeyType.INTEGER, false);
+ *   sort.addKey("amount", SortKeyType.DECIMAL, true);
+ *   sort.sort(new FileConfig("sorted.csv").createWriter());
+ * </pre>
+ * @author Uwe Finke
+ */
+public class CsvSort {
+
+  static private final class Key {
+    
+    final String name;
+    final int position;
+    final SortKeyType type;
+    final boolean descending;
+    
+    Key(String name, int position, SortKeyType type, boolean descending) {
+      
+      this.name = name;
+      this.position = position;
+      this.type = type;
+      this.descending = descending;
+    }
+  }
+  
+  static private final class LineComparator implements Comparator<CsvSortLine> {
+    
+    private final boolean[] descending;
+    
+    LineComparator(boolean[] descending) {
+      
+      this.descending = descending;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public int compare(CsvSortLine a, CsvSortLine b) {
+
+      final Object[] keysA = a.keys;
+      final Object[] keysB = b.keys;
+      for (int i = 0; i < keysA.length; i++) {
+        int result = Util.compare((Comparable) keysA[i], (Comparable) keysB[i]);
+        if (result != 0) {
+          return descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+  }
+  
+  private final CsvConfig config;
+  private final SortConfig sortConfig;
+  private final List<Key> keyList;
+  private ErrorHandler errorHandler;
+  
+  /**
+   * Constructor with default sort configuration.
+   * @param config CSV configuration of the input
+   */
+  public CsvSort(CsvConfig config) {
+    
+    this(config, new SortConfig());
+  }
+  
+  /**
+   * Constructor.
+   * @param config CSV configuration of the input
+   * @param sortConfig sort configuration
+   */
+  public CsvSort(CsvConfig config, SortConfig sortConfig) {
+    
+    this.config = config;
+    this.sortConfig = sortConfig;
+    keyList = new ArrayList<Key>();
+  }
+  
+  /**
+   * Adds a key column.
+   * Key columns are compared in the sequence in which they are added.
+   * @param position column position, the first position is <code>1</code>
+   * @param type key type
+   * @param descending <code>true</code> for descending order
+   */
+  public void addKey(int position, SortKeyType type, boolean descending) {
+    
+    keyList.add(new Key(null, position, type, descending));
+  }
+  
+  /**
+   * Adds a key column.
+   * Key columns are compared in the sequence in which they are added.
+   * @param columnName column name
+   * @param type key type
+   * @param descending <code>true</code> for descending order
+   */
+  public void addKey(String columnName, SortKeyType type, boolean descending) {
+    
+    keyList.add(new Key(columnName, 0, type, descending));
+  }
+  
+  /**
+   * Sets the error handler which is used for key columns that cannot be parsed.
+   * @param errorHandler error handler
+   */
+  public void setErrorHandler(ErrorHandler errorHandler) {
+    
+    this.errorHandler = errorHandler;
+  }
+  
+  /**
+   * Sorts the file specified by the configuration's <code>file</code> property.
+   * The writer is closed after all rows have been written.
+   * @param writer output
+   * @return number of sorted rows
+   * @throws IOException when an I/O error occurs
+   * @throws ConfigException when the configuration has no <code>file</code> property
+   * @throws CsvException when a key column cannot be interpreted
+   */
+  public int sort(Writer writer) throws IOException, ConfigException, CsvException {
+    
+    return sort(config.getFile().createReader(), writer);
+  }
+  
+  /**
+   * Sorts rows from a reader.
+   * Both reader and writer are closed when all rows have been written.
+   * @param reader input
+   * @param writer output
+   * @return number of sorted rows
+   * @throws IOException when an I/O error occurs
+   * @throws CsvException when a key column cannot be interpreted
+   */
+  public int sort(Reader reader, Writer writer) throws IOException, CsvException {
+
+    CsvReader in = new CsvReader(reader, config);
+    Sorter<CsvSortLine> sorter = null;
+    int count = 0;
+    boolean complete = false;
+    
+    try {
+      if (errorHandler != null) {
+        in.setErrorHandler(errorHandler);
+      }
+      
+      final int keyCount = keyList.size();
+      final int[] positions = new int[keyCount];
+      final SortKeyType[] types = new SortKeyType[keyCount];
+      final boolean[] descending = new boolean[keyCount];
+      for (int i = 0; i < keyCount; i++) {
+        Key key = keyList.get(i);
+        positions[i] = (key.name == null) ? key.position : in.getColumnPosition(key.name);
+        types[i] = key.type;
+        descending[i] = key.descending;
+      }
+      
+      final String rowSeparator = config.getRowSeparator();
+      if (config.hasHeaderRow() && in.getRowCount() > 0) {
+        writer.write(in.getPlainRow());
+        writer.write(rowSeparator);
+      }
+      
+      sorter = new Sorter<CsvSortLine>(new LineComparator(descending), sortConfig);
+      
+      while (in.nextRow()) {
+        final Object[] keys = new Object[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+          keys[i] = readKey(in, positions[i], types[i]);
+        }
+        sorter.add(new CsvSortLine(in.getPlainRow(), keys));
+        count++;
+      }
+      in.close();
+      in = null;
+      
+      for (CsvSortLine line : sorter) {
+        writer.write(line.text);
+        writer.write(rowSeparator);
+      }
+      complete = true;
+    } finally {
+      // on failure, release the input and the sorter's temporary resources
+      if (! complete) {
+        if (sorter != null) {
+          sorter.abort();
+        }
+        if (in != null) {
+          in.close();
+        }
+      }
+    }
+    writer.close();
+    
+    return count;
+  }
+  
+  private Object readKey(CsvReader in, int position, SortKeyType type) throws CsvException {
+    
+    switch (type) {
+      case INTEGER:
+        return in.readLongObject(position);
+      case DECIMAL:
+        return in.readBigDecimal(position);
+      case DATE:
+        Date date = in.readDate(position);
+        return (date == null) ? null : Long.valueOf(date.getTime());
+      default:
+        return in.readString(position);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Raw CSV line with extracted key values.
+ * Serialization writes the keys in a compact typed form.
+ */
+final class CsvSortLine implements Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  static private final byte NULL = 0;
+  static private final byte LONG = 1;
+  static private final byte STRING = 2;
+  static private final byte DECIMAL = 3;
+
+  transient String text;
+  transient Object[] keys;
+
+  CsvSortLine(String text, Object[] keys) {
+
+    this.text = text;
+    this.keys = keys;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+
+    out.writeObject(text);
+    out.writeShort(keys.length);
+    for (Object key : keys) {
+      if (key == null) {
+        out.writeByte(NULL);
+      } else if (key instanceof Long) {
+        out.writeByte(LONG);
+        out.writeLong((Long) key);
+      } else if (key instanceof String) {
+        out.writeByte(STRING);
+        out.writeObject(key);
+      } else {
+        BigDecimal decimal = (BigDecimal) key;
+        out.writeByte(DECIMAL);
+        out.writeObject(decimal.unscaledValue().toByteArray());
+        out.writeInt(decimal.scale());
+      }
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+    text = (String) in.readObject();
+    keys = new Object[in.readShort()];
+    for (int i = 0; i < keys.length; i++) {
+      switch (in.readByte()) {
+        case LONG:
+          keys[i] = Long.valueOf(in.readLong());
+          break;
+        case STRING:
+          keys[i] = in.readObject();
+          break;
+        case DECIMAL:
+          byte[] unscaled = (byte[]) in.readObject();
+          keys[i] = new BigDecimal(new BigInteger(unscaled), in.readInt());
+          break;
+        default:
+          break;
+      }
+    }
+  }
+}
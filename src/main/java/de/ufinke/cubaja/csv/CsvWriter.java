@@ -8,7 +8,6 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Date;
-import java.util.List;
 import de.ufinke.cubaja.config.ConfigException;
 import de.ufinke.cubaja.util.Text;
 import de.ufinke.cubaja.util.Util;
@@ -27,6 +26,8 @@ public class CsvWriter {
   private RowFormatter formatter;
   private ColumnBuffer buffer;
   private ColConfig colConfig;
+  private ColumnPipeline pipeline;
+  private ColumnPipelines pipelines;
   
   private ObjectWriterGenerator generator;
   private Class<?> dataClass;
@@ -75,6 +76,7 @@ public class CsvWriter {
     formatter = config.getFormatter();
     formatter.init(out, config);
     buffer = new ColumnBuffer(config);
+    pipelines = new ColumnPipelines(config);
     
     if (config.hasHeaderRow()) {
       writeHeaderRow(config);
@@ -140,23 +142,13 @@ public class CsvWriter {
   
   private void setColConfig(int position) {
     
-    colConfig = config.getColConfig(position);
+    pipeline = pipelines.get(position);
+    colConfig = pipeline.getColConfig();
   }
   
   private void writeBuffer(int position, String value) throws CsvException {
     
-    List<ReplaceConfig> replaceList = colConfig.getReplaceList();
-    if (replaceList != null) {
-      for (ReplaceConfig replace : replaceList) {
-        value = value.replaceAll(replace.getRegex(), replace.getReplacement());
-      }
-    }
-    
-    if (colConfig.getEditor() != null) {
-      value = colConfig.getEditor().editColumn(value, colConfig);
-    }
-    
-    buffer.setColumn(position, value);
+    buffer.setColumn(position, pipeline.write(value));
   }
   
   private void writeNull(int position) throws CsvException {
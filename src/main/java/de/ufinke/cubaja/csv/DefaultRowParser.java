@@ -61,6 +61,7 @@ public class DefaultRowParser implements RowParser {
     }
     
     lineReader = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+    lineCount = 0;
   }
 
   public String readRow() throws IOException, CsvException {
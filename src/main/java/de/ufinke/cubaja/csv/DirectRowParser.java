@@ -0,0 +1,59 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+/**
+ * Row parser which gives access to the columns without creating <code>String</code> objects.
+ * <p>
+ * <code>readRow</code> of a <code>DirectRowParser</code> does not need to build the row as <code>String</code>;
+ * it returns any non-<code>null</code> value as long as there is a row.
+ * The row itself is retrieved by {@link #getRow getRow} when it is needed,
+ * e.g. for error messages.
+ * <p>
+ * {@link CsvReader} uses the methods of this interface to read numeric, boolean and character
+ * columns which have no <code>nullValue</code>, replacement or editor.
+ * @author Uwe Finke
+ */
+public interface DirectRowParser extends RowParser {
+
+  /**
+   * Returns the current row.
+   * @return complete row
+   */
+  public String getRow();
+
+  /**
+   * Returns a column's content as character sequence.
+   * The sequence may be a view into the parser's buffer;
+   * it is only valid until the next call of any parser method.
+   * @param index index of column
+   * @return net column content, or <code>null</code> if the column is empty
+   */
+  public CharSequence getColumnSequence(int index);
+
+  /**
+   * Tells whether a column is empty or consists of whitespace only.
+   * @param index index of column
+   * @return flag
+   */
+  public boolean isBlank(int index);
+
+  /**
+   * Parses a column as <code>int</code> value.
+   * Leading and trailing whitespace is ignored.
+   * @param index index of column
+   * @return value
+   * @throws NumberFormatException if the column does not contain a valid <code>int</code> value
+   */
+  public int getInt(int index) throws NumberFormatException;
+
+  /**
+   * Parses a column as <code>long</code> value.
+   * Leading and trailing whitespace is ignored.
+   * @param index index of column
+   * @return value
+   * @throws NumberFormatException if the column does not contain a valid <code>long</code> value
+   */
+  public long getLong(int index) throws NumberFormatException;
+}
@@ -0,0 +1,592 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import de.ufinke.cubaja.config.ConfigException;
+import de.ufinke.cubaja.io.BufferPool;
+import de.ufinke.cubaja.util.IteratorException;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Reads a CSV file on several threads.
+ * <p>
+ * The file is split into chunks of about equal size at line boundaries.
+ * The chunks are parsed concurrently by a pool of daemon threads,
+ * each with its own {@link CsvReader} and parser,
+ * and the rows are converted into data objects like with {@link CsvReader#readRow CsvReader.readRow}.
+ * <p>
+ * Because a chunk may start at any line, the file must not contain line breaks within escaped columns.
+ * The file must not be compressed,
+ * and the charset must encode the LF character as a single byte (e.g. UTF-8 or ISO-8859-1).
+ * A header row is processed when the <code>ParallelCsvReader</code> is constructed.
+ * The configuration is shared by all threads;
+ * it must not be changed while the file is read,
+ * and row filters or column editors must be threadsafe.
+ * Every thread uses its own instance of the configured parser's class.
+ * A {@link ByteRowParser} or {@link CharRowParser} is copied with its buffer size;
+ * other parser classes, including their subclasses, need a public constructor without arguments.
+ * <p>
+ * By default, the iterator returns the data objects in the order of the rows in the file.
+ * In unordered mode, chunks are returned as soon as they are parsed;
+ * the rows within a chunk remain in file order.
+ * The number of chunks parsed ahead is limited to twice the number of threads.
+ * <p>
+ * Parse errors are passed to the {@link ErrorHandler} on the iterator's thread,
+ * immediately before the data object of the row in error is returned.
+ * The line and row numbers of the errors refer to the whole file.
+ * When the error handler throws an exception, the iterator throws an {@link IteratorException}.
+ * Other exceptions, including runtime exceptions thrown by the threads,
+ * are wrapped into an <code>IteratorException</code>, too.
+ * <p>
+ * The threads are terminated and the file is closed
+ * when the iterator reaches the end of the file or fails.
+ * If the application stops reading before the end of the file,
+ * it should call {@link #close close}.
+ * @author Uwe Finke
+ * @param <D> data type
+ */
+public class ParallelCsvReader<D> implements Iterable<D> {
+
+  static private final Text text = Text.getPackageInstance(ParallelCsvReader.class);
+
+  static private final int DEFAULT_CHUNK_SIZE = 1 << 20;
+  static private final int SCAN_SIZE = 8192;
+
+  /**
+   * Error reported by a worker, with the index of the following data object in the chunk.
+   */
+  static private final class ChunkError {
+
+    final int position;
+    final CsvException error;
+
+    ChunkError(int position, CsvException error) {
+
+      this.position = position;
+      this.error = error;
+    }
+  }
+
+  /**
+   * A chunk of lines and the result of parsing it.
+   */
+  static private final class Chunk implements ErrorHandler {
+
+    final long start;
+    final int length;
+    Object[] data;
+    int size;
+    int lineCount;
+    int rowCount;
+    List<ChunkError> errors;
+    boolean counted;
+    long firstLine;
+    long firstRow;
+
+    Chunk(long start, int length) {
+
+      this.start = start;
+      this.length = length;
+    }
+
+    public void handleError(CsvException error) {
+
+      if (errors == null) {
+        errors = new ArrayList<ChunkError>();
+      }
+      errors.add(new ChunkError(size, error));
+    }
+
+    void add(Object object) {
+
+      if (data == null) {
+        data = new Object[1024];
+      } else if (size == data.length) {
+        Object[] newData = new Object[size << 1];
+        System.arraycopy(data, 0, newData, 0, size);
+        data = newData;
+      }
+      data[size++] = object;
+    }
+  }
+
+  static private FileChannel openChannel(CsvConfig config) throws IOException, ConfigException {
+
+    return new FileInputStream(config.getFile().createFile()).getChannel();
+  }
+
+  private final FileChannel channel;
+  private final CsvConfig config;
+  private final Class<? extends D> clazz;
+  private final ObjectFactory factory;
+  private final ThreadLocal<RowParser> parsers;
+  private final long endPosition;
+  private long dataPosition;
+  private int headerLines;
+  private ErrorHandler errorHandler;
+  private int threadCount;
+  private int chunkSize;
+  private boolean ordered;
+  private ExecutorService executor;
+  private Iterator<D> iterator;
+
+  /**
+   * Constructor for the file specified in the configuration.
+   * @param config configuration
+   * @param clazz data class
+   * @throws IOException when the file could not be read
+   * @throws ConfigException when the configuration has no file name
+   * @throws CsvException when the header row could not be processed or the data class is not suitable
+   */
+  public ParallelCsvReader(CsvConfig config, Class<? extends D> clazz) throws IOException, ConfigException, CsvException {
+
+    this(openChannel(config), config, clazz);
+  }
+
+  /**
+   * Constructor with file channel.
+   * @param channel file channel, read from its current position
+   * @param config configuration
+   * @param clazz data class
+   * @throws IOException when the file could not be read
+   * @throws CsvException when the header row could not be processed or the data class is not suitable
+   */
+  public ParallelCsvReader(FileChannel channel, CsvConfig config, Class<? extends D> clazz) throws IOException, CsvException {
+
+    Charset charset = config.getCharset();
+    byte[] lf = "\n".getBytes(charset);
+    if (lf.length != 1 || lf[0] != '\n') {
+      throw new CsvException(text.get("parallelCharset", charset.name()));
+    }
+
+    this.channel = channel;
+    this.config = config;
+    this.clazz = clazz;
+
+    dataPosition = channel.position();
+    endPosition = channel.size();
+
+    if (config.hasHeaderRow()) {
+      processHeaderRow();
+    }
+
+    // resolve lazily initialized properties before the configuration is shared by the threads
+    config.getColConfig(0);
+    config.getSeparator();
+    config.getTrim();
+    config.getTrueValue();
+    config.getScale();
+    config.getDateFormat();
+
+    try {
+      factory = new ObjectFactoryGenerator(config.getNameMap()).getFactory(clazz);
+    } catch (Exception e) {
+      throw new CsvException(text.get("createObject", clazz.getName()), e);
+    }
+
+    parsers = new ThreadLocal<RowParser>();
+    errorHandler = new DefaultErrorHandler();
+    threadCount = Runtime.getRuntime().availableProcessors();
+    chunkSize = DEFAULT_CHUNK_SIZE;
+    ordered = true;
+  }
+
+  private void processHeaderRow() throws IOException, CsvException {
+
+    long end = findLineEnd(dataPosition);
+    byte[] header = new byte[(int) (end - dataPosition)];
+    read(ByteBuffer.wrap(header), dataPosition);
+
+    CsvReader reader = new CsvReader(new ByteArrayInputStream(header), config);
+    headerLines = reader.getLineCount();
+    reader.close();
+
+    dataPosition = end;
+  }
+
+  /**
+   * Returns the position after the next LF at or after <code>position</code>,
+   * or the end of the file.
+   */
+  private long findLineEnd(long position) throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+    while (position < endPosition) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += n;
+    }
+    return endPosition;
+  }
+
+  private void read(ByteBuffer buffer, long position) throws IOException {
+
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        throw new EOFException(text.get("fileTruncated"));
+      }
+      position += n;
+    }
+  }
+
+  /**
+   * Sets the error handler.
+   * The handler is called on the iterator's thread.
+   * @param errorHandler explicit error handler instance
+   */
+  public void setErrorHandler(ErrorHandler errorHandler) {
+
+    if (errorHandler == null) {
+      errorHandler = new DefaultErrorHandler();
+    }
+    this.errorHandler = errorHandler;
+  }
+
+  /**
+   * Sets the number of threads.
+   * Default is the number of available processors.
+   * @param threadCount number of threads
+   */
+  public void setThreadCount(int threadCount) {
+
+    this.threadCount = Math.max(1, threadCount);
+  }
+
+  /**
+   * Sets the approximate size of a chunk in bytes.
+   * A chunk always ends at a line boundary.
+   * Default is 1 MB.
+   * @param chunkSize chunk size
+   */
+  public void setChunkSize(int chunkSize) {
+
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /**
+   * Sets the ordered mode.
+   * Default is <code>true</code>.
+   * @param ordered if <code>false</code>, chunks are returned in the sequence of completion
+   */
+  public void setOrdered(boolean ordered) {
+
+    this.ordered = ordered;
+  }
+
+  /**
+   * Starts the threads and returns an iterator over the data objects.
+   * Subsequent calls return the same iterator.
+   */
+  public synchronized Iterator<D> iterator() {
+
+    if (iterator == null) {
+      executor = Executors.newFixedThreadPool(threadCount, createThreadFactory());
+      iterator = new ChunkIterator();
+    }
+    return iterator;
+  }
+
+  /**
+   * Terminates the threads and closes the channel.
+   * @throws IOException when the channel could not be closed
+   */
+  public void close() throws IOException {
+
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    channel.close();
+  }
+
+  private ThreadFactory createThreadFactory() {
+
+    return new ThreadFactory() {
+
+      public Thread newThread(Runnable r) {
+
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  private RowParser getParser() throws Exception {
+
+    RowParser parser = parsers.get();
+    if (parser == null) {
+      RowParser template = config.getParser();
+      Class<?> parserClass = template.getClass();
+      if (parserClass == ByteRowParser.class || parserClass == CharRowParser.class) {
+        parser = ((BufferedRowParser) template).copy();
+      } else {
+        parser = (RowParser) parserClass.newInstance();
+      }
+      parsers.set(parser);
+    }
+    return parser;
+  }
+
+  private Chunk parse(Chunk chunk) throws Exception {
+
+    BufferPool pool = BufferPool.getShared();
+    byte[] bytes = pool.acquireArray(chunk.length);
+    try {
+      read(ByteBuffer.wrap(bytes, 0, chunk.length), chunk.start);
+
+      CsvReader reader = new CsvReader(new ByteArrayInputStream(bytes, 0, chunk.length), config, getParser(), false);
+      reader.setErrorHandler(chunk);
+
+      final ObjectFactory factory = this.factory;
+      while (reader.nextRow()) {
+        Object object;
+        try {
+          object = factory.createObject(reader);
+        } catch (Exception e) {
+          throw new CsvException(text.get("createObject", clazz.getName()), e);
+        }
+        chunk.add(object);
+      }
+
+      chunk.lineCount = reader.getLineCount();
+      chunk.rowCount = reader.getRowCount();
+      reader.close();
+    } finally {
+      pool.release(bytes);
+    }
+
+    return chunk;
+  }
+
+  private final class ChunkIterator implements Iterator<D> {
+
+    private final Queue<Future<Chunk>> pending;
+    private final Queue<Future<Chunk>> uncounted;
+    private final CompletionService<Chunk> completion;
+    private final int maxPending;
+    private long nextPosition;
+    private int pendingCount;
+    private long lineCount;
+    private long rowCount;
+    private Chunk chunk;
+    private int position;
+    private int errorIndex;
+    private boolean released;
+
+    ChunkIterator() {
+
+      pending = new ArrayDeque<Future<Chunk>>();
+      uncounted = new ArrayDeque<Future<Chunk>>();
+      completion = ordered ? null : new ExecutorCompletionService<Chunk>(executor);
+      maxPending = threadCount << 1;
+      nextPosition = dataPosition;
+      lineCount = headerLines;
+      rowCount = headerLines;
+      submit();
+    }
+
+    public boolean hasNext() {
+
+      while (chunk == null || position == chunk.size) {
+        if (chunk != null) {
+          reportErrors();
+        }
+        if (pendingCount == 0) {
+          release();
+          return false;
+        }
+        nextChunk();
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public D next() {
+
+      if (! hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      reportErrors();
+
+      final Object[] data = chunk.data;
+      final D result = (D) data[position];
+      data[position++] = null;
+      return result;
+    }
+
+    public void remove() {
+
+      throw new UnsupportedOperationException();
+    }
+
+    private void submit() {
+
+      while (pendingCount < maxPending && nextPosition < endPosition) {
+
+        long start = nextPosition;
+        long end = (endPosition - start <= chunkSize) ? endPosition : findLineEnd(start + chunkSize - 1);
+        nextPosition = end;
+
+        final Chunk newChunk = new Chunk(start, (int) (end - start));
+
+        Callable<Chunk> task = new Callable<Chunk>() {
+
+          public Chunk call() throws Exception {
+
+            return parse(newChunk);
+          }
+        };
+
+        Future<Chunk> future = ordered ? executor.submit(task) : completion.submit(task);
+        if (ordered) {
+          pending.add(future);
+        }
+        uncounted.add(future);
+        pendingCount++;
+      }
+    }
+
+    private long findLineEnd(long position) {
+
+      try {
+        return ParallelCsvReader.this.findLineEnd(position);
+      } catch (IOException e) {
+        throw new IteratorException(e);
+      }
+    }
+
+    private void nextChunk() {
+
+      chunk = get(ordered ? pending.remove() : take());
+      pendingCount--;
+      position = 0;
+      errorIndex = 0;
+
+      while (! uncounted.isEmpty() && uncounted.peek().isDone()) {
+        count();
+      }
+
+      submit();
+    }
+
+    private Future<Chunk> take() {
+
+      try {
+        return completion.take();
+      } catch (InterruptedException e) {
+        throw new IteratorException(e);
+      }
+    }
+
+    private Chunk get(Future<Chunk> future) {
+
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        release();
+        throw new IteratorException(e);
+      } catch (ExecutionException e) {
+        release();
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        } else {
+          throw new IteratorException(cause);
+        }
+      }
+    }
+
+    /**
+     * Terminates the threads and closes the channel once no more chunks are read.
+     */
+    private void release() {
+
+      if (released) {
+        return;
+      }
+      released = true;
+
+      try {
+        close();
+      } catch (IOException e) {
+        throw new IteratorException(e);
+      }
+    }
+
+    /**
+     * Determines the first line and row number of the oldest chunk whose numbers are not yet known.
+     */
+    private void count() {
+
+      Chunk counted = get(uncounted.remove());
+      counted.counted = true;
+      counted.firstLine = lineCount;
+      counted.firstRow = rowCount;
+      lineCount += counted.lineCount;
+      rowCount += counted.rowCount;
+    }
+
+    /**
+     * Passes the errors preceding the current data object to the error handler.
+     */
+    private void reportErrors() {
+
+      final List<ChunkError> errors = chunk.errors;
+      if (errors == null) {
+        return;
+      }
+
+      while (errorIndex < errors.size() && errors.get(errorIndex).position == position) {
+
+        while (! chunk.counted) {
+          count();
+        }
+
+        CsvException error = errors.get(errorIndex++).error;
+        int lineNumber = (error.getLineNumber() == 0) ? 0 : (int) (chunk.firstLine + error.getLineNumber());
+        int rowNumber = (error.getRowNumber() == 0) ? 0 : (int) (chunk.firstRow + error.getRowNumber());
+        CsvException located = new CsvException(error.getPlainMessage(), error.getCause(),
+            lineNumber, rowNumber, error.getRowContent(),
+            error.getColumnNumber(), error.getColumnName(), error.getColumnContent());
+
+        try {
+          errorHandler.handleError(located);
+        } catch (CsvException e) {
+          throw new IteratorException(e);
+        }
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@
 
 package de.ufinke.cubaja.csv;
 
+import java.util.regex.Pattern;
 import de.ufinke.cubaja.config.Mandatory;
 
 /**
@@ -12,8 +13,9 @@ import de.ufinke.cubaja.config.Mandatory;
  * A <code>ColConfig</code>
  * may contain any number of replacement definitions.
  * For every definition, 
- * the replacement of the retrieved column content string is 
- * delegated to {@link java.lang.String#replaceAll String.replaceAll}.
+ * the column content string is replaced
+ * like with {@link java.lang.String#replaceAll String.replaceAll};
+ * the regular expression is compiled only once.
  * </p>
  * <table class="striped">
  * <caption style="text-align:left">XML attributes and subelements</caption>
@@ -53,6 +55,7 @@ import de.ufinke.cubaja.config.Mandatory;
 public class ReplaceConfig {
 
   private String regex;
+  private Pattern pattern;
   private String replacement;
 
   /**
@@ -79,6 +82,16 @@ public class ReplaceConfig {
   public void setRegex(String regex) {
 
     this.regex = regex;
+    pattern = Pattern.compile(regex);
+  }
+
+  /**
+   * Returns the compiled regular expression.
+   * @return pattern
+   */
+  public Pattern getPattern() {
+
+    return pattern;
   }
 
   /**
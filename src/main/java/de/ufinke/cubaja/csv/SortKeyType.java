@@ -0,0 +1,28 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.csv;
+
+/**
+ * Type of a {@link CsvSort} key column.
+ * @author Uwe Finke
+ */
+public enum SortKeyType {
+
+  /**
+   * Column content compared as <code>String</code>.
+   */
+  STRING,
+  /**
+   * Column content compared as <code>long</code> value.
+   */
+  INTEGER,
+  /**
+   * Column content compared as <code>BigDecimal</code> value.
+   */
+  DECIMAL,
+  /**
+   * Column content compared as date, parsed according to the column's <code>datePattern</code>.
+   */
+  DATE
+}
@@ -0,0 +1,222 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Double buffered input stream which reads from a channel in a background thread.
+ * <p>
+ * A daemon thread fills one buffer while the caller consumes the other.
+ * The buffers are direct <code>ByteBuffer</code>s from the {@link BufferPool#getShared shared} buffer pool,
+ * so the channel fills them without intermediate copy.
+ * <p>
+ * An exception thrown by the channel is rethrown by the read operation
+ * which would have returned the failed buffer's data.
+ * {@link #close Close} terminates the background thread and closes the channel.
+ * @author Uwe Finke
+ */
+public class AsyncInputStream extends InputStream {
+
+  static private final Text text = Text.getPackageInstance(AsyncInputStream.class);
+  
+  static private final int BUFFER_COUNT = 2;
+  
+  private final ReadableByteChannel channel;
+  private final int bufferSize;
+  private final Object lock = new Object();
+  private final ArrayDeque<ByteBuffer> filled;
+  private final ArrayDeque<ByteBuffer> empty;
+  private final Thread thread;
+  private ByteBuffer current;
+  private boolean eof;
+  private boolean closed;
+  private IOException error;
+  
+  /**
+   * Constructor.
+   * The background thread is started immediately.
+   * @param channel source channel
+   * @param bufferSize size of each of the two buffers
+   */
+  public AsyncInputStream(ReadableByteChannel channel, int bufferSize) {
+    
+    this.channel = channel;
+    this.bufferSize = Math.max(1, bufferSize);
+    filled = new ArrayDeque<ByteBuffer>(BUFFER_COUNT);
+    empty = new ArrayDeque<ByteBuffer>(BUFFER_COUNT);
+    for (int i = 0; i < BUFFER_COUNT; i++) {
+      empty.addLast(BufferPool.getShared().acquireDirect(this.bufferSize));
+    }
+    
+    thread = new Thread(new Runnable() {
+      
+      public void run() {
+        
+        fill();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+  
+  private void fill() {
+    
+    while (true) {
+      
+      ByteBuffer buffer = null;
+      synchronized (lock) {
+        while (empty.isEmpty() && ! closed) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            closed = true;
+          }
+        }
+        if (closed) {
+          return;
+        }
+        buffer = empty.removeFirst();
+      }
+      
+      boolean end = false;
+      IOException exception = null;
+      try {
+        buffer.clear();
+        buffer.limit(bufferSize);
+        while (buffer.hasRemaining() && ! end) {
+          end = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+      } catch (IOException e) {
+        exception = e;
+      }
+      
+      synchronized (lock) {
+        if (exception == null) {
+          filled.addLast(buffer);
+        } else {
+          // keep the buffer to be released on close
+          empty.addLast(buffer);
+        }
+        error = exception;
+        eof = end;
+        lock.notifyAll();
+        if (end || exception != null) {
+          return;
+        }
+      }
+    }
+  }
+  
+  /**
+   * Makes the next filled buffer current.
+   * @return <code>false</code> at end of data
+   * @throws IOException when the background thread failed
+   */
+  private boolean nextBuffer() throws IOException {
+    
+    while (current == null || ! current.hasRemaining()) {
+      synchronized (lock) {
+        if (closed) {
+          throw new IOException(text.get("streamClosed"));
+        }
+        if (current != null) {
+          empty.addLast(current);
+          current = null;
+          lock.notifyAll();
+        }
+        while (filled.isEmpty() && ! eof && error == null) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+          }
+        }
+        if (filled.isEmpty()) {
+          if (error != null) {
+            throw error;
+          }
+          return false;
+        }
+        current = filled.removeFirst();
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Reads a single byte.
+   */
+  public int read() throws IOException {
+    
+    if (! nextBuffer()) {
+      return -1;
+    }
+    return current.get() & 0xFF;
+  }
+  
+  /**
+   * Reads up to <code>len</code> bytes.
+   * Returns at most the remaining bytes of the current buffer.
+   */
+  public int read(byte[] b, int off, int len) throws IOException {
+    
+    if (len == 0) {
+      return 0;
+    }
+    if (! nextBuffer()) {
+      return -1;
+    }
+    int count = Math.min(len, current.remaining());
+    current.get(b, off, count);
+    return count;
+  }
+  
+  /**
+   * Returns the number of bytes which can be read without blocking.
+   */
+  public int available() throws IOException {
+    
+    return (current == null) ? 0 : current.remaining();
+  }
+  
+  /**
+   * Terminates the background thread and closes the channel.
+   */
+  public void close() throws IOException {
+    
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+    }
+    
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    } finally {
+      channel.close();
+      BufferPool pool = BufferPool.getShared();
+      if (current != null) {
+        pool.release(current);
+      }
+      for (ByteBuffer buffer : filled) {
+        pool.release(buffer);
+      }
+      for (ByteBuffer buffer : empty) {
+        pool.release(buffer);
+      }
+    }
+  }
+}
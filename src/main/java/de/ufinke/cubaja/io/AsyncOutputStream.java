@@ -0,0 +1,261 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Double buffered output stream which writes to a channel in a background thread.
+ * <p>
+ * The caller fills one buffer while a daemon thread writes the other buffer to the channel.
+ * The buffers are direct <code>ByteBuffer</code>s from the {@link BufferPool#getShared shared} buffer pool,
+ * so the channel writes them without intermediate copy.
+ * <p>
+ * An exception thrown by the channel is rethrown by the next write, flush or close operation.
+ * {@link #close Close} writes all pending data before it closes the channel;
+ * the channel is closed even when writing fails.
+ * @author Uwe Finke
+ */
+public class AsyncOutputStream extends OutputStream {
+
+  static private final Text text = Text.getPackageInstance(AsyncOutputStream.class);
+  
+  static private final int BUFFER_COUNT = 2;
+  
+  private final WritableByteChannel channel;
+  private final int bufferSize;
+  private final Object lock = new Object();
+  private final ArrayDeque<ByteBuffer> full;
+  private final ArrayDeque<ByteBuffer> free;
+  private final Thread thread;
+  private int allocated;
+  private ByteBuffer current;
+  private boolean finished;
+  private boolean closed;
+  private IOException error;
+  
+  /**
+   * Constructor.
+   * The background thread is started immediately.
+   * @param channel target channel
+   * @param bufferSize size of each of the two buffers
+   */
+  public AsyncOutputStream(WritableByteChannel channel, int bufferSize) {
+    
+    this.channel = channel;
+    this.bufferSize = Math.max(1, bufferSize);
+    full = new ArrayDeque<ByteBuffer>(BUFFER_COUNT);
+    free = new ArrayDeque<ByteBuffer>(BUFFER_COUNT);
+    
+    current = allocate();
+    
+    thread = new Thread(new Runnable() {
+      
+      public void run() {
+        
+        drain();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+  
+  private ByteBuffer allocate() {
+    
+    allocated++;
+    ByteBuffer buffer = BufferPool.getShared().acquireDirect(bufferSize);
+    buffer.limit(bufferSize);
+    return buffer;
+  }
+  
+  private void drain() {
+    
+    while (true) {
+      
+      ByteBuffer buffer = null;
+      synchronized (lock) {
+        while (full.isEmpty() && ! finished) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            finished = true;
+          }
+        }
+        if (full.isEmpty()) {
+          return;
+        }
+        buffer = full.peekFirst();
+      }
+      
+      try {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        buffer.clear();
+        buffer.limit(bufferSize);
+      } catch (IOException e) {
+        synchronized (lock) {
+          error = e;
+          lock.notifyAll();
+        }
+        return;
+      }
+      
+      synchronized (lock) {
+        full.removeFirst();
+        free.addLast(buffer);
+        lock.notifyAll();
+      }
+    }
+  }
+  
+  /**
+   * Passes the current buffer to the background thread and provides the next one.
+   * Must be called while holding the lock.
+   * @throws IOException when the background thread failed
+   */
+  private void handOver() throws IOException {
+    
+    checkError();
+    while (free.isEmpty() && allocated == BUFFER_COUNT) {
+      await();
+    }
+    
+    full.addLast(current);
+    lock.notifyAll();
+    current = free.isEmpty() ? allocate() : free.removeFirst();
+  }
+  
+  private void await() throws IOException {
+    
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
+    checkError();
+  }
+  
+  private void checkClosed() throws IOException {
+    
+    if (closed) {
+      throw new IOException(text.get("streamClosed"));
+    }
+  }
+  
+  private void checkError() throws IOException {
+    
+    if (error != null) {
+      throw error;
+    }
+  }
+  
+  /**
+   * Writes a single byte.
+   */
+  public void write(int b) throws IOException {
+    
+    checkClosed();
+    if (! current.hasRemaining()) {
+      synchronized (lock) {
+        handOver();
+      }
+    }
+    current.put((byte) b);
+  }
+  
+  /**
+   * Writes a portion of a byte array.
+   */
+  public void write(byte[] b, int off, int len) throws IOException {
+    
+    checkClosed();
+    while (len > 0) {
+      if (! current.hasRemaining()) {
+        synchronized (lock) {
+          handOver();
+        }
+      }
+      int count = Math.min(len, current.remaining());
+      current.put(b, off, count);
+      off += count;
+      len -= count;
+    }
+  }
+  
+  /**
+   * Waits until all data is written to the channel.
+   */
+  public void flush() throws IOException {
+    
+    checkClosed();
+    flushBuffers();
+  }
+  
+  private void flushBuffers() throws IOException {
+    
+    synchronized (lock) {
+      if (current.position() > 0) {
+        handOver();
+      }
+      while (! full.isEmpty()) {
+        checkError();
+        await();
+      }
+      checkError();
+    }
+  }
+  
+  /**
+   * Writes all pending data, terminates the background thread and closes the channel.
+   */
+  public void close() throws IOException {
+    
+    if (closed) {
+      return;
+    }
+    closed = true;
+    
+    try {
+      flushBuffers();
+    } finally {
+      synchronized (lock) {
+        finished = true;
+        lock.notifyAll();
+      }
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      } finally {
+        channel.close();
+        releaseBuffers();
+      }
+    }
+  }
+  
+  private void releaseBuffers() {
+    
+    synchronized (lock) {
+      BufferPool pool = BufferPool.getShared();
+      if (current != null) {
+        pool.release(current);
+        current = null;
+      }
+      while (! free.isEmpty()) {
+        pool.release(free.removeFirst());
+      }
+      while (! full.isEmpty()) {
+        pool.release(full.removeFirst());
+      }
+    }
+  }
+}
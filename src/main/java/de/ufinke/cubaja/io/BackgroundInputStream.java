@@ -0,0 +1,200 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Reads an input stream ahead in a background thread.
+ * <p>
+ * The source stream is read in chunks by a separate daemon thread
+ * and passed to the consumer through a bounded queue.
+ * Expensive work done by the source, such as decompression,
+ * overlaps with the consumer's processing.
+ * <p>
+ * An exception thrown by the source is rethrown by the next read operation.
+ * {@link #close Close} terminates the background thread and closes the source.
+ * @author Uwe Finke
+ */
+public class BackgroundInputStream extends InputStream {
+
+  static private final Text text = Text.getPackageInstance(BackgroundInputStream.class);
+  
+  static private final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  static private final int DEFAULT_CHUNK_COUNT = 4;
+  
+  static private final class Chunk {
+    
+    final byte[] data;
+    int length;
+    boolean last;
+    Throwable error;
+    
+    Chunk(int capacity) {
+      
+      data = new byte[capacity];
+    }
+  }
+  
+  private final InputStream source;
+  private final int chunkSize;
+  private final BlockingQueue<Chunk> queue;
+  private volatile boolean closed;
+  private Chunk chunk;
+  private int position;
+  
+  /**
+   * Constructor with default chunk size (<code>64 KB</code>) and chunk count (<code>4</code>).
+   * @param source source stream
+   */
+  public BackgroundInputStream(InputStream source) {
+    
+    this(source, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_COUNT);
+  }
+  
+  /**
+   * Constructor.
+   * The background thread is started immediately.
+   * @param source source stream
+   * @param chunkSize number of bytes passed to the consumer at once
+   * @param chunkCount maximum number of chunks read ahead
+   */
+  public BackgroundInputStream(InputStream source, int chunkSize, int chunkCount) {
+    
+    this.source = source;
+    this.chunkSize = Math.max(1, chunkSize);
+    queue = new ArrayBlockingQueue<Chunk>(Math.max(1, chunkCount));
+    
+    Thread thread = new Thread(new Runnable() {
+      
+      public void run() {
+        
+        fetch();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+  
+  private void fetch() {
+    
+    boolean last = false;
+    while (! (last || closed)) {
+      Chunk next = new Chunk(chunkSize);
+      try {
+        int count = 0;
+        while (count >= 0 && next.length < chunkSize) {
+          count = source.read(next.data, next.length, chunkSize - next.length);
+          if (count > 0) {
+            next.length += count;
+          }
+        }
+        last = count < 0;
+      } catch (Throwable t) {
+        next.error = t;
+        last = true;
+      }
+      next.last = last;
+      put(next);
+    }
+  }
+  
+  private void put(Chunk next) {
+    
+    boolean written = false;
+    while ((! written) && (! closed)) {
+      try {
+        written = queue.offer(next, 1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        closed = true;
+      }
+    }
+  }
+  
+  private boolean nextChunk() throws IOException {
+    
+    while (chunk == null || position == chunk.length) {
+      if (chunk != null && chunk.last) {
+        rethrow(chunk.error);
+        return false;
+      }
+      if (closed) {
+        throw new IOException(text.get("streamClosed"));
+      }
+      try {
+        chunk = queue.take();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      position = 0;
+    }
+    return true;
+  }
+  
+  private void rethrow(Throwable error) throws IOException {
+    
+    if (error == null) {
+      return;
+    } else if (error instanceof IOException) {
+      throw (IOException) error;
+    } else if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    } else if (error instanceof Error) {
+      throw (Error) error;
+    }
+    throw new IOException(error);
+  }
+  
+  /**
+   * Reads a single byte.
+   */
+  public int read() throws IOException {
+    
+    if (! nextChunk()) {
+      return -1;
+    }
+    return chunk.data[position++] & 0xFF;
+  }
+  
+  /**
+   * Reads up to <code>len</code> bytes.
+   * Returns at most the remaining bytes of the current chunk.
+   */
+  public int read(byte[] b, int off, int len) throws IOException {
+    
+    if (len == 0) {
+      return 0;
+    }
+    if (! nextChunk()) {
+      return -1;
+    }
+    int count = Math.min(len, chunk.length - position);
+    System.arraycopy(chunk.data, position, b, off, count);
+    position += count;
+    return count;
+  }
+  
+  /**
+   * Returns the number of bytes which can be read without blocking.
+   */
+  public int available() throws IOException {
+    
+    return (chunk == null) ? 0 : chunk.length - position;
+  }
+  
+  /**
+   * Terminates the background thread and closes the source.
+   */
+  public void close() throws IOException {
+    
+    closed = true;
+    queue.clear();
+    source.close();
+  }
+}
@@ -0,0 +1,203 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Threadsafe pool of byte arrays and direct <code>ByteBuffer</code>s.
+ * <p>
+ * Buffers are kept in size classes of powers of two, starting with 4 KB.
+ * A request is served with a buffer of the smallest sufficient size class,
+ * so the capacity of an acquired buffer may exceed the requested capacity.
+ * Requests beyond the maximum pooled size are allocated exactly and never pooled.
+ * Each size class holds a limited number of released buffers;
+ * surplus buffers are left to the garbage collector.
+ * <p>
+ * A {@link #getShared shared} instance may be used by all components
+ * of an application, e.g. by {@link RandomAccessBuffer} and {@link DirectBuffer}.
+ * Large buffers are reused instead of being allocated again;
+ * this relieves the heap and avoids the costly allocation of direct memory.
+ * <p>
+ * A buffer must not be used after it has been released.
+ * @author Uwe Finke
+ */
+public final class BufferPool {
+
+  static private final int MIN_SHIFT = 12;
+  static private final int MAX_SHIFT = 30;
+  static private final int DEFAULT_MAX_SIZE = 1 << 26;
+  static private final int DEFAULT_MAX_COUNT = 8;
+  
+  static private final BufferPool shared = new BufferPool();
+  
+  /**
+   * Returns the shared pool.
+   * The shared pool holds buffers up to 64 MB, at most 8 buffers per size class.
+   * @return shared pool
+   */
+  static public BufferPool getShared() {
+    
+    return shared;
+  }
+  
+  private final int maxShift;
+  private final int maxCount;
+  private final ArrayDeque<byte[]>[] arrays;
+  private final ArrayDeque<ByteBuffer>[] directs;
+  
+  /**
+   * Default constructor.
+   * Pools buffers up to 64 MB, at most 8 buffers per size class.
+   */
+  public BufferPool() {
+    
+    this(DEFAULT_MAX_SIZE, DEFAULT_MAX_COUNT);
+  }
+  
+  /**
+   * Constructor.
+   * @param maxSize maximum size of pooled buffers, rounded up to a power of two
+   * @param maxCount maximum number of released buffers per size class
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public BufferPool(int maxSize, int maxCount) {
+    
+    maxShift = Math.min(MAX_SHIFT, Math.max(MIN_SHIFT, shiftOf(maxSize)));
+    this.maxCount = Math.max(0, maxCount);
+    
+    int classCount = maxShift - MIN_SHIFT + 1;
+    arrays = new ArrayDeque[classCount];
+    directs = new ArrayDeque[classCount];
+    for (int i = 0; i < classCount; i++) {
+      arrays[i] = new ArrayDeque<byte[]>();
+      directs[i] = new ArrayDeque<ByteBuffer>();
+    }
+  }
+  
+  static private int shiftOf(int capacity) {
+    
+    return (capacity <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+  }
+  
+  /**
+   * Returns the size class of a capacity.
+   * @param capacity capacity
+   * @return index of size class, or <code>-1</code> when the capacity is not pooled
+   */
+  private int sizeClass(int capacity) {
+    
+    int shift = Math.max(MIN_SHIFT, shiftOf(capacity));
+    return (shift > maxShift) ? -1 : shift - MIN_SHIFT;
+  }
+  
+  /**
+   * Returns a byte array.
+   * The content of the array is undefined.
+   * @param minCapacity minimum length
+   * @return byte array
+   */
+  public byte[] acquireArray(int minCapacity) {
+    
+    int sizeClass = sizeClass(minCapacity);
+    if (sizeClass < 0) {
+      return new byte[minCapacity];
+    }
+    
+    synchronized (this) {
+      byte[] array = arrays[sizeClass].pollLast();
+      if (array != null) {
+        return array;
+      }
+    }
+    return new byte[1 << (sizeClass + MIN_SHIFT)];
+  }
+  
+  /**
+   * Returns a byte array to the pool.
+   * Arrays whose length does not correspond to a size class are ignored.
+   * @param array byte array
+   */
+  public void release(byte[] array) {
+    
+    int sizeClass = exactSizeClass(array.length);
+    if (sizeClass < 0) {
+      return;
+    }
+    
+    synchronized (this) {
+      ArrayDeque<byte[]> queue = arrays[sizeClass];
+      if (queue.size() < maxCount) {
+        queue.addLast(array);
+      }
+    }
+  }
+  
+  /**
+   * Returns a direct <code>ByteBuffer</code>.
+   * The buffer is cleared and has big endian byte order; its content is undefined.
+   * @param minCapacity minimum capacity
+   * @return direct buffer
+   */
+  public ByteBuffer acquireDirect(int minCapacity) {
+    
+    int sizeClass = sizeClass(minCapacity);
+    if (sizeClass < 0) {
+      return ByteBuffer.allocateDirect(minCapacity);
+    }
+    
+    ByteBuffer buffer = null;
+    synchronized (this) {
+      buffer = directs[sizeClass].pollLast();
+    }
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(1 << (sizeClass + MIN_SHIFT));
+    }
+    buffer.clear();
+    return buffer;
+  }
+  
+  /**
+   * Returns a direct <code>ByteBuffer</code> to the pool.
+   * Heap buffers and buffers whose capacity does not correspond to a size class are ignored.
+   * @param buffer direct buffer
+   */
+  public void release(ByteBuffer buffer) {
+    
+    if (! buffer.isDirect()) {
+      return;
+    }
+    int sizeClass = exactSizeClass(buffer.capacity());
+    if (sizeClass < 0) {
+      return;
+    }
+    
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    synchronized (this) {
+      ArrayDeque<ByteBuffer> queue = directs[sizeClass];
+      if (queue.size() < maxCount) {
+        queue.addLast(buffer);
+      }
+    }
+  }
+  
+  private int exactSizeClass(int capacity) {
+    
+    int sizeClass = sizeClass(capacity);
+    return (sizeClass >= 0 && capacity == 1 << (sizeClass + MIN_SHIFT)) ? sizeClass : -1;
+  }
+  
+  /**
+   * Discards all pooled buffers.
+   */
+  public synchronized void clear() {
+    
+    for (int i = 0; i < arrays.length; i++) {
+      arrays[i].clear();
+      directs[i].clear();
+    }
+  }
+}
@@ -0,0 +1,20 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+/**
+ * Compression format of a file (see {@link FileConfig}).
+ * @author Uwe Finke
+ */
+public enum Compression {
+
+  /**
+   * Uncompressed.
+   */
+  NONE,
+  /**
+   * GZIP format.
+   */
+  GZIP
+}
@@ -0,0 +1,133 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Growing random access buffer.
+ * <p>
+ * The position is the current offset within the buffer
+ * where the next write operation inserts data or the next
+ * read operation reads data from.
+ * The size is the maximum count of filled bytes within the buffer;
+ * it may be less than its capacity.
+ * Read operations never can read beyond the size. If such happens,
+ * an <code>EOFException</code> is thrown.
+ * <p>
+ * Implementations are {@link RandomAccessBuffer}, backed by a byte array,
+ * and {@link DirectBuffer}, backed by a direct <code>ByteBuffer</code>.
+ * @author Uwe Finke
+ */
+public interface DataBuffer extends DataInput, DataOutput {
+
+  /**
+   * Sets position and size to <code>0</code>.
+   */
+  public void reset();
+  
+  /**
+   * Sets new position.
+   * Capacity and size are adjusted if required.
+   * @param position new byte position within the buffer, first position is 0
+   */
+  public void setPosition(int position);
+  
+  /**
+   * Retrieves the current position.
+   * @return current position
+   */
+  public int getPosition();
+  
+  /**
+   * Retrieves the current size.
+   * @return size
+   */
+  public int size();
+  
+  /**
+   * Retrieves the current capacity.
+   * @return current capacity
+   */
+  public int capacity();
+  
+  /**
+   * Cuts the content and sets position and size
+   * (see {@link RandomAccessBuffer#cut RandomAccessBuffer.cut}).
+   * @param from first position of area to cut
+   * @param to last position of area to cut
+   */
+  public void cut(int from, int to);
+  
+  /**
+   * Copies the buffers content up to the current size to a byte array.
+   * @return byte array
+   */
+  public byte[] toByteArray();
+  
+  /**
+   * Returns an <code>OutputStream</code> which writes into this buffer.
+   * @return output stream
+   */
+  public OutputStream getOutputStream();
+  
+  /**
+   * Returns an <code>InputStream</code> which reads from this buffer.
+   * @return input stream
+   */
+  public InputStream getInputStream();
+  
+  /**
+   * Reads one byte as <code>InputStream</code> would do.
+   * @return one byte, or <code>-1</code> if the position had reached the current size
+   * @throws IOException reserved for future use
+   */
+  public int read() throws IOException;
+  
+  /**
+   * Reads an array of bytes as <code>InputStream</code> would do.
+   * @param b byte array to fill
+   * @param off start offset within byte array
+   * @param len maximum number of bytes to transfer
+   * @return number of bytes read, <code>-1</code> if the position had reached the current size
+   * @throws IOException reserved for future use
+   */
+  public int read(byte[] b, int off, int len) throws IOException;
+  
+  /**
+   * Copies the content up to the current size to a stream and resets this buffer.
+   * @param out output stream
+   * @throws IOException when there is a problem to write into the stream
+   */
+  public void drainTo(OutputStream out) throws IOException;
+  
+  /**
+   * Copies the content starting at current position to an <code>OutputStream</code> without resetting this buffer.
+   * @param out output stream
+   * @param len number of bytes to transfer
+   * @throws IOException when there is a problem to write into the stream
+   */
+  public void transferTo(OutputStream out, int len) throws IOException;
+  
+  /**
+   * Reads up to <code>len</code> bytes from an <code>InputStream</code> into this buffer.
+   * @param in input stream
+   * @param len number of bytes to transfer
+   * @return number of bytes effectively been read
+   * @throws IOException when there is a problem to read from the stream
+   */
+  public int transferFrom(InputStream in, int len) throws IOException;
+  
+  /**
+   * Returns the allocated memory to the buffer's pool.
+   * Afterwards, the buffer is empty and has capacity <code>0</code>;
+   * it allocates new memory when it is written to again.
+   * Without a pool, the memory is left to the garbage collector.
+   */
+  public void release();
+}
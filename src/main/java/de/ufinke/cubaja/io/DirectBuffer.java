@@ -0,0 +1,646 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Random access buffer backed by a direct <code>ByteBuffer</code>.
+ * <p>
+ * The behaviour corresponds to {@link RandomAccessBuffer}, but the content
+ * is held outside of the Java heap. Large buffers therefore don't burden the garbage collector,
+ * and the content is transferred to or from channels without intermediate copies
+ * (see {@link #drainTo(WritableByteChannel) drainTo} and {@link #transferFrom(ReadableByteChannel, int) transferFrom}).
+ * <p>
+ * The memory is taken from a {@link BufferPool}.
+ * When the buffer must grow, the capacity at least doubles up to the next size class;
+ * the previous memory is returned to the pool.
+ * Call {@link #release release} when the buffer is no longer needed.
+ * <p>
+ * Access to single values is slower than with a <code>RandomAccessBuffer</code>;
+ * use this class for large buffers and bulk transfers.
+ * @author Uwe Finke
+ */
+public class DirectBuffer implements DataBuffer {
+
+  static private class Output extends OutputStream {
+    
+    private DirectBuffer master;
+    
+    public Output(DirectBuffer master) {
+      
+      this.master = master;
+    }
+    
+    public void write(int b) throws IOException {
+      
+      master.write(b);
+    }
+    
+    public void write(byte[] b, int off, int len) throws IOException {
+      
+      master.write(b, off, len);
+    }
+  }
+  
+  static private class Input extends InputStream {
+    
+    private DirectBuffer master;
+    
+    public Input(DirectBuffer master) {
+      
+      this.master = master;
+    }
+    
+    public int read() throws IOException {
+      
+      return master.read();
+    }
+    
+    public int read(byte[] b, int off, int len) throws IOException {
+      
+      return master.read(b, off, len);
+    }
+  }
+  
+  static private final int DEFAULT_CAPACITY = 64 * 1024;
+  static private final int TRANSFER_SIZE = 8192;
+  
+  private final BufferPool pool;
+  private ByteBuffer data;
+  private int position;
+  private int size;
+  
+  private Input inputStream;
+  private Output outputStream;
+  
+  /**
+   * Default constructor.
+   * Uses the {@link BufferPool#getShared shared} pool and an initial capacity of 64 KB.
+   */
+  public DirectBuffer() {
+    
+    this(BufferPool.getShared(), DEFAULT_CAPACITY);
+  }
+  
+  /**
+   * Constructor.
+   * @param pool buffer pool
+   * @param initialCapacity initial capacity, rounded up to the pool's size classes
+   */
+  public DirectBuffer(BufferPool pool, int initialCapacity) {
+    
+    this.pool = pool;
+    data = pool.acquireDirect(initialCapacity);
+  }
+  
+  /**
+   * Returns a view of the content up to the current size.
+   * The view's position is <code>0</code>, its limit is the size.
+   * The view becomes invalid when the buffer grows or is released.
+   * @return byte buffer
+   */
+  public ByteBuffer asByteBuffer() {
+    
+    ByteBuffer view = data.duplicate();
+    view.limit(size);
+    view.position(0);
+    return view;
+  }
+  
+  public void reset() {
+    
+    position = 0;
+    size = 0;
+  }
+  
+  /**
+   * Sets new position.
+   * Capacity and size are adjusted if required.
+   * If the new position exceeds the previous size,
+   * the buffer may contain uninitialized bytes.
+   * @param position new byte position within the buffer, first position is 0
+   */
+  public void setPosition(int position) {
+    
+    this.position = position;
+    if (position > size) {
+      if (position > data.capacity()) {
+        grow(position + 1);
+      }
+      size = position;
+    }
+  }
+  
+  public int getPosition() {
+    
+    return position;
+  }
+  
+  public int size() {
+    
+    return size;
+  }
+  
+  public int capacity() {
+    
+    return data.capacity();
+  }
+  
+  public void cut(int from, int to) {
+    
+    if (from < 0 || to < from || to > size) {
+      throw new IllegalArgumentException("from=" + from + ", to=" + to + ", size=" + size + " (expected 0 <= from <= to <= size)");
+    }
+    
+    if (from > 0) {
+      // compact moves the remaining bytes to the start with a single bulk copy
+      data.limit(to);
+      data.position(from);
+      data.compact();
+      to -= from;
+    }
+    
+    size = to;
+    position = to;
+  }
+  
+  public byte[] toByteArray() {
+    
+    byte[] copy = new byte[size];
+    asByteBuffer().get(copy);
+    return copy;
+  }
+  
+  public void release() {
+    
+    pool.release(data);
+    data = ByteBuffer.allocateDirect(0);
+    reset();
+  }
+  
+  private int newWritePosition(int bytesToWrite) {
+    
+    int newPosition = position + bytesToWrite;
+    if (newPosition > data.capacity()) {
+      grow(newPosition);
+    }
+    if (newPosition > size) {
+      size = newPosition;
+    }
+    return newPosition;
+  }
+  
+  private void grow(int minCapacity) {
+    
+    int capacity = data.capacity();
+    long expanded = (long) capacity + Math.max(DEFAULT_CAPACITY, capacity >> 1);
+    int newCapacity = (int) Math.max(minCapacity, Math.min(expanded, Integer.MAX_VALUE - 8));
+    
+    ByteBuffer newData = pool.acquireDirect(newCapacity);
+    newData.put(asByteBuffer());
+    newData.clear();
+    pool.release(data);
+    data = newData;
+  }
+  
+  private int newReadPosition(int bytesToRead) throws IOException {
+    
+    int newPosition = position + bytesToRead;
+    if (newPosition > size) {
+      throw new EOFException();
+    }
+    return newPosition;
+  }
+  
+  public OutputStream getOutputStream() {
+    
+    if (outputStream == null) {
+      outputStream = new Output(this);
+    }
+    return outputStream;
+  }
+  
+  public InputStream getInputStream() {
+    
+    if (inputStream == null) {
+      inputStream = new Input(this);
+    }
+    return inputStream;
+  }
+  
+  /**
+   * Writes a single byte into the buffer.
+   */
+  public void write(int b) throws IOException {
+    
+    int pos = newWritePosition(1);
+    data.put(position, (byte) b);
+    position = pos;
+  }
+  
+  /**
+   * Writes a byte array into the buffer.
+   */
+  public void write(byte[] b) throws IOException {
+    
+    write(b, 0, b.length);
+  }
+  
+  /**
+   * Writes a portion of a byte array into the buffer.
+   */
+  public void write(byte[] b, int off, int len) throws IOException {
+    
+    int pos = newWritePosition(len);
+    data.position(position);
+    data.put(b, off, len);
+    position = pos;
+  }
+  
+  /**
+   * Writes a <code>boolean</code> into the buffer.
+   */
+  public void writeBoolean(boolean v) throws IOException {
+    
+    write(v ? 1 : 0);
+  }
+  
+  /**
+   * Writes a <code>byte</code> into the buffer.
+   */
+  public void writeByte(int v) throws IOException {
+    
+    write(v);
+  }
+  
+  /**
+   * Writes a <code>short</code> into the buffer.
+   */
+  public void writeShort(int v) throws IOException {
+    
+    int pos = newWritePosition(2);
+    data.putShort(position, (short) v);
+    position = pos;
+  }
+  
+  /**
+   * Writes a <code>char</code> into the buffer.
+   */
+  public void writeChar(int v) throws IOException {
+    
+    writeShort(v);
+  }
+  
+  /**
+   * Writes an <code>int</code> into the buffer.
+   */
+  public void writeInt(int v) throws IOException {
+    
+    int pos = newWritePosition(4);
+    data.putInt(position, v);
+    position = pos;
+  }
+  
+  /**
+   * Writes a <code>long</code> into the buffer.
+   */
+  public void writeLong(long v) throws IOException {
+    
+    int pos = newWritePosition(8);
+    data.putLong(position, v);
+    position = pos;
+  }
+  
+  /**
+   * Writes a <code>float</code> into the buffer.
+   */
+  public void writeFloat(float v) throws IOException {
+    
+    writeInt(Float.floatToIntBits(v));
+  }
+  
+  /**
+   * Writes a <code>double</code> into the buffer.
+   */
+  public void writeDouble(double v) throws IOException {
+    
+    writeLong(Double.doubleToLongBits(v));
+  }
+  
+  /**
+   * Writes a <code>String</code> as bytes into the buffer.
+   */
+  public void writeBytes(String s) throws IOException {
+    
+    int len = s.length();
+    newWritePosition(len);
+    final ByteBuffer data = this.data;
+    int pos = position;
+    for (int i = 0; i < len; i++) {
+      data.put(pos++, (byte) s.charAt(i));
+    }
+    position = pos;
+  }
+  
+  /**
+   * Writes a <code>String</code> as characters into the buffer.
+   */
+  public void writeChars(String s) throws IOException {
+    
+    int len = s.length();
+    newWritePosition(len * 2);
+    final ByteBuffer data = this.data;
+    int pos = position;
+    for (int i = 0; i < len; i++) {
+      data.putChar(pos, s.charAt(i));
+      pos += 2;
+    }
+    position = pos;
+  }
+  
+  /**
+   * Writes an UTF string into the buffer.
+   */
+  public void writeUTF(String s) throws IOException {
+    
+    DataOutputStream dos = new DataOutputStream(getOutputStream());
+    dos.writeUTF(s);
+    dos.flush();
+  }
+  
+  public int read() throws IOException {
+    
+    if (position == size) {
+      return -1;
+    }
+    return data.get(position++) & 0xFF;
+  }
+  
+  public int read(byte[] b, int off, int len) throws IOException {
+    
+    if (position == size) {
+      return -1;
+    }
+    
+    int copySize = Math.min(len, size - position);
+    data.position(position);
+    data.get(b, off, copySize);
+    position = position + copySize;
+    return copySize;
+  }
+  
+  /**
+   * Reads a byte array from the buffer.
+   */
+  public void readFully(byte[] b) throws IOException {
+    
+    readFully(b, 0, b.length);
+  }
+  
+  /**
+   * Reads a portion of a byte array from the buffer.
+   */
+  public void readFully(byte[] b, int off, int len) throws IOException {
+    
+    int pos = newReadPosition(len);
+    data.position(position);
+    data.get(b, off, len);
+    position = pos;
+  }
+  
+  /**
+   * Advances the buffers position.
+   */
+  public int skipBytes(int n) throws IOException {
+    
+    int skipped = Math.min(n, size - position);
+    position += skipped;
+    return skipped;
+  }
+  
+  /**
+   * Reads a <code>boolean</code> from the buffer.
+   */
+  public boolean readBoolean() throws IOException {
+    
+    return readByte() != 0;
+  }
+  
+  /**
+   * Reads a <code>byte</code> from the buffer.
+   */
+  public byte readByte() throws IOException {
+    
+    int pos = newReadPosition(1);
+    byte result = data.get(position);
+    position = pos;
+    return result;
+  }
+  
+  /**
+   * Reads an unsigned byte from the buffer.
+   */
+  public int readUnsignedByte() throws IOException {
+    
+    return readByte() & 0xFF;
+  }
+  
+  /**
+   * Reads a <code>short</code> from the buffer.
+   */
+  public short readShort() throws IOException {
+    
+    int pos = newReadPosition(2);
+    short result = data.getShort(position);
+    position = pos;
+    return result;
+  }
+  
+  /**
+   * Reads an unsigned short from the buffer.
+   */
+  public int readUnsignedShort() throws IOException {
+    
+    return readShort() & 0xFFFF;
+  }
+  
+  /**
+   * Reads a <code>char</code> from the buffer.
+   */
+  public char readChar() throws IOException {
+    
+    return (char) readUnsignedShort();
+  }
+  
+  /**
+   * Reads an <code>int</code> from the buffer.
+   */
+  public int readInt() throws IOException {
+    
+    int pos = newReadPosition(4);
+    int result = data.getInt(position);
+    position = pos;
+    return result;
+  }
+  
+  /**
+   * Reads a <code>long</code> from the buffer.
+   */
+  public long readLong() throws IOException {
+    
+    int pos = newReadPosition(8);
+    long result = data.getLong(position);
+    position = pos;
+    return result;
+  }
+  
+  /**
+   * Reads a <code>float</code> from the buffer.
+   */
+  public float readFloat() throws IOException {
+    
+    return Float.intBitsToFloat(readInt());
+  }
+  
+  /**
+   * Reads a <code>double</code> from the buffer.
+   */
+  public double readDouble() throws IOException {
+    
+    return Double.longBitsToDouble(readLong());
+  }
+  
+  /**
+   * Reads a line from the buffer.
+   */
+  public String readLine() throws IOException {
+    
+    BufferedReader d = new BufferedReader(new InputStreamReader(getInputStream()));
+    return d.readLine();
+  }
+  
+  /**
+   * Reads an UTF string from the buffer.
+   */
+  public String readUTF() throws IOException {
+    
+    DataInputStream d = new DataInputStream(getInputStream());
+    return d.readUTF();
+  }
+  
+  public void drainTo(OutputStream out) throws IOException {
+    
+    position = 0;
+    transferTo(out, size);
+    reset();
+  }
+  
+  public void transferTo(OutputStream out, int len) throws IOException {
+    
+    int pos = newReadPosition(len);
+    byte[] transfer = new byte[Math.min(len, TRANSFER_SIZE)];
+    data.position(position);
+    while (len > 0) {
+      int count = Math.min(len, transfer.length);
+      data.get(transfer, 0, count);
+      out.write(transfer, 0, count);
+      len -= count;
+    }
+    position = pos;
+  }
+  
+  public int transferFrom(InputStream in, int len) throws IOException {
+    
+    int minCapacity = position + len;
+    if (minCapacity > data.capacity()) {
+      grow(minCapacity);
+    }
+    
+    byte[] transfer = new byte[Math.min(len, TRANSFER_SIZE)];
+    int totalBytesTransferred = 0;
+    
+    while (len > 0) {
+      int bytesTransferred = in.read(transfer, 0, Math.min(len, transfer.length));
+      if (bytesTransferred == -1) {
+        len = 0;
+      } else {
+        data.position(position);
+        data.put(transfer, 0, bytesTransferred);
+        totalBytesTransferred += bytesTransferred;
+        position += bytesTransferred;
+        len -= bytesTransferred;
+      }
+    }
+    
+    if (position > size) {
+      size = position;
+    }
+    
+    return totalBytesTransferred;
+  }
+  
+  /**
+   * Writes the content up to the current size to a channel and resets this buffer.
+   * The bytes are passed to the channel without intermediate copy.
+   * @param channel channel
+   * @throws IOException when there is a problem to write into the channel
+   */
+  public void drainTo(WritableByteChannel channel) throws IOException {
+    
+    ByteBuffer view = asByteBuffer();
+    while (view.hasRemaining()) {
+      channel.write(view);
+    }
+    reset();
+  }
+  
+  /**
+   * Reads up to <code>len</code> bytes from a channel into this buffer.
+   * The starting position within this buffer is its current position.
+   * The channel's <code>read</code> method is called repeatedly until all bytes 
+   * requested with the <code>len</code> parameter are read or <code>-1</code> is returned.
+   * @param channel channel
+   * @param len number of bytes to transfer
+   * @return number of bytes effectively been read
+   * @throws IOException when there is a problem to read from the channel
+   */
+  public int transferFrom(ReadableByteChannel channel, int len) throws IOException {
+    
+    int minCapacity = position + len;
+    if (minCapacity > data.capacity()) {
+      grow(minCapacity);
+    }
+    
+    ByteBuffer view = data.duplicate();
+    view.limit(minCapacity);
+    view.position(position);
+    
+    int totalBytesTransferred = 0;
+    while (view.hasRemaining()) {
+      int bytesTransferred = channel.read(view);
+      if (bytesTransferred == -1) {
+        break;
+      }
+      totalBytesTransferred += bytesTransferred;
+    }
+    
+    position += totalBytesTransferred;
+    if (position > size) {
+      size = position;
+    }
+    
+    return totalBytesTransferred;
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import de.ufinke.cubaja.config.ConfigException;
+import de.ufinke.cubaja.config.Mandatory;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Mainframe record field properties.
+ * <p>
+ * The field is mapped to the property of a data class with the same name,
+ * that is, to its setter method when a record is read
+ * and to its getter method when a record is written.
+ * The property type depends on the {@link FieldFormat format};
+ * <code>int</code> and <code>long</code> properties require a scale of <code>0</code>.
+ * </p>
+ * <table class="striped">
+ * <caption style="text-align:left">XML attributes and subelements</caption>
+ * <thead>
+ * <tr>
+ * <th scope="col" style="text-align:left">Name</th>
+ * <th scope="col" style="text-align:left">Description</th>
+ * <th scope="col" style="text-align:center">A/E</th>
+ * <th scope="col" style="text-align:center">M</th>
+ * <th scope="col" style="text-align:center">U</th>
+ * </tr>
+ * </thead>
+ * <tbody>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>name</code></td>
+ * <td style="text-align:left;vertical-align:top">the field name; a property of the data class with this name is mapped to the field</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>offset</code></td>
+ * <td style="text-align:left;vertical-align:top">byte offset of the field within the record, starting with <code>0</code></td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>length</code></td>
+ * <td style="text-align:left;vertical-align:top">number of characters for <code>CHARACTER</code>, number of bytes (1, 2, 4 or 8) for <code>FIXED</code>, number of digits including fractional digits for decimal formats</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>format</code></td>
+ * <td style="text-align:left;vertical-align:top">the field format (see {@link FieldFormat}; default: <code>CHARACTER</code>)</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>scale</code></td>
+ * <td style="text-align:left;vertical-align:top">number of fractional digits of a decimal field (default: <code>0</code>)</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * </tbody>
+ * </table>
+ * <code>A/E</code>: attribute or subelement
+ * <br>
+ * <code>M</code>: mandatory
+ * <br>
+ * <code>U</code>: unique
+ * @author Uwe Finke
+ */
+public class FieldConfig {
+
+  static private final Text text = Text.getPackageInstance(FieldConfig.class);
+  
+  private String name;
+  private int offset;
+  private int length;
+  private FieldFormat format;
+  private int scale;
+  
+  /**
+   * Constructor.
+   */
+  public FieldConfig() {
+    
+    format = FieldFormat.CHARACTER;
+  }
+  
+  /**
+   * Convenience constructor.
+   * @param name field name
+   * @param offset byte offset within the record
+   * @param length number of characters, bytes or digits
+   * @param format field format
+   * @param scale number of fractional digits
+   */
+  public FieldConfig(String name, int offset, int length, FieldFormat format, int scale) {
+    
+    this.name = name;
+    this.offset = offset;
+    this.length = length;
+    this.format = format;
+    this.scale = scale;
+  }
+  
+  /**
+   * Returns the field's name.
+   * @return name
+   */
+  public String getName() {
+    
+    return name;
+  }
+  
+  /**
+   * Sets the field's name.
+   * @param name name of field
+   */
+  @Mandatory
+  public void setName(String name) {
+    
+    this.name = name;
+  }
+  
+  /**
+   * Returns the field's offset.
+   * @return offset
+   */
+  public int getOffset() {
+    
+    return offset;
+  }
+  
+  /**
+   * Sets the field's offset.
+   * The offset of the first byte in the record is 0.
+   * @param offset byte offset
+   * @throws ConfigException when offset is negative
+   */
+  @Mandatory
+  public void setOffset(int offset) throws ConfigException {
+    
+    if (offset < 0) {
+      throw new ConfigException(text.get("fieldOffset", offset));
+    }
+    this.offset = offset;
+  }
+  
+  /**
+   * Returns the field's length.
+   * @return length
+   */
+  public int getLength() {
+    
+    return length;
+  }
+  
+  /**
+   * Sets the field's length.
+   * This is the number of characters for <code>CHARACTER</code> fields,
+   * the number of bytes for <code>FIXED</code> fields
+   * and the number of digits (including fractional digits) for decimal fields.
+   * @param length length
+   * @throws ConfigException when length is less than 1
+   */
+  @Mandatory
+  public void setLength(int length) throws ConfigException {
+    
+    if (length < 1) {
+      throw new ConfigException(text.get("fieldLength", length));
+    }
+    this.length = length;
+  }
+  
+  /**
+   * Returns the field's format.
+   * @return format
+   */
+  public FieldFormat getFormat() {
+    
+    return format;
+  }
+  
+  /**
+   * Sets the field's format.
+   * Default is <code>CHARACTER</code>.
+   * @param format format
+   */
+  public void setFormat(FieldFormat format) {
+    
+    this.format = format;
+  }
+  
+  /**
+   * Returns the field's scale.
+   * @return number of fractional digits
+   */
+  public int getScale() {
+    
+    return scale;
+  }
+  
+  /**
+   * Sets the field's scale.
+   * Default is <code>0</code>.
+   * @param scale number of fractional digits
+   * @throws ConfigException when scale is negative
+   */
+  public void setScale(int scale) throws ConfigException {
+    
+    if (scale < 0) {
+      throw new ConfigException(text.get("fieldScale", scale));
+    }
+    this.scale = scale;
+  }
+  
+  /**
+   * Returns the number of bytes occupied by the field.
+   * For <code>CHARACTER</code> fields the result depends on the character set; 
+   * in this case, <code>-1</code> is returned.
+   */
+  int getByteCount() {
+    
+    switch (format) {
+      case FIXED:
+      case ZONED:
+        return length;
+      case PACKED:
+        return (length >> 1) + 1;
+      case UNSIGNED_PACKED:
+        return (length + 1) >> 1;
+      default:
+        return -1;
+    }
+  }
+}
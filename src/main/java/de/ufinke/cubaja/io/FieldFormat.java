@@ -0,0 +1,33 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+/**
+ * Format of a mainframe record field (see {@link FieldConfig}).
+ * @author Uwe Finke
+ */
+public enum FieldFormat {
+
+  /**
+   * Characters; mapped to <code>String</code>.
+   */
+  CHARACTER,
+  /**
+   * Signed binary with 1, 2, 4 or 8 bytes;
+   * mapped to <code>byte</code>, <code>short</code>, <code>int</code> or <code>long</code>.
+   */
+  FIXED,
+  /**
+   * Zoned decimal; mapped to <code>int</code>, <code>long</code>, <code>double</code> or <code>BigDecimal</code>.
+   */
+  ZONED,
+  /**
+   * Packed decimal; mapped to <code>int</code>, <code>long</code>, <code>double</code> or <code>BigDecimal</code>.
+   */
+  PACKED,
+  /**
+   * Unsigned packed decimal; mapped to <code>int</code>, <code>long</code>, <code>double</code> or <code>BigDecimal</code>.
+   */
+  UNSIGNED_PACKED
+}
@@ -0,0 +1,141 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import de.ufinke.cubaja.cafebabe.Type;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Connects a record field with a property of a data class.
+ * Determines the <code>MainframeInput</code> and <code>MainframeOutput</code> methods
+ * which read and write the field.
+ */
+final class FieldMapping {
+
+  static private final Text text = Text.getPackageInstance(FieldMapping.class);
+  
+  static final Comparator<FieldMapping> OFFSET_ORDER = new Comparator<FieldMapping>() {
+    
+    public int compare(FieldMapping a, FieldMapping b) {
+      
+      return Integer.compare(a.offset, b.offset);
+    }
+  };
+  
+  /**
+   * Returns the mapping for a property type, 
+   * or <code>null</code> if the field cannot be mapped to this type.
+   */
+  static FieldMapping create(FieldConfig field, String methodName, Class<?> propertyType) {
+    
+    FieldMapping mapping = new FieldMapping(field, methodName, propertyType);
+    return mapping.resolve(field) ? mapping : null;
+  }
+  
+  static IllegalArgumentException incompatible(FieldConfig field, Class<?> propertyType) {
+    
+    return new IllegalArgumentException(text.get("fieldType", field.getName(), field.getFormat(), propertyType.getName()));
+  }
+  
+  final String methodName;
+  final int offset;
+  final int byteCount;
+  final Class<?> propertyType;
+  final Type valueType;
+  Type writeValueType;
+  String readMethod;
+  String writeMethod;
+  int[] arguments;
+  
+  private FieldMapping(FieldConfig field, String methodName, Class<?> propertyType) {
+    
+    this.methodName = methodName;
+    offset = field.getOffset();
+    byteCount = field.getByteCount();
+    this.propertyType = propertyType;
+    valueType = new Type(propertyType);
+    writeValueType = valueType;
+  }
+  
+  private boolean resolve(FieldConfig field) {
+
+    final int length = field.getLength();
+    final int scale = field.getScale();
+    
+    switch (field.getFormat()) {
+      
+      case CHARACTER:
+        if (propertyType != String.class) {
+          return false;
+        }
+        setMethods("readString", "writeString", length);
+        return true;
+        
+      case FIXED:
+        if (length == 1 && propertyType == Byte.TYPE) {
+          setMethods("readByte", "writeByte");
+        } else if (length == 2 && propertyType == Short.TYPE) {
+          setMethods("readShort", "writeShort");
+        } else if (length == 4 && propertyType == Integer.TYPE) {
+          setMethods("readInt", "writeInt");
+        } else if (length == 8 && propertyType == Long.TYPE) {
+          setMethods("readLong", "writeLong");
+        } else {
+          return false;
+        }
+        if (propertyType != Long.TYPE) {
+          writeValueType = Type.INT;
+        }
+        return true;
+        
+      case ZONED:
+        return resolveDecimal("Zoned", propertyType, length, scale);
+        
+      case PACKED:
+        return resolveDecimal("Packed", propertyType, length, scale);
+        
+      case UNSIGNED_PACKED:
+        return resolveDecimal("UnsignedPacked", propertyType, length, scale);
+        
+      default:
+        return false;
+    }
+  }
+  
+  private boolean resolveDecimal(String format, Class<?> propertyType, int length, int scale) {
+    
+    String writer = "write" + format;
+    
+    if (propertyType == Integer.TYPE && scale == 0) {
+      setMethods("read" + format + "Int", writer, length);
+    } else if (propertyType == Long.TYPE && scale == 0) {
+      setMethods("read" + format + "Long", writer, length);
+    } else if (propertyType == Double.TYPE) {
+      setMethods("read" + format + "Double", writer, length - scale, scale);
+    } else if (propertyType == BigDecimal.class) {
+      setMethods("read" + format + "BigDecimal", writer, length - scale, scale);
+    } else {
+      return false;
+    }
+    return true;
+  }
+  
+  private void setMethods(String readMethod, String writeMethod, int... arguments) {
+    
+    this.readMethod = readMethod;
+    this.writeMethod = writeMethod;
+    this.arguments = arguments;
+  }
+  
+  Type[] getArgumentTypes() {
+    
+    Type[] types = new Type[arguments.length];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = Type.INT;
+    }
+    return types;
+  }
+}
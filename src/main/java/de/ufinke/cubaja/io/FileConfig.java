@@ -11,10 +11,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 import de.ufinke.cubaja.config.ConfigException;
 import de.ufinke.cubaja.config.Mandatory;
 import de.ufinke.cubaja.util.Text;
@@ -49,12 +53,50 @@ import de.ufinke.cubaja.util.Text;
  * <td style="text-align:center"> </td>
  * <td style="text-align:center">x</td>
  * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>bufferSize</code></td>
+ * <td style="text-align:left">size of the I/O buffer in bytes; in asynchronous mode, size of each of the two buffers</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>async</code></td>
+ * <td style="text-align:left">whether file I/O is done in a background thread (default <code>false</code>)</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>compression</code></td>
+ * <td style="text-align:left">compression format (<code>NONE</code> or <code>GZIP</code>); default derived from file name extension</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>compressionThreads</code></td>
+ * <td style="text-align:left">number of threads compressing output; default is the number of available processors</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
  * </tbody>
  * </table>
  * <p>
  * <code>A/E</code>: attribute or subelement<br>
  * <code>M</code>: mandatory<br>
  * <code>U</code>: unique
+ * </p><p>
+ * Compressed files are handled transparently by the <code>create</code> methods.
+ * Output is compressed in independent blocks on several threads
+ * (see {@link ParallelGzipOutputStream}); 
+ * input is decompressed in a background thread (see {@link BackgroundInputStream}).
+ * </p><p>
+ * In asynchronous mode, the file is read or written through a <code>FileChannel</code>
+ * by a background thread with two large buffers,
+ * so that disk I/O overlaps with the caller's processing
+ * (see {@link AsyncInputStream} and {@link AsyncOutputStream}).
  * </p>
  * @author Uwe Finke
  */
@@ -62,8 +104,17 @@ public class FileConfig {
 
   static private Text text = Text.getPackageInstance(FileConfig.class);
   
+  static private final int GZIP_BLOCK_SIZE = 128 * 1024;
+  static private final int GZIP_BUFFER_SIZE = 64 * 1024;
+  static private final int DEFAULT_BUFFER_SIZE = 8192;
+  static private final int DEFAULT_ASYNC_BUFFER_SIZE = 1024 * 1024;
+  
   private String name;
   private Charset charset;
+  private Compression compression;
+  private int compressionThreads;
+  private int bufferSize;
+  private boolean async;
   
   /**
    * Constructor.
@@ -124,6 +175,103 @@ public class FileConfig {
     return charset;
   }
   
+  /**
+   * Sets the buffer size attribute.
+   * @param bufferSize buffer size in bytes
+   * @throws ConfigException if the size is less than 1024 
+   */
+  public void setBufferSize(int bufferSize) throws ConfigException {
+    
+    if (bufferSize < 1024) {
+      throw new ConfigException(text.get("bufferSize", bufferSize));
+    }
+    this.bufferSize = bufferSize;
+  }
+  
+  /**
+   * Retrieves the buffer size.
+   * Default is <code>8192</code>, in asynchronous mode 1 MB.
+   * @return buffer size
+   */
+  public int getBufferSize() {
+    
+    if (bufferSize == 0) {
+      return async ? DEFAULT_ASYNC_BUFFER_SIZE : DEFAULT_BUFFER_SIZE;
+    }
+    return bufferSize;
+  }
+  
+  /**
+   * Sets the asynchronous mode attribute.
+   * @param async whether file I/O is done in a background thread
+   */
+  public void setAsync(boolean async) {
+    
+    this.async = async;
+  }
+  
+  /**
+   * Retrieves the asynchronous mode attribute.
+   * @return flag
+   */
+  public boolean isAsync() {
+    
+    return async;
+  }
+  
+  /**
+   * Sets the compression attribute.
+   * @param compression compression format
+   */
+  public void setCompression(Compression compression) {
+    
+    this.compression = compression;
+  }
+  
+  /**
+   * Retrieves the compression format.
+   * If no compression was specified, it is derived from the file name:
+   * names ending with <code>.gz</code> denote <code>GZIP</code>,
+   * all other names <code>NONE</code>.
+   * @return compression format
+   */
+  public Compression getCompression() {
+    
+    if (compression != null) {
+      return compression;
+    }
+    if (name != null && name.toLowerCase().endsWith(".gz")) {
+      return Compression.GZIP;
+    }
+    return Compression.NONE;
+  }
+  
+  /**
+   * Sets the number of threads used to compress output.
+   * @param compressionThreads number of threads
+   * @throws ConfigException if the number is not positive
+   */
+  public void setCompressionThreads(int compressionThreads) throws ConfigException {
+    
+    if (compressionThreads < 1) {
+      throw new ConfigException(text.get("compressionThreads"));
+    }
+    this.compressionThreads = compressionThreads;
+  }
+  
+  /**
+   * Retrieves the number of threads used to compress output.
+   * Default is the number of available processors.
+   * @return number of threads
+   */
+  public int getCompressionThreads() {
+    
+    if (compressionThreads == 0) {
+      compressionThreads = Runtime.getRuntime().availableProcessors();
+    }
+    return compressionThreads;
+  }
+  
   /**
    * Creates a file object.
    * @return a file
@@ -162,12 +310,19 @@ public class FileConfig {
    * Creates an output stream.
    * All parent directories which do not already exist
    * will be allocated automatically.
+   * If the file is compressed, the data is compressed on several threads.
+   * In asynchronous mode, <code>close</code> returns when all data is written.
    * @return an output stream
    * @throws IOException when stream could not be created
    */
   public BufferedOutputStream createOutputStream() throws IOException {
     
-    return new BufferedOutputStream(new FileOutputStream(createOutputFile()));
+    FileOutputStream file = new FileOutputStream(createOutputFile());
+    OutputStream stream = async ? new AsyncOutputStream(file.getChannel(), getBufferSize()) : file;
+    if (getCompression() == Compression.GZIP) {
+      stream = new ParallelGzipOutputStream(stream, getCompressionThreads(), GZIP_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+    return async ? new BufferedOutputStream(stream) : new BufferedOutputStream(stream, getBufferSize());
   }
   
   /**
@@ -186,12 +341,18 @@ public class FileConfig {
   
   /**
    * Creates an input stream.
+   * If the file is compressed, the data is decompressed in a background thread.
    * @return an input stream
    * @throws IOException when stream could not be created
    */
   public BufferedInputStream createInputStream() throws IOException {
     
-    return new BufferedInputStream(new FileInputStream(createFile()));
+    FileInputStream file = new FileInputStream(createFile());
+    InputStream stream = async ? new AsyncInputStream(file.getChannel(), getBufferSize()) : file;
+    if (getCompression() == Compression.GZIP) {
+      stream = new BackgroundInputStream(new GZIPInputStream(stream, GZIP_BUFFER_SIZE));
+    }
+    return async ? new BufferedInputStream(stream) : new BufferedInputStream(stream, getBufferSize());
   }
   
   /**
@@ -8,7 +8,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import de.ufinke.cubaja.util.Text;
 
 /**
@@ -17,18 +22,142 @@ import de.ufinke.cubaja.util.Text;
  * Method <code>fillBuffer</code> reads an amount of bytes into an internal buffer.
  * The various <code>read</code> methods retrieve data from the buffer.
  * The position advances automatically.
+ * <p>
+ * When constructed with a <code>ByteBuffer</code> or a <code>FileChannel</code>,
+ * no bytes are copied: <code>fillBuffer</code> just moves a window over the data,
+ * and the <code>read</code> methods retrieve data directly from the window.
+ * A <code>FileChannel</code> is memory mapped in segments of up to 1 GB,
+ * so files larger than 2 GB can be read as well.
  * @author Uwe Finke
  */
 public class MainframeInput {
 
   static private Text text = Text.getPackageInstance(MainframeInput.class);
   
+  static private final long SEGMENT_SIZE = 1L << 30;
+  
+  static private final int LOW_DIGITS = 18;
+  static private final long LOW_FACTOR = 1000000000000000000L;
+  static private final long MAX_EXACT_DOUBLE = 1L << 53;
+  static private final double[] DOUBLE_POWERS = createDoublePowers();
+  
+  static private final int ZONED_SIGN = 0x10;
+  static private final int ZONED_NEGATIVE = 0x20;
+  static private final int PACKED_NEGATIVE = 0x10;
+  
+  static private final byte[] ZONED = createZonedTable();
+  static private final byte[] PACKED_PAIR = createPackedPairTable();
+  static private final byte[] PACKED_SIGN = createPackedSignTable();
+  
+  /**
+   * Digit value of a zoned byte, or -1 if invalid.
+   * Zone <code>C</code> and <code>D</code> are flagged; they are valid in the last byte only.
+   */
+  static private byte[] createZonedTable() {
+    
+    byte[] table = new byte[256];
+    for (int b = 0; b < 256; b++) {
+      int digit = b & 0x0F;
+      int value = -1;
+      if (digit <= 9) {
+        switch (b & 0xF0) {
+          case 0xF0:
+            value = digit;
+            break;
+          case 0xC0:
+            value = digit | ZONED_SIGN;
+            break;
+          case 0xD0:
+            value = digit | ZONED_SIGN | ZONED_NEGATIVE;
+            break;
+        }
+      }
+      table[b] = (byte) value;
+    }
+    return table;
+  }
+  
+  /**
+   * Value (0 to 99) of a packed byte with two digits, or -1 if invalid.
+   */
+  static private byte[] createPackedPairTable() {
+    
+    byte[] table = new byte[256];
+    for (int b = 0; b < 256; b++) {
+      int high = b >>> 4;
+      int low = b & 0x0F;
+      table[b] = (byte) ((high <= 9 && low <= 9) ? high * 10 + low : -1);
+    }
+    return table;
+  }
+  
+  /**
+   * Digit value of the last packed byte with a flagged negative sign, or -1 if invalid.
+   */
+  static private byte[] createPackedSignTable() {
+    
+    byte[] table = new byte[256];
+    for (int b = 0; b < 256; b++) {
+      int digit = b >>> 4;
+      int value = -1;
+      if (digit <= 9) {
+        switch (b & 0x0F) {
+          case 0x0F:
+          case 0x0C:
+            value = digit;
+            break;
+          case 0x0D:
+            value = digit | PACKED_NEGATIVE;
+            break;
+        }
+      }
+      table[b] = (byte) value;
+    }
+    return table;
+  }
+  
+  static private double[] createDoublePowers() {
+    
+    double[] powers = new double[23];
+    double power = 1;
+    for (int i = 0; i < powers.length; i++) {
+      powers[i] = power;
+      power *= 10;
+    }
+    return powers;
+  }
+  
   private final InputStream stream;
+  private final FileChannel channel;
+  private ByteBuffer data;
+  private int dataEnd;
+  private long segmentOffset;
+  private long channelSize;
+  private int recordStart;
+  private int recordEnd;
   private final String charset; // string because of JDK 5.0 compatibility
   private final boolean doubleByte;
+  private final Transcoder transcoder;
+  private byte[] stringBytes;
+  private char[] stringChars;
   private RandomAccessBuffer buffer;
   private boolean eof;
   private int recordCount;
+  private int decimalOffset;
+  private int decimalScale;
+  private long decimalHigh;
+  private long decimalLow;
+  private boolean decimalNegative;
+  private RecordConfig recordConfig;
+  private RecordFactoryGenerator recordGenerator;
+  private Class<?> recordClass;
+  private RecordFactory recordFactory;
+  private ByteBuffer blockData;
+  private int blockDataEnd;
+  private int blockPosition;
+  private int blockEnd;
+  private byte[] blockArray;
+  private byte[] spanArray;
   
   /**
    * Constructor.
@@ -58,18 +187,111 @@ public class MainframeInput {
   public MainframeInput(InputStream stream, String charset) throws UnsupportedEncodingException {
     
     this.stream = stream;
+    channel = null;
     this.charset = charset;
     doubleByte = "A".getBytes(charset).length == 2;
+    transcoder = doubleByte ? null : Transcoder.getInstance(charset);
     buffer = new RandomAccessBuffer();
   }
   
+  /**
+   * Constructor with a <code>ByteBuffer</code>.
+   * <p>
+   * The data between the buffer's current position and its limit is read.
+   * The state of the given buffer is not changed.
+   * @param data byte buffer, e.g. a <code>MappedByteBuffer</code>
+   * @param charset character set
+   * @throws UnsupportedEncodingException when the character set is not supported in the runtime environment 
+   */
+  public MainframeInput(ByteBuffer data, Charset charset) throws UnsupportedEncodingException {
+    
+    this(data, charset.name());
+  }
+  
+  /**
+   * Constructor with a <code>ByteBuffer</code>.
+   * <p>
+   * The data between the buffer's current position and its limit is read.
+   * The state of the given buffer is not changed.
+   * @param data byte buffer, e.g. a <code>MappedByteBuffer</code>
+   * @param charset name of character set
+   * @throws UnsupportedEncodingException when the character set does not exist or ist not supported in the runtime environment
+   */
+  public MainframeInput(ByteBuffer data, String charset) throws UnsupportedEncodingException {
+    
+    stream = null;
+    channel = null;
+    this.charset = charset;
+    doubleByte = "A".getBytes(charset).length == 2;
+    transcoder = doubleByte ? null : Transcoder.getInstance(charset);
+    buffer = new RandomAccessBuffer(0, 0);
+    
+    initData(data.duplicate());
+  }
+  
+  /**
+   * Constructor with a <code>FileChannel</code>.
+   * <p>
+   * The channel is read from its current position; it is memory mapped in read only mode.
+   * @param channel file channel
+   * @param charset character set
+   * @throws IOException when the channel could not be mapped 
+   */
+  public MainframeInput(FileChannel channel, Charset charset) throws IOException {
+    
+    this(channel, charset.name());
+  }
+  
+  /**
+   * Constructor with a <code>FileChannel</code>.
+   * <p>
+   * The channel is read from its current position; it is memory mapped in read only mode.
+   * @param channel file channel
+   * @param charset name of character set
+   * @throws IOException when the channel could not be mapped, or the character set is not supported
+   */
+  public MainframeInput(FileChannel channel, String charset) throws IOException {
+    
+    stream = null;
+    this.channel = channel;
+    this.charset = charset;
+    doubleByte = "A".getBytes(charset).length == 2;
+    transcoder = doubleByte ? null : Transcoder.getInstance(charset);
+    buffer = new RandomAccessBuffer(0, 0);
+    
+    channelSize = channel.size();
+    mapSegment(channel.position());
+  }
+  
+  private void mapSegment(long offset) throws IOException {
+    
+    long size = Math.min(SEGMENT_SIZE, channelSize - offset);
+    segmentOffset = offset;
+    initData(channel.map(FileChannel.MapMode.READ_ONLY, offset, size));
+  }
+  
+  private void initData(ByteBuffer data) {
+    
+    data.order(ByteOrder.BIG_ENDIAN);
+    this.data = data;
+    dataEnd = data.limit();
+    recordStart = data.position();
+    recordEnd = recordStart;
+  }
+  
   /**
    * Closes the underlaying stream.
    * @throws IOException when the stream could not be closed
    */
   public void close() throws IOException {
     
-    stream.close();
+    if (stream != null) {
+      stream.close();
+    }
+    if (channel != null) {
+      channel.close();
+    }
+    data = null;
   }
   
   /**
@@ -81,7 +303,9 @@ public class MainframeInput {
    * <p>
    * For fixed length records, <code>byteCount</code> should be the record length.
    * For variable records, the record length must be retrieved by 
-   * a separate call before the rest of the record can be read.
+   * a separate call before the rest of the record can be read;
+   * alternatively, {@link #nextRecord() nextRecord} reads whole blocks 
+   * when a {@link #setRecordConfig record layout} with a variable format is set.
    * <p>
    * The internal buffer position is set to <code>0</code>.
    * @param byteCount number of bytes to pass into the buffer
@@ -90,6 +314,10 @@ public class MainframeInput {
    */
   public boolean fillBuffer(int byteCount) throws IOException {
     
+    if (data != null) {
+      return moveWindow(byteCount);
+    }
+    
     buffer.reset();
     
     int transferred = buffer.transferFrom(stream, byteCount);
@@ -106,6 +334,50 @@ public class MainframeInput {
     return true;
   }
   
+  private boolean moveWindow(int byteCount) throws IOException {
+    
+    int start = recordEnd;
+    if (channel != null && start + byteCount > dataEnd && segmentOffset + start < channelSize) {
+      mapSegment(segmentOffset + start);
+      start = recordEnd;
+    }
+    
+    int available = dataEnd - start;
+    if (available < byteCount) {
+      if (available == 0 && (! eof)) {
+        eof = true;
+        return false;
+      }
+      throw new EOFException(text.get("prematureEOF", byteCount, available));
+    }
+    
+    final ByteBuffer data = this.data;
+    recordStart = start;
+    recordEnd = start + byteCount;
+    data.limit(recordEnd);
+    data.position(start);
+    
+    return true;
+  }
+  
+  private void checkRemaining(int byteCount) throws IOException {
+    
+    final int remaining = data.remaining();
+    if (remaining < byteCount) {
+      throw new EOFException(text.get("prematureEOF", byteCount, remaining));
+    }
+  }
+  
+  private int nextByte() throws IOException {
+    
+    if (data == null) {
+      return buffer.read();
+    }
+    
+    final ByteBuffer data = this.data;
+    return data.hasRemaining() ? data.get() & 0xFF : -1;
+  }
+  
   /**
    * Fills the internal buffer and increments record count.
    * Calls {@link #fillBuffer(int) fillBuffer}.
@@ -132,13 +404,310 @@ public class MainframeInput {
     return recordCount;
   }
   
+  /**
+   * Sets the record layout.
+   * The layout is used by {@link #nextRecord() nextRecord}, {@link #readRecord readRecord} and {@link #cursor cursor}.
+   * @param recordConfig record layout
+   */
+  public void setRecordConfig(RecordConfig recordConfig) {
+    
+    this.recordConfig = recordConfig;
+    recordGenerator = null;
+    recordClass = null;
+    recordFactory = null;
+  }
+  
+  /**
+   * Returns the record layout.
+   * @return record layout
+   */
+  public RecordConfig getRecordConfig() {
+    
+    return recordConfig;
+  }
+  
+  /**
+   * Reads the next record according to the {@link #setRecordConfig record layout}.
+   * <p>
+   * Fixed length records are read with the layout's record length.
+   * Variable length records are read block by block;
+   * the records are located by their RDWs within the block without further I/O.
+   * Segments of spanned records are joined.
+   * After the call, the record data without RDW is available
+   * starting at position <code>0</code>, and {@link #getSize() getSize} returns its length.
+   * Increments the record count.
+   * @return EOF flag
+   * @throws IOException when the record could not be read, or a descriptor word is invalid
+   */
+  public boolean nextRecord() throws IOException {
+    
+    RecordConfig config = getRequiredRecordConfig();
+    if (config.getFormat() == RecordFormat.F) {
+      return nextRecord(config.getLength());
+    }
+    return nextVariableRecord(config.getFormat());
+  }
+  
+  private boolean nextVariableRecord(RecordFormat format) throws IOException {
+    
+    final boolean spanned = (format == RecordFormat.VBS);
+    boolean spanning = false;
+    int spanLength = 0;
+    
+    while (true) {
+      
+      if (blockPosition >= blockEnd) {
+        if (! nextBlock(format != RecordFormat.V)) {
+          if (spanning) {
+            throw new EOFException(text.get("incompleteSpan", recordCount + 1));
+          }
+          return false;
+        }
+        continue;
+      }
+      
+      final ByteBuffer block = blockData;
+      final int start = blockPosition;
+      block.limit(blockDataEnd);
+      
+      if (start + 4 > blockEnd) {
+        throw new IOException(text.get("invalidDescriptor", "RDW", recordCount + 1));
+      }
+      final int length = block.getShort(start) & 0xFFFF;
+      final int segment = spanned ? block.get(start + 2) : 0;
+      if (length < 4 || start + length > blockEnd || segment < 0 || segment > 3) {
+        throw new IOException(text.get("invalidDescriptor", "RDW", recordCount + 1));
+      }
+      blockPosition = start + length;
+      
+      if (segment == 0 && ! spanning) {
+        setWindow(block, start + 4, start + length);
+        recordCount++;
+        return true;
+      }
+      
+      // first segment (1) starts a span, middle (3) and last (2) segments continue it 
+      if ((segment == 1) == spanning || segment == 0) {
+        throw new IOException(text.get("invalidDescriptor", "RDW", recordCount + 1));
+      }
+      spanning = true;
+      spanLength = appendSpan(block, start + 4, length - 4, spanLength);
+      
+      if (segment == 2) {
+        setWindow(ByteBuffer.wrap(spanArray), 0, spanLength);
+        recordCount++;
+        return true;
+      }
+    }
+  }
+  
+  private boolean nextBlock(boolean blocked) throws IOException {
+    
+    return (stream == null) ? locateBlock(blocked) : readBlock(blocked);
+  }
+  
+  /**
+   * Reads a block (or an unblocked variable record) from the stream
+   * into the block array with two reads.
+   */
+  private boolean readBlock(boolean blocked) throws IOException {
+    
+    if (blockArray == null) {
+      blockArray = new byte[32768];
+      blockData = ByteBuffer.wrap(blockArray);
+    }
+    
+    int transferred = readStream(0, 4);
+    if (transferred < 4) {
+      if (transferred == 0 && (! eof)) {
+        eof = true;
+        return false;
+      }
+      throw new EOFException(text.get("prematureEOF", 4, transferred));
+    }
+    
+    int length = descriptorLength(blockData, 0, blocked);
+    if (length < 4) {
+      throw new IOException(text.get("invalidDescriptor", blocked ? "BDW" : "RDW", recordCount + 1));
+    }
+    if (length > blockArray.length) {
+      blockArray = Arrays.copyOf(blockArray, length);
+      blockData = ByteBuffer.wrap(blockArray);
+    }
+    
+    transferred = readStream(4, length - 4);
+    if (transferred < length - 4) {
+      throw new EOFException(text.get("prematureEOF", length - 4, transferred));
+    }
+    
+    blockDataEnd = length;
+    blockPosition = blocked ? 4 : 0;
+    blockEnd = length;
+    return true;
+  }
+  
+  private int readStream(int offset, int length) throws IOException {
+    
+    int transferred = 0;
+    while (transferred < length) {
+      int count = stream.read(blockArray, offset + transferred, length - transferred);
+      if (count < 0) {
+        break;
+      }
+      transferred += count;
+    }
+    return transferred;
+  }
+  
+  /**
+   * Locates the next block (or unblocked variable record) within the 
+   * <code>ByteBuffer</code> or <code>FileChannel</code> data; remaps the channel if necessary.
+   */
+  private boolean locateBlock(boolean blocked) throws IOException {
+    
+    if (blockData == null) {
+      blockData = data;
+      blockDataEnd = dataEnd;
+      blockEnd = recordEnd;
+    }
+    
+    int start = blockEnd;
+    if (start + 4 > blockDataEnd) {
+      start = remapBlock(start);
+    }
+    
+    int available = blockDataEnd - start;
+    if (available < 4) {
+      if (available == 0 && (! eof)) {
+        eof = true;
+        return false;
+      }
+      throw new EOFException(text.get("prematureEOF", 4, available));
+    }
+    
+    blockData.limit(blockDataEnd);
+    int length = descriptorLength(blockData, start, blocked);
+    if (length < 4) {
+      throw new IOException(text.get("invalidDescriptor", blocked ? "BDW" : "RDW", recordCount + 1));
+    }
+    if (start + length > blockDataEnd) {
+      start = remapBlock(start);
+      if (start + length > blockDataEnd) {
+        throw new EOFException(text.get("prematureEOF", length, blockDataEnd - start));
+      }
+    }
+    
+    blockPosition = blocked ? start + 4 : start;
+    blockEnd = start + length;
+    return true;
+  }
+  
+  private int remapBlock(int start) throws IOException {
+    
+    if (channel == null || segmentOffset + start >= channelSize) {
+      return start;
+    }
+    
+    mapSegment(segmentOffset + start);
+    blockData = data;
+    blockDataEnd = dataEnd;
+    return 0;
+  }
+  
+  static private int descriptorLength(ByteBuffer block, int offset, boolean blocked) {
+    
+    if (blocked && (block.get(offset) & 0x80) != 0) {
+      return block.getInt(offset) & 0x7FFFFFFF; // extended BDW
+    }
+    return block.getShort(offset) & 0xFFFF;
+  }
+  
+  private int appendSpan(ByteBuffer block, int start, int length, int spanLength) {
+    
+    int newLength = spanLength + length;
+    if (spanArray == null) {
+      spanArray = new byte[Math.max(32768, newLength)];
+    } else if (newLength > spanArray.length) {
+      spanArray = Arrays.copyOf(spanArray, Math.max(spanArray.length << 1, newLength));
+    }
+    
+    block.position(start);
+    block.get(spanArray, spanLength, length);
+    return newLength;
+  }
+  
+  private void setWindow(ByteBuffer source, int start, int end) {
+    
+    data = source;
+    recordStart = start;
+    recordEnd = end;
+    source.limit(end);
+    source.position(start);
+  }
+  
+  /**
+   * Maps the current record to a new data object.
+   * <p>
+   * The data class needs a public no-arg constructor
+   * and a setter method for every field of the {@link #setRecordConfig record layout}
+   * which shall be mapped;
+   * fields without a setter are ignored.
+   * The bytecode of the mapper class is generated once per data class.
+   * @param <D> data type
+   * @param clazz data class
+   * @return data object
+   * @throws IOException when a field could not be read or the mapper class could not be generated
+   */
+  @SuppressWarnings("unchecked")
+  public <D> D readRecord(Class<? extends D> clazz) throws IOException {
+    
+    if (recordClass != clazz) {
+      try {
+        if (recordGenerator == null) {
+          recordGenerator = new RecordFactoryGenerator(getRequiredRecordConfig());
+        }
+        recordFactory = recordGenerator.getFactory(clazz);
+        recordClass = clazz;
+      } catch (Exception e) {
+        throw new IOException(text.get("createMapper", clazz.getName()), e);
+      }
+    }
+    return (D) recordFactory.createObject(this);
+  }
+  
+  /**
+   * Returns an <code>Iterable</code> over the remaining fixed length records,
+   * mapped to data objects.
+   * Combines {@link #nextRecord() nextRecord} and {@link #readRecord readRecord}.
+   * Exceptions are wrapped into an {@link de.ufinke.cubaja.util.IteratorException IteratorException}.
+   * @param <D> data type
+   * @param clazz data class
+   * @return iterable
+   */
+  public <D> Iterable<D> cursor(Class<? extends D> clazz) {
+    
+    return new RecordIterator<D>(this, clazz);
+  }
+  
+  private RecordConfig getRequiredRecordConfig() {
+    
+    if (recordConfig == null) {
+      throw new IllegalStateException(text.get("noRecordConfig"));
+    }
+    return recordConfig;
+  }
+  
   /**
    * Sets the internal buffer's position.
    * @param offset position within the buffer, fist byte position is 0
    */
   public void setPosition(int offset) {
     
-    buffer.setPosition(offset);
+    if (data == null) {
+      buffer.setPosition(offset);
+    } else {
+      data.position(recordStart + offset);
+    }
   }
   
   /**
@@ -147,7 +716,7 @@ public class MainframeInput {
    */
   public int getPosition() {
     
-    return buffer.getPosition();
+    return (data == null) ? buffer.getPosition() : data.position() - recordStart;
   }
   
   /**
@@ -157,7 +726,7 @@ public class MainframeInput {
    */
   public int getSize() {
     
-    return buffer.size();
+    return (data == null) ? buffer.size() : recordEnd - recordStart;
   }
   
   /**
@@ -167,7 +736,7 @@ public class MainframeInput {
    */
   public int readUnsignedByte() throws IOException {
     
-    return buffer.read();
+    return nextByte();
   }
   
   /**
@@ -177,7 +746,11 @@ public class MainframeInput {
    */
   public byte readByte() throws IOException {
     
-    return buffer.readByte();
+    if (data == null) {
+      return buffer.readByte();
+    }
+    checkRemaining(1);
+    return data.get();
   }
   
   /**
@@ -187,7 +760,11 @@ public class MainframeInput {
    */
   public short readShort() throws IOException {
     
-    return buffer.readShort();
+    if (data == null) {
+      return buffer.readShort();
+    }
+    checkRemaining(2);
+    return data.getShort();
   }
   
   /**
@@ -197,7 +774,11 @@ public class MainframeInput {
    */
   public int readInt() throws IOException {
     
-    return buffer.readInt();
+    if (data == null) {
+      return buffer.readInt();
+    }
+    checkRemaining(4);
+    return data.getInt();
   }
   
   /**
@@ -207,7 +788,11 @@ public class MainframeInput {
    */
   public long readLong() throws IOException {
     
-    return buffer.readLong();
+    if (data == null) {
+      return buffer.readLong();
+    }
+    checkRemaining(8);
+    return data.getLong();
   }
   
   /**
@@ -218,10 +803,55 @@ public class MainframeInput {
    */
   public String readString(int charCount) throws IOException {
 
-    int byteCount = doubleByte ? charCount * 2 : charCount;
-    byte[] b = new byte[byteCount];
-    buffer.readFully(b);
-    return new String(b, charset);
+    return readString(charCount, false);
+  }
+  
+  /**
+   * Reads a string and optionally removes trailing spaces.
+   * <p>
+   * With single byte character sets, the bytes are decoded by table lookup
+   * into a reused character array.
+   * @param charCount number of characters
+   * @param trim whether trailing spaces should be removed
+   * @return value
+   * @throws IOException when the requested number of characters could not be read from the buffer
+   */
+  public String readString(int charCount, boolean trim) throws IOException {
+    
+    if (transcoder == null) {
+      int byteCount = doubleByte ? charCount * 2 : charCount;
+      byte[] b = new byte[byteCount];
+      readFully(b, 0, byteCount);
+      String result = new String(b, charset);
+      return trim ? trimRight(result) : result;
+    }
+    
+    if (stringBytes == null || stringBytes.length < charCount) {
+      stringBytes = new byte[charCount];
+      stringChars = new char[charCount];
+    }
+    
+    final byte[] bytes = stringBytes;
+    final char[] chars = stringChars;
+    readFully(bytes, 0, charCount);
+    transcoder.decode(bytes, 0, chars, charCount);
+    
+    int length = charCount;
+    if (trim) {
+      while (length > 0 && chars[length - 1] == ' ') {
+        length--;
+      }
+    }
+    return new String(chars, 0, length);
+  }
+  
+  private String trimRight(String value) {
+    
+    int length = value.length();
+    while (length > 0 && value.charAt(length - 1) == ' ') {
+      length--;
+    }
+    return value.substring(0, length);
   }
   
   /**
@@ -232,7 +862,8 @@ public class MainframeInput {
    */
   public int readZonedInt(int digitCount) throws IOException {
     
-    return Integer.parseInt(readZoned(digitCount, 0, 9));
+    readZoned(digitCount, 0, 9);
+    return decimalInt();
   }
   
   /**
@@ -243,7 +874,8 @@ public class MainframeInput {
    */
   public long readZonedLong(int digitCount) throws IOException {
     
-    return Long.parseLong(readZoned(digitCount, 0, 18));
+    readZoned(digitCount, 0, 18);
+    return decimalLong();
   }
   
   /**
@@ -255,7 +887,8 @@ public class MainframeInput {
    */
   public double readZonedDouble(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return Double.parseDouble(readZoned(integerDigitCount, fractionalDigitCount, 31));
+    readZoned(integerDigitCount, fractionalDigitCount, 31);
+    return decimalDouble();
   }
 
   /**
@@ -267,100 +900,48 @@ public class MainframeInput {
    */
   public BigDecimal readZonedBigDecimal(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return new BigDecimal(readZoned(integerDigitCount, fractionalDigitCount, 31));
+    readZoned(integerDigitCount, fractionalDigitCount, 31);
+    return decimalBigDecimal();
   }
   
-  private String readZoned(int intDigits, int fracDigits, int maxDigits) throws IOException {
+  private void readZoned(int intDigits, int fracDigits, int maxDigits) throws IOException {
     
     int digits = intDigits + fracDigits;
     if (intDigits < 0 || fracDigits < 0 || digits < 1 || digits > maxDigits) {
       throw new IOException(text.get("digitCount", intDigits, fracDigits, maxDigits));
     }
     
-    int offset = buffer.getPosition();
-    
-    int cLen = intDigits + 1;
-    int pointPos = 0;
-    if (fracDigits > 0) {
-      pointPos = cLen;
-      cLen = cLen + fracDigits + 1;
-    }
-    
-    char[] c = new char[cLen];
-    c[0] = '0';
+    final int offset = getPosition();
+    final int highDigits = Math.max(0, digits - LOW_DIGITS);
+    final byte[] table = ZONED;
     
-    int out = 1;
-    int in = 1;
+    long high = 0;
+    long low = 0;
     
-    while (in <= digits) {
-      
-      int b = buffer.read();
-      
-      switch (b & 0xF0) {
-        case 0xF0:
-          break;
-        case 0xD0:
-          if (in == digits) {
-            c[0] = '-';
-          } else {
-            invalidNumeric(offset, digits, "zoned");
-          }
-          break;
-        case 0xC0:
-          if (in != digits) {
-            invalidNumeric(offset, digits, "zoned");
-          }
-          break;
-        default:
-          invalidNumeric(offset, digits, "zoned");
+    for (int in = 1; in < digits; in++) {
+      final int b = nextByte();
+      final int digit = (b < 0) ? -1 : table[b];
+      if (digit < 0 || digit > 9) {
+        invalidNumeric(offset, digits, "zoned");
       }
-      
-      switch (b & 0x0F) {
-        case 0:
-          c[out] = '0';
-          break;
-        case 1:
-          c[out] = '1';
-          break;
-        case 2:
-          c[out] = '2';
-          break;
-        case 3:
-          c[out] = '3';
-          break;
-        case 4:
-          c[out] = '4';
-          break;
-        case 5:
-          c[out] = '5';
-          break;
-        case 6:
-          c[out] = '6';
-          break;
-        case 7:
-          c[out] = '7';
-          break;
-        case 8:
-          c[out] = '8';
-          break;
-        case 9:
-          c[out] = '9';
-          break;
-        default:
-          invalidNumeric(offset, digits, "zoned");
-      }
-      
-      out++;
-      
-      if (out == pointPos) {
-        c[out] = '.';
-        out++;
+      if (in <= highDigits) {
+        high = high * 10 + digit;
+      } else {
+        low = low * 10 + digit;
       }
-      
-      in++;
     }
     
-    return new String(c);
+    final int b = nextByte();
+    final int last = (b < 0) ? -1 : table[b];
+    if (last < 0) {
+      invalidNumeric(offset, digits, "zoned");
+    }
+    
+    decimalOffset = offset;
+    decimalScale = fracDigits;
+    decimalHigh = high;
+    decimalLow = low * 10 + (last & 0x0F);
+    decimalNegative = (last & ZONED_NEGATIVE) != 0;
   }
   
   /**
@@ -371,7 +952,8 @@ public class MainframeInput {
    */
   public int readPackedInt(int digitCount) throws IOException {
     
-    return Integer.parseInt(readPacked(digitCount, 0, 9));
+    readPacked(digitCount, 0, 9);
+    return decimalInt();
   }
   
   /**
@@ -382,7 +964,8 @@ public class MainframeInput {
    */
   public long readPackedLong(int digitCount) throws IOException {
     
-    return Long.parseLong(readPacked(digitCount, 0, 18));
+    readPacked(digitCount, 0, 18);
+    return decimalLong();
   }
   
   /**
@@ -394,7 +977,8 @@ public class MainframeInput {
    */
   public double readPackedDouble(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return Double.parseDouble(readPacked(integerDigitCount, fractionalDigitCount, 31));
+    readPacked(integerDigitCount, fractionalDigitCount, 31);
+    return decimalDouble();
   }
   
   /**
@@ -406,10 +990,11 @@ public class MainframeInput {
    */
   public BigDecimal readPackedBigDecimal(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return new BigDecimal(readPacked(integerDigitCount, fractionalDigitCount, 31));
+    readPacked(integerDigitCount, fractionalDigitCount, 31);
+    return decimalBigDecimal();
   }
   
-  private String readPacked(int intDigits, int fracDigits, int maxDigits) throws IOException {
+  private void readPacked(int intDigits, int fracDigits, int maxDigits) throws IOException {
     
     int digits = intDigits + fracDigits;
     if (intDigits < 0 || fracDigits < 0 || digits < 1 || digits > maxDigits) {
@@ -418,126 +1003,22 @@ public class MainframeInput {
     
     if ((digits & 0x01) == 0) {
       digits++;
-      intDigits++;
     }
     
-    int offset = buffer.getPosition();
+    final int offset = getPosition();
+    final int byteCount = (digits >> 1) + 1;
     
-    int cLen = intDigits + 1;
-    int pointPos = 0;
-    if (fracDigits > 0) {
-      pointPos = cLen;
-      cLen = cLen + fracDigits + 1;
-    }
-    int byteCount = (digits >> 1) + 1;
-    
-    char[] c = new char[cLen];
-    c[0] = '0';
-    
-    int out = 1;
-    int in = 1;
+    readDigitPairs(offset, byteCount - 1, digits, byteCount, "packed");
     
-    while (in <= byteCount) {
-      
-      int b = buffer.read();
-      
-      switch ((b & 0xF0) >>> 4) {
-        case 0:
-          c[out] = '0';
-          break;
-        case 1:
-          c[out] = '1';
-          break;
-        case 2:
-          c[out] = '2';
-          break;
-        case 3:
-          c[out] = '3';
-          break;
-        case 4:
-          c[out] = '4';
-          break;
-        case 5:
-          c[out] = '5';
-          break;
-        case 6:
-          c[out] = '6';
-          break;
-        case 7:
-          c[out] = '7';
-          break;
-        case 8:
-          c[out] = '8';
-          break;
-        case 9:
-          c[out] = '9';
-          break;
-        default:
-          invalidNumeric(offset, byteCount, "packed");
-      }
-      out++;      
-      if (out == pointPos) {
-        c[out] = '.';
-        out++;
-      }
-            
-      if (in == byteCount) {
-        switch (b & 0x0F) {
-          case 0x0F:
-          case 0x0C:
-            break;
-          case 0x0D:
-            c[0] = '-';
-            break;
-          default:
-            invalidNumeric(offset, byteCount, "packed");
-        }
-      } else {
-        switch (b & 0x0F) {
-          case 0:
-            c[out] = '0';
-            break;
-          case 1:
-            c[out] = '1';
-            break;
-          case 2:
-            c[out] = '2';
-            break;
-          case 3:
-            c[out] = '3';
-            break;
-          case 4:
-            c[out] = '4';
-            break;
-          case 5:
-            c[out] = '5';
-            break;
-          case 6:
-            c[out] = '6';
-            break;
-          case 7:
-            c[out] = '7';
-            break;
-          case 8:
-            c[out] = '8';
-            break;
-          case 9:
-            c[out] = '9';
-            break;
-          default:
-            invalidNumeric(offset, byteCount, "packed");
-        }
-        out++;      
-        if (out == pointPos) {
-          c[out] = '.';
-          out++;
-        }
-      }
-      
-      in++;
+    final int b = nextByte();
+    final int last = (b < 0) ? -1 : PACKED_SIGN[b];
+    if (last < 0) {
+      invalidNumeric(offset, byteCount, "packed");
     }
     
-    return new String(c);
+    decimalScale = fracDigits;
+    decimalLow = decimalLow * 10 + (last & 0x0F);
+    decimalNegative = (last & PACKED_NEGATIVE) != 0;
   }
   
   /**
@@ -548,7 +1029,8 @@ public class MainframeInput {
    */
   public int readUnsignedPackedInt(int digitCount) throws IOException {
     
-    return Integer.parseInt(readUnsignedPacked(digitCount, 0, 9));
+    readUnsignedPacked(digitCount, 0, 9);
+    return decimalInt();
   }
   
   /**
@@ -559,7 +1041,8 @@ public class MainframeInput {
    */
   public long readUnsignedPackedLong(int digitCount) throws IOException {
     
-    return Long.parseLong(readUnsignedPacked(digitCount, 0, 18));
+    readUnsignedPacked(digitCount, 0, 18);
+    return decimalLong();
   }
   
   /**
@@ -571,7 +1054,8 @@ public class MainframeInput {
    */
   public double readUnsignedPackedDouble(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return Double.parseDouble(readUnsignedPacked(integerDigitCount, fractionalDigitCount, 32));
+    readUnsignedPacked(integerDigitCount, fractionalDigitCount, 32);
+    return decimalDouble();
   }
   
   /**
@@ -583,10 +1067,11 @@ public class MainframeInput {
    */
   public BigDecimal readUnsignedPackedBigDecimal(int integerDigitCount, int fractionalDigitCount) throws IOException {
     
-    return new BigDecimal(readUnsignedPacked(integerDigitCount, fractionalDigitCount, 32));
+    readUnsignedPacked(integerDigitCount, fractionalDigitCount, 32);
+    return decimalBigDecimal();
   }
   
-  private String readUnsignedPacked(int intDigits, int fracDigits, int maxDigits) throws IOException {
+  private void readUnsignedPacked(int intDigits, int fracDigits, int maxDigits) throws IOException {
     
     int digits = intDigits + fracDigits;
     if (intDigits < 0 || fracDigits < 0 || digits < 1 || digits > maxDigits) {
@@ -595,122 +1080,111 @@ public class MainframeInput {
     
     if ((digits & 0x01) == 1) {
       digits++;
-      intDigits++;
     }
     
-    int offset = buffer.getPosition();
+    final int byteCount = (digits >> 1);
     
-    int cLen = intDigits + 1;
-    int pointPos = 0;
-    if (fracDigits > 0) {
-      pointPos = cLen;
-      cLen = cLen + fracDigits + 1;
-    }
-    int byteCount = (digits >> 1);
+    readDigitPairs(getPosition(), byteCount, digits, byteCount, "unsigned packed");
     
-    char[] c = new char[cLen];
-    c[0] = '0';
+    decimalScale = fracDigits;
+    decimalNegative = false;
+  }
+  
+  /**
+   * Decodes <code>pairCount</code> bytes with two digits each.
+   * The digits which exceed the lowest 18 of all <code>digits</code>
+   * are accumulated into <code>decimalHigh</code>.
+   */
+  private void readDigitPairs(int offset, int pairCount, int digits, int byteCount, String format) throws IOException {
     
-    int out = 1;
-    int in = 1;
+    final int highDigits = Math.max(0, digits - LOW_DIGITS);
+    final byte[] table = PACKED_PAIR;
     
-    while (in <= byteCount) {
-      
-      int b = buffer.read();
-      
-      switch ((b & 0xF0) >>> 4) {
-        case 0:
-          c[out] = '0';
-          break;
-        case 1:
-          c[out] = '1';
-          break;
-        case 2:
-          c[out] = '2';
-          break;
-        case 3:
-          c[out] = '3';
-          break;
-        case 4:
-          c[out] = '4';
-          break;
-        case 5:
-          c[out] = '5';
-          break;
-        case 6:
-          c[out] = '6';
-          break;
-        case 7:
-          c[out] = '7';
-          break;
-        case 8:
-          c[out] = '8';
-          break;
-        case 9:
-          c[out] = '9';
-          break;
-        default:
-          invalidNumeric(offset, byteCount, "unsigned packed");
+    long high = 0;
+    long low = 0;
+    int pos = 0;
+    
+    for (int i = 0; i < pairCount; i++) {
+      final int b = nextByte();
+      final int pair = (b < 0) ? -1 : table[b];
+      if (pair < 0) {
+        invalidNumeric(offset, byteCount, format);
       }
-      out++;      
-      if (out == pointPos) {
-        c[out] = '.';
-        out++;
+      if (pos >= highDigits) {
+        low = low * 100 + pair;
+      } else if (pos + 2 <= highDigits) {
+        high = high * 100 + pair;
+      } else {
+        high = high * 10 + pair / 10;
+        low = pair % 10;
       }
-            
-      switch (b & 0x0F) {
-        case 0:
-          c[out] = '0';
-          break;
-        case 1:
-          c[out] = '1';
-          break;
-        case 2:
-          c[out] = '2';
-          break;
-        case 3:
-          c[out] = '3';
-          break;
-        case 4:
-          c[out] = '4';
-          break;
-        case 5:
-          c[out] = '5';
-          break;
-        case 6:
-          c[out] = '6';
-          break;
-        case 7:
-          c[out] = '7';
-          break;
-        case 8:
-          c[out] = '8';
-          break;
-        case 9:
-          c[out] = '9';
-          break;
-        default:
-          invalidNumeric(offset, byteCount, "unsigned packed");
+      pos += 2;
+    }
+    
+    decimalOffset = offset;
+    decimalHigh = high;
+    decimalLow = low;
+  }
+  
+  private long decimalLong() {
+    
+    long value = decimalNegative ? -decimalLow : decimalLow;
+    
+    if (decimalHigh != 0) {
+      try {
+        value = Math.addExact(Math.multiplyExact(decimalNegative ? -decimalHigh : decimalHigh, LOW_FACTOR), value);
+      } catch (ArithmeticException e) {
+        throw new NumberFormatException(text.get("numericOverflow", decimalOffset, "long"));
       }
-      out++;      
-      if (out == pointPos) {
-        c[out] = '.';
-        out++;
+    }
+    
+    return value;
+  }
+  
+  private int decimalInt() {
+    
+    final long value = decimalNegative ? -decimalLow : decimalLow;
+    
+    if (value != (int) value) {
+      throw new NumberFormatException(text.get("numericOverflow", decimalOffset, "int"));
+    }
+    
+    return (int) value;
+  }
+  
+  private BigDecimal decimalBigDecimal() {
+    
+    if (decimalHigh == 0) {
+      return BigDecimal.valueOf(decimalNegative ? -decimalLow : decimalLow, decimalScale);
+    }
+    
+    BigInteger unscaled = BigInteger.valueOf(decimalHigh).multiply(BigInteger.valueOf(LOW_FACTOR)).add(BigInteger.valueOf(decimalLow));
+    return new BigDecimal(decimalNegative ? unscaled.negate() : unscaled, decimalScale);
+  }
+  
+  private double decimalDouble() {
+    
+    if (decimalHigh == 0 && (decimalScale == 0 || (decimalLow <= MAX_EXACT_DOUBLE && decimalScale < DOUBLE_POWERS.length))) {
+      // both operands are exact, so the division is correctly rounded
+      double value = decimalLow;
+      if (decimalScale > 0) {
+        value /= DOUBLE_POWERS[decimalScale];
       }
-      
-      in++;
+      return decimalNegative ? -value : value;
     }
     
-    return new String(c);
+    double value = decimalBigDecimal().doubleValue();
+    return (decimalNegative && value == 0) ? -0.0 : value;
   }
+
   
   private void invalidNumeric(int offset, int count, String format) throws IOException {
     
-    buffer.setPosition(offset);
+    setPosition(offset);
     
     StringBuilder sb = new StringBuilder(count * 2);
     for (int i = 0; i < count; i++) {
-      String s = Integer.toHexString(buffer.read());
+      String s = Integer.toHexString(nextByte());
       if (s.length() == 1) {
         sb.append('0');
       }
@@ -728,7 +1202,13 @@ public class MainframeInput {
    */
   public int skipBytes(int n) throws IOException {
 
-    return buffer.skipBytes(n);
+    if (data == null) {
+      return buffer.skipBytes(n);
+    }
+    
+    int skipped = Math.min(n, data.remaining());
+    data.position(data.position() + skipped);
+    return skipped;
   }
 
   /**
@@ -740,7 +1220,7 @@ public class MainframeInput {
   public byte[] readBytes(int count) throws IOException {
     
     byte[] array = new byte[count];
-    buffer.readFully(array);
+    readFully(array, 0, count);
     return array;
   }
   
@@ -751,7 +1231,7 @@ public class MainframeInput {
    */
   public void readFully(byte[] b) throws IOException {
     
-    buffer.readFully(b);
+    readFully(b, 0, b.length);
   }
   
   /**
@@ -763,12 +1243,18 @@ public class MainframeInput {
    */
   public void readFully(byte[] b, int off, int len) throws IOException {
 
-    buffer.readFully(b, off, len);
+    if (data == null) {
+      buffer.readFully(b, off, len);
+    } else {
+      checkRemaining(len);
+      data.get(b, off, len);
+    }
   }
   
   /**
    * Gives access to the internal buffer.
    * Use the buffer only if you know what you're doing.
+   * The buffer is not used when reading from a <code>ByteBuffer</code> or <code>FileChannel</code>.
    * @return the buffer
    */
   public RandomAccessBuffer getBuffer() {
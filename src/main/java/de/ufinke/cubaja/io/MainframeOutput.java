@@ -6,9 +6,14 @@ package de.ufinke.cubaja.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import de.ufinke.cubaja.util.Text;
-import de.ufinke.cubaja.util.Util;
 
 /**
  * Writes mainframe data.
@@ -16,6 +21,8 @@ import de.ufinke.cubaja.util.Util;
  * The various <code>write</code> methods write data into an internal buffer.
  * Method <code>drainBuffer</code> writes the buffer's content 
  * to the target output stream.
+ * When constructed with a channel, the records are packed into a large buffer
+ * which is written to the channel when it is full.
  * <p>
  * To produce variable length records,
  * set the position manually to the start of the record's data area
@@ -28,10 +35,105 @@ public class MainframeOutput {
 
   static private Text text = Text.getPackageInstance(MainframeOutput.class);
   
+  /**
+   * Packs the written data into a direct buffer which is written to the channel when it is full.
+   */
+  static private final class ChannelOutput extends OutputStream {
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer out;
+    private final ByteBuffer[] gather;
+    
+    ChannelOutput(WritableByteChannel channel, int bufferSize) {
+      
+      this.channel = channel;
+      out = BufferPool.getShared().acquireDirect(bufferSize);
+      gather = (channel instanceof GatheringByteChannel) ? new ByteBuffer[2] : null;
+    }
+    
+    public void write(int b) throws IOException {
+      
+      if (! out.hasRemaining()) {
+        flushBuffer();
+      }
+      out.put((byte) b);
+    }
+    
+    public void write(byte[] b, int off, int len) throws IOException {
+      
+      if (len <= out.remaining()) {
+        out.put(b, off, len);
+        return;
+      }
+      
+      ByteBuffer data = ByteBuffer.wrap(b, off, len);
+      if (gather != null) {
+        out.flip();
+        gather[0] = out;
+        gather[1] = data;
+        while (data.hasRemaining()) {
+          ((GatheringByteChannel) channel).write(gather);
+        }
+        out.clear();
+      } else {
+        flushBuffer();
+        if (len <= out.remaining()) {
+          out.put(data);
+        } else {
+          while (data.hasRemaining()) {
+            channel.write(data);
+          }
+        }
+      }
+    }
+    
+    private void flushBuffer() throws IOException {
+      
+      out.flip();
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+      out.clear();
+    }
+    
+    public void flush() throws IOException {
+      
+      flushBuffer();
+    }
+    
+    public void close() throws IOException {
+      
+      try {
+        flushBuffer();
+      } finally {
+        BufferPool.getShared().release(out);
+        channel.close();
+      }
+    }
+  }
+  
+  static private final int LOW_DIGITS = 18;
+  static private final long LOW_FACTOR = 1000000000000000000L;
+  static private final int MAX_BLOCK_SIZE = 32760;
+  static private final int DEFAULT_CHANNEL_BUFFER_SIZE = 1024 * 1024;
+  
   private final OutputStream stream;
   private final String charset; // string because of JDK 5.0 compatibility
+  private final Transcoder transcoder;
+  private byte[] stringBytes;
   private RandomAccessBuffer buffer;
   private int recordCount;
+  private long decimalHigh;
+  private long decimalLow;
+  private boolean decimalNegative;
+  private byte[] digitBuffer = new byte[32];
+  private RecordConfig recordConfig;
+  private RecordWriterGenerator recordGenerator;
+  private Class<?> recordClass;
+  private RecordWriter recordWriter;
+  private byte[] blankRecord;
+  private byte[] block;
+  private int blockLength;
   
   /**
    * Constructor.
@@ -60,15 +162,82 @@ public class MainframeOutput {
     
     this.stream = stream;
     this.charset = charset;
+    transcoder = Transcoder.getInstance(charset);
     buffer = new RandomAccessBuffer();
   }
   
   /**
-   * Closes the underlaying stream.
+   * Constructor with a channel and a buffer size of 1 MB.
+   * @param channel channel, e.g. a <code>FileChannel</code>
+   * @param charset character set
+   * @see #MainframeOutput(WritableByteChannel, String, int)
+   */
+  public MainframeOutput(WritableByteChannel channel, Charset charset) {
+    
+    this(channel, charset.name(), DEFAULT_CHANNEL_BUFFER_SIZE);
+  }
+  
+  /**
+   * Constructor with a channel and a buffer size of 1 MB.
+   * @param channel channel, e.g. a <code>FileChannel</code>
+   * @param charset name of a character set
+   * @see #MainframeOutput(WritableByteChannel, String, int)
+   */
+  public MainframeOutput(WritableByteChannel channel, String charset) {
+    
+    this(channel, charset, DEFAULT_CHANNEL_BUFFER_SIZE);
+  }
+  
+  /**
+   * Constructor with a channel.
+   * @param channel channel, e.g. a <code>FileChannel</code>
+   * @param charset character set
+   * @param bufferSize size of the output buffer
+   * @see #MainframeOutput(WritableByteChannel, String, int)
+   */
+  public MainframeOutput(WritableByteChannel channel, Charset charset, int bufferSize) {
+    
+    this(channel, charset.name(), bufferSize);
+  }
+  
+  /**
+   * Constructor with a channel.
+   * <p>
+   * Records and blocks are packed into a direct buffer of the given size,
+   * which is written to the channel when it is full.
+   * Data which doesn't fit into the remaining buffer space
+   * is written together with the buffer by a single gathering write
+   * if the channel supports it (as <code>FileChannel</code> does).
+   * Call {@link #flush flush} or {@link #close close} to write the buffer's remaining content.
+   * @param channel channel, e.g. a <code>FileChannel</code>
+   * @param charset name of a character set
+   * @param bufferSize size of the output buffer
+   */
+  public MainframeOutput(WritableByteChannel channel, String charset, int bufferSize) {
+    
+    this(new ChannelOutput(channel, Math.max(MAX_BLOCK_SIZE, bufferSize)), charset);
+  }
+  
+  /**
+   * Writes buffered data to the underlaying stream or channel.
+   * Neither the internal buffer nor a pending block of variable length records is written.
+   * @throws IOException when there is a problem to write into the stream
+   */
+  public void flush() throws IOException {
+    
+    stream.flush();
+  }
+  
+  /**
+   * Closes the underlaying stream or channel.
+   * A pending block of variable length records is written before.
    * @throws IOException when the stream could not be closed
    */
   public void close() throws IOException {
     
+    if (blockLength > 0) {
+      writeBlock();
+    }
     stream.close();
   }
   
@@ -84,14 +253,110 @@ public class MainframeOutput {
   /**
    * Writes a record.
    * Calls {@link #drainBuffer() drainBuffer} and increments the record count.
-   * @throws IOException when there is a problem to write into the stream
+   * <p>
+   * If a {@link #setRecordConfig record layout} with a variable {@link RecordFormat format} is set,
+   * the buffer's content is written as record data with an RDW.
+   * In blocked formats, the records are collected and written as full blocks with BDW;
+   * in format <code>VBS</code>, records which do not fit into the current block
+   * are split into segments.
+   * @throws IOException when there is a problem to write into the stream, or the record is too long for the format
    */
   public void nextRecord() throws IOException {
     
-    drainBuffer();
+    if (recordConfig == null || recordConfig.getFormat() == RecordFormat.F) {
+      drainBuffer();
+    } else {
+      writeVariableRecord(recordConfig.getFormat(), recordConfig.getBlockSize());
+    }
     recordCount++;
   }
   
+  private void writeVariableRecord(RecordFormat format, int blockSize) throws IOException {
+    
+    if (block == null) {
+      block = new byte[MAX_BLOCK_SIZE];
+    }
+    
+    final int size = buffer.size();
+    buffer.setPosition(0);
+    
+    switch (format) {
+      
+      case V:
+        if (size + 4 > MAX_BLOCK_SIZE) {
+          throw new IOException(text.get("recordTooLong", size, MAX_BLOCK_SIZE - 4));
+        }
+        putSegment(0, 0, size);
+        stream.write(block, 0, size + 4);
+        break;
+        
+      case VB:
+        if (size + 8 > blockSize) {
+          throw new IOException(text.get("recordTooLong", size, blockSize - 8));
+        }
+        if (blockLength + size + 4 > blockSize) {
+          writeBlock();
+        }
+        if (blockLength == 0) {
+          blockLength = 4;
+        }
+        putSegment(blockLength, 0, size);
+        blockLength += size + 4;
+        break;
+        
+      default:
+        int remaining = size;
+        int segment = 0;
+        while (true) {
+          if (blockLength == 0) {
+            blockLength = 4;
+          }
+          int free = blockSize - blockLength - 4;
+          if (remaining <= free) {
+            putSegment(blockLength, (segment == 0) ? 0 : 2, remaining);
+            blockLength += remaining + 4;
+            break;
+          }
+          if (free > 0) {
+            putSegment(blockLength, (segment == 0) ? 1 : 3, free);
+            blockLength += free + 4;
+            remaining -= free;
+            segment++;
+          }
+          writeBlock();
+        }
+    }
+    
+    buffer.reset();
+  }
+  
+  /**
+   * Puts an RDW and the next <code>length</code> bytes of the buffer into the block array.
+   */
+  private void putSegment(int offset, int segmentControl, int length) throws IOException {
+    
+    final byte[] block = this.block;
+    final int rdwLength = length + 4;
+    block[offset] = (byte) (rdwLength >>> 8);
+    block[offset + 1] = (byte) rdwLength;
+    block[offset + 2] = (byte) segmentControl;
+    block[offset + 3] = 0;
+    buffer.readFully(block, offset + 4, length);
+  }
+  
+  private void writeBlock() throws IOException {
+    
+    if (blockLength > 4) {
+      final byte[] block = this.block;
+      block[0] = (byte) (blockLength >>> 8);
+      block[1] = (byte) blockLength;
+      block[2] = 0;
+      block[3] = 0;
+      stream.write(block, 0, blockLength);
+    }
+    blockLength = 0;
+  }
+  
   /**
    * Returns the record count.
    * The record count is incrementet by {@link #nextRecord() nextRecord}.
@@ -102,6 +367,84 @@ public class MainframeOutput {
     return recordCount;
   }
   
+  /**
+   * Sets the record layout used by {@link #writeRecord writeRecord} and {@link #nextRecord() nextRecord}.
+   * The layout should be set before the first record is written.
+   * @param recordConfig record layout
+   */
+  public void setRecordConfig(RecordConfig recordConfig) {
+    
+    this.recordConfig = recordConfig;
+    recordGenerator = null;
+    recordClass = null;
+    recordWriter = null;
+    blankRecord = null;
+  }
+  
+  /**
+   * Returns the record layout.
+   * @return record layout
+   */
+  public RecordConfig getRecordConfig() {
+    
+    return recordConfig;
+  }
+  
+  /**
+   * Writes a data object as fixed length record.
+   * <p>
+   * The data class needs a getter method for every field of the {@link #setRecordConfig record layout}
+   * which shall be mapped;
+   * fields without a getter are ignored.
+   * Bytes which are not covered by a field are filled with spaces.
+   * A <code>null</code> <code>BigDecimal</code> property is written as zero.
+   * The bytecode of the mapper class is generated once per data class.
+   * Calls {@link #nextRecord() nextRecord}.
+   * @param dataObject data object
+   * @throws IOException when a field could not be written or the mapper class could not be generated
+   */
+  public void writeRecord(Object dataObject) throws IOException {
+    
+    Class<?> clazz = dataObject.getClass();
+    if (recordClass != clazz) {
+      if (recordConfig == null) {
+        throw new IllegalStateException(text.get("noRecordConfig"));
+      }
+      try {
+        if (recordGenerator == null) {
+          recordGenerator = new RecordWriterGenerator(recordConfig);
+        }
+        recordWriter = recordGenerator.getWriter(clazz);
+        recordClass = clazz;
+      } catch (Exception e) {
+        throw new IOException(text.get("createMapper", clazz.getName()), e);
+      }
+    }
+    
+    if (blankRecord == null) {
+      blankRecord = createBlankRecord(recordConfig.getLength());
+    }
+    
+    buffer.reset();
+    buffer.write(blankRecord);
+    buffer.setPosition(0);
+    recordWriter.writeObject(this, dataObject);
+    nextRecord();
+  }
+  
+  private byte[] createBlankRecord(int length) throws IOException {
+    
+    if (transcoder != null) {
+      byte[] record = new byte[length];
+      Arrays.fill(record, transcoder.getSpace());
+      return record;
+    }
+    
+    char[] spaces = new char[length];
+    Arrays.fill(spaces, ' ');
+    return Arrays.copyOf(new String(spaces).getBytes(charset), length);
+  }
+  
   /**
    * Sets the internal buffer's position.
    * @param offset position within the buffer, fist byte position is 0
@@ -189,6 +532,9 @@ public class MainframeOutput {
    * it is truncated.
    * <p>
    * A <code>null</code> value is handled as an empty string.
+   * <p>
+   * With single byte character sets, the characters are encoded by table lookup
+   * into a reused byte array.
    * @param value string value
    * @param charCount fix number of characters of the output string 
    * @throws IOException when there is a problem to write into the stream
@@ -199,6 +545,15 @@ public class MainframeOutput {
       value = "";
     }
     
+    if (transcoder != null) {
+      if (stringBytes == null || stringBytes.length < charCount) {
+        stringBytes = new byte[charCount];
+      }
+      transcoder.encode(value, stringBytes, 0, charCount);
+      buffer.write(stringBytes, 0, charCount);
+      return;
+    }
+    
     if (value.length() > charCount) {
       value = value.substring(0, charCount);
     } else if (value.length() < charCount) {
@@ -221,7 +576,7 @@ public class MainframeOutput {
    */
   public void writeZoned(int value, int digits) throws IOException {
     
-    writeZoned(String.valueOf(value), digits);
+    writeZoned((long) value, digits);
   }
   
   /**
@@ -232,7 +587,8 @@ public class MainframeOutput {
    */
   public void writeZoned(long value, int digits) throws IOException {
     
-    writeZoned(String.valueOf(value), digits);
+    setDecimal(value);
+    writeZoned(digits);
   }
   
   /**
@@ -244,12 +600,12 @@ public class MainframeOutput {
    */
   public void writeZoned(double value, int integerDigits, int fractionalDigits) throws IOException {
     
-    value *= Math.pow(10, fractionalDigits);
-    writeZoned(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writeZoned(integerDigits + fractionalDigits);
   }
   
   /**
-   * Writes a <code>BigDecimal</code> in zoned format
+   * Writes a <code>BigDecimal</code> in zoned format.
    * @param value BigDecimal value
    * @param integerDigits number of digits before imaginary decimal point
    * @param fractionalDigits number of digits after imaginary decimal point
@@ -257,65 +613,23 @@ public class MainframeOutput {
    */
   public void writeZoned(BigDecimal value, int integerDigits, int fractionalDigits) throws IOException {
     
-    if (value.scale() != 0) {
-      value = value.scaleByPowerOfTen(fractionalDigits);
-    }
-    writeZoned(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writeZoned(integerDigits + fractionalDigits);
   }
   
-  private void writeZoned(String value, int digits) throws IOException {
+  private void writeZoned(int digits) throws IOException {
 
-    char[] in = normalizeNumber(value, digits);
-    byte[] out = new byte[digits];
-    
-    int inPos = 1;
-    int outPos = 0;
+    final byte[] out = splitDigits(digits);
     
-    while (outPos < digits) {
-      
-      switch (in[inPos]) {
-        case '0':
-          out[outPos] = (byte) 0xF0;
-          break;
-        case '1':
-          out[outPos] = (byte) 0xF1;
-          break;
-        case '2':
-          out[outPos] = (byte) 0xF2;
-          break;
-        case '3':
-          out[outPos] = (byte) 0xF3;
-          break;
-        case '4':
-          out[outPos] = (byte) 0xF4;
-          break;
-        case '5':
-          out[outPos] = (byte) 0xF5;
-          break;
-        case '6':
-          out[outPos] = (byte) 0xF6;
-          break;
-        case '7':
-          out[outPos] = (byte) 0xF7;
-          break;
-        case '8':
-          out[outPos] = (byte) 0xF8;
-          break;
-        case '9':
-          out[outPos] = (byte) 0xF9;
-          break;
-      }
-      
-      inPos++;
-      outPos++;
+    for (int i = 0; i < digits; i++) {
+      out[i] |= 0xF0;
     }
     
-    if (in[0] == '-') {
-      outPos--;
-      out[outPos] = (byte) (out[outPos] & 0xDF); 
+    if (decimalNegative) {
+      out[digits - 1] &= 0xDF; 
     }
     
-    buffer.write(out);
+    buffer.write(out, 0, digits);
   }
   
   /**
@@ -326,7 +640,7 @@ public class MainframeOutput {
    */
   public void writePacked(int value, int digits) throws IOException {
     
-    writePacked(String.valueOf(value), digits);
+    writePacked((long) value, digits);
   }
   
   /**
@@ -337,7 +651,8 @@ public class MainframeOutput {
    */
   public void writePacked(long value, int digits) throws IOException {
     
-    writePacked(String.valueOf(value), digits);
+    setDecimal(value);
+    writePacked(digits);
   }
   
   /**
@@ -349,12 +664,12 @@ public class MainframeOutput {
    */
   public void writePacked(double value, int integerDigits, int fractionalDigits) throws IOException {
     
-    value *= Math.pow(10, fractionalDigits);
-    writePacked(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writePacked(integerDigits + fractionalDigits);
   }
   
   /**
-   * Writes a <code>BigDecimal</code> in packed format
+   * Writes a <code>BigDecimal</code> in packed format.
    * @param value BigDecimal value
    * @param integerDigits number of digits before imaginary decimal point
    * @param fractionalDigits number of digits after imaginary decimal point
@@ -362,106 +677,25 @@ public class MainframeOutput {
    */
   public void writePacked(BigDecimal value, int integerDigits, int fractionalDigits) throws IOException {
     
-    if (value.scale() != 0) {
-      value = value.scaleByPowerOfTen(fractionalDigits);
-    }
-    writePacked(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writePacked(integerDigits + fractionalDigits);
   }
   
-  private void writePacked(String value, int digits) throws IOException {
+  private void writePacked(int digits) throws IOException {
 
     if ((digits & 0x01) == 0) {
       digits++;
     }
-    int lastByte = digits >>> 1;
-    int byteCount = lastByte + 1;
+    final int lastByte = digits >>> 1;
     
-    char[] in = normalizeNumber(value, digits);
-    byte[] out = new byte[byteCount];
+    final byte[] out = splitDigits(digits);
     
-    int inPos = 1;
-    int outPos = 0;
-    
-    while (inPos <= digits) {
-      
-      int b = 0;
-      
-      switch (in[inPos++]) {
-        case '0':
-          break;
-        case '1':
-          b = 0x10;
-          break;
-        case '2':
-          b = 0x20;
-          break;
-        case '3':
-          b = 0x30;
-          break;
-        case '4':
-          b = 0x40;
-          break;
-        case '5':
-          b = 0x50;
-          break;
-        case '6':
-          b = 0x60;
-          break;
-        case '7':
-          b = 0x70;
-          break;
-        case '8':
-          b = 0x80;
-          break;
-        case '9':
-          b = 0x90;
-          break;
-      }
-      
-      if (outPos == lastByte) {
-        
-        b |= (in[0] == '-') ? 0x0D : 0x0C;
-        
-      } else {
-        
-        switch (in[inPos++]) {
-          case '0':
-            break;
-          case '1':
-            b |= 0x01;
-            break;
-          case '2':
-            b |= 0x02;
-            break;
-          case '3':
-            b |= 0x03;
-            break;
-          case '4':
-            b |= 0x04;
-            break;
-          case '5':
-            b |= 0x05;
-            break;
-          case '6':
-            b |= 0x06;
-            break;
-          case '7':
-            b |= 0x07;
-            break;
-          case '8':
-            b |= 0x08;
-            break;
-          case '9':
-            b |= 0x09;
-            break;
-        } 
-      }
-      
-      out[outPos] = (byte) b;
-      outPos++;
+    for (int i = 0; i < lastByte; i++) {
+      out[i] = (byte) ((out[i << 1] << 4) | out[(i << 1) + 1]);
     }
+    out[lastByte] = (byte) ((out[digits - 1] << 4) | (decimalNegative ? 0x0D : 0x0C));
     
-    buffer.write(out);
+    buffer.write(out, 0, lastByte + 1);
   }
   
   /**
@@ -472,7 +706,7 @@ public class MainframeOutput {
    */
   public void writeUnsignedPacked(int value, int digits) throws IOException {
     
-    writeUnsignedPacked(String.valueOf(value), digits);
+    writeUnsignedPacked((long) value, digits);
   }
   
   /**
@@ -483,7 +717,8 @@ public class MainframeOutput {
    */
   public void writeUnsignedPacked(long value, int digits) throws IOException {
     
-    writeUnsignedPacked(String.valueOf(value), digits);
+    setDecimal(value);
+    writeUnsignedPacked(digits);
   }
   
   /**
@@ -495,12 +730,12 @@ public class MainframeOutput {
    */
   public void writeUnsignedPacked(double value, int integerDigits, int fractionalDigits) throws IOException {
     
-    value *= Math.pow(10, fractionalDigits);
-    writeUnsignedPacked(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writeUnsignedPacked(integerDigits + fractionalDigits);
   }
   
   /**
-   * Writes a <code>BigDecimal</code> in unsigned packed format
+   * Writes a <code>BigDecimal</code> in unsigned packed format.
    * @param value BigDecimal value
    * @param integerDigits number of digits before imaginary decimal point
    * @param fractionalDigits number of digits after imaginary decimal point
@@ -508,130 +743,134 @@ public class MainframeOutput {
    */
   public void writeUnsignedPacked(BigDecimal value, int integerDigits, int fractionalDigits) throws IOException {
     
-    if (value.scale() != 0) {
-      value = value.scaleByPowerOfTen(fractionalDigits);
-    }
-    writeUnsignedPacked(Util.format(value, 0, '.', true), integerDigits + fractionalDigits);
+    setDecimal(value, fractionalDigits, integerDigits + fractionalDigits);
+    writeUnsignedPacked(integerDigits + fractionalDigits);
   }
   
-  private void writeUnsignedPacked(String value, int digits) throws IOException {
+  private void writeUnsignedPacked(int digits) throws IOException {
 
     if ((digits & 0x01) == 1) {
       digits++;
     }
-    int byteCount = digits >>> 1;
+    final int byteCount = digits >>> 1;
     
-    char[] in = normalizeNumber(value, digits);
-    byte[] out = new byte[byteCount];
+    final byte[] out = splitDigits(digits);
     
-    int inPos = 1;
-    int outPos = 0;
+    for (int i = 0; i < byteCount; i++) {
+      out[i] = (byte) ((out[i << 1] << 4) | out[(i << 1) + 1]);
+    }
     
-    while (inPos <= digits) {
-      
-      int b = 0;
-      
-      switch (in[inPos++]) {
-        case '0':
-          break;
-        case '1':
-          b = 0x10;
-          break;
-        case '2':
-          b = 0x20;
-          break;
-        case '3':
-          b = 0x30;
-          break;
-        case '4':
-          b = 0x40;
-          break;
-        case '5':
-          b = 0x50;
-          break;
-        case '6':
-          b = 0x60;
-          break;
-        case '7':
-          b = 0x70;
-          break;
-        case '8':
-          b = 0x80;
-          break;
-        case '9':
-          b = 0x90;
-          break;
-      }
-      
-      switch (in[inPos++]) {
-        case '0':
-          break;
-        case '1':
-          b |= 0x01;
-          break;
-        case '2':
-          b |= 0x02;
-          break;
-        case '3':
-          b |= 0x03;
-          break;
-        case '4':
-          b |= 0x04;
-          break;
-        case '5':
-          b |= 0x05;
-          break;
-        case '6':
-          b |= 0x06;
-          break;
-        case '7':
-          b |= 0x07;
-          break;
-        case '8':
-          b |= 0x08;
-          break;
-        case '9':
-          b |= 0x09;
-          break;
-      } 
-      
-      out[outPos] = (byte) b;
-      outPos++;
+    buffer.write(out, 0, byteCount);
+  }
+  
+  private void setDecimal(long value) {
+    
+    // division of a negative value keeps Long.MIN_VALUE in range
+    decimalNegative = value < 0;
+    decimalHigh = Math.abs(value / LOW_FACTOR);
+    decimalLow = Math.abs(value % LOW_FACTOR);
+  }
+  
+  private void setDecimal(double value, int fractionalDigits, int digits) throws IOException {
+    
+    value *= Math.pow(10, fractionalDigits);
+    
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IOException(text.get("exceedDigits", value, digits));
+    }
+    
+    if (value == 0.0) {
+      setDecimal(0L);
+      return;
     }
     
-    buffer.write(out);
+    // rounding as in Util.format
+    boolean negative = value < 0;
+    double rounded = (negative ? value * -1 : value) + 0.5;
+    if (rounded > Long.MAX_VALUE) {
+      setDecimal(new BigDecimal(value).setScale(0, RoundingMode.HALF_UP), digits);
+    } else {
+      setDecimal((long) rounded);
+      decimalNegative = negative;
+    }
   }
   
-  private char[] normalizeNumber(String value, int outputDigits) throws IOException {
+  private void setDecimal(BigDecimal value, int fractionalDigits, int digits) throws IOException {
     
-    char[] input = value.toCharArray();
-    char[] output = new char[outputDigits + 1];
+    if (value.scale() != 0) {
+      value = value.scaleByPowerOfTen(fractionalDigits).setScale(0, RoundingMode.HALF_UP);
+    }
+    setDecimal(value, digits);
+  }
+  
+  private void setDecimal(BigDecimal value, int digits) throws IOException {
     
-    output[0] = '+';
-    int inPos = 0;
+    final BigInteger unscaled = value.unscaledValue();
     
-    if (input[0] == '-') {
-      output[0] = '-';
-      inPos = 1;
+    if (unscaled.bitLength() < 64) {
+      setDecimal(unscaled.longValue());
+      return;
     }
     
-    int inputDigits = input.length - inPos; 
-    if (inputDigits > outputDigits) {
-      throw new IOException(text.get("exceedDigits", value, outputDigits));
+    BigInteger[] parts = unscaled.abs().divideAndRemainder(BigInteger.valueOf(LOW_FACTOR));
+    if (parts[0].bitLength() >= 64) {
+      throw new IOException(text.get("exceedDigits", value.toPlainString(), digits));
     }
-
-    int outPos = 1;
+    decimalNegative = unscaled.signum() < 0;
+    decimalHigh = parts[0].longValue();
+    decimalLow = parts[1].longValue();
+  }
+  
+  /**
+   * Splits the current decimal value into single digits, right-aligned with leading zeroes.
+   * @return a work array with one digit per element
+   */
+  private byte[] splitDigits(int digits) throws IOException {
+    
+    if (digits > digitBuffer.length) {
+      digitBuffer = new byte[digits];
+    }
+    final byte[] out = digitBuffer;
     
-    int leadingZeroes = outputDigits - inputDigits;
-    while (outPos <= leadingZeroes) {
-      output[outPos++] = '0';
+    long part = decimalLow;
+    long next = decimalHigh;
+    int partDigits = LOW_DIGITS;
+    
+    for (int i = digits - 1; i >= 0; i--) {
+      if (partDigits == 0) {
+        part = next;
+        next = 0;
+        partDigits = Integer.MAX_VALUE;
+      }
+      out[i] = (byte) (part % 10);
+      part /= 10;
+      partDigits--;
     }
     
-    while (inPos < input.length) {
-      output[outPos++] = input[inPos++];
+    if (part != 0 || next != 0 || digits < 1) {
+      throw new IOException(text.get("exceedDigits", decimalString(), digits));
     }
     
-    return output;
+    return out;
+  }
+  
+  private String decimalString() {
+    
+    StringBuilder sb = new StringBuilder(40);
+    if (decimalNegative) {
+      sb.append('-');
+    }
+    if (decimalHigh == 0) {
+      sb.append(decimalLow);
+    } else {
+      String low = Long.toString(decimalLow);
+      sb.append(decimalHigh);
+      for (int i = low.length(); i < LOW_DIGITS; i++) {
+        sb.append('0');
+      }
+      sb.append(low);
+    }
+    return sb.toString();
   }
 
   /**
@@ -0,0 +1,275 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Writes GZIP compressed data, compressing on several threads.
+ * <p>
+ * The data is split into blocks of fixed size.
+ * Every block is compressed independently by a pool of daemon threads
+ * and written as a complete GZIP member.
+ * The output is a multi-member GZIP file as defined by RFC 1952;
+ * it can be read by <code>gzip</code>, <code>java.util.zip.GZIPInputStream</code> and other tools.
+ * Because the blocks don't share a dictionary, the compression ratio is slightly lower
+ * than with a single member.
+ * <p>
+ * The compressed blocks are written in order.
+ * At most twice the number of threads blocks are compressed ahead.
+ * Exceptions of the compressing threads are rethrown by the next write operation.
+ * <p>
+ * The block buffers are taken from the {@link BufferPool#getShared shared} buffer pool.
+ * @author Uwe Finke
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+  static private final Text text = Text.getPackageInstance(ParallelGzipOutputStream.class);
+  
+  static private final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+  static private final byte[] HEADER = {0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+  
+  static private final class Member {
+    
+    final byte[] data;
+    final int length;
+    
+    Member(byte[] data, int length) {
+      
+      this.data = data;
+      this.length = length;
+    }
+  }
+  
+  private final OutputStream out;
+  private final int blockSize;
+  private final int level;
+  private final int maxPending;
+  private final ExecutorService executor;
+  private final Queue<Future<Member>> pending;
+  private byte[] block;
+  private int blockLength;
+  private boolean written;
+  private boolean closed;
+  
+  /**
+   * Constructor with default compression level, 128 KB block size 
+   * and as many threads as processors are available.
+   * @param out underlying output stream
+   */
+  public ParallelGzipOutputStream(OutputStream out) {
+    
+    this(out, Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+  }
+  
+  /**
+   * Constructor.
+   * @param out underlying output stream
+   * @param threadCount number of compressing threads
+   * @param blockSize number of uncompressed bytes per GZIP member
+   * @param level compression level (see <code>java.util.zip.Deflater</code>)
+   */
+  public ParallelGzipOutputStream(OutputStream out, int threadCount, int blockSize, int level) {
+    
+    this.out = out;
+    this.blockSize = Math.max(1024, blockSize);
+    this.level = level;
+    threadCount = Math.max(1, threadCount);
+    maxPending = threadCount << 1;
+    executor = Executors.newFixedThreadPool(threadCount, createThreadFactory());
+    pending = new ArrayDeque<Future<Member>>();
+    block = BufferPool.getShared().acquireArray(this.blockSize);
+  }
+  
+  private ThreadFactory createThreadFactory() {
+    
+    return new ThreadFactory() {
+
+      public Thread newThread(Runnable r) {
+
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+  
+  /**
+   * Writes a single byte.
+   */
+  public void write(int b) throws IOException {
+    
+    checkClosed();
+    if (blockLength == blockSize) {
+      submitBlock();
+    }
+    block[blockLength++] = (byte) b;
+  }
+  
+  /**
+   * Writes a portion of a byte array.
+   */
+  public void write(byte[] b, int off, int len) throws IOException {
+    
+    checkClosed();
+    while (len > 0) {
+      if (blockLength == blockSize) {
+        submitBlock();
+      }
+      int count = Math.min(len, blockSize - blockLength);
+      System.arraycopy(b, off, block, blockLength, count);
+      blockLength += count;
+      off += count;
+      len -= count;
+    }
+  }
+  
+  /**
+   * Compresses the pending data, writes all compressed blocks and flushes the underlying stream.
+   * Every flush terminates a GZIP member.
+   */
+  public void flush() throws IOException {
+    
+    checkClosed();
+    flushBlocks();
+  }
+  
+  private void flushBlocks() throws IOException {
+    
+    if (blockLength > 0) {
+      submitBlock();
+    }
+    while (! pending.isEmpty()) {
+      writeBlock();
+    }
+    out.flush();
+  }
+  
+  /**
+   * Writes the remaining data, terminates the threads and closes the underlying stream.
+   */
+  public void close() throws IOException {
+    
+    if (closed) {
+      return;
+    }
+    closed = true;
+    
+    try {
+      if (blockLength > 0 || ! written) {
+        submitBlock();
+      }
+      flushBlocks();
+    } finally {
+      executor.shutdownNow();
+      BufferPool.getShared().release(block);
+      block = null;
+      out.close();
+    }
+  }
+  
+  private void checkClosed() throws IOException {
+    
+    if (closed) {
+      throw new IOException(text.get("streamClosed"));
+    }
+  }
+  
+  private void submitBlock() throws IOException {
+    
+    if (pending.size() == maxPending) {
+      writeBlock();
+    }
+    
+    final byte[] data = block;
+    final int length = blockLength;
+    
+    pending.add(executor.submit(new Callable<Member>() {
+      
+      public Member call() throws Exception {
+        
+        try {
+          return compress(data, length);
+        } finally {
+          BufferPool.getShared().release(data);
+        }
+      }
+    }));
+    
+    written = true;
+    block = BufferPool.getShared().acquireArray(blockSize);
+    blockLength = 0;
+  }
+  
+  private void writeBlock() throws IOException {
+    
+    try {
+      Member member = pending.remove().get();
+      out.write(member.data, 0, member.length);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+  
+  private Member compress(byte[] data, int length) {
+    
+    Deflater deflater = new Deflater(level, true);
+    try {
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+      
+      byte[] result = new byte[length + (length >> 3) + 64];
+      System.arraycopy(HEADER, 0, result, 0, HEADER.length);
+      int size = HEADER.length;
+      while (! deflater.finished()) {
+        if (size == result.length) {
+          result = Arrays.copyOf(result, result.length << 1);
+        }
+        size += deflater.deflate(result, size, result.length - size);
+      }
+      
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      if (size + 8 > result.length) {
+        result = Arrays.copyOf(result, size + 8);
+      }
+      size = putInt(result, size, (int) crc.getValue());
+      size = putInt(result, size, length);
+      
+      return new Member(result, size);
+    } finally {
+      deflater.end();
+    }
+  }
+  
+  static private int putInt(byte[] b, int pos, int v) {
+    
+    b[pos++] = (byte) v;
+    b[pos++] = (byte) (v >>> 8);
+    b[pos++] = (byte) (v >>> 16);
+    b[pos++] = (byte) (v >>> 24);
+    return pos;
+  }
+}
@@ -0,0 +1,385 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import de.ufinke.cubaja.util.IteratorException;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Decodes a file with fixed length records on several threads.
+ * <p>
+ * Because the offset of every record is a multiple of the record length,
+ * the file is split into chunks of whole records.
+ * The chunks are memory mapped and decoded concurrently
+ * by a pool of daemon threads, each with its own {@link MainframeInput}.
+ * The records are decoded either by a generated mapper according to a {@link RecordConfig record layout}
+ * (see {@link MainframeInput#readRecord MainframeInput.readRecord}),
+ * or by an application supplied {@link RecordDecoder}.
+ * <p>
+ * By default, the iterator returns the data objects in the order of the records in the file.
+ * In unordered mode, chunks are returned as soon as they are decoded;
+ * the records within a chunk remain in file order.
+ * The number of chunks decoded ahead is limited to twice the number of threads.
+ * <p>
+ * Example:
+ * <pre>
+ *   ParallelRecordReader&lt;Booking&gt; reader = new ParallelRecordReader&lt;Booking&gt;(channel, charset, layout, Booking.class);
+ *   for (Booking booking : reader) {
+ *     ...
+ *   }
+ *   reader.close();
+ * </pre>
+ * Exceptions, including runtime exceptions thrown by the threads,
+ * are wrapped into an {@link IteratorException}.
+ * The threads are terminated and the channel is closed
+ * when the iterator reaches the end of the file or fails.
+ * If the application stops reading before the end of the file,
+ * it should call {@link #close close}.
+ * @author Uwe Finke
+ * @param <D> data type
+ */
+public class ParallelRecordReader<D> implements Iterable<D> {
+
+  static private final Text text = Text.getPackageInstance(ParallelRecordReader.class);
+  
+  static private final int DEFAULT_CHUNK_SIZE = 1 << 20;
+  
+  /**
+   * Decodes records by a generated mapper.
+   */
+  static private class MapperDecoder<D> implements RecordDecoder<D> {
+    
+    private final RecordFactory factory;
+    
+    MapperDecoder(RecordFactory factory) {
+      
+      this.factory = factory;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public D decode(MainframeInput input) throws Exception {
+      
+      return (D) factory.createObject(input);
+    }
+  }
+  
+  static private RecordFactory createFactory(RecordConfig config, Class<?> clazz) throws IOException {
+    
+    try {
+      return new RecordFactoryGenerator(config).getFactory(clazz);
+    } catch (Exception e) {
+      throw new IOException(text.get("createMapper", clazz.getName()), e);
+    }
+  }
+  
+  private final FileChannel channel;
+  private final String charset;
+  private final RecordDecoder<? extends D> decoder;
+  private final int recordLength;
+  private final long startPosition;
+  private final long recordCount;
+  private int threadCount;
+  private int chunkRecords;
+  private boolean ordered;
+  private ExecutorService executor;
+  private Iterator<D> iterator;
+  
+  /**
+   * Constructor with a record layout.
+   * @param channel file channel, read from its current position
+   * @param charset character set
+   * @param config record layout with format <code>F</code>
+   * @param clazz data class
+   * @throws IOException when the file size is not a multiple of the record length, or the mapper could not be generated
+   */
+  public ParallelRecordReader(FileChannel channel, Charset charset, RecordConfig config, Class<? extends D> clazz) throws IOException {
+    
+    this(channel, charset.name(), config, clazz);
+  }
+  
+  /**
+   * Constructor with a record layout.
+   * @param channel file channel, read from its current position
+   * @param charset name of character set
+   * @param config record layout with format <code>F</code>
+   * @param clazz data class
+   * @throws IOException when the file size is not a multiple of the record length, or the mapper could not be generated
+   */
+  public ParallelRecordReader(FileChannel channel, String charset, RecordConfig config, Class<? extends D> clazz) throws IOException {
+    
+    this(channel, charset, config, new MapperDecoder<D>(createFactory(config, clazz)));
+  }
+  
+  /**
+   * Constructor with a decoder.
+   * Only the record length of the layout is used.
+   * @param channel file channel, read from its current position
+   * @param charset character set
+   * @param config record layout with format <code>F</code>
+   * @param decoder decoder
+   * @throws IOException when the file size is not a multiple of the record length
+   */
+  public ParallelRecordReader(FileChannel channel, Charset charset, RecordConfig config, RecordDecoder<? extends D> decoder) throws IOException {
+    
+    this(channel, charset.name(), config, decoder);
+  }
+  
+  /**
+   * Constructor with a decoder.
+   * Only the record length of the layout is used.
+   * @param channel file channel, read from its current position
+   * @param charset name of character set
+   * @param config record layout with format <code>F</code>
+   * @param decoder decoder
+   * @throws IOException when the file size is not a multiple of the record length
+   */
+  public ParallelRecordReader(FileChannel channel, String charset, RecordConfig config, RecordDecoder<? extends D> decoder) throws IOException {
+    
+    if (config.getFormat() != RecordFormat.F) {
+      throw new IllegalArgumentException(text.get("fixedFormat", config.getFormat()));
+    }
+    
+    this.channel = channel;
+    this.charset = charset;
+    this.decoder = decoder;
+    recordLength = config.getLength();
+    
+    startPosition = channel.position();
+    long size = channel.size() - startPosition;
+    recordCount = size / recordLength;
+    int remainder = (int) (size % recordLength);
+    if (remainder != 0) {
+      throw new EOFException(text.get("prematureEOF", recordLength, remainder));
+    }
+    
+    threadCount = Runtime.getRuntime().availableProcessors();
+    chunkRecords = Math.max(1, DEFAULT_CHUNK_SIZE / recordLength);
+    ordered = true;
+  }
+  
+  /**
+   * Sets the number of threads.
+   * Default is the number of available processors.
+   * @param threadCount number of threads
+   */
+  public void setThreadCount(int threadCount) {
+    
+    this.threadCount = Math.max(1, threadCount);
+  }
+  
+  /**
+   * Sets the number of records per chunk.
+   * Default is the number of records which fit into 1 MB.
+   * @param chunkRecords number of records
+   */
+  public void setChunkRecords(int chunkRecords) {
+    
+    this.chunkRecords = Math.max(1, chunkRecords);
+  }
+  
+  /**
+   * Sets the ordered mode.
+   * Default is <code>true</code>.
+   * @param ordered if <code>false</code>, chunks are returned in the sequence of completion 
+   */
+  public void setOrdered(boolean ordered) {
+    
+    this.ordered = ordered;
+  }
+  
+  /**
+   * Returns the number of records in the file.
+   * @return record count
+   */
+  public long getRecordCount() {
+    
+    return recordCount;
+  }
+  
+  /**
+   * Starts the threads and returns an iterator over the decoded data objects.
+   * Subsequent calls return the same iterator.
+   */
+  public synchronized Iterator<D> iterator() {
+    
+    if (iterator == null) {
+      executor = Executors.newFixedThreadPool(threadCount, createThreadFactory());
+      iterator = new ChunkIterator();
+    }
+    return iterator;
+  }
+  
+  /**
+   * Terminates the threads and closes the channel.
+   * @throws IOException when the channel could not be closed
+   */
+  public void close() throws IOException {
+    
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    channel.close();
+  }
+  
+  private ThreadFactory createThreadFactory() {
+    
+    return new ThreadFactory() {
+
+      public Thread newThread(Runnable r) {
+
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+  
+  private Object[] decode(long firstRecord, int count) throws Exception {
+    
+    final int recordLength = this.recordLength;
+    final RecordDecoder<? extends D> decoder = this.decoder;
+    
+    ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, startPosition + firstRecord * recordLength, (long) count * recordLength);
+    MainframeInput input = new MainframeInput(data, charset);
+    
+    Object[] result = new Object[count];
+    for (int i = 0; i < count; i++) {
+      input.nextRecord(recordLength);
+      result[i] = decoder.decode(input);
+    }
+    return result;
+  }
+  
+  private final class ChunkIterator implements Iterator<D> {
+
+    private final Queue<Future<Object[]>> pending;
+    private final CompletionService<Object[]> completion;
+    private final int maxPending;
+    private long nextRecord;
+    private int pendingCount;
+    private Object[] chunk;
+    private int position;
+    private boolean released;
+    
+    ChunkIterator() {
+      
+      pending = new ArrayDeque<Future<Object[]>>();
+      completion = ordered ? null : new ExecutorCompletionService<Object[]>(executor);
+      maxPending = threadCount << 1;
+      submit();
+    }
+    
+    public boolean hasNext() {
+      
+      while (chunk == null || position == chunk.length) {
+        if (pendingCount == 0) {
+          release();
+          return false;
+        }
+        nextChunk();
+      }
+      return true;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public D next() {
+      
+      if (! hasNext()) {
+        throw new NoSuchElementException();
+      }
+      
+      final Object[] chunk = this.chunk;
+      final D result = (D) chunk[position];
+      chunk[position++] = null;
+      return result;
+    }
+    
+    public void remove() {
+      
+      throw new UnsupportedOperationException();
+    }
+    
+    private void submit() {
+      
+      while (pendingCount < maxPending && nextRecord < recordCount) {
+        
+        final long first = nextRecord;
+        final int count = (int) Math.min(chunkRecords, recordCount - first);
+        nextRecord += count;
+        
+        Callable<Object[]> task = new Callable<Object[]>() {
+          
+          public Object[] call() throws Exception {
+            
+            return decode(first, count);
+          }
+        };
+        
+        if (ordered) {
+          pending.add(executor.submit(task));
+        } else {
+          completion.submit(task);
+        }
+        pendingCount++;
+      }
+    }
+    
+    private void nextChunk() {
+      
+      try {
+        Future<Object[]> future = ordered ? pending.remove() : completion.take();
+        pendingCount--;
+        chunk = future.get();
+        position = 0;
+      } catch (InterruptedException e) {
+        release();
+        throw new IteratorException(e);
+      } catch (ExecutionException e) {
+        release();
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        } else {
+          throw new IteratorException(cause);
+        }
+      }
+      
+      submit();
+    }
+    
+    /**
+     * Terminates the threads and closes the channel once no more chunks are read.
+     */
+    private void release() {
+      
+      if (released) {
+        return;
+      }
+      released = true;
+      
+      try {
+        close();
+      } catch (IOException e) {
+        throw new IteratorException(e);
+      }
+    }
+  }
+}
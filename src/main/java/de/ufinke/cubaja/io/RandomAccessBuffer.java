@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import de.ufinke.cubaja.util.Text;
 
 /**
  * <p>
@@ -33,10 +34,28 @@ import java.io.OutputStream;
  * according to the resulting position.
  * Read operations never can read beyond the size. If such happens,
  * an <code>EOFException</code> is thrown.
+ * </p><p>
+ * When the buffer must grow, the capacity increases by at least half of the current capacity,
+ * so the number of copies remains small even for large buffers.
+ * A buffer constructed with a {@link BufferPool} takes its arrays from the pool
+ * and returns replaced arrays to the pool; call {@link #release release}
+ * when the buffer is no longer needed.
+ * </p><p>
+ * Besides the <code>DataInput</code> and <code>DataOutput</code> methods,
+ * there are bulk methods for primitive arrays (e.g. {@link #writeInts writeInts})
+ * and variable length encodings for integers
+ * (unsigned LEB128 with {@link #writeVarInt writeVarInt},
+ * zigzag encoded LEB128 for signed values with {@link #writeSignedVarInt writeSignedVarInt}).
+ * </p><p>
+ * For tight loops, the <code>put</code> and <code>get</code> methods omit the capacity and size checks.
+ * Call {@link #ensureCapacity ensureCapacity} before a sequence of <code>put</code> calls,
+ * and {@link #require require} before a sequence of <code>get</code> calls.
+ * Exceeding the reserved space leads to an <code>ArrayIndexOutOfBoundsException</code>
+ * or to reading undefined data.
  * </p>
  * @author Uwe Finke
  */
-public class RandomAccessBuffer implements DataInput, DataOutput {
+public class RandomAccessBuffer implements DataBuffer {
 
   static private class Output extends OutputStream {
   
@@ -78,6 +97,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
     }
   }
   
+  static private final Text text = Text.getPackageInstance(RandomAccessBuffer.class);
+  
   static private final int DEFAULT_CAPACITY = 4096;
   
   /**
@@ -90,6 +111,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
   private int growthCapacity;
   private int size;
   
+  private final BufferPool pool;
+  
   private Input inputStream;
   private Output outputStream;
   
@@ -99,22 +122,35 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public RandomAccessBuffer() {
     
-    capacity = DEFAULT_CAPACITY;
-    growthCapacity = capacity;
-    buffer = new byte[capacity];
+    this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
   }
   
   /**
    * Constructor with specified capacity.
    * @param initialCapacity initial capacity
-   * @param growthCapacity additional capacity when buffer must grow
+   * @param growthCapacity minimum additional capacity when buffer must grow
    */
   public RandomAccessBuffer(int initialCapacity, int growthCapacity) {
     
+    pool = null;
     capacity = initialCapacity;
     this.growthCapacity = growthCapacity;
     buffer = new byte[capacity];
   }
+  
+  /**
+   * Constructor with a buffer pool.
+   * The capacity is rounded up to the pool's size classes.
+   * @param pool buffer pool
+   * @param initialCapacity initial capacity
+   */
+  public RandomAccessBuffer(BufferPool pool, int initialCapacity) {
+    
+    this.pool = pool;
+    buffer = pool.acquireArray(initialCapacity);
+    capacity = buffer.length;
+    growthCapacity = DEFAULT_CAPACITY;
+  }
 
   /**
    * Sets position and size to <code>0</code>.
@@ -236,13 +272,33 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
   
   private void grow(int minCapacity) {
     
-    int newCapacity = Math.min(minCapacity, capacity + growthCapacity);
-    byte[] newBuffer = new byte[newCapacity];
+    long expanded = (long) capacity + Math.max(growthCapacity, capacity >> 1);
+    int newCapacity = (int) Math.max(minCapacity, Math.min(expanded, Integer.MAX_VALUE - 8));
+    byte[] newBuffer = (pool == null) ? new byte[newCapacity] : pool.acquireArray(newCapacity);
     System.arraycopy(buffer, 0, newBuffer, 0, size);
-    capacity = newCapacity;
+    if (pool != null) {
+      pool.release(buffer);
+    }
+    capacity = newBuffer.length;
     buffer = newBuffer;
   }
   
+  /**
+   * Returns the byte array to the pool.
+   * Afterwards, the buffer is empty and has capacity <code>0</code>;
+   * it allocates a new array when it is written to again.
+   * Without a pool, the array is left to the garbage collector.
+   */
+  public void release() {
+    
+    if (pool != null) {
+      pool.release(buffer);
+    }
+    buffer = new byte[0];
+    capacity = 0;
+    reset();
+  }
+  
   /**
    * Returns an <code>OutputStream</code> which writes into this buffer.
    * Needed for <code>FilterOutputStream</code>s.
@@ -305,11 +361,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public void writeShort(int v) throws IOException {
 
-    newWritePosition(2);
-    int pos = position;
-    buffer[pos++] = (byte) (v >>> 8);
-    buffer[pos++] = (byte) v;
-    position = pos;
+    ensureCapacity(2);
+    putShort(v);
   }
 
   /**
@@ -325,13 +378,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public void writeInt(int v) throws IOException {
 
-    newWritePosition(4);
-    int pos = position;
-    buffer[pos++] = (byte) (v >>> 24);
-    buffer[pos++] = (byte) (v >>> 16);
-    buffer[pos++] = (byte) (v >>> 8);
-    buffer[pos++] = (byte) v;
-    position = pos;
+    ensureCapacity(4);
+    putInt(v);
   }
 
   /**
@@ -339,19 +387,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public void writeLong(long v) throws IOException {
 
-    newWritePosition(8);
-    int pos = position;
-    int n = (int) (v >>> 32);
-    buffer[pos++] = (byte) (n >>> 24);
-    buffer[pos++] = (byte) (n >>> 16);
-    buffer[pos++] = (byte) (n >>> 8);
-    buffer[pos++] = (byte) n;
-    n = (int) v;
-    buffer[pos++] = (byte) (n >>> 24);
-    buffer[pos++] = (byte) (n >>> 16);
-    buffer[pos++] = (byte) (n >>> 8);
-    buffer[pos++] = (byte) n;
-    position = pos;
+    ensureCapacity(8);
+    putLong(v);
   }
 
   /**
@@ -390,7 +427,7 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
   public void writeChars(String s) throws IOException {
 
     int len = s.length();
-    newWritePosition(len);
+    newWritePosition(len * 2);
     int pos = position;
     for (int i = 0; i < len; i++) {
       int c = s.charAt(i);
@@ -400,6 +437,271 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
     position = pos;
   }
 
+  /**
+   * Writes a portion of a <code>short</code> array into the buffer.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException reserved for future use
+   */
+  public void writeShorts(short[] a, int off, int len) throws IOException {
+    
+    ensureCapacity(len * 2);
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      final int v = a[i];
+      buffer[pos++] = (byte) (v >>> 8);
+      buffer[pos++] = (byte) v;
+    }
+    advance(pos);
+  }
+  
+  /**
+   * Writes a portion of an <code>int</code> array into the buffer.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException reserved for future use
+   */
+  public void writeInts(int[] a, int off, int len) throws IOException {
+    
+    ensureCapacity(len * 4);
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      final int v = a[i];
+      buffer[pos++] = (byte) (v >>> 24);
+      buffer[pos++] = (byte) (v >>> 16);
+      buffer[pos++] = (byte) (v >>> 8);
+      buffer[pos++] = (byte) v;
+    }
+    advance(pos);
+  }
+  
+  /**
+   * Writes a portion of a <code>long</code> array into the buffer.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException reserved for future use
+   */
+  public void writeLongs(long[] a, int off, int len) throws IOException {
+    
+    ensureCapacity(len * 8);
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      putLong(a[i]);
+    }
+  }
+  
+  /**
+   * Writes a portion of a <code>double</code> array into the buffer.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException reserved for future use
+   */
+  public void writeDoubles(double[] a, int off, int len) throws IOException {
+    
+    ensureCapacity(len * 8);
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      putLong(Double.doubleToLongBits(a[i]));
+    }
+  }
+  
+  /**
+   * Writes an <code>int</code> as unsigned LEB128 variable length integer.
+   * Values from <code>0</code> to <code>127</code> need one byte; negative values need five bytes.
+   * @param v value
+   * @throws IOException reserved for future use
+   */
+  public void writeVarInt(int v) throws IOException {
+    
+    ensureCapacity(5);
+    putVarInt(v);
+  }
+  
+  /**
+   * Writes a <code>long</code> as unsigned LEB128 variable length integer.
+   * Negative values need ten bytes.
+   * @param v value
+   * @throws IOException reserved for future use
+   */
+  public void writeVarLong(long v) throws IOException {
+    
+    ensureCapacity(10);
+    putVarLong(v);
+  }
+  
+  /**
+   * Writes a zigzag encoded <code>int</code> as LEB128 variable length integer.
+   * Values from <code>-64</code> to <code>63</code> need one byte.
+   * @param v value
+   * @throws IOException reserved for future use
+   */
+  public void writeSignedVarInt(int v) throws IOException {
+    
+    ensureCapacity(5);
+    putVarInt((v << 1) ^ (v >> 31));
+  }
+  
+  /**
+   * Writes a zigzag encoded <code>long</code> as LEB128 variable length integer.
+   * @param v value
+   * @throws IOException reserved for future use
+   */
+  public void writeSignedVarLong(long v) throws IOException {
+    
+    ensureCapacity(10);
+    putVarLong((v << 1) ^ (v >> 63));
+  }
+  
+  /**
+   * Returns the number of bytes of an unsigned LEB128 encoded <code>int</code>.
+   * @param v value
+   * @return number of bytes
+   */
+  static public int varIntSize(int v) {
+    
+    return (31 - Integer.numberOfLeadingZeros(v | 1)) / 7 + 1;
+  }
+  
+  /**
+   * Returns the number of bytes of an unsigned LEB128 encoded <code>long</code>.
+   * @param v value
+   * @return number of bytes
+   */
+  static public int varLongSize(long v) {
+    
+    return (63 - Long.numberOfLeadingZeros(v | 1)) / 7 + 1;
+  }
+  
+  /**
+   * Ensures that <code>bytes</code> bytes can be put into the buffer
+   * starting at the current position without growth.
+   * Position and size are not changed.
+   * @param bytes number of bytes
+   */
+  public void ensureCapacity(int bytes) {
+    
+    int minCapacity = position + bytes;
+    if (minCapacity > capacity) {
+      grow(minCapacity);
+    }
+  }
+  
+  private void advance(int pos) {
+    
+    position = pos;
+    if (pos > size) {
+      size = pos;
+    }
+  }
+  
+  /**
+   * Puts a byte into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   */
+  public void putByte(int v) {
+    
+    int pos = position;
+    buffer[pos++] = (byte) v;
+    advance(pos);
+  }
+  
+  /**
+   * Puts a <code>short</code> into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   */
+  public void putShort(int v) {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    buffer[pos++] = (byte) (v >>> 8);
+    buffer[pos++] = (byte) v;
+    advance(pos);
+  }
+  
+  /**
+   * Puts an <code>int</code> into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   */
+  public void putInt(int v) {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    buffer[pos++] = (byte) (v >>> 24);
+    buffer[pos++] = (byte) (v >>> 16);
+    buffer[pos++] = (byte) (v >>> 8);
+    buffer[pos++] = (byte) v;
+    advance(pos);
+  }
+  
+  /**
+   * Puts a <code>long</code> into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   */
+  public void putLong(long v) {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    int n = (int) (v >>> 32);
+    buffer[pos++] = (byte) (n >>> 24);
+    buffer[pos++] = (byte) (n >>> 16);
+    buffer[pos++] = (byte) (n >>> 8);
+    buffer[pos++] = (byte) n;
+    n = (int) v;
+    buffer[pos++] = (byte) (n >>> 24);
+    buffer[pos++] = (byte) (n >>> 16);
+    buffer[pos++] = (byte) (n >>> 8);
+    buffer[pos++] = (byte) n;
+    advance(pos);
+  }
+  
+  /**
+   * Puts an unsigned LEB128 encoded <code>int</code> into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   * @see #varIntSize varIntSize
+   */
+  public void putVarInt(int v) {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    while ((v & ~0x7F) != 0) {
+      buffer[pos++] = (byte) (v | 0x80);
+      v >>>= 7;
+    }
+    buffer[pos++] = (byte) v;
+    advance(pos);
+  }
+  
+  /**
+   * Puts an unsigned LEB128 encoded <code>long</code> into the buffer without capacity check.
+   * @param v value
+   * @see #ensureCapacity ensureCapacity
+   * @see #varLongSize varLongSize
+   */
+  public void putVarLong(long v) {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    while ((v & ~0x7FL) != 0) {
+      buffer[pos++] = (byte) (v | 0x80);
+      v >>>= 7;
+    }
+    buffer[pos++] = (byte) v;
+    advance(pos);
+  }
+
   /**
    * Writes an UTF string into the buffer.
    */
@@ -536,12 +838,8 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public short readShort() throws IOException {
 
-    newReadPosition(2);
-    int pos = position;
-    int result =  buffer[pos++] << 8
-               | (buffer[pos++] & 0xFF);
-    position = pos;
-    return (short) result;
+    require(2);
+    return getShort();
   }
 
   /**
@@ -570,7 +868,213 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
    */
   public int readInt() throws IOException {
 
-    newReadPosition(4);
+    require(4);
+    return getInt();
+  }
+
+  /**
+   * Reads a <code>long</code> from the buffer.
+   */
+  public long readLong() throws IOException {
+
+    require(8);
+    return getLong();
+  }
+
+  /**
+   * Reads a <code>float</code> from the buffer.
+   */
+  public float readFloat() throws IOException {
+
+    return Float.intBitsToFloat(readInt());
+  }
+
+  /**
+   * Reads a <code>double</code> from the buffer.
+   */
+  public double readDouble() throws IOException {
+
+    return Double.longBitsToDouble(readLong());
+  }
+
+  /**
+   * Reads values into a portion of a <code>short</code> array.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException when the buffer does not contain enough data
+   */
+  public void readShorts(short[] a, int off, int len) throws IOException {
+    
+    require(len * 2);
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      a[i] = getShort();
+    }
+  }
+  
+  /**
+   * Reads values into a portion of an <code>int</code> array.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException when the buffer does not contain enough data
+   */
+  public void readInts(int[] a, int off, int len) throws IOException {
+    
+    require(len * 4);
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      a[i] =  buffer[pos++]         << 24
+           | (buffer[pos++] & 0xFF) << 16
+           | (buffer[pos++] & 0xFF) << 8
+           | (buffer[pos++] & 0xFF);
+    }
+    position = pos;
+  }
+  
+  /**
+   * Reads values into a portion of a <code>long</code> array.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException when the buffer does not contain enough data
+   */
+  public void readLongs(long[] a, int off, int len) throws IOException {
+    
+    require(len * 8);
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      a[i] = getLong();
+    }
+  }
+  
+  /**
+   * Reads values into a portion of a <code>double</code> array.
+   * @param a array
+   * @param off offset within the array
+   * @param len number of values
+   * @throws IOException when the buffer does not contain enough data
+   */
+  public void readDoubles(double[] a, int off, int len) throws IOException {
+    
+    require(len * 8);
+    final int end = off + len;
+    for (int i = off; i < end; i++) {
+      a[i] = Double.longBitsToDouble(getLong());
+    }
+  }
+  
+  /**
+   * Reads an unsigned LEB128 variable length <code>int</code>.
+   * @return value
+   * @throws IOException when the buffer does not contain enough data, or the value exceeds five bytes
+   */
+  public int readVarInt() throws IOException {
+    
+    if (size - position < 5) {
+      checkVar();
+    }
+    return getVarInt();
+  }
+  
+  /**
+   * Reads an unsigned LEB128 variable length <code>long</code>.
+   * @return value
+   * @throws IOException when the buffer does not contain enough data, or the value exceeds ten bytes
+   */
+  public long readVarLong() throws IOException {
+    
+    if (size - position < 10) {
+      checkVar();
+    }
+    return getVarLong();
+  }
+  
+  /**
+   * Reads a zigzag encoded LEB128 variable length <code>int</code>.
+   * @return value
+   * @throws IOException when the buffer does not contain enough data, or the value exceeds five bytes
+   */
+  public int readSignedVarInt() throws IOException {
+    
+    final int v = readVarInt();
+    return (v >>> 1) ^ -(v & 1);
+  }
+  
+  /**
+   * Reads a zigzag encoded LEB128 variable length <code>long</code>.
+   * @return value
+   * @throws IOException when the buffer does not contain enough data, or the value exceeds ten bytes
+   */
+  public long readSignedVarLong() throws IOException {
+    
+    final long v = readVarLong();
+    return (v >>> 1) ^ -(v & 1);
+  }
+  
+  /**
+   * Checks near the end of the data whether a variable length integer is complete.
+   */
+  private void checkVar() throws IOException {
+    
+    final byte[] buffer = this.buffer;
+    for (int pos = position; pos < size; pos++) {
+      if (buffer[pos] >= 0) {
+        return;
+      }
+    }
+    throw new EOFException();
+  }
+  
+  /**
+   * Checks that at least <code>bytes</code> bytes can be read
+   * starting at the current position.
+   * @param bytes number of bytes
+   * @throws IOException when the buffer does not contain enough data
+   */
+  public void require(int bytes) throws IOException {
+    
+    if (position + bytes > size) {
+      throw new EOFException();
+    }
+  }
+  
+  /**
+   * Gets a byte without size check.
+   * @return value
+   * @see #require require
+   */
+  public byte getByte() {
+    
+    return buffer[position++];
+  }
+  
+  /**
+   * Gets a <code>short</code> without size check.
+   * @return value
+   * @see #require require
+   */
+  public short getShort() {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    int result =  buffer[pos++] << 8
+               | (buffer[pos++] & 0xFF);
+    position = pos;
+    return (short) result;
+  }
+  
+  /**
+   * Gets an <code>int</code> without size check.
+   * @return value
+   * @see #require require
+   */
+  public int getInt() {
+    
+    final byte[] buffer = this.buffer;
     int pos = position;
     int result =  buffer[pos++]         << 24
                | (buffer[pos++] & 0xFF) << 16
@@ -579,13 +1083,15 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
     position = pos;
     return result;
   }
-
+  
   /**
-   * Reads a <code>long</code> from the buffer.
+   * Gets a <code>long</code> without size check.
+   * @return value
+   * @see #require require
    */
-  public long readLong() throws IOException {
-
-    newReadPosition(8);
+  public long getLong() {
+    
+    final byte[] buffer = this.buffer;
     int pos = position;
     int high =  buffer[pos++]         << 24
              | (buffer[pos++] & 0xFF) << 16
@@ -598,21 +1104,49 @@ public class RandomAccessBuffer implements DataInput, DataOutput {
     position = pos;
     return (((long) high) << 32) | (low & 0xFFFFFFFFL);
   }
-
+  
   /**
-   * Reads a <code>float</code> from the buffer.
+   * Gets an unsigned LEB128 variable length <code>int</code> without size check.
+   * @return value
+   * @throws IOException when the value exceeds five bytes
+   * @see #require require
    */
-  public float readFloat() throws IOException {
-
-    return Float.intBitsToFloat(readInt());
+  public int getVarInt() throws IOException {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    int result = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      final int b = buffer[pos++];
+      result |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        position = pos;
+        return result;
+      }
+    }
+    throw new IOException(text.get("malformedVarint", 5));
   }
-
+  
   /**
-   * Reads a <code>double</code> from the buffer.
+   * Gets an unsigned LEB128 variable length <code>long</code> without size check.
+   * @return value
+   * @throws IOException when the value exceeds ten bytes
+   * @see #require require
    */
-  public double readDouble() throws IOException {
-
-    return Double.longBitsToDouble(readLong());
+  public long getVarLong() throws IOException {
+    
+    final byte[] buffer = this.buffer;
+    int pos = position;
+    long result = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      final long b = buffer[pos++];
+      result |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        position = pos;
+        return result;
+      }
+    }
+    throw new IOException(text.get("malformedVarint", 10));
   }
 
   /**
@@ -0,0 +1,190 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import de.ufinke.cubaja.config.ConfigException;
+import de.ufinke.cubaja.config.Mandatory;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Layout of fixed length mainframe records.
+ * <p>
+ * With a record layout, {@link MainframeInput} and {@link MainframeOutput}
+ * map records directly to and from data objects
+ * (see {@link MainframeInput#readRecord readRecord}, {@link MainframeInput#cursor cursor}
+ * and {@link MainframeOutput#writeRecord writeRecord}).
+ * The bytecode of dedicated mapper classes is generated for each data class;
+ * there is no reflection at runtime.
+ * <p>
+ * The {@link RecordFormat format} determines how {@link MainframeInput#nextRecord() MainframeInput.nextRecord}
+ * and {@link MainframeOutput#nextRecord() MainframeOutput.nextRecord} separate the records.
+ * Variable length records are read and written in whole blocks;
+ * field offsets are relative to the record data following the RDW.
+ * </p>
+ * <table class="striped">
+ * <caption style="text-align:left">XML attributes and subelements</caption>
+ * <thead>
+ * <tr>
+ * <th scope="col" style="text-align:left">Name</th>
+ * <th scope="col" style="text-align:left">Description</th>
+ * <th scope="col" style="text-align:center">A/E</th>
+ * <th scope="col" style="text-align:center">M</th>
+ * <th scope="col" style="text-align:center">U</th>
+ * </tr>
+ * </thead>
+ * <tbody>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>length</code></td>
+ * <td style="text-align:left;vertical-align:top">record length in bytes; for variable formats, the length of records written by <code>writeRecord</code> (without RDW)</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>format</code></td>
+ * <td style="text-align:left;vertical-align:top">the record format (see {@link RecordFormat}; default: <code>F</code>)</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>blockSize</code></td>
+ * <td style="text-align:left;vertical-align:top">maximum length of blocks written in format <code>VB</code> or <code>VBS</code>, including the BDW (default: <code>32760</code>)</td>
+ * <td style="text-align:center;vertical-align:top">A</td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * <td style="text-align:center;vertical-align:top">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left;vertical-align:top"><code>field</code></td>
+ * <td style="text-align:left;vertical-align:top">field definition (see {@link FieldConfig})</td>
+ * <td style="text-align:center;vertical-align:top">E</td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * <td style="text-align:center;vertical-align:top"> </td>
+ * </tr>
+ * </tbody>
+ * </table>
+ * <code>A/E</code>: attribute or subelement
+ * <br>
+ * <code>M</code>: mandatory
+ * <br>
+ * <code>U</code>: unique
+ * @author Uwe Finke
+ */
+public class RecordConfig {
+
+  static private final Text text = Text.getPackageInstance(RecordConfig.class);
+  
+  static private final int MAX_BLOCK_SIZE = 32760;
+  
+  private int length;
+  private RecordFormat format;
+  private int blockSize;
+  private List<FieldConfig> fieldList;
+  
+  /**
+   * Constructor.
+   */
+  public RecordConfig() {
+    
+    fieldList = new ArrayList<FieldConfig>();
+    format = RecordFormat.F;
+    blockSize = MAX_BLOCK_SIZE;
+  }
+  
+  /**
+   * Convenience constructor.
+   * @param length record length
+   */
+  public RecordConfig(int length) {
+    
+    this();
+    this.length = length;
+  }
+  
+  /**
+   * Returns the record length.
+   * @return length in bytes
+   */
+  public int getLength() {
+    
+    return length;
+  }
+  
+  /**
+   * Sets the record length.
+   * @param length length in bytes
+   * @throws ConfigException when length is less than 1
+   */
+  @Mandatory
+  public void setLength(int length) throws ConfigException {
+    
+    if (length < 1) {
+      throw new ConfigException(text.get("recordLength", length));
+    }
+    this.length = length;
+  }
+  
+  /**
+   * Returns the record format.
+   * @return format
+   */
+  public RecordFormat getFormat() {
+    
+    return format;
+  }
+  
+  /**
+   * Sets the record format.
+   * Default is <code>F</code>.
+   * @param format record format
+   */
+  public void setFormat(RecordFormat format) {
+    
+    this.format = format;
+  }
+  
+  /**
+   * Returns the maximum block size for output.
+   * @return block size in bytes
+   */
+  public int getBlockSize() {
+    
+    return blockSize;
+  }
+  
+  /**
+   * Sets the maximum size of blocks written in format <code>VB</code> or <code>VBS</code>.
+   * The size includes the BDW.
+   * Default is <code>32760</code>.
+   * @param blockSize block size in bytes
+   * @throws ConfigException when block size is less than 9 or greater than 32760
+   */
+  public void setBlockSize(int blockSize) throws ConfigException {
+    
+    if (blockSize < 9 || blockSize > MAX_BLOCK_SIZE) {
+      throw new ConfigException(text.get("blockSize", blockSize, MAX_BLOCK_SIZE));
+    }
+    this.blockSize = blockSize;
+  }
+  
+  /**
+   * Adds a field definition.
+   * @param field config of new field
+   */
+  public void addField(FieldConfig field) {
+    
+    fieldList.add(field);
+  }
+  
+  /**
+   * Returns the list of field definitions.
+   * @return field list
+   */
+  public List<FieldConfig> getFieldList() {
+    
+    return fieldList;
+  }
+}
@@ -0,0 +1,24 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+/**
+ * Decodes the current record of a <code>MainframeInput</code>
+ * (see {@link ParallelRecordReader}).
+ * <p>
+ * An implementation is called concurrently by several threads,
+ * each with its own <code>MainframeInput</code>; it must be threadsafe.
+ * @author Uwe Finke
+ * @param <D> data type
+ */
+public interface RecordDecoder<D> {
+
+  /**
+   * Creates a data object from the current record.
+   * @param input mainframe input, positioned at the start of the record
+   * @return data object
+   * @throws Exception any exception
+   */
+  public D decode(MainframeInput input) throws Exception;
+}
@@ -0,0 +1,21 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+
+/**
+ * Interface needed internally for bytecode generation.
+ * @author Uwe Finke
+ */
+public interface RecordFactory {
+
+  /**
+   * Creates a data object from the current record.
+   * @param input mainframe input
+   * @return data object
+   * @throws IOException when a field could not be read
+   */
+  public Object createObject(MainframeInput input) throws IOException;
+}
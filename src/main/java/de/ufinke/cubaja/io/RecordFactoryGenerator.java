@@ -0,0 +1,146 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import de.ufinke.cubaja.cafebabe.CodeAttribute;
+import de.ufinke.cubaja.cafebabe.GenClass;
+import de.ufinke.cubaja.cafebabe.GenMethod;
+import de.ufinke.cubaja.cafebabe.Generator;
+import de.ufinke.cubaja.cafebabe.Loader;
+import de.ufinke.cubaja.cafebabe.Type;
+import de.ufinke.cubaja.util.Util;
+
+class RecordFactoryGenerator implements Generator {
+
+  static private final Type recordFactoryType = new Type(RecordFactory.class);
+  static private final Type mainframeInputType = new Type(MainframeInput.class);
+  static private final Type ioExceptionType = new Type(java.io.IOException.class);
+
+  private Type dataClassType;
+  private Map<String, FieldConfig> searchMap;
+  private List<FieldMapping> setterList;
+  private Map<Class<?>, RecordFactory> factoryMap;
+  
+  RecordFactoryGenerator(RecordConfig config) {
+  
+    createSearchMap(config);
+    factoryMap = new HashMap<Class<?>, RecordFactory>();
+  }
+  
+  RecordFactory getFactory(Class<?> dataClass) throws Exception {
+    
+    RecordFactory factory = factoryMap.get(dataClass);
+    if (factory != null) {
+      return factory;
+    }
+    
+    dataClassType = new Type(dataClass);
+    createSetterList(dataClass);
+    
+    Class<?> factoryClass = Loader.createClass(dataClass, this, "MainframeInputRecordFactory", dataClass);
+    factory = (RecordFactory) factoryClass.newInstance();
+    factoryMap.put(dataClass, factory);
+    
+    setterList = null;
+    
+    return factory;
+  }
+  
+  public GenClass generate(String className) throws Exception {
+
+    GenClass genClass = new GenClass(ACC_PUBLIC | ACC_FINAL, className, Type.OBJECT, recordFactoryType);
+    
+    genClass.createDefaultConstructor();
+    
+    GenMethod method = genClass.createMethod(ACC_PUBLIC, Type.OBJECT, "createObject", mainframeInputType);
+    method.addException(ioExceptionType);
+    generateCode(method.getCode());    
+    
+    return genClass;
+  }
+  
+  private void generateCode(CodeAttribute code) {
+    
+    code.newObject(dataClassType);
+    code.duplicate();
+    code.invokeSpecial(dataClassType, Type.VOID, "<init>");
+    code.storeLocalReference(2);
+    
+    int position = 0;
+    
+    for (FieldMapping setter : setterList) {
+      
+      if (setter.offset != position) {
+        code.loadLocalReference(1); // MainframeInput
+        code.loadConstant(setter.offset);
+        code.invokeVirtual(mainframeInputType, Type.VOID, "setPosition", Type.INT);
+      }
+      
+      code.loadLocalReference(2); // data object with setter method
+      code.loadLocalReference(1); // MainframeInput
+      for (int argument : setter.arguments) {
+        code.loadConstant(argument);
+      }
+      code.invokeVirtual(mainframeInputType, setter.valueType, setter.readMethod, setter.getArgumentTypes());
+      code.invokeVirtual(dataClassType, Type.VOID, setter.methodName, setter.valueType);
+      
+      // length of character fields depends on the charset
+      position = (setter.byteCount < 0) ? -1 : setter.offset + setter.byteCount;
+    }
+    
+    code.loadLocalReference(2);
+    code.returnReference();
+  }  
+  
+  private void createSearchMap(RecordConfig config) {
+    
+    searchMap = new HashMap<String, FieldConfig>();
+    
+    for (FieldConfig field : config.getFieldList()) {
+      searchMap.put(Util.createMethodName(field.getName(), "set"), field);
+    }
+  }
+  
+  private void createSetterList(Class<?> clazz) {
+    
+    Map<String, FieldMapping> setterMap = new HashMap<String, FieldMapping>();
+    Map<String, Class<?>> rejectMap = new HashMap<String, Class<?>>();
+    
+    for (Method method : clazz.getMethods()) {
+      
+      if (method.getReturnType() == Void.TYPE && method.getParameterTypes().length == 1) {
+        
+        String methodName = method.getName();
+        FieldConfig field = searchMap.get(methodName);
+        
+        if (field != null) {
+          
+          Class<?> parmClazz = method.getParameterTypes()[0];
+          FieldMapping mapping = FieldMapping.create(field, methodName, parmClazz);
+          
+          if (mapping == null) {
+            rejectMap.put(methodName, parmClazz);
+          } else {
+            setterMap.put(methodName, mapping);
+          }
+        }
+      }
+    }
+    
+    for (Map.Entry<String, Class<?>> entry : rejectMap.entrySet()) {
+      if (! setterMap.containsKey(entry.getKey())) {
+        throw FieldMapping.incompatible(searchMap.get(entry.getKey()), entry.getValue());
+      }
+    }
+    
+    setterList = new ArrayList<FieldMapping>(setterMap.values());
+    Collections.sort(setterList, FieldMapping.OFFSET_ORDER);
+  }
+}
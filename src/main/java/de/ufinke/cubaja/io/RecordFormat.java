@@ -0,0 +1,38 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+/**
+ * Record format of a mainframe file (see {@link RecordConfig}).
+ * <p>
+ * A record descriptor word (RDW) precedes every record of a variable format.
+ * It contains the record length including the RDW in its first two bytes.
+ * In blocked formats, the records are grouped into blocks.
+ * A block descriptor word (BDW) precedes every block;
+ * it contains the block length including the BDW in its first two bytes
+ * (or in 31 bits, if the first bit is set).
+ * @author Uwe Finke
+ */
+public enum RecordFormat {
+
+  /**
+   * Fixed length records (RECFM F or FB).
+   */
+  F,
+  /**
+   * Variable length records with RDW, unblocked (RECFM V).
+   */
+  V,
+  /**
+   * Variable length records with RDW, grouped into blocks with BDW (RECFM VB).
+   */
+  VB,
+  /**
+   * Variable length records with RDW, grouped into blocks with BDW;
+   * a record may be split into segments which span several blocks (RECFM VBS).
+   * The third byte of the RDW indicates whether the segment is a complete record (<code>0</code>),
+   * the first (<code>1</code>), the last (<code>2</code>) or a middle (<code>3</code>) segment.
+   */
+  VBS
+}
@@ -0,0 +1,66 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import de.ufinke.cubaja.util.IteratorException;
+
+/**
+ * <code>Iterator</code> over the records of a <code>MainframeInput</code>.
+ * Returns itself as <code>Iterable</code>.
+ * Exceptions are wrapped into an <code>IteratorException</code>.
+ * @param <D> data object type
+ */
+class RecordIterator<D> implements Iterator<D>, Iterable<D> {
+
+  private final MainframeInput input;
+  private final Class<? extends D> clazz;
+  private boolean calledHasNext;
+  private boolean hasNext;
+  
+  RecordIterator(MainframeInput input, Class<? extends D> clazz) {
+  
+    this.input = input;
+    this.clazz = clazz;
+  }
+  
+  public Iterator<D> iterator() {
+    
+    return this;
+  }
+  
+  public boolean hasNext() throws IteratorException {
+    
+    if (! calledHasNext) {
+      calledHasNext = true;
+      try {
+        hasNext = input.nextRecord();
+      } catch (Exception e) {
+        throw new IteratorException(e);
+      }
+    }
+    
+    return hasNext;
+  }
+  
+  public D next() throws IteratorException, NoSuchElementException {
+    
+    if (! hasNext()) {
+      throw new NoSuchElementException();
+    }
+    calledHasNext = false;
+
+    try {
+      return input.readRecord(clazz);
+    } catch (Exception e) {
+      throw new IteratorException(e);
+    }
+  }
+  
+  public void remove() throws UnsupportedOperationException {
+    
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,21 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.io.IOException;
+
+/**
+ * Interface needed internally for bytecode generation.
+ * @author Uwe Finke
+ */
+public interface RecordWriter {
+
+  /**
+   * Writes the fields of a data object.
+   * @param output mainframe output
+   * @param dataObject data object
+   * @throws IOException when a field could not be written
+   */
+  public void writeObject(MainframeOutput output, Object dataObject) throws IOException;
+}
@@ -0,0 +1,151 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import de.ufinke.cubaja.cafebabe.CodeAttribute;
+import de.ufinke.cubaja.cafebabe.GenClass;
+import de.ufinke.cubaja.cafebabe.GenMethod;
+import de.ufinke.cubaja.cafebabe.Generator;
+import de.ufinke.cubaja.cafebabe.Loader;
+import de.ufinke.cubaja.cafebabe.Type;
+import de.ufinke.cubaja.util.Util;
+
+class RecordWriterGenerator implements Generator {
+
+  static private final Type recordWriterType = new Type(RecordWriter.class);
+  static private final Type mainframeOutputType = new Type(MainframeOutput.class);
+  static private final Type ioExceptionType = new Type(java.io.IOException.class);
+  static private final Type bigDecimalType = new Type(BigDecimal.class);
+
+  private Type dataClassType;
+  private Map<String, FieldConfig> searchMap;
+  private List<FieldMapping> getterList;
+  private Map<Class<?>, RecordWriter> writerMap;
+  
+  RecordWriterGenerator(RecordConfig config) {
+  
+    createSearchMap(config);
+    writerMap = new HashMap<Class<?>, RecordWriter>();
+  }
+  
+  RecordWriter getWriter(Class<?> dataClass) throws Exception {
+    
+    RecordWriter writer = writerMap.get(dataClass);
+    if (writer != null) {
+      return writer;
+    }
+    
+    dataClassType = new Type(dataClass);
+    createGetterList(dataClass);
+    
+    Class<?> writerClass = Loader.createClass(dataClass, this, "MainframeOutputRecordWriter", dataClass);
+    writer = (RecordWriter) writerClass.newInstance();
+    writerMap.put(dataClass, writer);
+    
+    getterList = null;
+    
+    return writer;
+  }
+  
+  public GenClass generate(String className) throws Exception {
+
+    GenClass genClass = new GenClass(ACC_PUBLIC | ACC_FINAL, className, Type.OBJECT, recordWriterType);
+    
+    genClass.createDefaultConstructor();
+    
+    GenMethod method = genClass.createMethod(ACC_PUBLIC, Type.VOID, "writeObject", mainframeOutputType, Type.OBJECT);
+    method.addException(ioExceptionType);
+    generateCode(method.getCode());    
+    
+    return genClass;
+  }
+  
+  private void generateCode(CodeAttribute code) {
+    
+    code.loadLocalReference(2); // dataObject
+    code.cast(dataClassType);
+    code.storeLocalReference(3);
+    
+    int position = 0;
+    
+    for (FieldMapping getter : getterList) {
+      
+      if (getter.offset != position) {
+        code.loadLocalReference(1); // MainframeOutput
+        code.loadConstant(getter.offset);
+        code.invokeVirtual(mainframeOutputType, Type.VOID, "setPosition", Type.INT);
+      }
+      
+      code.loadLocalReference(1); // MainframeOutput
+      code.loadLocalReference(3); // data object
+      code.invokeVirtual(dataClassType, getter.valueType, getter.methodName);
+      if (getter.propertyType == BigDecimal.class) {
+        // a null property is written as zero
+        String label = "notNull" + getter.offset;
+        code.duplicate();
+        code.branchIfNonNull(label);
+        code.pop();
+        code.getStatic(bigDecimalType, bigDecimalType, "ZERO");
+        code.defineLabel(label);
+      }
+      for (int argument : getter.arguments) {
+        code.loadConstant(argument);
+      }
+      
+      Type[] argumentTypes = getter.getArgumentTypes();
+      Type[] writeTypes = new Type[argumentTypes.length + 1];
+      writeTypes[0] = getter.writeValueType;
+      System.arraycopy(argumentTypes, 0, writeTypes, 1, argumentTypes.length);
+      code.invokeVirtual(mainframeOutputType, Type.VOID, getter.writeMethod, writeTypes);
+      
+      // length of character fields depends on the charset
+      position = (getter.byteCount < 0) ? -1 : getter.offset + getter.byteCount;
+    }
+    
+    code.returnVoid();
+  }  
+  
+  private void createSearchMap(RecordConfig config) {
+    
+    searchMap = new HashMap<String, FieldConfig>();
+    
+    for (FieldConfig field : config.getFieldList()) {
+      searchMap.put(Util.createMethodName(field.getName(), "get"), field);
+    }
+  }
+  
+  private void createGetterList(Class<?> clazz) {
+    
+    getterList = new ArrayList<FieldMapping>();
+    
+    for (Method method : clazz.getMethods()) {
+      
+      if (method.getParameterTypes().length == 0) {
+        
+        String methodName = method.getName();
+        FieldConfig field = searchMap.get(methodName);
+        
+        if (field != null) {
+          
+          Class<?> returnType = method.getReturnType();
+          FieldMapping mapping = FieldMapping.create(field, methodName, returnType);
+          
+          if (mapping == null) {
+            throw FieldMapping.incompatible(field, returnType);
+          }
+          getterList.add(mapping);
+        }
+      }
+    }
+    
+    Collections.sort(getterList, FieldMapping.OFFSET_ORDER);
+  }
+}
@@ -0,0 +1,193 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.io;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Table driven transcoding for single byte character sets
+ * such as the EBCDIC code pages IBM037, IBM273, IBM500, IBM01140 or IBM01141.
+ * <p>
+ * The tables are computed once per character set with the JDK's coders
+ * and cached; afterwards, every character costs a single table lookup.
+ * The decode table has 256 entries.
+ * The encode table consists of 256 pages of 256 entries,
+ * indexed by the high and low byte of a character;
+ * pages without any mappable character are not allocated.
+ * Unmappable characters are encoded with the character set's replacement byte,
+ * as <code>String.getBytes</code> would do.
+ * <p>
+ * Instances are immutable and threadsafe.
+ * @author Uwe Finke
+ */
+final class Transcoder {
+
+  static private final ConcurrentMap<String, Transcoder> cache = new ConcurrentHashMap<String, Transcoder>();
+  static private final Transcoder NONE = new Transcoder();
+  
+  /**
+   * Returns the transcoder for a character set.
+   * @param charsetName name of character set
+   * @return transcoder, or <code>null</code> if the character set is not a single byte character set
+   */
+  static Transcoder getInstance(String charsetName) {
+    
+    Transcoder transcoder = cache.get(charsetName);
+    if (transcoder == null) {
+      transcoder = create(charsetName);
+      cache.putIfAbsent(charsetName, transcoder);
+    }
+    return (transcoder == NONE) ? null : transcoder;
+  }
+  
+  static private Transcoder create(String charsetName) {
+    
+    try {
+      Charset charset = Charset.forName(charsetName);
+      if (! charset.canEncode()) {
+        return NONE;
+      }
+      return new Transcoder(charset);
+    } catch (Exception e) {
+      return NONE;
+    }
+  }
+  
+  private final char[] decodeTable;
+  private final byte[][] encodeTable;
+  private final byte replacement;
+  private final byte space;
+  
+  private Transcoder() {
+    
+    decodeTable = null;
+    encodeTable = null;
+    replacement = 0;
+    space = 0;
+  }
+  
+  private Transcoder(Charset charset) throws Exception {
+    
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharsetEncoder encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    
+    if (encoder.maxBytesPerChar() != 1 || encoder.replacement().length != 1) {
+      throw new IllegalArgumentException(charset.name());
+    }
+    replacement = encoder.replacement()[0];
+    
+    byte[] allBytes = new byte[256];
+    for (int i = 0; i < 256; i++) {
+      allBytes[i] = (byte) i;
+    }
+    CharBuffer decoded = decoder.decode(ByteBuffer.wrap(allBytes));
+    if (decoded.remaining() != 256) {
+      throw new IllegalArgumentException(charset.name());
+    }
+    decodeTable = new char[256];
+    decoded.get(decodeTable);
+    
+    encodeTable = new byte[256][];
+    char[] page = new char[256];
+    for (int high = 0; high < 256; high++) {
+      if (high >= 0xD8 && high <= 0xDF) { // surrogates
+        continue;
+      }
+      for (int low = 0; low < 256; low++) {
+        page[low] = (char) ((high << 8) | low);
+      }
+      encoder.reset();
+      ByteBuffer encoded = encoder.encode(CharBuffer.wrap(page));
+      if (encoded.remaining() != 256) {
+        throw new IllegalArgumentException(charset.name());
+      }
+      byte[] bytes = new byte[256];
+      encoded.get(bytes);
+      for (int low = 0; low < 256; low++) {
+        if (bytes[low] != replacement || decodeTable[replacement & 0xFF] == page[low]) {
+          encodeTable[high] = bytes;
+          break;
+        }
+      }
+    }
+    
+    space = encode(' ');
+  }
+  
+  /**
+   * Encodes a single character.
+   * @param c character
+   * @return byte
+   */
+  byte encode(char c) {
+    
+    final byte[] page = encodeTable[c >>> 8];
+    return (page == null) ? replacement : page[c & 0xFF];
+  }
+  
+  /**
+   * Returns the encoded space character.
+   * @return byte
+   */
+  byte getSpace() {
+    
+    return space;
+  }
+  
+  /**
+   * Decodes bytes into characters.
+   * @param src source array
+   * @param srcOffset offset in source array
+   * @param dst destination array
+   * @param length number of bytes
+   */
+  void decode(byte[] src, int srcOffset, char[] dst, int length) {
+    
+    final char[] table = decodeTable;
+    for (int i = 0; i < length; i++) {
+      dst[i] = table[src[srcOffset + i] & 0xFF];
+    }
+  }
+  
+  /**
+   * Encodes characters into a fixed number of bytes.
+   * When the string is shorter than <code>length</code>, the bytes are padded with spaces;
+   * when it is longer, it is truncated.
+   * @param src source string
+   * @param dst destination array
+   * @param dstOffset offset in destination array
+   * @param length number of bytes
+   */
+  void encode(CharSequence src, byte[] dst, int dstOffset, int length) {
+    
+    final byte[][] table = encodeTable;
+    final byte replacement = this.replacement;
+    final int charCount = Math.min(src.length(), length);
+    
+    int i = 0;
+    while (i < charCount) {
+      final char c = src.charAt(i);
+      final byte[] page = table[c >>> 8];
+      dst[dstOffset + i] = (page == null) ? replacement : page[c & 0xFF];
+      i++;
+    }
+    
+    final byte space = this.space;
+    while (i < length) {
+      dst[dstOffset + i] = space;
+      i++;
+    }
+  }
+}
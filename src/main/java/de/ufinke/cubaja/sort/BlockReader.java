@@ -0,0 +1,100 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import de.ufinke.cubaja.io.RandomAccessBuffer;
+
+/**
+ * Reads objects written by a {@link BlockWriter}.
+ */
+final class BlockReader implements Iterator<Object> {
+
+  private final DataInputStream in;
+  private final RandomAccessBuffer buffer;
+  private Object[] array;
+  private int size;
+  private int position;
+  private boolean eof;
+
+  public BlockReader(InputStream in) {
+
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    buffer = new RandomAccessBuffer();
+  }
+
+  public boolean hasNext() {
+
+    while (position == size && ! eof) {
+      try {
+        readBlock();
+      } catch (Exception e) {
+        throw new SorterException(e);
+      }
+    }
+    return position < size;
+  }
+
+  public Object next() {
+
+    if (! hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final Object result = array[position];
+    array[position++] = null;
+    return result;
+  }
+
+  public void remove() {
+
+    throw new UnsupportedOperationException();
+  }
+
+  private void readBlock() throws Exception {
+
+    position = 0;
+    size = 0;
+
+    final int len = in.readInt();
+    if (len == 0) {
+      eof = true;
+      array = null;
+      in.close();
+      return;
+    }
+
+    final int count = in.readInt();
+    final RandomAccessBuffer buffer = this.buffer;
+    buffer.reset();
+    buffer.transferFullyFrom(in, len - 8);
+    buffer.setPosition(0);
+
+    if (array == null || array.length < count) {
+      array = new Object[count];
+    }
+
+    ObjectInputStream objectStream = new ObjectInputStream(buffer.getInputStream());
+    for (int i = 0; i < count; i++) {
+      array[i] = objectStream.readObject();
+    }
+    objectStream.close();
+
+    size = count;
+  }
+
+  public void close() {
+
+    eof = true;
+    try {
+      in.close();
+    } catch (Exception e) {
+    }
+  }
+}
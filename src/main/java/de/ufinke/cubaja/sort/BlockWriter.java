@@ -0,0 +1,72 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import de.ufinke.cubaja.io.RandomAccessBuffer;
+
+/**
+ * Writes serialized objects to a stream in blocks.
+ * <p>
+ * The block layout is the same as in the temporary file of a <code>Sorter</code>:
+ * block length (including the header), number of objects, serialized objects.
+ * The end of data is marked by a block length of <code>0</code>.
+ */
+final class BlockWriter {
+
+  private final OutputStream out;
+  private final int blockSize;
+  private final RandomAccessBuffer buffer;
+  private ObjectOutputStream objectStream;
+  private int objectCount;
+
+  public BlockWriter(OutputStream out, int blockSize) {
+
+    this.out = out;
+    this.blockSize = blockSize;
+    buffer = new RandomAccessBuffer(blockSize + 1024, 1024);
+  }
+
+  public void write(Object object) throws IOException {
+
+    if (objectStream == null) {
+      buffer.setPosition(8);
+      objectStream = new ObjectOutputStream(buffer.getOutputStream());
+    }
+
+    objectStream.writeObject(object);
+    objectCount++;
+
+    if (buffer.size() >= blockSize) {
+      finishBlock();
+    }
+  }
+
+  private void finishBlock() throws IOException {
+
+    objectStream.close();
+    objectStream = null;
+
+    final RandomAccessBuffer buffer = this.buffer;
+    buffer.setPosition(0);
+    buffer.writeInt(buffer.size());
+    buffer.writeInt(objectCount);
+    buffer.drainTo(out);
+
+    objectCount = 0;
+  }
+
+  public void close() throws IOException {
+
+    if (objectStream != null) {
+      finishBlock();
+    }
+
+    buffer.writeInt(0);
+    buffer.drainTo(out);
+    out.close();
+  }
+}
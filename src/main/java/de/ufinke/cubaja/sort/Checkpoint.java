@@ -0,0 +1,130 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Durable run file and manifest of a restartable sort.
+ * <p>
+ * The manifest is a properties file which holds the number of input objects
+ * contained in completed runs, the valid length of the run file
+ * and the position and length of the first block of every run.
+ * It is replaced atomically after every completed run.
+ */
+final class Checkpoint {
+
+  static private final Text text = Text.getPackageInstance(Checkpoint.class);
+
+  private final File runFile;
+  private final File manifestFile;
+
+  private boolean loaded;
+  private long inputPosition;
+  private long fileLength;
+  private List<long[]> runs;
+
+  public Checkpoint(SortConfig config) {
+
+    File dir = new File(config.getWorkDirectory());
+    dir.mkdirs();
+
+    runFile = new File(dir, config.getCheckpoint() + ".run");
+    manifestFile = new File(dir, config.getCheckpoint() + ".manifest");
+    runs = new ArrayList<long[]>();
+  }
+
+  public void load() throws IOException {
+
+    if (! manifestFile.exists()) {
+      return;
+    }
+
+    Properties properties = new Properties();
+    InputStream in = new FileInputStream(manifestFile);
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+
+    inputPosition = Long.parseLong(properties.getProperty("position"));
+    fileLength = Long.parseLong(properties.getProperty("length"));
+    int runCount = Integer.parseInt(properties.getProperty("runs"));
+    for (int i = 0; i < runCount; i++) {
+      String[] values = properties.getProperty("run." + i).split(",");
+      runs.add(new long[] {Long.parseLong(values[0]), Long.parseLong(values[1])});
+    }
+
+    if (runFile.length() < fileLength) {
+      throw new SorterException(text.get("checkpointInvalid", runFile.getPath(), manifestFile.getPath()));
+    }
+
+    loaded = true;
+  }
+
+  public boolean isLoaded() {
+
+    return loaded;
+  }
+
+  public long getInputPosition() {
+
+    return inputPosition;
+  }
+
+  public long getFileLength() {
+
+    return fileLength;
+  }
+
+  public List<long[]> getRuns() {
+
+    return runs;
+  }
+
+  public File getRunFile() {
+
+    return runFile;
+  }
+
+  public void save(long inputPosition, long fileLength, List<Run> runList) throws IOException {
+
+    Properties properties = new Properties();
+    properties.setProperty("position", Long.toString(inputPosition));
+    properties.setProperty("length", Long.toString(fileLength));
+    properties.setProperty("runs", Integer.toString(runList.size()));
+    for (int i = 0; i < runList.size(); i++) {
+      Run run = runList.get(i);
+      properties.setProperty("run." + i, run.getBlockPosition() + "," + run.getBlockLength());
+    }
+
+    File tempFile = new File(manifestFile.getPath() + ".tmp");
+    FileOutputStream out = new FileOutputStream(tempFile);
+    try {
+      properties.store(out, null);
+      out.getFD().sync();
+    } finally {
+      out.close();
+    }
+
+    Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public void delete() {
+
+    manifestFile.delete();
+    runFile.delete();
+  }
+}
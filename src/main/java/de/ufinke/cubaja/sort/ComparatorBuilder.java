@@ -0,0 +1,97 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates comparators and key factories from property specifications.
+ * <p>
+ * Instead of hand-written <code>Comparator</code> or <code>KeyFactory</code> classes,
+ * the sort criteria are specified as a list of property paths, for example
+ * <pre>
+ *   Comparator&lt;Booking&gt; comparator = ComparatorBuilder.of(Booking.class, "branch", "account desc", "valueDate");
+ * </pre>
+ * The bytecode of a dedicated comparator class is generated for the data class.
+ * There is no reflection at runtime; primitive values are compared without boxing.
+ * <p>
+ * A property specification has the syntax
+ * <code>path [asc|desc] [nulls first|nulls last]</code>.
+ * The <code>path</code> is a property name or a sequence of property names separated by dots
+ * (e.g. <code>customer.name</code>).
+ * Every property needs a public getter method (<code>getXxx</code>, or <code>isXxx</code> for a <code>boolean</code>),
+ * and every class along the path must be public.
+ * The type of the last property must either be primitive or implement <code>Comparable</code>.
+ * Default sort direction is ascending.
+ * A <code>null</code> value, or a <code>null</code> object within the path,
+ * is less than any other value unless specified explicitly with <code>nulls first</code> or <code>nulls last</code>;
+ * these options determine the position of <code>null</code> values independent of the sort direction.
+ * <p>
+ * The generated classes are threadsafe.
+ * Generated comparators are serializable, so they may be used with a {@link ProcessSorter};
+ * a comparator is serialized as its data class and property specifications
+ * and generated again on deserialization.
+ * Because generating a class is relatively expensive,
+ * applications should create a comparator or key factory once and reuse it.
+ * @author Uwe Finke
+ */
+public final class ComparatorBuilder {
+
+  private ComparatorBuilder() {
+
+  }
+
+  /**
+   * Generates a comparator.
+   * @param <D> data type
+   * @param dataClass data class
+   * @param properties property specifications
+   * @return comparator
+   * @throws IllegalArgumentException if a property specification is invalid
+   * @throws SorterException if the comparator could not be generated
+   */
+  @SuppressWarnings("unchecked")
+  static public <D> Comparator<D> of(Class<D> dataClass, String... properties) throws IllegalArgumentException, SorterException {
+
+    CompareGenerator generator = new CompareGenerator(dataClass, SortProperty.parse(dataClass, properties));
+    try {
+      return (Comparator<D>) generator.createComparator(new SerialComparator(dataClass, properties));
+    } catch (Exception e) {
+      throw new SorterException(e);
+    }
+  }
+
+  /**
+   * Generates a key factory which creates composite keys.
+   * <p>
+   * The generated key class holds the property values in typed fields
+   * and computes its hash code once when a key is created.
+   * The keys' natural order corresponds to the property specifications,
+   * so a matching <code>Matcher</code> is created with
+   * <pre>
+   *   Matcher&lt;CompositeKey&gt; matcher = new Matcher&lt;CompositeKey&gt;(new NaturalComparator&lt;CompositeKey&gt;());
+   * </pre>
+   * Key equality is based on the <code>equals</code> methods of the property values,
+   * which makes the keys suitable for {@link Matcher#addHashedSource Matcher.addHashedSource}.
+   * Key factories for the same data class and property specifications share the generated key class;
+   * keys created by factories with different specifications must not be compared.
+   * @param <D> data type
+   * @param dataClass data class
+   * @param properties property specifications
+   * @return key factory
+   * @throws IllegalArgumentException if a property specification is invalid
+   * @throws SorterException if the key classes could not be generated
+   */
+  @SuppressWarnings("unchecked")
+  static public <D> KeyFactory<D, CompositeKey> keyFactory(Class<D> dataClass, String... properties) throws IllegalArgumentException, SorterException {
+
+    List<SortProperty> propertyList = SortProperty.parse(dataClass, properties);
+    try {
+      return (KeyFactory<D, CompositeKey>) SerialKey.getKeyFactory(dataClass, properties, propertyList);
+    } catch (Exception e) {
+      throw new SorterException(e);
+    }
+  }
+}
@@ -0,0 +1,647 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import de.ufinke.cubaja.cafebabe.CodeAttribute;
+import de.ufinke.cubaja.cafebabe.GenClass;
+import de.ufinke.cubaja.cafebabe.GenMethod;
+import de.ufinke.cubaja.cafebabe.Generator;
+import de.ufinke.cubaja.cafebabe.Loader;
+import de.ufinke.cubaja.cafebabe.Type;
+
+final class CompareGenerator implements Generator {
+
+  static private final Type comparatorType = new Type(Comparator.class);
+  static private final Type serializableType = new Type(Serializable.class);
+  static private final Type keyFactoryType = new Type(KeyFactory.class);
+  static private final Type compositeKeyType = new Type(CompositeKey.class);
+  static private final Type comparableType = new Type(Comparable.class);
+  static private final Type objectsType = new Type(Objects.class);
+  static private final Type stringBuilderType = new Type(StringBuilder.class);
+  static private final Type objectArrayType = new Type(Object[].class);
+
+  private final Class<?> dataClass;
+  private final Type dataType;
+  private final List<SortProperty> propertyList;
+
+  private String keyClassName;
+  private Type keyType;
+  private Class<?> keyClass;
+
+  CompareGenerator(Class<?> dataClass, List<SortProperty> propertyList) {
+
+    this.dataClass = dataClass;
+    this.propertyList = propertyList;
+    dataType = new Type(dataClass);
+  }
+
+  private Class<?> getContextClass() {
+
+    return (dataClass.getClassLoader() == null) ? getClass() : dataClass;
+  }
+
+  Comparator<?> createComparator(Object serialForm) throws Exception {
+
+    Class<?> comparatorClass = Loader.createClass(getContextClass(), this, "Comparator", dataClass);
+    return (Comparator<?>) comparatorClass.getConstructor(Object.class).newInstance(serialForm);
+  }
+
+  KeyFactory<?, ?> createKeyFactory() throws Exception {
+
+    // key class and factory class must be defined by the same loader
+    Loader loader = new Loader(getContextClass().getClassLoader());
+    loader.setGenerator(this);
+
+    String prefix = getClass().getPackage().getName() + ".Generated_";
+    String suffix = "_" + dataClass.getName().replace('.', '_');
+    keyClassName = prefix + "Key" + suffix;
+    keyType = new Type(keyClassName);
+
+    Class<?> factoryClass = loader.loadClass(prefix + "KeyFactory" + suffix);
+    keyClass = loader.loadClass(keyClassName);
+    return (KeyFactory<?, ?>) factoryClass.newInstance();
+  }
+
+  Class<?> getKeyClass() {
+
+    return keyClass;
+  }
+
+  public GenClass generate(String className) throws Exception {
+
+    if (className.equals(keyClassName)) {
+      return generateKey(className);
+    } else if (keyClassName != null) {
+      return generateKeyFactory(className);
+    } else {
+      return generateComparator(className);
+    }
+  }
+
+// --- comparator -------------------------------------------------------------
+
+  private GenClass generateComparator(String className) {
+
+    GenClass genClass = new GenClass(ACC_PUBLIC | ACC_FINAL, className, Type.OBJECT, comparatorType, serializableType);
+
+    // the comparator is serialized as the object passed to its constructor (see SerialComparator)
+    genClass.createField(ACC_PRIVATE | ACC_FINAL, Type.OBJECT, "serialForm");
+    generateComparatorConstructor(genClass.createConstructor(ACC_PUBLIC, Type.OBJECT).getCode(), className);
+    generateComparatorWriteReplace(genClass.createMethod(ACC_PRIVATE, Type.OBJECT, "writeReplace").getCode(), className);
+
+    GenMethod method = genClass.createMethod(ACC_PUBLIC, Type.INT, "compare", Type.OBJECT, Type.OBJECT);
+    CodeAttribute code = method.getCode();
+
+    code.loadLocalReference(1);
+    code.cast(dataType);
+    code.storeLocalReference(code.getLocalVariable("a", dataType));
+    code.loadLocalReference(2);
+    code.cast(dataType);
+    code.storeLocalReference(code.getLocalVariable("b", dataType));
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      extractProperty(code, property, i, "a");
+      extractProperty(code, property, i, "b");
+      compareProperty(code, property, i, "a", "b", false);
+    }
+
+    code.loadConstant(0);
+    code.returnInt();
+
+    return genClass;
+  }
+
+  private void generateComparatorConstructor(CodeAttribute code, String className) {
+
+    code.loadLocalReference(0);
+    code.invokeSpecial(Type.OBJECT, Type.VOID, "<init>");
+    code.loadLocalReference(0);
+    code.loadLocalReference(1);
+    code.putField(new Type(className), Type.OBJECT, "serialForm");
+    code.returnVoid();
+  }
+
+  private void generateComparatorWriteReplace(CodeAttribute code, String className) {
+
+    code.loadLocalReference(0);
+    code.getField(new Type(className), Type.OBJECT, "serialForm");
+    code.returnReference();
+  }
+
+// --- composite key ----------------------------------------------------------
+
+  private GenClass generateKey(String className) {
+
+    GenClass genClass = new GenClass(ACC_PUBLIC | ACC_FINAL, className, compositeKeyType);
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      genClass.createField(ACC_PRIVATE | ACC_FINAL, property.getValueType(), "v" + i);
+      if (property.needsPresence()) {
+        genClass.createField(ACC_PRIVATE | ACC_FINAL, Type.INT, "p" + i);
+      }
+    }
+    genClass.createField(ACC_PRIVATE | ACC_FINAL, Type.INT, "hash");
+
+    // the default constructor creates the template used on deserialization (see SerialKey)
+    genClass.createDefaultConstructor();
+    generateKeyConstructor(genClass.createConstructor(ACC_PUBLIC, Type.OBJECT).getCode());
+    generateKeyRestoreConstructor(genClass.createConstructor(ACC_PUBLIC, objectArrayType).getCode());
+    generateKeyGetSerialValues(genClass.createMethod(ACC_PROTECTED, objectArrayType, "getSerialValues").getCode());
+    generateKeyRestore(genClass.createMethod(ACC_PROTECTED, compositeKeyType, "restore", objectArrayType).getCode());
+    generateKeyHashCode(genClass.createMethod(ACC_PUBLIC, Type.INT, "hashCode").getCode());
+    generateKeyEquals(genClass.createMethod(ACC_PUBLIC, Type.BOOLEAN, "equals", Type.OBJECT).getCode());
+    generateKeyCompareTo(genClass.createMethod(ACC_PUBLIC, Type.INT, "compareTo", Type.OBJECT).getCode());
+    generateKeyToString(genClass.createMethod(ACC_PUBLIC, Type.STRING, "toString").getCode());
+
+    return genClass;
+  }
+
+  private void generateKeyConstructor(CodeAttribute code) {
+
+    code.loadLocalReference(0);
+    code.invokeSpecial(compositeKeyType, Type.VOID, "<init>");
+
+    code.loadLocalReference(1);
+    code.cast(dataType);
+    code.storeLocalReference(code.getLocalVariable("data", dataType));
+
+    final int hash = code.getLocalVariable("hash", Type.INT);
+    code.loadConstant(1);
+    code.storeLocalInt(hash);
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      Class<?> valueClass = property.getValueClass();
+      Type valueType = property.getValueType();
+      int value = code.getLocalVariable("data" + i, valueType);
+
+      extractProperty(code, property, i, "data");
+
+      code.loadLocalReference(0);
+      loadLocal(code, valueClass, value);
+      code.putField(keyType, valueType, "v" + i);
+      if (property.needsPresence()) {
+        code.loadLocalReference(0);
+        code.loadLocalInt("datap" + i);
+        code.putField(keyType, Type.INT, "p" + i);
+      }
+
+      code.loadLocalInt(hash);
+      code.loadConstant(31);
+      code.multiplyInt();
+      loadLocal(code, valueClass, value);
+      if (property.isPrimitive()) {
+        code.invokeStatic(new Type(getWrapperClass(valueClass)), Type.INT, "hashCode", valueType);
+      } else {
+        code.invokeStatic(objectsType, Type.INT, "hashCode", Type.OBJECT);
+      }
+      code.addInt();
+      code.storeLocalInt(hash);
+    }
+
+    code.loadLocalReference(0);
+    code.loadLocalInt(hash);
+    code.putField(keyType, Type.INT, "hash");
+    code.returnVoid();
+  }
+
+  private void generateKeyRestoreConstructor(CodeAttribute code) {
+
+    // values as returned by getSerialValues: value and presence of every property
+
+    code.loadLocalReference(0);
+    code.invokeSpecial(compositeKeyType, Type.VOID, "<init>");
+
+    final int hash = code.getLocalVariable("hash", Type.INT);
+    code.loadConstant(1);
+    code.storeLocalInt(hash);
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      Class<?> valueClass = property.getValueClass();
+      Type valueType = property.getValueType();
+
+      code.loadLocalReference(0);
+      code.loadLocalReference(1);
+      code.loadConstant(i << 1);
+      code.loadReferenceArrayElement();
+      if (property.isPrimitive()) {
+        Type wrapperType = new Type(getWrapperClass(valueClass));
+        code.cast(wrapperType);
+        code.invokeVirtual(wrapperType, valueType, valueClass.getName() + "Value");
+      } else {
+        code.cast(valueType);
+      }
+      code.putField(keyType, valueType, "v" + i);
+
+      if (property.needsPresence()) {
+        code.loadLocalReference(0);
+        code.loadLocalReference(1);
+        code.loadConstant((i << 1) + 1);
+        code.loadReferenceArrayElement();
+        code.cast(new Type(Integer.class));
+        code.invokeVirtual(new Type(Integer.class), Type.INT, "intValue");
+        code.putField(keyType, Type.INT, "p" + i);
+      }
+
+      code.loadLocalInt(hash);
+      code.loadConstant(31);
+      code.multiplyInt();
+      code.loadLocalReference(0);
+      code.getField(keyType, valueType, "v" + i);
+      if (property.isPrimitive()) {
+        code.invokeStatic(new Type(getWrapperClass(valueClass)), Type.INT, "hashCode", valueType);
+      } else {
+        code.invokeStatic(objectsType, Type.INT, "hashCode", Type.OBJECT);
+      }
+      code.addInt();
+      code.storeLocalInt(hash);
+    }
+
+    code.loadLocalReference(0);
+    code.loadLocalInt(hash);
+    code.putField(keyType, Type.INT, "hash");
+    code.returnVoid();
+  }
+
+  private void generateKeyGetSerialValues(CodeAttribute code) {
+
+    final int values = code.getLocalVariable("values", objectArrayType);
+    code.loadConstant(propertyList.size() << 1);
+    code.newArray(Type.OBJECT);
+    code.storeLocalReference(values);
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      Class<?> valueClass = property.getValueClass();
+      Type valueType = property.getValueType();
+
+      code.loadLocalReference(values);
+      code.loadConstant(i << 1);
+      code.loadLocalReference(0);
+      code.getField(keyType, valueType, "v" + i);
+      if (property.isPrimitive()) {
+        Type wrapperType = new Type(getWrapperClass(valueClass));
+        code.invokeStatic(wrapperType, wrapperType, "valueOf", valueType);
+      }
+      code.storeReferenceArrayElement();
+
+      if (property.needsPresence()) {
+        code.loadLocalReference(values);
+        code.loadConstant((i << 1) + 1);
+        code.loadLocalReference(0);
+        code.getField(keyType, Type.INT, "p" + i);
+        code.invokeStatic(new Type(Integer.class), new Type(Integer.class), "valueOf", Type.INT);
+        code.storeReferenceArrayElement();
+      }
+    }
+
+    code.loadLocalReference(values);
+    code.returnReference();
+  }
+
+  private void generateKeyRestore(CodeAttribute code) {
+
+    code.newObject(keyType);
+    code.duplicate();
+    code.loadLocalReference(1);
+    code.invokeSpecial(keyType, Type.VOID, "<init>", objectArrayType);
+    code.returnReference();
+  }
+
+  private void generateKeyHashCode(CodeAttribute code) {
+
+    code.loadLocalReference(0);
+    code.getField(keyType, Type.INT, "hash");
+    code.returnInt();
+  }
+
+  private void generateKeyEquals(CodeAttribute code) {
+
+    code.loadLocalReference(0);
+    code.loadLocalReference(1);
+    code.compareReferenceBranchIfNotEqual("notSame");
+    code.loadConstant(1);
+    code.returnInt();
+
+    code.defineLabel("notSame");
+    code.loadLocalReference(1);
+    code.checkInstance(keyType);
+    code.branchIfNotEqual("sameClass");
+    code.loadConstant(0);
+    code.returnInt();
+
+    code.defineLabel("sameClass");
+    code.loadLocalReference(1);
+    code.cast(keyType);
+    code.storeLocalReference(code.getLocalVariable("other", keyType));
+
+    code.loadLocalReference(0);
+    code.getField(keyType, Type.INT, "hash");
+    code.loadLocalReference("other");
+    code.getField(keyType, Type.INT, "hash");
+    code.compareIntBranchIfNotEqual("false");
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      if (property.needsPresence()) {
+        loadPresence(code, i, "this", true);
+        loadPresence(code, i, "other", true);
+        code.compareIntBranchIfNotEqual("false");
+      }
+      loadValue(code, property, i, "this", true);
+      loadValue(code, property, i, "other", true);
+      if (property.isPrimitive()) {
+        Type valueType = property.getValueType();
+        code.invokeStatic(new Type(getWrapperClass(property.getValueClass())), Type.INT, "compare", valueType, valueType);
+        code.branchIfNotEqual("false");
+      } else {
+        code.invokeStatic(objectsType, Type.BOOLEAN, "equals", Type.OBJECT, Type.OBJECT);
+        code.branchIfEqual("false");
+      }
+    }
+
+    code.loadConstant(1);
+    code.returnInt();
+
+    code.defineLabel("false");
+    code.loadConstant(0);
+    code.returnInt();
+  }
+
+  private void generateKeyCompareTo(CodeAttribute code) {
+
+    code.loadLocalReference(1);
+    code.cast(keyType);
+    code.storeLocalReference(code.getLocalVariable("other", keyType));
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      compareProperty(code, propertyList.get(i), i, "this", "other", true);
+    }
+
+    code.loadConstant(0);
+    code.returnInt();
+  }
+
+  private void generateKeyToString(CodeAttribute code) {
+
+    code.newObject(stringBuilderType);
+    code.duplicate();
+    code.invokeSpecial(stringBuilderType, Type.VOID, "<init>");
+
+    for (int i = 0; i < propertyList.size(); i++) {
+      SortProperty property = propertyList.get(i);
+      code.loadConstant((i == 0) ? "[" : ", ");
+      code.invokeVirtual(stringBuilderType, stringBuilderType, "append", Type.STRING);
+      loadValue(code, property, i, "this", true);
+      code.invokeVirtual(stringBuilderType, stringBuilderType, "append", getAppendType(property.getValueClass()));
+    }
+
+    code.loadConstant("]");
+    code.invokeVirtual(stringBuilderType, stringBuilderType, "append", Type.STRING);
+    code.invokeVirtual(stringBuilderType, Type.STRING, "toString");
+    code.returnReference();
+  }
+
+  private GenClass generateKeyFactory(String className) {
+
+    GenClass genClass = new GenClass(ACC_PUBLIC | ACC_FINAL, className, Type.OBJECT, keyFactoryType);
+
+    genClass.createDefaultConstructor();
+
+    GenMethod method = genClass.createMethod(ACC_PUBLIC, Type.OBJECT, "createKey", Type.OBJECT);
+    CodeAttribute code = method.getCode();
+
+    code.newObject(keyType);
+    code.duplicate();
+    code.loadLocalReference(1);
+    code.invokeSpecial(keyType, Type.VOID, "<init>", Type.OBJECT);
+    code.returnReference();
+
+    return genClass;
+  }
+
+// --- common code ------------------------------------------------------------
+
+  private void extractProperty(CodeAttribute code, SortProperty property, int index, String side) {
+
+    // evaluates the getter path and stores the value in local variable <side><index>;
+    // a null object within the path results in a null (or absent primitive) value
+
+    final Class<?> valueClass = property.getValueClass();
+    final int value = code.getLocalVariable(side + index, property.getValueType());
+    final int pathLength = property.getPathLength();
+    final String nullLabel = "null_" + side + index;
+    final String doneLabel = "done_" + side + index;
+
+    code.loadLocalReference(side);
+
+    for (int i = 0; i < pathLength - 1; i++) {
+      int step = code.getLocalVariable("step", Type.OBJECT);
+      invokeGetter(code, property, i);
+      code.storeLocalReference(step);
+      code.loadLocalReference(step);
+      code.branchIfNull(nullLabel);
+      code.loadLocalReference(step);
+    }
+
+    invokeGetter(code, property, pathLength - 1);
+    storeLocal(code, valueClass, value);
+
+    if (pathLength > 1) {
+      int presence = property.needsPresence() ? code.getLocalVariable(side + "p" + index, Type.INT) : 0;
+      if (property.needsPresence()) {
+        code.loadConstant(1);
+        code.storeLocalInt(presence);
+      }
+      code.branch(doneLabel);
+      code.defineLabel(nullLabel);
+      loadDefault(code, valueClass);
+      storeLocal(code, valueClass, value);
+      if (property.needsPresence()) {
+        code.loadConstant(0);
+        code.storeLocalInt(presence);
+      }
+      code.defineLabel(doneLabel);
+    }
+  }
+
+  private void invokeGetter(CodeAttribute code, SortProperty property, int index) {
+
+    Class<?> owner = property.getOwner(index);
+    Type ownerType = new Type(owner);
+    Type returnType = new Type(property.getGetter(index).getReturnType());
+    String methodName = property.getGetter(index).getName();
+
+    if (owner.isInterface()) {
+      code.invokeInterface(ownerType, returnType, methodName);
+    } else {
+      code.invokeVirtual(ownerType, returnType, methodName);
+    }
+  }
+
+  private void compareProperty(CodeAttribute code, SortProperty property, int index, String a, String b, boolean fields) {
+
+    final String next = "next" + index;
+    // result when a is null and b is not
+    final int nullResult = property.isNullsFirst() ? -1 : 1;
+    // descending order is achieved by swapping the operands, not by negating the result
+    final String first = property.isDescending() ? b : a;
+    final String second = property.isDescending() ? a : b;
+
+    if (property.isPrimitive()) {
+      if (property.needsPresence()) {
+        loadPresence(code, index, a, fields);
+        loadPresence(code, index, b, fields);
+        code.compareIntBranchIfEqual("samePresence" + index);
+        loadPresence(code, index, a, fields);
+        code.branchIfEqual("aNull" + index);
+        code.loadConstant(-nullResult);
+        code.returnInt();
+        code.defineLabel("aNull" + index);
+        code.loadConstant(nullResult);
+        code.returnInt();
+        code.defineLabel("samePresence" + index);
+        loadPresence(code, index, a, fields);
+        code.branchIfEqual(next);
+      }
+      Type valueType = property.getValueType();
+      loadValue(code, property, index, first, fields);
+      loadValue(code, property, index, second, fields);
+      code.invokeStatic(new Type(getWrapperClass(property.getValueClass())), Type.INT, "compare", valueType, valueType);
+    } else {
+      loadValue(code, property, index, a, fields);
+      code.branchIfNonNull("aNotNull" + index);
+      loadValue(code, property, index, b, fields);
+      code.branchIfNull(next);
+      code.loadConstant(nullResult);
+      code.returnInt();
+      code.defineLabel("aNotNull" + index);
+      loadValue(code, property, index, b, fields);
+      code.branchIfNonNull("bothNotNull" + index);
+      code.loadConstant(-nullResult);
+      code.returnInt();
+      code.defineLabel("bothNotNull" + index);
+      loadValue(code, property, index, first, fields);
+      loadValue(code, property, index, second, fields);
+      if (property.getValueClass() == String.class) {
+        code.invokeVirtual(Type.STRING, Type.INT, "compareTo", Type.STRING);
+      } else {
+        code.invokeInterface(comparableType, Type.INT, "compareTo", Type.OBJECT);
+      }
+    }
+
+    final int result = code.getLocalVariable("result", Type.INT);
+    code.storeLocalInt(result);
+    code.loadLocalInt(result);
+    code.branchIfEqual(next);
+    code.loadLocalInt(result);
+    code.returnInt();
+
+    code.defineLabel(next);
+  }
+
+  private void loadValue(CodeAttribute code, SortProperty property, int index, String side, boolean fields) {
+
+    if (fields) {
+      code.loadLocalReference(side);
+      code.getField(keyType, property.getValueType(), "v" + index);
+    } else {
+      loadLocal(code, property.getValueClass(), code.getLocalVariable(side + index, property.getValueType()));
+    }
+  }
+
+  private void loadPresence(CodeAttribute code, int index, String side, boolean fields) {
+
+    if (fields) {
+      code.loadLocalReference(side);
+      code.getField(keyType, Type.INT, "p" + index);
+    } else {
+      code.loadLocalInt(side + "p" + index);
+    }
+  }
+
+  private void loadLocal(CodeAttribute code, Class<?> valueClass, int variable) {
+
+    if (valueClass == Long.TYPE) {
+      code.loadLocalLong(variable);
+    } else if (valueClass == Float.TYPE) {
+      code.loadLocalFloat(variable);
+    } else if (valueClass == Double.TYPE) {
+      code.loadLocalDouble(variable);
+    } else if (valueClass.isPrimitive()) {
+      code.loadLocalInt(variable);
+    } else {
+      code.loadLocalReference(variable);
+    }
+  }
+
+  private void storeLocal(CodeAttribute code, Class<?> valueClass, int variable) {
+
+    if (valueClass == Long.TYPE) {
+      code.storeLocalLong(variable);
+    } else if (valueClass == Float.TYPE) {
+      code.storeLocalFloat(variable);
+    } else if (valueClass == Double.TYPE) {
+      code.storeLocalDouble(variable);
+    } else if (valueClass.isPrimitive()) {
+      code.storeLocalInt(variable);
+    } else {
+      code.storeLocalReference(variable);
+    }
+  }
+
+  private void loadDefault(CodeAttribute code, Class<?> valueClass) {
+
+    if (valueClass == Long.TYPE) {
+      code.loadConstant(0L);
+    } else if (valueClass == Float.TYPE) {
+      code.loadConstant(0F);
+    } else if (valueClass == Double.TYPE) {
+      code.loadConstant(0D);
+    } else if (valueClass.isPrimitive()) {
+      code.loadConstant(0);
+    } else {
+      code.loadNull();
+    }
+  }
+
+  private Class<?> getWrapperClass(Class<?> primitiveClass) {
+
+    if (primitiveClass == Boolean.TYPE) {
+      return Boolean.class;
+    } else if (primitiveClass == Byte.TYPE) {
+      return Byte.class;
+    } else if (primitiveClass == Short.TYPE) {
+      return Short.class;
+    } else if (primitiveClass == Character.TYPE) {
+      return Character.class;
+    } else if (primitiveClass == Integer.TYPE) {
+      return Integer.class;
+    } else if (primitiveClass == Long.TYPE) {
+      return Long.class;
+    } else if (primitiveClass == Float.TYPE) {
+      return Float.class;
+    } else {
+      return Double.class;
+    }
+  }
+
+  private Type getAppendType(Class<?> valueClass) {
+
+    if (valueClass == Byte.TYPE || valueClass == Short.TYPE) {
+      return Type.INT;
+    } else if (valueClass.isPrimitive()) {
+      return new Type(valueClass);
+    } else {
+      return Type.OBJECT;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Superclass of generated key classes.
+ * <p>
+ * Instances are created by a <code>KeyFactory</code> 
+ * obtained from {@link ComparatorBuilder#keyFactory ComparatorBuilder.keyFactory}.
+ * A key holds the property values of a data object in typed fields.
+ * Its hash code is computed once when the key is created.
+ * The natural order of keys of the same generated class is the order
+ * defined by the property specifications;
+ * therefore, a {@link NaturalComparator} is suitable for sort, merge and match.
+ * Keys of different generated classes must not be compared.
+ * <p>
+ * Keys are serializable, so they may be sorted by a {@link Sorter}, {@link TagSorter} or {@link ProcessSorter}.
+ * A key is serialized together with its data class and property specifications;
+ * on deserialization, the key class generated for these specifications is used,
+ * or generated again if there is none in the current JVM.
+ * Therefore, the data class has to be available where the key is deserialized,
+ * and the property values have to be serializable.
+ * @author Uwe Finke
+ */
+public abstract class CompositeKey implements Comparable<CompositeKey>, Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  /**
+   * Constructor.
+   */
+  protected CompositeKey() {
+    
+  }
+  
+  /**
+   * Replaces the key by its serial form.
+   * @return serial form
+   * @throws ObjectStreamException if the key class was not generated by a key factory
+   */
+  protected final Object writeReplace() throws ObjectStreamException {
+    
+    return new SerialKey(this);
+  }
+  
+  /**
+   * Returns the field values for the serial form.
+   * Implemented by the generated class.
+   * @return values
+   */
+  protected abstract Object[] getSerialValues();
+  
+  /**
+   * Creates a key of the same class from values returned by <code>getSerialValues</code>.
+   * Implemented by the generated class.
+   * @param values values
+   * @return new key
+   */
+  protected abstract CompositeKey restore(Object[] values);
+}
@@ -4,6 +4,7 @@
 package de.ufinke.cubaja.sort;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.RandomAccessFile;
@@ -13,11 +14,13 @@ import java.util.Date;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import de.ufinke.cubaja.io.BufferPool;
 import de.ufinke.cubaja.io.RandomAccessBuffer;
 
 final class FileTask implements Runnable {
 
   private final SortManager manager;
+  private final Checkpoint checkpoint;
   private final File file;
   private final RandomAccessFile raf;
   private final RandomAccessBuffer buffer;
@@ -28,12 +31,45 @@ final class FileTask implements Runnable {
   private int blockCount;
   private int objectCount;
   private ObjectOutputStream out;
+  
+  private long inputPosition;
+  private long runObjectCount;
 
   public FileTask(SortManager manager) throws Exception {
 
     this.manager = manager;
+    
+    buffer = new RandomAccessBuffer(BufferPool.getShared(), manager.getBlockSize() + 1024);
+    runList = new ArrayList<Run>();
 
-    SortConfig config = manager.getConfig();
+    checkpoint = manager.getCheckpoint();
+    if (checkpoint == null) {
+      file = createTempFile(manager.getConfig());
+      raf = new RandomAccessFile(file, "rw");
+    } else {
+      file = checkpoint.getRunFile();
+      raf = new RandomAccessFile(file, "rw");
+      recover();
+    }
+  }
+  
+  private void recover() throws Exception {
+    
+    // a run which was incomplete at the time of failure is truncated
+    
+    if (checkpoint.isLoaded()) {
+      inputPosition = checkpoint.getInputPosition();
+      for (long[] run : checkpoint.getRuns()) {
+        runList.add(new Run(manager, run[0], (int) run[1]));
+      }
+      raf.setLength(checkpoint.getFileLength());
+      raf.seek(checkpoint.getFileLength());
+    } else {
+      raf.setLength(0);
+    }
+  }
+  
+  static File createTempFile(SortConfig config) throws IOException {
     
     File dir = new File(config.getWorkDirectory());
     dir.mkdirs();
@@ -51,17 +87,17 @@ final class FileTask implements Runnable {
     }
 
     file.deleteOnExit();
-    this.file = file;
-    raf = new RandomAccessFile(file, "rw");
-    
-    buffer = new RandomAccessBuffer(manager.getBlockSize() + 1024, 1024);
-    runList = new ArrayList<Run>();
+    return file;
   }
   
   protected void finalize() {
     
     try {
-      close();
+      if (checkpoint == null) {
+        close();
+      } else {
+        raf.close();
+      }
     } catch (Exception e) {        
     }
   }
@@ -126,12 +162,19 @@ final class FileTask implements Runnable {
   private void beginRun() throws Exception {
 
     blockCount = 0;
+    runObjectCount = 0;
     initBlock();
   }
   
   private void endRun() throws Exception {
     
     finishBlock(true);
+    
+    if (checkpoint != null) {
+      inputPosition += runObjectCount;
+      raf.getFD().sync();
+      checkpoint.save(inputPosition, raf.getFilePointer(), runList);
+    }
   }
   
   private void writeBlocks(SortArray sortArray) throws Exception {
@@ -149,6 +192,8 @@ final class FileTask implements Runnable {
       out.writeObject(array[position++]);
       objectCount++;
     }
+    
+    runObjectCount += size;
   }
   
   private void initBlock() throws Exception {
@@ -236,8 +281,13 @@ final class FileTask implements Runnable {
   
   private void close() throws Exception {
     
+    buffer.release();
     raf.close();
-    file.delete();
+    if (checkpoint == null) {
+      file.delete();
+    } else {
+      checkpoint.delete();
+    }
     loop = false;
   }
   
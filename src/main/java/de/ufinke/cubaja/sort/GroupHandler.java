@@ -0,0 +1,34 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+/**
+ * Callback interface for {@link Grouper#process Grouper.process}.
+ * @author Uwe Finke
+ * @param <D> data type
+ * @param <K> key type
+ */
+public interface GroupHandler<D, K> {
+
+  /**
+   * Called before the first data object of a group.
+   * @param key the group's key
+   * @throws Exception any exception
+   */
+  public void beginGroup(K key) throws Exception;
+  
+  /**
+   * Called for every data object of a group.
+   * @param data data object
+   * @throws Exception any exception
+   */
+  public void processData(D data) throws Exception;
+  
+  /**
+   * Called after the last data object of a group.
+   * @param key the group's key
+   * @throws Exception any exception
+   */
+  public void endGroup(K key) throws Exception;
+}
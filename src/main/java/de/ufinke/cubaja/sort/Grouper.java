@@ -0,0 +1,192 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Control break processing over a sorted source.
+ * <p>
+ * Consecutive data objects with equal keys form a group.
+ * The distinct keys are presented by an <code>Iterator</code>;
+ * for every key, the data objects of the group are retrieved with
+ * {@link #get get} or {@link #getGroup getGroup}.
+ * Any data objects of a group which are not retrieved by the application
+ * are skipped before the next key is determined.
+ * Alternatively, the whole source may be passed to a {@link GroupHandler}
+ * with {@link #process process}.
+ * <p>
+ * Groups are never collected into lists; only the current data object is held.
+ * Therefore, aggregations over sorted data run in constant memory,
+ * regardless of the group sizes.
+ * <p>
+ * Example:
+ * <pre>
+ *   Grouper&lt;Booking, String&gt; grouper = new Grouper&lt;Booking, String&gt;(sorter, keyFactory, comparator);
+ *   for (String account : grouper) {
+ *     BigDecimal total = BigDecimal.ZERO;
+ *     for (Booking booking : grouper.getGroup()) {
+ *       total = total.add(booking.getAmount());
+ *     }
+ *     ...
+ *   }
+ * </pre>
+ * @author Uwe Finke
+ * @param <D> data type
+ * @param <K> key type
+ */
+public final class Grouper<D, K> implements Iterable<K> {
+
+  private final InternalMatchSource<D, K> source;
+  private final Iterable<D> group;
+  private Iterator<K> iterator;
+
+  /**
+   * Constructor.
+   * @param sortedSource data source, sorted by key
+   * @param keyFactory something that is able to extract a key from the data
+   * @param comparator key comparator
+   */
+  public Grouper(Iterable<D> sortedSource, KeyFactory<D, K> keyFactory, Comparator<? super K> comparator) {
+
+    source = new InternalMatchSource<D, K>(sortedSource, keyFactory, comparator);
+    group = createGroup();
+  }
+
+  /**
+   * Returns an <code>Iterator</code> over the group keys.
+   */
+  public Iterator<K> iterator() {
+
+    if (iterator == null) {
+      iterator = createIterator();
+    }
+    return iterator;
+  }
+
+  /**
+   * Tells whether there are more data objects within the current group.
+   * @return flag
+   */
+  public boolean hasData() {
+
+    return source.isMatching();
+  }
+
+  /**
+   * Returns the next data object of the current group.
+   * @return a data object
+   * @throws NoSuchElementException if there is no more data in the current group
+   */
+  public D get() throws NoSuchElementException {
+
+    if (source.isMatching()) {
+      return source.getCurrentData();
+    }
+
+    throw new NoSuchElementException();
+  }
+
+  /**
+   * Returns the remaining data objects of the current group.
+   * The returned object is the same for all groups;
+   * its iterator does not support the <code>remove</code> method.
+   * @return the group's data
+   */
+  public Iterable<D> getGroup() {
+
+    return group;
+  }
+
+  /**
+   * Passes all groups to a handler.
+   * @param handler group handler
+   * @throws Exception any exception thrown by the handler
+   */
+  public void process(GroupHandler<? super D, ? super K> handler) throws Exception {
+
+    for (K key : this) {
+      handler.beginGroup(key);
+      while (source.isMatching()) {
+        handler.processData(source.getCurrentData());
+      }
+      handler.endGroup(key);
+    }
+  }
+
+  private Iterable<D> createGroup() {
+
+    final Iterator<D> groupIterator = new Iterator<D>() {
+
+      public boolean hasNext() {
+
+        return source.isMatching();
+      }
+
+      public D next() {
+
+        return get();
+      }
+
+      public void remove() {
+
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    return new Iterable<D>() {
+
+      public Iterator<D> iterator() {
+
+        return groupIterator;
+      }
+    };
+  }
+
+  private Iterator<K> createIterator() {
+
+    return new Iterator<K>() {
+
+      private K groupKey;
+      private boolean hasGroup;
+      private boolean tested;
+
+      public boolean hasNext() {
+
+        if (tested) {
+          return hasGroup;
+        }
+
+        source.endMatch();
+
+        hasGroup = source.hasMore();
+        if (hasGroup) {
+          groupKey = source.getCurrentKey();
+          source.startMatch(groupKey);
+        }
+
+        tested = true;
+
+        return hasGroup;
+      }
+
+      public K next() {
+
+        if (! hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        tested = false;
+        return groupKey;
+      }
+
+      public void remove() {
+
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class HashedMatchSource<D, K> implements MatchAccess<D> {
+
+  static private final class Chain<E> {
+
+    private final List<E> list;
+
+    Chain(E first, E second) {
+
+      list = new ArrayList<E>(4);
+      list.add(first);
+      list.add(second);
+    }
+  }
+
+  private final Map<K, Object> index;
+  private Object currentEntry;
+  private int currentSize;
+  private int position;
+
+  @SuppressWarnings("unchecked")
+  HashedMatchSource(Iterable<D> source, KeyFactory<D, K> keyFactory) {
+
+    index = new HashMap<K, Object>();
+
+    // a single object is stored directly; a chain is created only for duplicate keys
+    for (D data : source) {
+      final K key = keyFactory.createKey(data);
+      final Object entry = index.get(key);
+      if (entry == null && ! index.containsKey(key)) {
+        index.put(key, data);
+      } else if (entry instanceof Chain) {
+        ((Chain<D>) entry).list.add(data);
+      } else {
+        index.put(key, new Chain<D>((D) entry, data));
+      }
+    }
+  }
+
+  MatchSource<D> createDataSource() {
+
+    return new MatchSource<D>(this);
+  }
+
+  void startMatch(K matchKey) {
+
+    currentEntry = index.get(matchKey);
+    if (currentEntry instanceof Chain) {
+      currentSize = ((Chain<?>) currentEntry).list.size();
+    } else {
+      currentSize = (currentEntry == null && ! index.containsKey(matchKey)) ? 0 : 1;
+    }
+    position = 0;
+  }
+
+  void endMatch() {
+
+    currentEntry = null;
+    currentSize = 0;
+    position = 0;
+  }
+
+  public boolean isMatching() {
+
+    return position < currentSize;
+  }
+
+  @SuppressWarnings("unchecked")
+  public D getCurrentData() {
+
+    final Object entry = currentEntry;
+    if (entry instanceof Chain) {
+      return ((Chain<D>) entry).list.get(position++);
+    }
+    position++;
+    return (D) entry;
+  }
+}
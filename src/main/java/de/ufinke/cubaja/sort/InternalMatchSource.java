@@ -6,7 +6,7 @@ package de.ufinke.cubaja.sort;
 import java.util.Comparator;
 import java.util.Iterator;
 
-final class InternalMatchSource<D, K> {
+final class InternalMatchSource<D, K> implements MatchAccess<D> {
 
   private Iterator<D> source;
   private KeyFactory<D, K> keyFactory;
@@ -33,7 +33,7 @@ final class InternalMatchSource<D, K> {
     return new MatchSource<D>(this);
   }
   
-  D getCurrentData() {
+  public D getCurrentData() {
     
     D result = currentData;
     readNext();
@@ -45,18 +45,20 @@ final class InternalMatchSource<D, K> {
     return currentKey;
   }
   
-  void skipUnusedData() {
+  void startMatch(K matchKey) {
     
-    while (matching) {
-      readNext();
-    }
+    // the caller has already determined that the current key is equal to the match key
+    this.matchKey = matchKey;
+    hasMatch = true;
+    matching = true;
   }
   
-  void setMatchKey(K matchKey) {
+  void endMatch() {
     
-    this.matchKey = matchKey;
-    hasMatch = true;
-    testMatch();
+    while (matching) {
+      readNext();
+    }
+    hasMatch = false;
   }
   
   boolean hasMore() {
@@ -64,7 +66,7 @@ final class InternalMatchSource<D, K> {
     return hasCurrent;
   }
     
-  boolean isMatching() {
+  public boolean isMatching() {
     
     return matching;
   }
@@ -0,0 +1,33 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+/**
+ * Format of a {@link RecordSort} key field.
+ * @author Uwe Finke
+ */
+public enum KeyFormat {
+
+  /**
+   * Unsigned binary; bytes are compared as unsigned values.
+   */
+  BINARY,
+  /**
+   * Signed binary (two's complement, big endian).
+   */
+  FIXED,
+  /**
+   * Characters; bytes are compared as unsigned values,
+   * which corresponds to the collating sequence of the record's character set.
+   */
+  CHARACTER,
+  /**
+   * Zoned decimal; the sign is in the zone of the last byte (<code>D</code> or <code>B</code> is negative).
+   */
+  ZONED,
+  /**
+   * Packed decimal; the sign is in the last half byte (<code>D</code> or <code>B</code> is negative).
+   */
+  PACKED
+}
@@ -0,0 +1,11 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+interface MatchAccess<D> {
+
+  boolean isMatching();
+  
+  D getCurrentData();
+}
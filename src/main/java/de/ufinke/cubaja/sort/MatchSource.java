@@ -21,9 +21,9 @@ import java.util.NoSuchElementException;
  */
 public final class MatchSource<D> {
 
-  private InternalMatchSource<D, ?> source;
+  private MatchAccess<D> source;
   
-  MatchSource(InternalMatchSource<D, ?> source) {
+  MatchSource(MatchAccess<D> source) {
   
     this.source = source;
   }
@@ -8,12 +8,14 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import de.ufinke.cubaja.util.Text;
 
 /**
  * Matches any number of sorted sources.
  * <p>
  * All sources have to be previously sorted by key in the same order.
+ * Small unsorted sources may be added for lookup with {@link #addHashedSource addHashedSource}.
  * If applicable, use the same <code>Comparator</code> for sorting and matching.
  * Keys may be <code>null</code>;
  * the <code>Comparator</code> should allow for <code>null</code> values
@@ -25,6 +27,17 @@ import de.ufinke.cubaja.util.Text;
  * The <code>Matcher</code> ensures that any matching data objects which are not read from the
  * <code>MatchSource</code> are skipped before the next key in sequence is determined,
  * which is the lowest next key of all sources.
+ * <p>
+ * The sources are held in a priority queue ordered by their current key.
+ * Determining the next key touches only the sources which matched the previous key,
+ * so the effort per key grows logarithmically with the number of sources.
+ * <p>
+ * When the <code>prefetch</code> option is set, every sorted source is read ahead
+ * in its own background thread by a {@link Prefetcher}.
+ * This lets slow sources (database cursors, parsed files) deliver their data concurrently
+ * while the application processes the matched keys.
+ * If the application stops reading before all sources are exhausted,
+ * it should call {@link #close close} to terminate the background threads.
  * @author Uwe Finke
  * @param <K> key type
  */
@@ -34,6 +47,9 @@ public final class Matcher<K> implements Iterable<K> {
   
   Comparator<? super K> comparator;
   List<InternalMatchSource<?, K>> sourceList;
+  List<HashedMatchSource<?, K>> hashedList;
+  private final boolean prefetch;
+  private final List<Prefetcher<?>> prefetcherList;
   private Iterator<K> iterator;
   
   /**
@@ -42,8 +58,21 @@ public final class Matcher<K> implements Iterable<K> {
    */
   public Matcher(Comparator<? super K> comparator) {
   
+    this(comparator, false);
+  }
+  
+  /**
+   * Constructor with prefetch option.
+   * @param comparator key comparator
+   * @param prefetch whether the sorted sources are read ahead in background threads
+   */
+  public Matcher(Comparator<? super K> comparator, boolean prefetch) {
+  
     this.comparator = comparator;
+    this.prefetch = prefetch;
     sourceList = new ArrayList<InternalMatchSource<?, K>>();
+    hashedList = new ArrayList<HashedMatchSource<?, K>>();
+    prefetcherList = new ArrayList<Prefetcher<?>>();
   }
   
   /**
@@ -55,6 +84,12 @@ public final class Matcher<K> implements Iterable<K> {
    */
   public <D> MatchSource<D> addSource(Iterable<D> sortedSource, KeyFactory<D, K> keyFactory) {
     
+    if (prefetch) {
+      sortedSource = new Prefetcher<D>(sortedSource);
+    }
+    if (sortedSource instanceof Prefetcher) {
+      prefetcherList.add((Prefetcher<?>) sortedSource);
+    }
     InternalMatchSource<D, K> source = new InternalMatchSource<D, K>(sortedSource, keyFactory, comparator);
     sourceList.add(source);
     return source.createDataSource();
@@ -100,6 +135,32 @@ public final class Matcher<K> implements Iterable<K> {
     return addSource(sortedSource, keySource);
   }
   
+  /**
+   * Adds an unsorted source which is used for lookups only.
+   * <p>
+   * All data objects are read immediately and stored in an in-memory hash index.
+   * A hashed source does not contribute keys to the <code>Matcher</code>;
+   * for every key determined by the sorted sources,
+   * the matching data objects are looked up in the index.
+   * Within the <code>MatchSource</code>, the matching objects are presented
+   * in the sequence they were read from the source.
+   * <p>
+   * This is intended for small reference data which would otherwise
+   * have to be sorted just for the match.
+   * The key type has to implement <code>equals</code> and <code>hashCode</code>
+   * consistent with the <code>Matcher</code>'s <code>Comparator</code>.
+   * @param <D> data type
+   * @param source data source, need not be sorted
+   * @param keyFactory something that is able to extract a key from the data
+   * @return an accessor to the data
+   */
+  public <D> MatchSource<D> addHashedSource(Iterable<D> source, KeyFactory<D, K> keyFactory) {
+    
+    HashedMatchSource<D, K> hashedSource = new HashedMatchSource<D, K>(source, keyFactory);
+    hashedList.add(hashedSource);
+    return hashedSource.createDataSource();
+  }
+  
   /**
    * Returns an <code>Iterator</code> over the key values.
    */
@@ -111,8 +172,37 @@ public final class Matcher<K> implements Iterable<K> {
     return iterator;
   }
   
+  /**
+   * Terminates the background threads of all sorted sources which are {@link Prefetcher}s.
+   * This includes the sources wrapped by the <code>prefetch</code> option.
+   * Data objects which have not yet been read are discarded.
+   */
+  public void close() {
+    
+    for (Prefetcher<?> prefetcher : prefetcherList) {
+      prefetcher.close();
+    }
+  }
+  
   private void createIterator() {
     
+    final Comparator<InternalMatchSource<?, K>> sourceComparator = new Comparator<InternalMatchSource<?, K>>() {
+      
+      public int compare(InternalMatchSource<?, K> a, InternalMatchSource<?, K> b) {
+        
+        return comparator.compare(a.getCurrentKey(), b.getCurrentKey());
+      }
+    };
+    
+    final PriorityQueue<InternalMatchSource<?, K>> queue = new PriorityQueue<InternalMatchSource<?, K>>(Math.max(1, sourceList.size()), sourceComparator);
+    for (InternalMatchSource<?, K> source : sourceList) {
+      if (source.hasMore()) {
+        queue.add(source);
+      }
+    }
+    
+    final List<InternalMatchSource<?, K>> activeList = new ArrayList<InternalMatchSource<?, K>>(sourceList.size());
+    
     iterator = new Iterator<K>() {
 
       private K matchKey;
@@ -121,24 +211,40 @@ public final class Matcher<K> implements Iterable<K> {
       
       public final boolean hasNext() {
 
-        for (InternalMatchSource<?, K> source : sourceList) {
-          source.skipUnusedData();
+        if (tested) {
+          return hasMatchKey;
         }
         
-        hasMatchKey = false;
+        // only the sources which matched the previous key have to be advanced;
+        // all other sources stay in the queue ordered by their current key
         
-        for (InternalMatchSource<?, K> source : sourceList) {
+        for (InternalMatchSource<?, K> source : activeList) {
+          source.endMatch();
           if (source.hasMore()) {
-            K currentKey = source.getCurrentKey();
-            if ((! hasMatchKey) || comparator.compare(currentKey, matchKey) < 0) {
-              matchKey = currentKey;
-            }
-            hasMatchKey = true;
+            queue.add(source);
           }
         }
+        activeList.clear();
+        
+        for (HashedMatchSource<?, K> source : hashedList) {
+          source.endMatch();
+        }
         
-        for (InternalMatchSource<?, K> source : sourceList) {
-          source.setMatchKey(matchKey);
+        hasMatchKey = ! queue.isEmpty();
+        
+        if (hasMatchKey) {
+          InternalMatchSource<?, K> source = queue.poll();
+          matchKey = source.getCurrentKey();
+          source.startMatch(matchKey);
+          activeList.add(source);
+          while ((! queue.isEmpty()) && comparator.compare(queue.peek().getCurrentKey(), matchKey) == 0) {
+            source = queue.poll();
+            source.startMatch(matchKey);
+            activeList.add(source);
+          }
+          for (HashedMatchSource<?, K> hashedSource : hashedList) {
+            hashedSource.startMatch(matchKey);
+          }
         }
         
         tested = true;
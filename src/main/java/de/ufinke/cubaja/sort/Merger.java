@@ -3,6 +3,7 @@
 
 package de.ufinke.cubaja.sort;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -13,6 +14,12 @@ import java.util.NoSuchElementException;
  * Merges an arbitrary number of sorted sources.
  * After the sources have been defined with a constructor,
  * the merged objects are retrieved by an iterator.
+ * <p>
+ * When the <code>prefetch</code> option is set, every source is read ahead
+ * in its own background thread by a {@link Prefetcher}.
+ * This is worthwhile when the sources are slow, e.g. database cursors or parsed files.
+ * If the application stops reading before all sources are exhausted,
+ * it should call {@link #close close} to terminate the background threads.
  * @author Uwe Finke
  * @param <D> data type
  */
@@ -99,6 +106,7 @@ public class Merger<D> implements Iterable<D> {
     }    
   }
 
+  private final List<Iterable<D>> sources;
   private final Iterator<D> iterator;
   
   /**
@@ -107,13 +115,40 @@ public class Merger<D> implements Iterable<D> {
    * @param leftSource first source
    * @param rightSource second source
    */
+  @SuppressWarnings("unchecked")
   public Merger(Comparator<? super D> comparator, Iterable<D> leftSource, Iterable<D> rightSource) {
 
+    sources = Arrays.asList(leftSource, rightSource);
     Source<D> left = new Source<D>(leftSource.iterator());
     Source<D> right = new Source<D>(rightSource.iterator());
     iterator = new MergeIterator<D>(comparator, left, right);
   }
   
+  /**
+   * Constructor with 2 sources and prefetch option.
+   * @param comparator comparator
+   * @param leftSource first source
+   * @param rightSource second source
+   * @param prefetch whether the sources are read ahead in background threads
+   */
+  public Merger(Comparator<? super D> comparator, Iterable<D> leftSource, Iterable<D> rightSource, boolean prefetch) {
+    
+    this(comparator, 
+        prefetch ? new Prefetcher<D>(leftSource) : leftSource, 
+        prefetch ? new Prefetcher<D>(rightSource) : rightSource);
+  }
+  
+  /**
+   * Constructor with a list of sources and prefetch option.
+   * @param comparator comparator
+   * @param sources list with sources to merge
+   * @param prefetch whether the sources are read ahead in background threads
+   */
+  public Merger(Comparator<? super D> comparator, List<Iterable<D>> sources, boolean prefetch) {
+    
+    this(comparator, prefetch ? Prefetcher.wrap(sources) : sources);
+  }
+  
   /**
    * Constructor with a list of sources.
    * The sources are split into sub-lists
@@ -124,6 +159,8 @@ public class Merger<D> implements Iterable<D> {
    */
   public Merger(Comparator<? super D> comparator, List<Iterable<D>> sources) {
     
+    this.sources = sources;
+    
     switch (sources.size()) {
       case 0:
         List<D> emptyList = Collections.emptyList();
@@ -162,4 +199,18 @@ public class Merger<D> implements Iterable<D> {
     
     return iterator;
   }
+  
+  /**
+   * Terminates the background threads of all sources which are {@link Prefetcher}s.
+   * This includes the sources wrapped by the <code>prefetch</code> option.
+   * Objects which have not yet been read are discarded.
+   */
+  public void close() {
+    
+    for (Iterable<D> source : sources) {
+      if (source instanceof Prefetcher) {
+        ((Prefetcher<D>) source).close();
+      }
+    }
+  }
 }
@@ -3,6 +3,7 @@
 
 package de.ufinke.cubaja.sort;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import de.ufinke.cubaja.util.Util;
 
@@ -11,7 +12,9 @@ import de.ufinke.cubaja.util.Util;
  * @author Uwe Finke
  * @param <D> data type
  */
-public class NaturalComparator<D extends Comparable<? super D>> implements Comparator<D> {
+public class NaturalComparator<D extends Comparable<? super D>> implements Comparator<D>, Serializable {
+
+  static private final long serialVersionUID = 1L;
 
   /**
    * Constructor.
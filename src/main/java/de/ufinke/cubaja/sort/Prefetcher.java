@@ -0,0 +1,218 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import de.ufinke.cubaja.util.IteratorException;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Reads a source ahead in a background thread.
+ * <p>
+ * The objects of the source are fetched in batches by a separate daemon thread
+ * and passed to the consumer through a bounded queue.
+ * The source's I/O and parsing overlap with the consumer's processing.
+ * This is useful for slow sources like database cursors, file readers or remote extracts,
+ * particularly when several of them are merged or matched
+ * (see the <code>prefetch</code> constructors of {@link Merger} and {@link Matcher}).
+ * <p>
+ * The background thread is started by the first call to <code>iterator</code>;
+ * subsequent calls return the same iterator.
+ * An exception thrown by the source is rethrown by the consumer's iterator
+ * after all objects read before the failure have been delivered;
+ * checked exceptions are wrapped into an {@link IteratorException}.
+ * If the consumer stops reading before the end of the source,
+ * it should call {@link #close close} to terminate the background thread.
+ * @author Uwe Finke
+ * @param <D> data type
+ */
+public class Prefetcher<D> implements Iterable<D> {
+
+  static private final Text text = Text.getPackageInstance(Prefetcher.class);
+
+  static private final int DEFAULT_BATCH_SIZE = 1024;
+  static private final int DEFAULT_BATCH_COUNT = 4;
+
+  static private final class Batch {
+
+    final Object[] array;
+    int size;
+    boolean last;
+    Throwable error;
+
+    Batch(int capacity) {
+
+      array = new Object[capacity];
+    }
+  }
+
+  static <D> List<Iterable<D>> wrap(List<Iterable<D>> sources) {
+
+    List<Iterable<D>> list = new ArrayList<Iterable<D>>(sources.size());
+    for (Iterable<D> source : sources) {
+      list.add(new Prefetcher<D>(source));
+    }
+    return list;
+  }
+
+  private final Iterable<D> source;
+  private final int batchSize;
+  private final BlockingQueue<Batch> queue;
+  private volatile boolean closed;
+  private Iterator<D> iterator;
+
+  /**
+   * Constructor with default batch size (<code>1024</code>) and batch count (<code>4</code>).
+   * @param source data source
+   */
+  public Prefetcher(Iterable<D> source) {
+
+    this(source, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_COUNT);
+  }
+
+  /**
+   * Constructor.
+   * @param source data source
+   * @param batchSize number of objects passed to the consumer at once
+   * @param batchCount maximum number of batches read ahead
+   */
+  public Prefetcher(Iterable<D> source, int batchSize, int batchCount) {
+
+    this.source = source;
+    this.batchSize = Math.max(1, batchSize);
+    queue = new ArrayBlockingQueue<Batch>(Math.max(1, batchCount));
+  }
+
+  /**
+   * Starts the background thread and returns an iterator over the prefetched objects.
+   */
+  public synchronized Iterator<D> iterator() {
+
+    if (iterator == null) {
+      Thread thread = new Thread(new Runnable() {
+
+        public void run() {
+
+          fetch();
+        }
+      });
+      thread.setDaemon(true);
+      thread.start();
+      iterator = new PrefetchIterator();
+    }
+    return iterator;
+  }
+
+  /**
+   * Terminates the background thread.
+   * Objects which have not yet been read are discarded.
+   */
+  public void close() {
+
+    closed = true;
+    queue.clear();
+  }
+
+  private void fetch() {
+
+    Batch batch = new Batch(batchSize);
+    try {
+      final Iterator<D> sourceIterator = source.iterator();
+      while (sourceIterator.hasNext() && ! closed) {
+        if (batch.size == batchSize) {
+          put(batch);
+          batch = new Batch(batchSize);
+        }
+        batch.array[batch.size++] = sourceIterator.next();
+      }
+    } catch (Throwable t) {
+      batch.error = t;
+    }
+    batch.last = true;
+    put(batch);
+  }
+
+  private void put(Batch batch) {
+
+    boolean written = false;
+    while ((! written) && (! closed)) {
+      try {
+        written = queue.offer(batch, 1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        closed = true;
+      }
+    }
+  }
+
+  private final class PrefetchIterator implements Iterator<D> {
+
+    private Batch batch;
+    private int position;
+
+    public boolean hasNext() {
+
+      while (batch == null || position == batch.size) {
+        if (batch != null && batch.last) {
+          rethrow();
+          return false;
+        }
+        nextBatch();
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public D next() {
+
+      if (! hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      final Object[] array = batch.array;
+      final D result = (D) array[position];
+      array[position++] = null;
+      return result;
+    }
+
+    public void remove() {
+
+      throw new UnsupportedOperationException();
+    }
+
+    private void nextBatch() {
+
+      if (closed) {
+        throw new IllegalStateException(text.get("prefetcherClosed"));
+      }
+
+      try {
+        batch = queue.take();
+      } catch (InterruptedException e) {
+        throw new IteratorException(e);
+      }
+      position = 0;
+    }
+
+    private void rethrow() {
+
+      final Throwable error = batch.error;
+      if (error != null) {
+        batch.error = null;
+        if (error instanceof RuntimeException) {
+          throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+          throw (Error) error;
+        } else {
+          throw new IteratorException(error);
+        }
+      }
+    }
+  }
+}
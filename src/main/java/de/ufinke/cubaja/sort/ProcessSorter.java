@@ -0,0 +1,432 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Sorts huge numbers of objects in separate worker processes.
+ * <p>
+ * A single JVM sorting billions of objects runs into heap and garbage collection limits.
+ * <code>ProcessSorter</code> distributes the objects to local worker JVMs
+ * which are started with <code>ProcessBuilder</code>.
+ * Every worker sorts a distinct key range with a {@link Sorter};
+ * the sorted ranges are concatenated.
+ * <p>
+ * During the put phase, the objects are written to a temporary file
+ * (in the same block format as the temporary file of a <code>Sorter</code>),
+ * while a random sample is taken from all objects.
+ * When the iterator is requested, the key ranges are derived from the sorted sample,
+ * the workers are started, and the objects are streamed to the workers through pipes.
+ * If all objects fit into one run, they are sorted in memory without worker processes.
+ * <p>
+ * The number of workers and their JVM options are controlled by
+ * the <code>processCount</code> and <code>processOptions</code> properties of {@link SortConfig};
+ * <code>runSize</code> and <code>blockSize</code> apply to the workers as well.
+ * The workers run with the class path of the current JVM.
+ * The comparator must be serializable because it is passed to the workers.
+ * Errors of a worker are reported on standard error and result in a {@link SorterException}.
+ * @author Uwe Finke
+ * @param <D> data type
+ */
+public class ProcessSorter<D extends Serializable> implements Iterable<D> {
+
+  static private enum State {
+    PUT,
+    GET,
+    CLOSED
+  }
+  
+  static private final Text text = Text.getPackageInstance(ProcessSorter.class);
+  
+  static private final int DEFAULT_RUN_SIZE = 1024 * 128;
+  static private final int MINIMUM_RUN_SIZE = 1024;
+  static private final int DEFAULT_BLOCK_SIZE = 1024 * 15;
+  static private final int MINIMUM_BLOCK_SIZE = 1024 * 7;
+  static private final int SAMPLE_SIZE = 1024 * 8;
+  
+  private final Comparator<? super D> comparator;
+  private final SortConfig config;
+  private final int runSize;
+  private final int blockSize;
+  private State state;
+  
+  private Object[] array;
+  private int size;
+  
+  private final Object[] sample;
+  private long sampleCount;
+  private final Random random;
+  
+  private File file;
+  private BlockWriter fileWriter;
+  
+  private Process[] processes;
+  private Iterator<D> iterator;
+  
+  /**
+   * Constructor with default configuration.
+   * @param comparator serializable comparator
+   * @throws IllegalArgumentException if the comparator is not serializable
+   */
+  public ProcessSorter(Comparator<? super D> comparator) throws IllegalArgumentException {
+    
+    this(comparator, new SortConfig());
+  }
+  
+  /**
+   * Constructor with explicit configuration.
+   * @param comparator serializable comparator
+   * @param config configuration
+   * @throws IllegalArgumentException if the comparator is not serializable
+   */
+  public ProcessSorter(Comparator<? super D> comparator, SortConfig config) throws IllegalArgumentException {
+    
+    if (! (comparator instanceof Serializable)) {
+      throw new IllegalArgumentException(text.get("comparatorNotSerializable", comparator.getClass().getName()));
+    }
+    
+    this.comparator = comparator;
+    this.config = config;
+    
+    int runSize = config.getRunSize();
+    if (runSize == 0) {
+      runSize = DEFAULT_RUN_SIZE;
+    }
+    this.runSize = Math.max(runSize, MINIMUM_RUN_SIZE);
+    
+    int blockSize = config.getBlockSize();
+    if (blockSize == 0) {
+      blockSize = DEFAULT_BLOCK_SIZE;
+    }
+    this.blockSize = Math.max(blockSize, MINIMUM_BLOCK_SIZE);
+    
+    array = new Object[this.runSize];
+    sample = new Object[SAMPLE_SIZE];
+    random = new Random();
+    state = State.PUT;
+  }
+  
+  /**
+   * Adds an object.
+   * @param element object which is put into the sorter
+   * @throws SorterException when a problem occurs during sort
+   * @throws IllegalStateException when an object is put into the sorter after <code>iterator()</code> has been called
+   */
+  public void add(D element) throws SorterException, IllegalStateException {
+    
+    if (state != State.PUT) {
+      throw new IllegalStateException(text.get("illegalState", state));
+    }
+    
+    if (size == array.length) {
+      writeArray();
+    }
+    
+    array[size++] = element;
+    
+    final long count = ++sampleCount;
+    if (count <= SAMPLE_SIZE) {
+      sample[(int) count - 1] = element;
+    } else {
+      final long index = (long) (random.nextDouble() * count);
+      if (index < SAMPLE_SIZE) {
+        sample[(int) index] = element;
+      }
+    }
+  }
+  
+  private void writeArray() {
+    
+    try {
+      if (fileWriter == null) {
+        file = FileTask.createTempFile(config);
+        fileWriter = new BlockWriter(new BufferedOutputStream(new FileOutputStream(file), 65536), blockSize);
+      }
+      
+      final Object[] array = this.array;
+      for (int i = 0; i < size; i++) {
+        fileWriter.write(array[i]);
+        array[i] = null;
+      }
+      size = 0;
+    } catch (Exception e) {
+      close();
+      throw new SorterException(e);
+    }
+  }
+  
+  /**
+   * Retrieves the sorted objects.
+   */
+  public Iterator<D> iterator() throws SorterException, IllegalStateException {
+    
+    if (state != State.PUT) {
+      throw new IllegalStateException(text.get("illegalState", state));
+    }
+    state = State.GET;
+    
+    if (fileWriter == null) {
+      iterator = createMemoryIterator();
+    } else {
+      try {
+        writeArray();
+        array = null;
+        fileWriter.close();
+        distribute();
+      } catch (SorterException e) {
+        close();
+        throw e;
+      } catch (Exception e) {
+        close();
+        throw new SorterException(e);
+      }
+      iterator = createProcessIterator();
+    }
+    
+    return iterator;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private Iterator<D> createMemoryIterator() {
+    
+    config.getAlgorithm().sort(array, size, comparator);
+    final Iterator<Object> source = new SortArray(array, size);
+    array = null;
+    
+    return new Iterator<D>() {
+      
+      public boolean hasNext() {
+        
+        return source.hasNext();
+      }
+      
+      public D next() {
+        
+        return (D) source.next();
+      }
+      
+      public void remove() {
+        
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+  
+  @SuppressWarnings("unchecked")
+  private Object[] createSplitters(int processCount) {
+    
+    final int n = (int) Math.min(sampleCount, SAMPLE_SIZE);
+    config.getAlgorithm().sort(sample, n, comparator);
+    
+    final Object[] splitters = new Object[processCount - 1];
+    for (int i = 0; i < splitters.length; i++) {
+      splitters[i] = sample[(int) ((long) (i + 1) * n / processCount)];
+    }
+    return splitters;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private int partition(Object[] splitters, Object object) {
+    
+    // number of splitters less than or equal to object;
+    // objects with equal keys always go to the same partition
+    
+    final Comparator<Object> comparator = (Comparator<Object>) this.comparator;
+    int low = 0;
+    int high = splitters.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (comparator.compare(splitters[mid], object) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+  
+  private void distribute() throws Exception {
+    
+    final int processCount = Math.max(1, config.getProcessCount());
+    final Object[] splitters = createSplitters(processCount);
+    
+    processes = new Process[processCount];
+    final BlockWriter[] writers = new BlockWriter[processCount];
+    final List<String> command = createCommand();
+    
+    for (int i = 0; i < processCount; i++) {
+      ProcessBuilder builder = new ProcessBuilder(command);
+      builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+      processes[i] = builder.start();
+      writers[i] = new BlockWriter(new BufferedOutputStream(processes[i].getOutputStream(), 65536), blockSize);
+      writeHeader(writers[i]);
+    }
+    
+    final BlockReader reader = new BlockReader(new FileInputStream(file));
+    try {
+      while (reader.hasNext()) {
+        final Object object = reader.next();
+        writers[partition(splitters, object)].write(object);
+      }
+    } finally {
+      reader.close();
+    }
+    
+    for (int i = 0; i < processCount; i++) {
+      writers[i].close();
+    }
+    
+    file.delete();
+    file = null;
+  }
+  
+  private List<String> createCommand() {
+    
+    final List<String> command = new ArrayList<String>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    
+    final String options = config.getProcessOptions();
+    if (options != null) {
+      for (String option : options.trim().split("\\s+")) {
+        if (option.length() > 0) {
+          command.add(option);
+        }
+      }
+    }
+    
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(SortWorker.class.getName());
+    return command;
+  }
+  
+  private void writeHeader(BlockWriter writer) throws Exception {
+    
+    writer.write(comparator);
+    writer.write(config.getAlgorithm().getClass().getName());
+    writer.write(config.getWorkDirectory());
+    writer.write(config.getFilePrefix());
+    writer.write(Integer.valueOf(runSize));
+    writer.write(Integer.valueOf(blockSize));
+  }
+  
+  private Iterator<D> createProcessIterator() {
+    
+    return new Iterator<D>() {
+
+      private int processIndex = -1;
+      private BlockReader reader;
+      private boolean exhausted;
+      
+      public boolean hasNext() {
+        
+        if (exhausted) {
+          return false;
+        }
+        
+        while (reader == null || ! readerHasNext()) {
+          if (reader != null) {
+            finishProcess(processIndex);
+            reader = null;
+          }
+          if (++processIndex == processes.length) {
+            exhausted = true;
+            close();
+            return false;
+          }
+          reader = new BlockReader(processes[processIndex].getInputStream());
+        }
+        return true;
+      }
+      
+      private boolean readerHasNext() {
+        
+        try {
+          return reader.hasNext();
+        } catch (SorterException e) {
+          close();
+          throw e;
+        }
+      }
+      
+      @SuppressWarnings("unchecked")
+      public D next() {
+        
+        if (! hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return (D) reader.next();
+      }
+      
+      public void remove() {
+        
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+  
+  private void finishProcess(int index) {
+    
+    int exitCode;
+    try {
+      exitCode = processes[index].waitFor();
+    } catch (InterruptedException e) {
+      close();
+      throw new SorterException(e);
+    }
+    
+    if (exitCode != 0) {
+      close();
+      throw new SorterException(text.get("workerFailed", index, exitCode));
+    }
+  }
+  
+  /**
+   * Aborts the sort before all objects have been read.
+   * Running worker processes are destroyed.
+   */
+  public void abort() {
+    
+    close();
+  }
+  
+  private void close() {
+    
+    if (state == State.CLOSED) {
+      return;
+    }
+    state = State.CLOSED;
+    
+    array = null;
+    
+    if (processes != null) {
+      for (Process process : processes) {
+        if (process != null) {
+          process.destroy();
+        }
+      }
+    }
+    
+    if (file != null) {
+      try {
+        fileWriter.close();
+      } catch (Exception e) {
+      }
+      file.delete();
+      file = null;
+    }
+  }
+}
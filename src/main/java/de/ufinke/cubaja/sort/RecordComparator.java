@@ -0,0 +1,142 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Compares raw fixed length records by key fields.
+ * Decimal fields are compared by sign and digits without conversion into numbers.
+ */
+final class RecordComparator implements Comparator<byte[]>, Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  private final int[] offsets;
+  private final int[] lengths;
+  private final KeyFormat[] formats;
+  private final boolean[] descending;
+
+  RecordComparator(int[] offsets, int[] lengths, KeyFormat[] formats, boolean[] descending) {
+
+    this.offsets = offsets;
+    this.lengths = lengths;
+    this.formats = formats;
+    this.descending = descending;
+  }
+
+  public int compare(byte[] a, byte[] b) {
+
+    final int count = offsets.length;
+    for (int i = 0; i < count; i++) {
+      final int offset = offsets[i];
+      final int length = lengths[i];
+      int result;
+      switch (formats[i]) {
+        case FIXED:
+          result = compareFixed(a, b, offset, length);
+          break;
+        case ZONED:
+          result = compareZoned(a, b, offset, length);
+          break;
+        case PACKED:
+          result = comparePacked(a, b, offset, length);
+          break;
+        default:
+          result = compareUnsigned(a, b, offset, length);
+      }
+      if (result != 0) {
+        return descending[i] ? -result : result;
+      }
+    }
+    return 0;
+  }
+
+  static private int compareUnsigned(byte[] a, byte[] b, int offset, int length) {
+
+    final int limit = offset + length;
+    for (int i = offset; i < limit; i++) {
+      if (a[i] != b[i]) {
+        return (a[i] & 0xFF) - (b[i] & 0xFF);
+      }
+    }
+    return 0;
+  }
+
+  static private int compareFixed(byte[] a, byte[] b, int offset, int length) {
+
+    if (a[offset] != b[offset]) {
+      return a[offset] - b[offset];
+    }
+    return compareUnsigned(a, b, offset + 1, length - 1);
+  }
+
+  static private int compareZoned(byte[] a, byte[] b, int offset, int length) {
+
+    final int last = offset + length - 1;
+    final boolean negativeA = isNegative(a[last] >> 4);
+    final boolean negativeB = isNegative(b[last] >> 4);
+
+    int result = 0;
+    for (int i = offset; i <= last && result == 0; i++) {
+      result = (a[i] & 0x0F) - (b[i] & 0x0F);
+    }
+
+    return compareSigned(result, negativeA, negativeB, a, b, offset, length, false);
+  }
+
+  static private int comparePacked(byte[] a, byte[] b, int offset, int length) {
+
+    final int last = offset + length - 1;
+    final boolean negativeA = isNegative(a[last]);
+    final boolean negativeB = isNegative(b[last]);
+
+    int result = compareUnsigned(a, b, offset, length - 1);
+    if (result == 0) {
+      result = ((a[last] & 0xF0) - (b[last] & 0xF0));
+    }
+
+    return compareSigned(result, negativeA, negativeB, a, b, offset, length, true);
+  }
+
+  static private boolean isNegative(int sign) {
+
+    sign &= 0x0F;
+    return sign == 0x0D || sign == 0x0B;
+  }
+
+  static private int compareSigned(int magnitude, boolean negativeA, boolean negativeB, byte[] a, byte[] b, int offset, int length, boolean packed) {
+
+    if (negativeA == negativeB) {
+      return negativeA ? -magnitude : magnitude;
+    }
+
+    // negative zero equals positive zero
+    if (isZero(a, offset, length, packed) && isZero(b, offset, length, packed)) {
+      return 0;
+    }
+    return negativeA ? -1 : 1;
+  }
+
+  static private boolean isZero(byte[] data, int offset, int length, boolean packed) {
+
+    final int last = offset + length - 1;
+    if (packed) {
+      for (int i = offset; i < last; i++) {
+        if (data[i] != 0) {
+          return false;
+        }
+      }
+      return (data[last] & 0xF0) == 0;
+    }
+
+    for (int i = offset; i <= last; i++) {
+      if ((data[i] & 0x0F) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,175 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import de.ufinke.cubaja.io.MainframeInput;
+import de.ufinke.cubaja.io.MainframeOutput;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Sorts fixed length mainframe records by key fields.
+ * <p>
+ * Key fields are defined like control fields of a host sort utility
+ * by offset, length, {@link KeyFormat format} and direction.
+ * The records are never decoded into data objects:
+ * a record is held as byte array, and the key fields are compared on the raw bytes.
+ * Decimal fields (zoned and packed) are compared by sign and digits;
+ * invalid digits are not detected.
+ * The records are sorted by a {@link Sorter} and written unchanged.
+ * <p>
+ * Example:
+ * <pre>
+ *   RecordSort sort = new RecordSort(120);
+ *   sort.addKey(0, 10, KeyFormat.CHARACTER, false);
+ *   sort.addKey(10, 5, KeyFormat.PACKED, true);
+ *   sort.sort(inputStream, outputStream);
+ * </pre>
+ * @author Uwe Finke
+ */
+public class RecordSort {
+
+  static private final Text text = Text.getPackageInstance(RecordSort.class);
+  
+  // character set is irrelevant because records are copied as bytes
+  static private final String CHARSET = "ISO-8859-1";
+  
+  private final int recordLength;
+  private final SortConfig config;
+  
+  private final List<int[]> positionList;
+  private final List<KeyFormat> formatList;
+  private final List<Boolean> directionList;
+  
+  /**
+   * Constructor with default sort configuration.
+   * @param recordLength record length in bytes
+   */
+  public RecordSort(int recordLength) {
+    
+    this(recordLength, new SortConfig());
+  }
+  
+  /**
+   * Constructor.
+   * @param recordLength record length in bytes
+   * @param config sort configuration
+   */
+  public RecordSort(int recordLength, SortConfig config) {
+    
+    this.recordLength = recordLength;
+    this.config = config;
+    positionList = new ArrayList<int[]>();
+    formatList = new ArrayList<KeyFormat>();
+    directionList = new ArrayList<Boolean>();
+  }
+  
+  /**
+   * Adds a key field.
+   * Key fields are compared in the sequence in which they are added.
+   * @param offset position of the first byte within the record, the first position is <code>0</code>
+   * @param length number of bytes
+   * @param format field format
+   * @param descending <code>true</code> for descending order
+   * @throws IllegalArgumentException if the field exceeds the record length
+   */
+  public void addKey(int offset, int length, KeyFormat format, boolean descending) throws IllegalArgumentException {
+    
+    if (offset < 0 || length < 1 || offset + length > recordLength) {
+      throw new IllegalArgumentException(text.get("keyField", offset, length, recordLength));
+    }
+    
+    positionList.add(new int[] {offset, length});
+    formatList.add(format);
+    directionList.add(descending);
+  }
+  
+  /**
+   * Returns a comparator for records according to the key fields.
+   * @return comparator
+   */
+  public Comparator<byte[]> getComparator() {
+    
+    final int count = positionList.size();
+    int[] offsets = new int[count];
+    int[] lengths = new int[count];
+    KeyFormat[] formats = new KeyFormat[count];
+    boolean[] descending = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      offsets[i] = positionList.get(i)[0];
+      lengths[i] = positionList.get(i)[1];
+      formats[i] = formatList.get(i);
+      descending[i] = directionList.get(i);
+    }
+    
+    return new RecordComparator(offsets, lengths, formats, descending);
+  }
+  
+  /**
+   * Sorts records from an input stream.
+   * Both streams are closed when all records have been written.
+   * @param in input stream
+   * @param out output stream
+   * @return number of sorted records
+   * @throws IOException when an I/O error occurs or the input ends within a record
+   */
+  public int sort(InputStream in, OutputStream out) throws IOException {
+    
+    return sort(new MainframeInput(in, CHARSET), new MainframeOutput(out, CHARSET));
+  }
+  
+  /**
+   * Sorts records.
+   * Both input and output are closed when all records have been written,
+   * or when the sort fails.
+   * @param in mainframe input
+   * @param out mainframe output
+   * @return number of sorted records
+   * @throws IOException when an I/O error occurs or the input ends within a record
+   */
+  public int sort(MainframeInput in, MainframeOutput out) throws IOException {
+    
+    final int recordLength = this.recordLength;
+    Sorter<byte[]> sorter = null;
+    int count = 0;
+    boolean inputClosed = false;
+    boolean complete = false;
+    
+    try {
+      sorter = new Sorter<byte[]>(getComparator(), config);
+      
+      while (in.nextRecord(recordLength)) {
+        sorter.add(in.readBytes(recordLength));
+        count++;
+      }
+      in.close();
+      inputClosed = true;
+      
+      for (byte[] record : sorter) {
+        out.writeBytes(record);
+        out.nextRecord();
+      }
+      complete = true;
+    } finally {
+      // on failure, release the streams and the sorter's temporary resources
+      if (! complete) {
+        if (sorter != null) {
+          sorter.abort();
+        }
+        if (! inputClosed) {
+          in.close();
+        }
+        out.close();
+      }
+    }
+    out.close();
+    
+    return count;
+  }
+}
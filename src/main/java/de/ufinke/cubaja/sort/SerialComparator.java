@@ -0,0 +1,48 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Serial form of a comparator generated by {@link ComparatorBuilder#of ComparatorBuilder.of}.
+ * <p>
+ * The generated comparator class can't be resolved by name when it is deserialized.
+ * The serial form holds the data class name and the property specifications;
+ * <code>readResolve</code> generates the comparator again.
+ * @author Uwe Finke
+ */
+final class SerialComparator implements Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  private final String dataClassName;
+  private final String[] properties;
+
+  SerialComparator(Class<?> dataClass, String[] properties) {
+
+    dataClassName = dataClass.getName();
+    this.properties = properties.clone();
+  }
+
+  private Object readResolve() throws ObjectStreamException {
+
+    try {
+      Class<?> dataClass = Class.forName(dataClassName, true, getClassLoader());
+      return ComparatorBuilder.of(dataClass, properties);
+    } catch (Exception e) {
+      InvalidObjectException exception = new InvalidObjectException(dataClassName);
+      exception.initCause(e);
+      throw exception;
+    }
+  }
+
+  private ClassLoader getClassLoader() {
+
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    return (loader == null) ? SerialComparator.class.getClassLoader() : loader;
+  }
+}
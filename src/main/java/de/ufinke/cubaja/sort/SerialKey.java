@@ -0,0 +1,141 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Serial form of a {@link CompositeKey}.
+ * <p>
+ * Generated key classes are defined by a private class loader
+ * and can't be resolved by name when a key is deserialized.
+ * The serial form holds the data class name, the property specifications
+ * and the values returned by the key's <code>getSerialValues</code> method.
+ * <code>readResolve</code> passes the values to the <code>restore</code> method
+ * of a template instance of the key class generated for these specifications.
+ * <p>
+ * The key classes are registered per specification,
+ * so that all key factories for the same specification share the same key class
+ * as long as the class is in use.
+ * A key class is generated again only when there is none in the current JVM,
+ * e.g. in a sort worker process.
+ * @author Uwe Finke
+ */
+final class SerialKey implements Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  static private final class KeyClasses {
+
+    final WeakReference<Class<?>> keyClass;
+    final WeakReference<Class<?>> factoryClass;
+
+    KeyClasses(Class<?> keyClass, Class<?> factoryClass) {
+
+      this.keyClass = new WeakReference<Class<?>>(keyClass);
+      this.factoryClass = new WeakReference<Class<?>>(factoryClass);
+    }
+  }
+
+  static private final Map<List<String>, KeyClasses> classMap = new HashMap<List<String>, KeyClasses>();
+  static private final Map<Class<?>, String[]> specMap = new WeakHashMap<Class<?>, String[]>();
+
+  static private final ClassValue<String[]> specs = new ClassValue<String[]>() {
+
+    protected String[] computeValue(Class<?> keyClass) {
+
+      synchronized (SerialKey.class) {
+        return specMap.get(keyClass);
+      }
+    }
+  };
+
+  static private final ClassValue<CompositeKey> templates = new ClassValue<CompositeKey>() {
+
+    protected CompositeKey computeValue(Class<?> keyClass) {
+
+      try {
+        return (CompositeKey) keyClass.newInstance();
+      } catch (Exception e) {
+        throw new SorterException(e);
+      }
+    }
+  };
+
+  /**
+   * Returns a key factory for a specification.
+   * The key class is generated only if there is no key class for the same specification.
+   */
+  static synchronized KeyFactory<?, ?> getKeyFactory(Class<?> dataClass, String[] properties, List<SortProperty> propertyList) throws Exception {
+
+    String[] spec = new String[properties.length + 1];
+    spec[0] = dataClass.getName();
+    System.arraycopy(properties, 0, spec, 1, properties.length);
+    List<String> specList = Arrays.asList(spec);
+
+    KeyClasses classes = classMap.get(specList);
+    Class<?> factoryClass = (classes == null) ? null : classes.factoryClass.get();
+    if (factoryClass != null) {
+      return (KeyFactory<?, ?>) factoryClass.newInstance();
+    }
+
+    CompareGenerator generator = new CompareGenerator(dataClass, propertyList);
+    KeyFactory<?, ?> factory = generator.createKeyFactory();
+    classMap.put(specList, new KeyClasses(generator.getKeyClass(), factory.getClass()));
+    specMap.put(generator.getKeyClass(), spec);
+    return factory;
+  }
+
+  static private synchronized Class<?> getKeyClass(List<String> specList) {
+
+    KeyClasses classes = classMap.get(specList);
+    return (classes == null) ? null : classes.keyClass.get();
+  }
+
+  private final String[] spec;
+  private final Object[] values;
+
+  SerialKey(CompositeKey key) throws ObjectStreamException {
+
+    spec = specs.get(key.getClass());
+    if (spec == null) {
+      throw new NotSerializableException(key.getClass().getName());
+    }
+    values = key.getSerialValues();
+  }
+
+  private Object readResolve() throws ObjectStreamException {
+
+    List<String> specList = Arrays.asList(spec);
+    Class<?> keyClass = getKeyClass(specList);
+
+    try {
+      if (keyClass == null) {
+        Class<?> dataClass = Class.forName(spec[0], true, getClassLoader());
+        ComparatorBuilder.keyFactory(dataClass, Arrays.copyOfRange(spec, 1, spec.length));
+        keyClass = getKeyClass(specList);
+      }
+      return templates.get(keyClass).restore(values);
+    } catch (Exception e) {
+      InvalidObjectException exception = new InvalidObjectException(spec[0]);
+      exception.initCause(e);
+      throw exception;
+    }
+  }
+
+  private ClassLoader getClassLoader() {
+
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    return (loader == null) ? SerialKey.class.getClassLoader() : loader;
+  }
+}
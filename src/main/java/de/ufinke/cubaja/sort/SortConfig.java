@@ -68,6 +68,27 @@ package de.ufinke.cubaja.sort;
  * <td style="text-align:center"> </td>
  * <td style="text-align:center">x</td>
  * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>checkpoint</code></td>
+ * <td style="text-align:left">name of a durable checkpoint which makes the sort restartable (see {@link #setCheckpoint setCheckpoint})</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>processCount</code></td>
+ * <td style="text-align:left">number of worker processes of a {@link ProcessSorter}; default is the number of available processors, but at least <code>2</code></td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
+ * <tr>
+ * <td style="text-align:left"><code>processOptions</code></td>
+ * <td style="text-align:left">JVM options of the worker processes of a {@link ProcessSorter}, separated by blanks (e.g. <code>-Xmx4g</code>)</td>
+ * <td style="text-align:center">A</td>
+ * <td style="text-align:center"> </td>
+ * <td style="text-align:center">x</td>
+ * </tr>
  * </tbody>
  * </table>
  * <p>
@@ -88,6 +109,11 @@ public class SortConfig {
   
   private String workDirectory;
   private String filePrefix;
+  
+  private String checkpoint;
+  
+  private int processCount;
+  private String processOptions;
 
   /**
    * Default constructor.
@@ -265,4 +291,78 @@ public class SortConfig {
     this.blockSize = blockSize;
   }
 
+  /**
+   * Returns the number of worker processes.
+   * @return process count
+   */
+  public int getProcessCount() {
+    
+    if (processCount == 0) {
+      processCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+    return processCount;
+  }
+
+  /**
+   * Sets the number of worker processes used by a {@link ProcessSorter}.
+   * Default is the number of available processors, but at least <code>2</code>.
+   * @param processCount number of worker processes
+   */
+  public void setProcessCount(int processCount) {
+    
+    this.processCount = processCount;
+  }
+
+  /**
+   * Returns the JVM options of worker processes.
+   * @return options separated by blanks, or <code>null</code>
+   */
+  public String getProcessOptions() {
+    
+    return processOptions;
+  }
+
+  /**
+   * Sets the JVM options of the worker processes used by a {@link ProcessSorter}.
+   * Options are separated by blanks, e.g. <code>-Xmx4g -XX:+UseParallelGC</code>.
+   * By default, worker processes are started without options.
+   * @param processOptions JVM options
+   */
+  public void setProcessOptions(String processOptions) {
+    
+    this.processOptions = processOptions;
+  }
+
+  /**
+   * Returns the checkpoint name.
+   * @return checkpoint name, or <code>null</code>
+   */
+  public String getCheckpoint() {
+    
+    return checkpoint;
+  }
+
+  /**
+   * Sets the name of a durable checkpoint.
+   * <p>
+   * By default, the temporary file of a <code>Sorter</code> is deleted on JVM exit,
+   * so a sort which fails must start again from scratch.
+   * With a checkpoint name, completed runs are written to the file <code>&lt;checkpoint&gt;.run</code>
+   * in the work directory, and a manifest <code>&lt;checkpoint&gt;.manifest</code> is updated 
+   * after every completed run.
+   * Both files survive a failure of the JVM; 
+   * they are deleted when all sorted objects have been retrieved or the sort has been aborted.
+   * <p>
+   * A <code>Sorter</code> created with the same checkpoint name recovers the completed runs.
+   * The application must skip the number of input objects
+   * returned by {@link Sorter#getRestartPosition Sorter.getRestartPosition}
+   * and add the remaining ones (if any); this requires a reproducible input sequence.
+   * When the failure occurred after the put phase, all input objects are contained 
+   * in the recovered runs, and the sort resumes with the merge.
+   * @param checkpoint checkpoint name
+   */
+  public void setCheckpoint(String checkpoint) {
+    
+    this.checkpoint = checkpoint;
+  }
 }
@@ -3,6 +3,7 @@
 
 package de.ufinke.cubaja.sort;
 
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -45,6 +46,7 @@ final class SortManager {
   private final SortConfig config;
   private final Comparator<?> comparator;
   private final SortAlgorithm algorithm;
+  private final Checkpoint checkpoint;
 
   private final int runSize;
   private final int arraySize;
@@ -82,6 +84,17 @@ final class SortManager {
 
     algorithm = config.getAlgorithm();
 
+    if (config.getCheckpoint() == null) {
+      checkpoint = null;
+    } else {
+      checkpoint = new Checkpoint(config);
+      try {
+        checkpoint.load();
+      } catch (IOException e) {
+        throw new SorterException(e);
+      }
+    }
+
     int blockSize = config.getBlockSize();
     if (blockSize == 0) {
       blockSize = DEFAULT_BLOCK_SIZE;
@@ -159,6 +172,11 @@ final class SortManager {
     return algorithm;
   }
 
+  public Checkpoint getCheckpoint() {
+
+    return checkpoint;
+  }
+
   public boolean isTrace() {
 
     final Log logger = this.logger;
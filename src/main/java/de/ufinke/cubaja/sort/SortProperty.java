@@ -0,0 +1,164 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import de.ufinke.cubaja.cafebabe.Type;
+import de.ufinke.cubaja.util.Text;
+import de.ufinke.cubaja.util.Util;
+
+final class SortProperty {
+
+  static private final Text text = Text.getPackageInstance(SortProperty.class);
+
+  static List<SortProperty> parse(Class<?> dataClass, String... specs) {
+
+    if (specs.length == 0) {
+      throw new IllegalArgumentException(text.get("propertyMissing", dataClass.getName()));
+    }
+
+    List<SortProperty> list = new ArrayList<SortProperty>(specs.length);
+    for (String spec : specs) {
+      list.add(new SortProperty(dataClass, spec));
+    }
+    return list;
+  }
+
+  private final String spec;
+  private final List<Method> getterList;
+  private final List<Class<?>> ownerList;
+  private final Class<?> valueClass;
+  private final boolean descending;
+  private final boolean nullsFirst;
+
+  private SortProperty(Class<?> dataClass, String spec) {
+
+    this.spec = spec;
+
+    // syntax: path [asc|desc] [nulls first|nulls last]
+    String[] token = spec.trim().split("\\s+");
+
+    int index = 1;
+    boolean descending = false;
+    if (index < token.length && token[index].equalsIgnoreCase("asc")) {
+      index++;
+    } else if (index < token.length && token[index].equalsIgnoreCase("desc")) {
+      descending = true;
+      index++;
+    }
+
+    // by default, null is less than any other value
+    boolean nullsFirst = ! descending;
+    if (index + 1 < token.length && token[index].equalsIgnoreCase("nulls")) {
+      if (token[index + 1].equalsIgnoreCase("first")) {
+        nullsFirst = true;
+      } else if (token[index + 1].equalsIgnoreCase("last")) {
+        nullsFirst = false;
+      } else {
+        throw new IllegalArgumentException(text.get("propertySyntax", spec));
+      }
+      index += 2;
+    }
+
+    if (token[0].length() == 0 || index != token.length) {
+      throw new IllegalArgumentException(text.get("propertySyntax", spec));
+    }
+
+    this.descending = descending;
+    this.nullsFirst = nullsFirst;
+
+    getterList = new ArrayList<Method>();
+    ownerList = new ArrayList<Class<?>>();
+
+    Class<?> owner = dataClass;
+    for (String name : token[0].split("\\.")) {
+      if (owner.isPrimitive()) {
+        throw new IllegalArgumentException(text.get("propertyNotFound", spec, owner.getName()));
+      }
+      Method getter = findGetter(owner, name);
+      ownerList.add(owner);
+      getterList.add(getter);
+      owner = getter.getReturnType();
+    }
+    valueClass = owner;
+
+    if (! (valueClass.isPrimitive() || Comparable.class.isAssignableFrom(valueClass))) {
+      throw new IllegalArgumentException(text.get("propertyNotComparable", spec, valueClass.getName()));
+    }
+  }
+
+  private Method findGetter(Class<?> owner, String name) {
+
+    if (! Modifier.isPublic(owner.getModifiers())) {
+      throw new IllegalArgumentException(text.get("propertyNotPublic", spec, owner.getName()));
+    }
+
+    for (String prefix : new String[] {"get", "is"}) {
+      try {
+        Method method = owner.getMethod(Util.createMethodName(name, prefix));
+        if (method.getReturnType() != Void.TYPE && (prefix.equals("get") || method.getReturnType() == Boolean.TYPE)) {
+          return method;
+        }
+      } catch (NoSuchMethodException e) {
+      }
+    }
+
+    throw new IllegalArgumentException(text.get("propertyNotFound", spec, owner.getName()));
+  }
+
+  String getSpec() {
+
+    return spec;
+  }
+
+  int getPathLength() {
+
+    return getterList.size();
+  }
+
+  Method getGetter(int index) {
+
+    return getterList.get(index);
+  }
+
+  Class<?> getOwner(int index) {
+
+    return ownerList.get(index);
+  }
+
+  Class<?> getValueClass() {
+
+    return valueClass;
+  }
+
+  Type getValueType() {
+
+    return new Type(valueClass);
+  }
+
+  boolean isPrimitive() {
+
+    return valueClass.isPrimitive();
+  }
+
+  boolean needsPresence() {
+
+    // a primitive value behind a nullable intermediate object
+    // needs an additional flag which tells whether the value is present
+    return valueClass.isPrimitive() && getterList.size() > 1;
+  }
+
+  boolean isDescending() {
+
+    return descending;
+  }
+
+  boolean isNullsFirst() {
+
+    return nullsFirst;
+  }
+}
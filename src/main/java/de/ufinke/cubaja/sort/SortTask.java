@@ -24,6 +24,14 @@ final class SortTask implements Runnable {
     arrayList = new ArrayList<SortArray>(manager.getArrayCount());
   }
   
+  private void startFileTask() throws Exception {
+    
+    if (! fileTaskStarted) {
+      manager.submit(new FileTask(manager));
+      fileTaskStarted = true;
+    }
+  }
+  
   public void run() {
     
     try {
@@ -58,7 +66,7 @@ final class SortTask implements Runnable {
         break;
         
       case SWITCH_STATE:
-        if (fileTaskStarted) {
+        if (fileTaskStarted || manager.getCheckpoint() != null) {
           mergeFromFile();
         } else {
           mergeFromArrayList();
@@ -80,6 +88,7 @@ final class SortTask implements Runnable {
   
   private void mergeFromFile() throws Exception {
     
+    startFileTask();
     drainToFile();
     writeQueue(manager.getFileQueue(), new Request(RequestType.SWITCH_STATE));
   }
@@ -126,10 +135,7 @@ final class SortTask implements Runnable {
       return;
     }
     
-    if (! fileTaskStarted) {
-      manager.submit(new FileTask(manager));
-      fileTaskStarted = true;
-    }    
+    startFileTask();
     
     final Merger merger = new Merger(manager.getComparator(), arrayList);
     final BlockingQueue<Request> queue = manager.getFileQueue();
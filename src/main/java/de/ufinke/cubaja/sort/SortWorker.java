@@ -0,0 +1,66 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Main class of a {@link ProcessSorter} worker process.
+ * <p>
+ * Standard input starts with the header objects written by <code>ProcessSorter</code>
+ * (comparator, algorithm class name, work directory, file prefix, run size and block size),
+ * followed by the data objects.
+ * The sorted objects are written to standard output in the same block format.
+ * Since standard output carries data, <code>System.out</code> is redirected to <code>System.err</code>.
+ */
+final class SortWorker {
+
+  private SortWorker() {
+
+  }
+
+  static public void main(String[] args) {
+
+    FileOutputStream stdout = new FileOutputStream(FileDescriptor.out);
+    System.setOut(System.err);
+
+    try {
+      sort(stdout);
+    } catch (Throwable t) {
+      t.printStackTrace();
+      System.exit(1);
+    }
+
+    System.exit(0);
+  }
+
+  @SuppressWarnings("unchecked")
+  static private void sort(FileOutputStream stdout) throws Exception {
+
+    BlockReader in = new BlockReader(System.in);
+
+    Comparator<Serializable> comparator = (Comparator<Serializable>) in.next();
+    SortConfig config = new SortConfig();
+    config.setAlgorithm((SortAlgorithm) Class.forName((String) in.next()).getConstructor().newInstance());
+    config.setWorkDirectory((String) in.next());
+    config.setFilePrefix((String) in.next());
+    config.setRunSize((Integer) in.next());
+    config.setBlockSize((Integer) in.next());
+
+    Sorter<Serializable> sorter = new Sorter<Serializable>(comparator, config);
+    while (in.hasNext()) {
+      sorter.add((Serializable) in.next());
+    }
+
+    BlockWriter out = new BlockWriter(new BufferedOutputStream(stdout, 65536), config.getBlockSize());
+    for (Serializable object : sorter) {
+      out.write(object);
+    }
+    out.close();
+  }
+}
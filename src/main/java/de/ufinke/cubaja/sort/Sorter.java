@@ -41,6 +41,10 @@ import de.ufinke.cubaja.util.Text;
  * it would be a good idea to add a <code>SortConfig</code> to the configuration.
  * Doing so, you have control over
  * the sort parameters at runtime.
+ * <p>
+ * A long running sort can be made restartable with 
+ * the <code>checkpoint</code> property of <code>SortConfig</code>
+ * (see {@link SortConfig#setCheckpoint SortConfig.setCheckpoint}).
  * @author Uwe Finke
  * @param <D> data type
  */
@@ -82,6 +86,24 @@ public class Sorter<D extends Serializable> implements Iterable<D> {
     manager = new SortManager(config, comparator);    
     state = State.PUT;
     allocateArray();
+    
+    if (manager.getCheckpoint() != null) {
+      manager.submit(new SortTask(manager));
+      sortTaskStarted = true;
+    }
+  }
+  
+  /**
+   * Returns the number of input objects which have been recovered from a checkpoint.
+   * The application has to skip this number of objects from the beginning of the input
+   * and add only the remaining objects.
+   * Without checkpoint, or when no previous checkpoint exists, the result is <code>0</code>.
+   * @return number of recovered objects
+   */
+  public long getRestartPosition() {
+    
+    final Checkpoint checkpoint = manager.getCheckpoint();
+    return (checkpoint == null) ? 0 : checkpoint.getInputPosition();
   }
   
   private void allocateArray() {
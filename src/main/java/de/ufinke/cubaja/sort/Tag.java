@@ -0,0 +1,53 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+final class Tag<K> implements Serializable {
+
+  static private final long serialVersionUID = 1L;
+
+  static final class KeyComparator<K> implements Comparator<Tag<K>> {
+
+    private final Comparator<? super K> comparator;
+
+    public KeyComparator(Comparator<? super K> comparator) {
+
+      this.comparator = comparator;
+    }
+
+    public int compare(Tag<K> a, Tag<K> b) {
+
+      final int result = comparator.compare(a.key, b.key);
+      if (result != 0) {
+        return result;
+      }
+      // equal keys keep the sequence in which the records were added
+      return (a.position < b.position) ? -1 : ((a.position == b.position) ? 0 : 1);
+    }
+  }
+
+  static final Comparator<Tag<?>> POSITION_COMPARATOR = new Comparator<Tag<?>>() {
+
+    public int compare(Tag<?> a, Tag<?> b) {
+
+      return (a.position < b.position) ? -1 : ((a.position == b.position) ? 0 : 1);
+    }
+  };
+
+  final K key;
+  final long position;
+  final int length;
+
+  transient int slot;
+
+  public Tag(K key, long position, int length) {
+
+    this.key = key;
+    this.position = position;
+    this.length = length;
+  }
+}
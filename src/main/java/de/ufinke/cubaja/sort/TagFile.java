@@ -0,0 +1,130 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import de.ufinke.cubaja.io.RandomAccessBuffer;
+
+final class TagFile {
+
+  // records closer than this are read with a single file access
+  static private final int MAX_GAP = 1024 * 16;
+  static private final int MAX_SPAN = 1024 * 1024;
+
+  private final File file;
+  private final RandomAccessFile raf;
+  private final RandomAccessBuffer buffer;
+  private final int blockSize;
+
+  private long bufferPosition;
+  private byte[] span;
+  private Tag<?>[] sortedTags;
+
+  public TagFile(SortConfig config, int blockSize) throws Exception {
+
+    this.blockSize = blockSize;
+    file = FileTask.createTempFile(config);
+    raf = new RandomAccessFile(file, "rw");
+    buffer = new RandomAccessBuffer(blockSize + 1024 * 16, 1024 * 16);
+    span = new byte[MAX_SPAN];
+  }
+
+  protected void finalize() {
+
+    try {
+      close();
+    } catch (Exception e) {
+    }
+  }
+
+  public <K> Tag<K> write(Object data, K key) throws Exception {
+
+    final RandomAccessBuffer buffer = this.buffer;
+
+    final int start = buffer.size();
+    final ObjectOutputStream out = new ObjectOutputStream(buffer.getOutputStream());
+    out.writeObject(data);
+    out.close();
+
+    final Tag<K> tag = new Tag<K>(key, bufferPosition + start, buffer.size() - start);
+
+    if (buffer.size() >= blockSize) {
+      flush();
+    }
+
+    return tag;
+  }
+
+  public void flush() throws Exception {
+
+    bufferPosition += buffer.size();
+    buffer.drainTo(raf);
+  }
+
+  public long length() {
+
+    return bufferPosition + buffer.size();
+  }
+
+  public void read(Tag<?>[] tags, int count, Object[] result) throws Exception {
+
+    if (sortedTags == null || sortedTags.length < count) {
+      sortedTags = new Tag<?>[tags.length];
+    }
+    final Tag<?>[] sorted = sortedTags;
+
+    for (int i = 0; i < count; i++) {
+      tags[i].slot = i;
+      sorted[i] = tags[i];
+    }
+    // visit the records in file sequence; neighbouring records are fetched with a single read
+    Arrays.sort(sorted, 0, count, Tag.POSITION_COMPARATOR);
+
+    int first = 0;
+    while (first < count) {
+      final long spanStart = sorted[first].position;
+      long spanEnd = spanStart + sorted[first].length;
+      int last = first + 1;
+      while (last < count
+          && sorted[last].position - spanEnd <= MAX_GAP
+          && sorted[last].position + sorted[last].length - spanStart <= MAX_SPAN) {
+        spanEnd = sorted[last].position + sorted[last].length;
+        last++;
+      }
+      readSpan(sorted, first, last, spanStart, (int) (spanEnd - spanStart), result);
+      first = last;
+    }
+
+    Arrays.fill(sorted, 0, count, null);
+  }
+
+  private void readSpan(Tag<?>[] sorted, int first, int last, long spanStart, int spanLength, Object[] result) throws Exception {
+
+    if (spanLength > span.length) {
+      span = new byte[spanLength];
+    }
+
+    raf.seek(spanStart);
+    raf.readFully(span, 0, spanLength);
+
+    for (int i = first; i < last; i++) {
+      final Tag<?> tag = sorted[i];
+      final int offset = (int) (tag.position - spanStart);
+      final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(span, offset, tag.length));
+      result[tag.slot] = in.readObject();
+      in.close();
+    }
+  }
+
+  public void close() throws Exception {
+
+    raf.close();
+    file.delete();
+  }
+}
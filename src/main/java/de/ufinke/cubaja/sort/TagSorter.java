@@ -0,0 +1,236 @@
+// Copyright (c) 2026, Uwe Finke. All rights reserved.
+// Subject to BSD License. See "license.txt" distributed with this package.
+
+package de.ufinke.cubaja.sort;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import de.ufinke.cubaja.util.Text;
+
+/**
+ * Sorts large objects by their keys only.
+ * <p>
+ * Every object is serialized exactly once to a sequential temporary data file.
+ * A compact tag, consisting of the key created by a {@link KeyFactory} and the
+ * object's position within the data file, is passed to an internal {@link Sorter}.
+ * Only these tags take part in the presorted runs and in the merge.
+ * When the sorted objects are retrieved, the tags are read in batches;
+ * the objects of each batch are fetched from the data file in ascending file position
+ * and presented in key sequence.
+ * <p>
+ * This pays off for wide objects (some kilobytes each) with small keys,
+ * because the number of bytes moved during sort and merge
+ * shrinks in proportion to the key/object size ratio.
+ * For small objects, a plain <code>Sorter</code> is faster.
+ * <p>
+ * Objects with equal keys are retrieved in the sequence they were added.
+ * The configuration properties of {@link SortConfig} apply to the tag sort;
+ * the data file is located in the same work directory as the sort's temporary file.
+ * @author Uwe Finke
+ * @param <D> data type
+ * @param <K> key type
+ */
+public class TagSorter<D extends Serializable, K extends Serializable> implements Iterable<D> {
+
+  static private final int DATA_BLOCK_SIZE = 1024 * 64;
+  static private final int MAX_BATCH_COUNT = 1024 * 4;
+  static private final int MAX_BATCH_BYTES = 1024 * 1024 * 8;
+
+  static private enum State {
+    PUT,
+    GET,
+    CLOSED
+  }
+
+  static private final Text text = Text.getPackageInstance(TagSorter.class);
+
+  private final KeyFactory<? super D, K> keyFactory;
+  private final Sorter<Tag<K>> sorter;
+  private final TagFile dataFile;
+  private State state;
+
+  private Iterator<D> iterator;
+
+  /**
+   * Constructor with default configuration.
+   * @param keyFactory creates the sort key of a data object
+   * @param comparator key comparator
+   */
+  public TagSorter(KeyFactory<? super D, K> keyFactory, Comparator<? super K> comparator) {
+
+    this(keyFactory, comparator, new SortConfig());
+  }
+
+  /**
+   * Constructor with explicit configuration.
+   * @param keyFactory creates the sort key of a data object
+   * @param comparator key comparator
+   * @param config configuration
+   */
+  public TagSorter(KeyFactory<? super D, K> keyFactory, Comparator<? super K> comparator, SortConfig config) {
+
+    this.keyFactory = keyFactory;
+    sorter = new Sorter<Tag<K>>(new Tag.KeyComparator<K>(comparator), config);
+    try {
+      dataFile = new TagFile(config, Math.max(DATA_BLOCK_SIZE, config.getBlockSize()));
+    } catch (Exception e) {
+      throw new SorterException(e);
+    }
+    state = State.PUT;
+  }
+
+  /**
+   * Adds an object.
+   * The object is written immediately to the data file;
+   * modifications after this call have no effect on the sort result.
+   * @param element object which is put into the sorter
+   * @throws SorterException when a problem occurs during sort
+   * @throws IllegalStateException when an object is put into the sorter after <code>iterator()</code> has been called
+   */
+  public void add(D element) throws SorterException, IllegalStateException {
+
+    if (state != State.PUT) {
+      throw new IllegalStateException(text.get("illegalState", state));
+    }
+
+    final Tag<K> tag;
+    try {
+      tag = dataFile.write(element, keyFactory.createKey(element));
+    } catch (Exception e) {
+      throw new SorterException(e);
+    }
+
+    sorter.add(tag);
+  }
+
+  /**
+   * Retrieves the sorted objects.
+   */
+  public Iterator<D> iterator() throws SorterException, IllegalStateException {
+
+    if (state != State.PUT) {
+      throw new IllegalStateException(text.get("illegalState", state));
+    }
+    state = State.GET;
+
+    if (iterator == null) {
+      try {
+        dataFile.flush();
+      } catch (Exception e) {
+        throw new SorterException(e);
+      }
+      iterator = new TagIterator(sorter.iterator());
+    }
+
+    return iterator;
+  }
+
+  /**
+   * Aborts the sort before all objects have been read.
+   */
+  public void abort() {
+
+    if (state == State.CLOSED) {
+      return;
+    }
+
+    sorter.abort();
+    close();
+  }
+
+  private void close() {
+
+    if (state == State.CLOSED) {
+      return;
+    }
+
+    state = State.CLOSED;
+    try {
+      dataFile.close();
+    } catch (Exception e) {
+      throw new SorterException(e);
+    }
+  }
+
+  private final class TagIterator implements Iterator<D> {
+
+    private final Iterator<Tag<K>> tagIterator;
+    private final Tag<?>[] tags;
+    private final Object[] batch;
+    private int size;
+    private int position;
+
+    public TagIterator(Iterator<Tag<K>> tagIterator) {
+
+      this.tagIterator = tagIterator;
+      tags = new Tag<?>[MAX_BATCH_COUNT];
+      batch = new Object[MAX_BATCH_COUNT];
+    }
+
+    public boolean hasNext() {
+
+      if (position < size) {
+        return true;
+      }
+
+      if (state == State.CLOSED) {
+        return false;
+      }
+
+      readBatch();
+
+      if (size == 0) {
+        close();
+        return false;
+      }
+
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public D next() {
+
+      if (! hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      final D result = (D) batch[position];
+      batch[position++] = null;
+      return result;
+    }
+
+    public void remove() {
+
+      throw new UnsupportedOperationException();
+    }
+
+    private void readBatch() {
+
+      final Iterator<Tag<K>> tagIterator = this.tagIterator;
+      final Tag<?>[] tags = this.tags;
+
+      int count = 0;
+      long bytes = 0;
+      while (count < MAX_BATCH_COUNT && bytes < MAX_BATCH_BYTES && tagIterator.hasNext()) {
+        final Tag<K> tag = tagIterator.next();
+        tags[count++] = tag;
+        bytes += tag.length;
+      }
+
+      try {
+        dataFile.read(tags, count, batch);
+      } catch (Exception e) {
+        throw new SorterException(e);
+      }
+
+      for (int i = 0; i < count; i++) {
+        tags[i] = null;
+      }
+
+      size = count;
+      position = 0;
+    }
+  }
+}
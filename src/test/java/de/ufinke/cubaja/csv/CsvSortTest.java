@@ -0,0 +1,105 @@
+package de.ufinke.cubaja.csv;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import de.ufinke.cubaja.sort.*;
+import java.io.*;
+import java.util.*;
+
+public class CsvSortTest {
+
+  @Test
+  public void sort() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setSeparator(';');
+    config.setHeader(true);
+    config.setAutoCol(true);
+    config.setRowSeparator("\n");
+
+    String lines = "name;branch;amount\n"
+                 + "a;2;1,50\n"
+                 + "b;10;7\n"
+                 + "c;2;12,00\n"
+                 + "d;;3\n"
+                 + "e;10;7,5\n";
+
+    CsvSort sort = new CsvSort(config);
+    sort.addKey("branch", SortKeyType.INTEGER, false);
+    sort.addKey(3, SortKeyType.DECIMAL, true);
+
+    StringWriter sw = new StringWriter();
+    int count = sort.sort(new StringReader(lines), sw);
+
+    assertEquals(5, count);
+    assertEquals("name;branch;amount\n"
+               + "d;;3\n"
+               + "c;2;12,00\n"
+               + "a;2;1,50\n"
+               + "e;10;7,5\n"
+               + "b;10;7\n", sw.toString());
+  }
+
+  @Test
+  public void spill() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setRowSeparator("\n");
+
+    SortConfig sortConfig = new SortConfig();
+    sortConfig.setRunSize(1000);
+
+    StringBuilder sb = new StringBuilder();
+    Random random = new Random();
+    int rows = 10000;
+    for (int i = 0; i < rows; i++) {
+      sb.append(random.nextInt(100000));
+      sb.append('\t');
+      sb.append("row ");
+      sb.append(i);
+      sb.append('\n');
+    }
+
+    CsvSort sort = new CsvSort(config, sortConfig);
+    sort.addKey(1, SortKeyType.INTEGER, false);
+    sort.addKey(2, SortKeyType.STRING, false);
+
+    StringWriter sw = new StringWriter();
+    assertEquals(rows, sort.sort(new StringReader(sb.toString()), sw));
+
+    String[] result = sw.toString().split("\n");
+    assertEquals(rows, result.length);
+    for (int i = 1; i < result.length; i++) {
+      long previous = Long.parseLong(result[i - 1].split("\t")[0]);
+      long current = Long.parseLong(result[i].split("\t")[0]);
+      assertTrue(previous <= current);
+    }
+  }
+
+  @Test
+  public void failure() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setRowSeparator("\n");
+
+    final boolean[] closed = new boolean[1];
+    Reader reader = new StringReader("1\ta\n2\tb\nx\tc\n3\td\n") {
+
+      public void close() {
+
+        closed[0] = true;
+        super.close();
+      }
+    };
+
+    CsvSort sort = new CsvSort(config);
+    sort.addKey(1, SortKeyType.INTEGER, false);
+
+    try {
+      sort.sort(reader, new StringWriter());
+      fail();
+    } catch (CsvException e) {
+      assertTrue(closed[0]);
+    }
+  }
+}
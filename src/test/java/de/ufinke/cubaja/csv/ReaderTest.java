@@ -5,9 +5,36 @@ import static org.junit.Assert.*;
 import de.ufinke.cubaja.config.*;
 import java.io.*;
 import java.math.*;
+import java.util.*;
 
 public class ReaderTest {
 
+  static public class Item {
+
+    private int id;
+    private String name;
+
+    public int getId() {
+
+      return id;
+    }
+
+    public void setId(int id) {
+
+      this.id = id;
+    }
+
+    public String getName() {
+
+      return name;
+    }
+
+    public void setName(String name) {
+
+      this.name = name;
+    }
+  }
+
   @Test
   public void basicTest() throws Exception {
     
@@ -57,6 +84,22 @@ public class ReaderTest {
     reader.close();
   }
   
+  @Test
+  public void columnOutOfRange() throws Exception {
+    
+    CsvConfig config = new CsvConfig();
+    config.addCol(new ColConfig());
+    
+    CsvReader reader = new CsvReader(new StringReader("a\tb\nc\td"), config);
+    assertTrue(reader.nextRow());
+    assertEquals("b", reader.readString(2));
+    assertNull(reader.readString(3));
+    assertNull(reader.readString(10000000));
+    assertNull(reader.readString(Integer.MAX_VALUE));
+    assertEquals(0, reader.readInt(Integer.MAX_VALUE));
+    reader.close();
+  }
+  
   @Test
   public void escapeTest() throws Exception {
     
@@ -109,4 +152,333 @@ public class ReaderTest {
     
     reader.close();
   }
+
+  private void compareParsers(String input, Character escapeChar) throws Exception {
+
+    CsvConfig defaultConfig = new CsvConfig();
+    defaultConfig.setSeparator(';');
+    defaultConfig.setEscapeChar(escapeChar);
+    CsvReader expected = new CsvReader(new StringReader(input), defaultConfig);
+
+    CsvConfig byteConfig = new CsvConfig();
+    byteConfig.setSeparator(';');
+    byteConfig.setEscapeChar(escapeChar);
+    byteConfig.setCharset("UTF-8");
+    byteConfig.setParser(new ByteRowParser(1024));
+    CsvReader actual = new CsvReader(new ByteArrayInputStream(input.getBytes("UTF-8")), byteConfig);
+
+    CsvConfig charConfig = new CsvConfig();
+    charConfig.setSeparator(';');
+    charConfig.setEscapeChar(escapeChar);
+    charConfig.setParser(new CharRowParser(1024));
+    CsvReader chars = new CsvReader(new StringReader(input), charConfig);
+
+    while (expected.nextRow()) {
+      assertTrue(actual.nextRow());
+      assertTrue(chars.nextRow());
+      assertEquals(expected.getLineCount(), actual.getLineCount());
+      assertEquals(expected.getLineCount(), chars.getLineCount());
+      String[] columns = expected.readColumns();
+      assertArrayEquals(columns, actual.readColumns());
+      assertArrayEquals(columns, chars.readColumns());
+    }
+    assertFalse(actual.nextRow());
+    assertFalse(chars.nextRow());
+
+    expected.close();
+    actual.close();
+    chars.close();
+  }
+
+  @Test
+  public void byteParser() throws Exception {
+
+    compareParsers("a;b;c\n;;\n\nx", null);
+    compareParsers("a;\"b;c\";\"d\"\"e\"\r\n\"multi\r\nline\nfield\";\u00e4\u00f6\u00fc\u20ac\r\r\n\"\"", '"');
+    compareParsers("a\"b;c\n", '"');
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      sb.append(i).append(";\"text ").append(i).append("\n\u00df\";");
+      for (int j = 0; j < i % 700; j++) {
+        sb.append('x');
+      }
+      sb.append(i % 3 == 0 ? "\r\n" : "\n");
+    }
+    compareParsers(sb.toString(), '"');
+  }
+
+  @Test
+  public void byteParserNumbers() throws Exception {
+
+    String lines = "1; -42 ;2147483647;-9223372036854775808;\n;x;2147483648; ;";
+
+    CsvConfig config = new CsvConfig();
+    config.setSeparator(';');
+    config.setParser(new ByteRowParser());
+    CsvReader reader = new CsvReader(new ByteArrayInputStream(lines.getBytes("UTF-8")), config);
+    final int[] errors = new int[1];
+    reader.setErrorHandler(new ErrorHandler() {
+
+      public void handleError(CsvException error) throws CsvException {
+
+        assertEquals(2, error.getLineNumber());
+        errors[0]++;
+      }
+    });
+
+    assertTrue(reader.nextRow());
+    assertEquals(1, reader.readInt(1));
+    assertEquals(-42, reader.readInt(2));
+    assertEquals(Integer.MAX_VALUE, reader.readInt(3));
+    assertEquals(Long.MIN_VALUE, reader.readLong(4));
+    assertNull(reader.readIntObject(5));
+    assertEquals(0, reader.readLong(6));
+
+    assertTrue(reader.nextRow());
+    assertEquals(0, reader.readInt(1));
+    assertEquals(0, reader.readInt(2));
+    assertEquals(Long.valueOf(2147483648L), reader.readLongObject(3));
+    assertNull(reader.readIntObject(3));
+    assertNull(reader.readLongObject(4));
+    assertEquals(2, errors[0]);
+    assertEquals(";x;2147483648; ;", reader.getPlainRow());
+
+    assertFalse(reader.nextRow());
+    reader.close();
+  }
+
+  @Test(expected=CsvException.class)
+  public void byteParserCharset() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setCharset("UTF-16");
+    config.setParser(new ByteRowParser());
+    new CsvReader(new ByteArrayInputStream(new byte[0]), config);
+  }
+
+  @Test
+  public void charParser() throws Exception {
+
+    String lines = "true; x ;-128;32767; 7 ;\"a\"\"b\"\n false;;128;-32769;;\"\r\n\"";
+
+    CsvConfig config = new CsvConfig();
+    config.setSeparator(';');
+    config.setEscapeChar('"');
+    config.setParser(new CharRowParser());
+    CsvReader reader = new CsvReader(new StringReader(lines), config);
+    final int[] errors = new int[1];
+    reader.setErrorHandler(new ErrorHandler() {
+
+      public void handleError(CsvException error) throws CsvException {
+
+        errors[0]++;
+      }
+    });
+
+    assertTrue(reader.nextRow());
+    assertTrue(reader.readBoolean(1));
+    assertEquals('x', reader.readChar(2));
+    assertEquals(Byte.MIN_VALUE, reader.readByte(3));
+    assertEquals(Short.MAX_VALUE, reader.readShort(4));
+    assertEquals(Integer.valueOf(7), reader.readIntObject(5));
+    assertEquals("a\"b", reader.readString(6));
+    assertEquals('a', reader.readChar(6));
+
+    assertTrue(reader.nextRow());
+    assertEquals(Boolean.FALSE, reader.readBooleanObject(1));
+    assertNull(reader.readBooleanObject(2));
+    assertNull(reader.readCharObject(2));
+    assertNull(reader.readByteObject(3));
+    assertEquals(0, reader.readShort(4));
+    assertEquals(2, errors[0]);
+    assertEquals("\n", reader.readString(6));
+    assertEquals(" false;;128;-32769;;\"\n\"", reader.getPlainRow());
+    assertEquals(3, reader.getLineCount());
+
+    assertFalse(reader.nextRow());
+    reader.close();
+  }
+
+  private File createItemFile() throws Exception {
+
+    File file = new File("target/test-items.csv");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    writer.write("id;name\n");
+    for (int i = 0; i < 20000; i++) {
+      if (i == 12345) {
+        writer.write("x;bad\n");
+      } else {
+        writer.write(i + ";item \u00e4 " + i + (i % 2 == 0 ? "\n" : "\r\n"));
+      }
+    }
+    writer.close();
+    return file;
+  }
+
+  private void readParallel(boolean ordered, RowParser parser) throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setFile(createItemFile().getPath());
+    config.setCharset("UTF-8");
+    config.setSeparator(';');
+    config.setAutoCol(true);
+    config.setParser(parser);
+
+    ParallelCsvReader<Item> reader = new ParallelCsvReader<Item>(config, Item.class);
+    reader.setThreadCount(4);
+    reader.setChunkSize(10000);
+    reader.setOrdered(ordered);
+    final List<Integer> errorLines = new ArrayList<Integer>();
+    reader.setErrorHandler(new ErrorHandler() {
+
+      public void handleError(CsvException error) throws CsvException {
+
+        errorLines.add(error.getLineNumber());
+        assertEquals(12347, error.getRowNumber());
+      }
+    });
+
+    BitSet found = new BitSet();
+    int count = 0;
+    int last = -1;
+    for (Item item : reader) {
+      count++;
+      if (item.getName().equals("bad")) {
+        assertEquals(1, errorLines.size());
+        assertEquals(0, item.getId());
+      } else {
+        assertEquals("item \u00e4 " + item.getId(), item.getName());
+        found.set(item.getId());
+        if (ordered) {
+          assertTrue(item.getId() > last);
+          last = item.getId();
+        }
+      }
+    }
+    reader.close();
+
+    assertEquals(20000, count);
+    assertEquals(19999, found.cardinality());
+    assertEquals(Arrays.asList(12347), errorLines);
+  }
+
+  @Test
+  public void parallelOrdered() throws Exception {
+
+    readParallel(true, new DefaultRowParser());
+    readParallel(true, new ByteRowParser(4096));
+  }
+
+  @Test
+  public void parallelUnordered() throws Exception {
+
+    readParallel(false, new CharRowParser());
+  }
+
+  @Test
+  public void parallelRelease() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setCharset("UTF-8");
+    config.setSeparator(';');
+    config.setAutoCol(true);
+
+    java.nio.channels.FileChannel channel = new FileInputStream(createItemFile()).getChannel();
+    ParallelCsvReader<Item> reader = new ParallelCsvReader<Item>(channel, config, Item.class);
+    reader.setChunkSize(10000);
+    reader.setErrorHandler(new ErrorHandler() {
+
+      public void handleError(CsvException error) throws CsvException {
+      }
+    });
+    int count = 0;
+    for (Item item : reader) {
+      assertNotNull(item);
+      count++;
+    }
+    assertEquals(20000, count);
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void parallelFailure() throws Exception {
+
+    CsvConfig config = new CsvConfig();
+    config.setCharset("UTF-8");
+    config.setSeparator(';');
+    config.setAutoCol(true);
+    config.setRowFilter(new RowFilter() {
+
+      public boolean acceptRow(CsvReader reader) {
+
+        try {
+          if ("500".equals(reader.readString(1))) {
+            throw new IllegalArgumentException("failed");
+          }
+        } catch (CsvException e) {
+          fail(e.getMessage());
+        }
+        return true;
+      }
+    });
+
+    java.nio.channels.FileChannel channel = new FileInputStream(createItemFile()).getChannel();
+    ParallelCsvReader<Item> reader = new ParallelCsvReader<Item>(channel, config, Item.class);
+    reader.setChunkSize(10000);
+    try {
+      for (Item item : reader) {
+        assertNotNull(item);
+      }
+      fail();
+    } catch (de.ufinke.cubaja.util.IteratorException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void replace() throws Exception {
+
+    ReplaceConfig digits = new ReplaceConfig();
+    digits.setRegex("[0-9]+");
+    digits.setReplacement("#");
+    ReplaceConfig dashes = new ReplaceConfig();
+    dashes.setRegex("-");
+    dashes.setReplacement("");
+
+    CsvConfig config = new CsvConfig();
+    config.setSeparator(';');
+    config.setTrim(true);
+    ColConfig col = new ColConfig();
+    col.setPosition(1);
+    col.addReplace(digits);
+    col.addReplace(dashes);
+    config.addCol(col);
+    col = new ColConfig();
+    col.setPosition(2);
+    col.setNullValue("42");
+    config.addCol(col);
+
+    CsvReader reader = new CsvReader(new StringReader("a-12-b12; \nx; 7"), config);
+
+    assertTrue(reader.nextRow());
+    assertEquals("a#b#", reader.readString(1));
+    assertEquals(42, reader.readInt(2));
+    assertNull(reader.readString(3));
+
+    reader.setColumnEditor(1, new ColumnEditor() {
+
+      public String editColumn(String column, ColConfig colConfig) {
+
+        return column.toUpperCase();
+      }
+    });
+
+    assertTrue(reader.nextRow());
+    assertEquals("X", reader.readString(1));
+    assertEquals(7, reader.readInt(2));
+
+    reader.close();
+  }
 }
@@ -28,4 +28,30 @@ public class WriterTest {
     
     assertEquals("123;987,65", sw.toString().trim());
   }
+
+  @Test
+  public void replace() throws Exception {
+
+    ReplaceConfig quote = new ReplaceConfig();
+    quote.setRegex("\\s+");
+    quote.setReplacement("_");
+
+    CsvConfig config = new CsvConfig();
+    config.setSeparator(';');
+    ColConfig col = new ColConfig();
+    col.setPosition(2);
+    col.addReplace(quote);
+    config.addCol(col);
+
+    StringWriter sw = new StringWriter();
+    CsvWriter writer = new CsvWriter(sw, config);
+    for (int i = 0; i < 2; i++) {
+      writer.write(1, "a  b");
+      writer.write(2, "c  d " + i);
+      writer.nextRow();
+    }
+    writer.close();
+
+    assertEquals("a  b;c_d_0\na  b;c_d_1", sw.toString().trim().replace("\r\n", "\n"));
+  }
 }
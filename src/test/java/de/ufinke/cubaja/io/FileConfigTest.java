@@ -0,0 +1,227 @@
+package de.ufinke.cubaja.io;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.zip.*;
+
+public class FileConfigTest {
+
+  private FileConfig createConfig(String suffix) throws Exception {
+    
+    File file = File.createTempFile("fileconfig", suffix);
+    file.deleteOnExit();
+    FileConfig config = new FileConfig();
+    config.setName(file.getPath());
+    config.setCharset("UTF-8");
+    return config;
+  }
+  
+  @Test
+  public void gzip() throws Exception {
+    
+    FileConfig config = createConfig(".gz");
+    assertEquals(Compression.GZIP, config.getCompression());
+    config.setCompressionThreads(3);
+    
+    BufferedWriter writer = config.createWriter();
+    for (int i = 0; i < 100000; i++) {
+      writer.write("line " + i);
+      writer.newLine();
+    }
+    writer.close();
+    
+    BufferedReader reader = config.createReader();
+    for (int i = 0; i < 100000; i++) {
+      assertEquals("line " + i, reader.readLine());
+    }
+    assertNull(reader.readLine());
+    reader.close();
+    
+    reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(config.createFile())), "UTF-8"));
+    int count = 0;
+    while (reader.readLine() != null) {
+      count++;
+    }
+    reader.close();
+    assertEquals(100000, count);
+    
+    config.setCompression(Compression.NONE);
+    InputStream in = config.createInputStream();
+    assertEquals(0x1F, in.read());
+    assertEquals(0x8B, in.read());
+    in.close();
+    
+    config.createFile().delete();
+  }
+  
+  @Test
+  public void gzipEmpty() throws Exception {
+    
+    FileConfig config = createConfig(".dat");
+    assertEquals(Compression.NONE, config.getCompression());
+    config.setCompression(Compression.GZIP);
+    
+    config.createOutputStream().close();
+    
+    InputStream in = config.createInputStream();
+    assertEquals(-1, in.read());
+    in.close();
+    
+    config.createFile().delete();
+  }
+  
+  @Test
+  public void gzipClosed() throws Exception {
+    
+    ParallelGzipOutputStream out = new ParallelGzipOutputStream(new ByteArrayOutputStream());
+    out.write(1);
+    out.close();
+    try {
+      out.write(2);
+      fail();
+    } catch (IOException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
+  
+  @Test
+  public void asyncClosed() throws Exception {
+    
+    AsyncOutputStream out = new AsyncOutputStream(Channels.newChannel(new ByteArrayOutputStream()), 16);
+    out.write(1);
+    out.close();
+    try {
+      out.write(2);
+      fail();
+    } catch (IOException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
+  
+  @Test(timeout = 10000)
+  public void backgroundError() throws Exception {
+    
+    InputStream source = new InputStream() {
+      
+      private int count;
+      
+      public int read() {
+        
+        if (count == 96) {
+          throw new IllegalStateException("failed");
+        }
+        return count++;
+      }
+    };
+    
+    BackgroundInputStream in = new BackgroundInputStream(source, 16, 2);
+    int count = 0;
+    try {
+      while (in.read() >= 0) {
+        count++;
+      }
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    assertEquals(96, count);
+    in.close();
+  }
+  
+  @Test
+  public void async() throws Exception {
+    
+    for (String suffix : new String[] {".txt", ".gz"}) {
+      FileConfig config = createConfig(suffix);
+      config.setAsync(true);
+      config.setBufferSize(1024);
+      
+      BufferedWriter writer = config.createWriter();
+      for (int i = 0; i < 10000; i++) {
+        writer.write("line " + i);
+        writer.newLine();
+      }
+      writer.close();
+      
+      if (config.getCompression() == Compression.NONE) {
+        assertEquals(98890, config.createFile().length());
+      }
+      
+      BufferedReader reader = config.createReader();
+      for (int i = 0; i < 10000; i++) {
+        assertEquals("line " + i, reader.readLine());
+      }
+      assertNull(reader.readLine());
+      reader.close();
+      
+      config.createFile().delete();
+    }
+  }
+  
+  @Test
+  public void asyncError() throws Exception {
+    
+    WritableByteChannel channel = new WritableByteChannel() {
+      
+      public boolean isOpen() {
+        return true;
+      }
+      
+      public void close() {
+      }
+      
+      public int write(ByteBuffer src) throws IOException {
+        throw new IOException("failed");
+      }
+    };
+    
+    AsyncOutputStream out = new AsyncOutputStream(channel, 1024);
+    try {
+      out.write(new byte[5000]);
+      out.close();
+      fail();
+    } catch (IOException e) {
+      assertEquals("failed", e.getMessage());
+    }
+  }
+  
+  @Test(timeout = 10000)
+  public void asyncFlushError() throws Exception {
+    
+    final boolean[] closed = new boolean[1];
+    
+    WritableByteChannel channel = new WritableByteChannel() {
+      
+      public boolean isOpen() {
+        return ! closed[0];
+      }
+      
+      public void close() {
+        closed[0] = true;
+      }
+      
+      public int write(ByteBuffer src) throws IOException {
+        throw new IOException("failed");
+      }
+    };
+    
+    AsyncOutputStream out = new AsyncOutputStream(channel, 1024);
+    out.write(new byte[100]);
+    try {
+      out.flush();
+      fail();
+    } catch (IOException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    try {
+      out.close();
+      fail();
+    } catch (IOException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    assertTrue(closed[0]);
+  }
+}
@@ -4,9 +4,199 @@ import java.nio.charset.Charset;
 import org.junit.*;
 import static org.junit.Assert.*;
 import java.math.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import de.ufinke.cubaja.util.IteratorException;
 
 public class MainframeInputTest {
 
+  static public class Account {
+    
+    private String name;
+    private short branch;
+    private long number;
+    private BigDecimal balance;
+    private double rate;
+    private int count;
+    
+    public String getName() {
+      return name;
+    }
+    
+    public void setName(String name) {
+      this.name = name;
+    }
+    
+    public short getBranch() {
+      return branch;
+    }
+    
+    public void setBranch(short branch) {
+      this.branch = branch;
+    }
+    
+    public long getNumber() {
+      return number;
+    }
+    
+    public void setNumber(long number) {
+      this.number = number;
+    }
+    
+    public BigDecimal getBalance() {
+      return balance;
+    }
+    
+    public void setBalance(BigDecimal balance) {
+      this.balance = balance;
+    }
+    
+    public double getRate() {
+      return rate;
+    }
+    
+    public void setRate(double rate) {
+      this.rate = rate;
+    }
+    
+    public int getCount() {
+      return count;
+    }
+    
+    public void setCount(int count) {
+      this.count = count;
+    }
+  }
+  
+  private RecordConfig createLayout() {
+    
+    RecordConfig layout = new RecordConfig(40);
+    layout.addField(new FieldConfig("branch", 0, 2, FieldFormat.FIXED, 0));
+    layout.addField(new FieldConfig("number", 2, 11, FieldFormat.PACKED, 0));
+    layout.addField(new FieldConfig("name", 8, 10, FieldFormat.CHARACTER, 0));
+    layout.addField(new FieldConfig("balance", 18, 9, FieldFormat.ZONED, 2));
+    layout.addField(new FieldConfig("rate", 27, 5, FieldFormat.PACKED, 3));
+    layout.addField(new FieldConfig("count", 36, 4, FieldFormat.UNSIGNED_PACKED, 0));
+    return layout;
+  }
+  
+  @Test
+  public void recordMapping() throws Exception {
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(bytes, Charset.forName("IBM273"));
+    mo.setRecordConfig(createLayout());
+    for (int i = 0; i < 10; i++) {
+      Account account = new Account();
+      account.setBranch((short) (i + 100));
+      account.setNumber(1234567890L * i);
+      account.setName("Name " + i);
+      account.setBalance((i == 3) ? null : new BigDecimal(i * 100 - 300).movePointLeft(2));
+      account.setRate(i / 8.0);
+      account.setCount(i);
+      mo.writeRecord(account);
+    }
+    mo.close();
+    
+    byte[] records = bytes.toByteArray();
+    assertEquals(400, records.length);
+    assertEquals(0x40, records[35] & 0xFF);
+    
+    MainframeInput mi = new MainframeInput(ByteBuffer.wrap(records), Charset.forName("IBM273"));
+    mi.setRecordConfig(createLayout());
+    int i = 0;
+    for (Account account : mi.cursor(Account.class)) {
+      assertEquals(i + 100, account.getBranch());
+      assertEquals(1234567890L * i, account.getNumber());
+      assertEquals("Name " + i, account.getName().trim());
+      assertEquals(new BigDecimal(i * 100 - 300).movePointLeft(2), account.getBalance());
+      assertEquals(i / 8.0, account.getRate(), 0);
+      assertEquals(i, account.getCount());
+      i++;
+    }
+    assertEquals(10, i);
+  }
+  
+  private byte[] createVariableRecords(RecordFormat format, int blockSize) throws Exception {
+    
+    RecordConfig config = new RecordConfig();
+    config.setFormat(format);
+    config.setBlockSize(blockSize);
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(bytes, Charset.forName("IBM273"));
+    mo.setRecordConfig(config);
+    for (int i = 0; i < 50; i++) {
+      mo.writeInt(i);
+      mo.writeString("", i * 3);
+      mo.nextRecord();
+    }
+    mo.close();
+    return bytes.toByteArray();
+  }
+  
+  private void checkVariableRecords(MainframeInput mi, RecordFormat format) throws Exception {
+    
+    RecordConfig config = new RecordConfig();
+    config.setFormat(format);
+    mi.setRecordConfig(config);
+    
+    int count = 0;
+    while (mi.nextRecord()) {
+      assertEquals(count * 3 + 4, mi.getSize());
+      assertEquals(count, mi.readInt());
+      assertEquals(count * 3, mi.readString(count * 3).length());
+      count++;
+    }
+    assertEquals(50, count);
+    assertEquals(50, mi.getRecordCount());
+  }
+  
+  @Test
+  public void variableRecords() throws Exception {
+    
+    for (RecordFormat format : new RecordFormat[] {RecordFormat.V, RecordFormat.VB, RecordFormat.VBS}) {
+      byte[] records = createVariableRecords(format, 200);
+      checkVariableRecords(new MainframeInput(new ByteArrayInputStream(records), Charset.forName("IBM273")), format);
+      checkVariableRecords(new MainframeInput(ByteBuffer.wrap(records), Charset.forName("IBM273")), format);
+    }
+  }
+  
+  @Test
+  public void variableBlocks() throws Exception {
+    
+    byte[] records = createVariableRecords(RecordFormat.VB, 200);
+    
+    // first block holds records 0 to 8 (sum of 8 + 3 * i bytes)
+    assertEquals(184, ((records[0] & 0xFF) << 8) | (records[1] & 0xFF));
+    assertEquals(8, ((records[4] & 0xFF) << 8) | (records[5] & 0xFF));
+    
+    records = createVariableRecords(RecordFormat.VBS, 200);
+    
+    // blocks are filled completely; record 9 is split
+    assertEquals(200, ((records[0] & 0xFF) << 8) | (records[1] & 0xFF));
+    assertEquals(1, records[184 + 2]);
+  }
+  
+  @Test(expected=IOException.class)
+  public void variableRecordTooLong() throws Exception {
+    
+    createVariableRecords(RecordFormat.VB, 100);
+  }
+  
+  @Test(expected=IOException.class)
+  public void recordMappingType() throws Exception {
+    
+    RecordConfig layout = new RecordConfig(4);
+    layout.addField(new FieldConfig("name", 0, 4, FieldFormat.PACKED, 0));
+    
+    MainframeInput mi = new MainframeInput(ByteBuffer.wrap(new byte[4]), Charset.forName("IBM273"));
+    mi.setRecordConfig(layout);
+    mi.nextRecord();
+    mi.readRecord(Account.class);
+  }
+
   @Test
   public void zoned() throws Exception {
 
@@ -65,6 +255,91 @@ public class MainframeInputTest {
     assertEquals(129, mi.readUnsignedPackedInt(6));
   }
   
+  @Test
+  public void decimalRoundTrip() throws Exception {
+
+    BigDecimal big = new BigDecimal("-1234567890123456789012345.678901");
+    
+    RandomAccessBuffer buffer = new RandomAccessBuffer();
+    MainframeOutput mo = new MainframeOutput(buffer.getOutputStream(), Charset.forName("IBM273"));
+    mo.writeZoned(Long.MIN_VALUE, 19);
+    mo.writePacked(Long.MAX_VALUE, 19);
+    mo.writeUnsignedPacked(Long.MAX_VALUE, 19);
+    mo.writeZoned(big, 25, 6);
+    mo.writePacked(big, 25, 6);
+    mo.writeUnsignedPacked(big, 25, 6);
+    mo.writePacked(-0.01, 5, 2);
+    mo.writeZoned(-2.675, 3, 3);
+    mo.writePacked(Integer.MIN_VALUE, 10);
+    mo.drainBuffer();
+    int size = buffer.size();
+    buffer.setPosition(0);
+    
+    MainframeInput mi = new MainframeInput(buffer.getInputStream(), Charset.forName("IBM273"));
+    mi.fillBuffer(size);
+    assertEquals(new BigDecimal(Long.MIN_VALUE), mi.readZonedBigDecimal(19, 0));
+    assertEquals(Long.MAX_VALUE, mi.readPackedLong(18));
+    assertEquals(new BigDecimal(Long.MAX_VALUE), mi.readUnsignedPackedBigDecimal(19, 0));
+    assertEquals(big, mi.readZonedBigDecimal(25, 6));
+    assertEquals(big, mi.readPackedBigDecimal(25, 6));
+    assertEquals(big.negate(), mi.readUnsignedPackedBigDecimal(25, 6));
+    assertEquals(-0.01, mi.readPackedDouble(5, 2), 0);
+    assertEquals(-2.675, mi.readZonedDouble(3, 3), 0);
+    assertEquals(Integer.MIN_VALUE, mi.readPackedLong(10));
+  }
+  
+  @Test
+  public void decimalOverflow() throws Exception {
+
+    RandomAccessBuffer buffer = new RandomAccessBuffer();
+    
+    buffer.write(0x99);
+    buffer.write(0x99);
+    buffer.write(0x99);
+    buffer.write(0x99);
+    buffer.write(0x99);
+    
+    buffer.setPosition(0);
+    
+    MainframeInput mi = new MainframeInput(buffer.getInputStream(), Charset.forName("IBM273"));
+    mi.fillBuffer(5);
+    try {
+      mi.readUnsignedPackedInt(9);
+      fail();
+    } catch (NumberFormatException e) {
+    }
+  }
+  
+  @Test(expected=IOException.class)
+  public void invalidZoned() throws Exception {
+
+    RandomAccessBuffer buffer = new RandomAccessBuffer();
+    
+    buffer.write(0xC1);
+    buffer.write(0xF2);
+    
+    buffer.setPosition(0);
+    
+    MainframeInput mi = new MainframeInput(buffer.getInputStream(), Charset.forName("IBM273"));
+    mi.fillBuffer(2);
+    mi.readZonedInt(2);
+  }
+  
+  @Test(expected=IOException.class)
+  public void invalidPacked() throws Exception {
+
+    RandomAccessBuffer buffer = new RandomAccessBuffer();
+    
+    buffer.write(0x1A);
+    buffer.write(0x2C);
+    
+    buffer.setPosition(0);
+    
+    MainframeInput mi = new MainframeInput(buffer.getInputStream(), Charset.forName("IBM273"));
+    mi.fillBuffer(2);
+    mi.readPackedInt(3);
+  }
+  
   @Test
   public void string() throws Exception {
 
@@ -94,4 +369,189 @@ public class MainframeInputTest {
     assertFalse(mi.fillBuffer(1));
   }
   
+  private byte[] createRecords() throws Exception {
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(bytes, Charset.forName("IBM273"));
+    for (int i = 0; i < 100; i++) {
+      mo.writeInt(i);
+      mo.writePacked(-i, 5);
+      mo.writeString("R" + i, 4);
+      mo.nextRecord();
+    }
+    mo.close();
+    return bytes.toByteArray();
+  }
+  
+  private void checkRecords(MainframeInput mi) throws Exception {
+    
+    int count = 0;
+    while (mi.nextRecord(11)) {
+      assertEquals(11, mi.getSize());
+      assertEquals(count, mi.readInt());
+      assertEquals(-count, mi.readPackedInt(5));
+      assertEquals(7, mi.getPosition());
+      assertEquals("R" + count, mi.readString(4).trim());
+      count++;
+    }
+    assertEquals(100, count);
+    assertEquals(100, mi.getRecordCount());
+  }
+  
+  @Test
+  public void byteBuffer() throws Exception {
+    
+    ByteBuffer data = ByteBuffer.wrap(createRecords());
+    checkRecords(new MainframeInput(data, Charset.forName("IBM273")));
+    assertEquals(0, data.position());
+  }
+  
+  @Test
+  public void fileChannel() throws Exception {
+    
+    File file = File.createTempFile("mainframe", ".dat");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(createRecords());
+    out.close();
+    
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    MainframeInput mi = new MainframeInput(raf.getChannel(), Charset.forName("IBM273"));
+    checkRecords(mi);
+    mi.close();
+    
+    file.delete();
+  }
+  
+  @Test(expected=EOFException.class)
+  public void byteBufferEOF() throws Exception {
+    
+    MainframeInput mi = new MainframeInput(ByteBuffer.wrap(new byte[10]), Charset.forName("IBM273"));
+    mi.nextRecord(8);
+    mi.nextRecord(8);
+  }
+  
+  private File createAccountFile(int count) throws Exception {
+    
+    File file = File.createTempFile("mainframe", ".dat");
+    file.deleteOnExit();
+    MainframeOutput mo = new MainframeOutput(new FileOutputStream(file), Charset.forName("IBM273"));
+    mo.setRecordConfig(createLayout());
+    for (int i = 0; i < count; i++) {
+      Account account = new Account();
+      account.setName("Name " + i);
+      account.setBalance(BigDecimal.ZERO);
+      account.setCount(i);
+      mo.writeRecord(account);
+    }
+    mo.close();
+    return file;
+  }
+  
+  @Test
+  public void parallelOrdered() throws Exception {
+    
+    File file = createAccountFile(1000);
+    
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    ParallelRecordReader<Account> reader = new ParallelRecordReader<Account>(raf.getChannel(), Charset.forName("IBM273"), createLayout(), Account.class);
+    reader.setThreadCount(3);
+    reader.setChunkRecords(7);
+    assertEquals(1000, reader.getRecordCount());
+    int i = 0;
+    for (Account account : reader) {
+      assertEquals(i, account.getCount());
+      assertEquals("Name " + i, account.getName().trim());
+      i++;
+    }
+    assertEquals(1000, i);
+    assertFalse(raf.getChannel().isOpen());
+    reader.close();
+    
+    file.delete();
+  }
+  
+  @Test
+  public void parallelUnordered() throws Exception {
+    
+    File file = createAccountFile(1000);
+    
+    RecordDecoder<Integer> decoder = new RecordDecoder<Integer>() {
+      
+      public Integer decode(MainframeInput input) throws Exception {
+        
+        input.setPosition(36);
+        return input.readUnsignedPackedInt(4);
+      }
+    };
+    
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    ParallelRecordReader<Integer> reader = new ParallelRecordReader<Integer>(raf.getChannel(), "IBM273", createLayout(), decoder);
+    reader.setThreadCount(4);
+    reader.setChunkRecords(10);
+    reader.setOrdered(false);
+    boolean[] seen = new boolean[1000];
+    for (int count : reader) {
+      assertFalse(seen[count]);
+      seen[count] = true;
+    }
+    for (boolean flag : seen) {
+      assertTrue(flag);
+    }
+    reader.close();
+    
+    file.delete();
+  }
+  
+  @Test
+  public void parallelFailure() throws Exception {
+    
+    File file = createAccountFile(1000);
+    
+    RecordDecoder<Integer> decoder = new RecordDecoder<Integer>() {
+      
+      public Integer decode(MainframeInput input) throws Exception {
+        
+        input.setPosition(36);
+        int count = input.readUnsignedPackedInt(4);
+        if (count == 500) {
+          throw new IllegalStateException("failed");
+        }
+        return count;
+      }
+    };
+    
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    ParallelRecordReader<Integer> reader = new ParallelRecordReader<Integer>(raf.getChannel(), "IBM273", createLayout(), decoder);
+    reader.setChunkRecords(10);
+    try {
+      for (int count : reader) {
+        assertTrue(count < 500);
+      }
+      fail();
+    } catch (IteratorException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    assertFalse(raf.getChannel().isOpen());
+    
+    file.delete();
+  }
+  
+  @Test(expected=EOFException.class)
+  public void parallelIncomplete() throws Exception {
+    
+    File file = File.createTempFile("mainframe", ".dat");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(new byte[90]);
+    out.close();
+    
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      new ParallelRecordReader<Account>(raf.getChannel(), "IBM273", createLayout(), Account.class);
+    } finally {
+      raf.close();
+      file.delete();
+    }
+  }
 }
@@ -4,6 +4,9 @@ import java.nio.charset.Charset;
 import org.junit.*;
 import static org.junit.Assert.*;
 import java.math.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 
 public class MainframeOutputTest {
 
@@ -72,6 +75,15 @@ public class MainframeOutputTest {
     assertEquals(0x34, buffer.read());
   }
   
+  @Test(expected=java.io.IOException.class)
+  public void exceedDigits() throws Exception {
+
+    RandomAccessBuffer buffer = new RandomAccessBuffer();
+    
+    MainframeOutput mo = new MainframeOutput(buffer.getOutputStream(), Charset.forName("IBM273"));
+    mo.writePacked(new BigDecimal("1234.5"), 2, 1);
+  }
+  
   @Test
   public void string() throws Exception {
 
@@ -88,4 +100,75 @@ public class MainframeOutputTest {
     assertEquals(0x40, buffer.read());
   }
   
+  
+  @Test
+  public void strings() throws Exception {
+    
+    String[] charsets = {"IBM037", "IBM273", "IBM500", "IBM01140", "IBM01141"};
+    String value = "Gr\u00fc\u00dfe [ab] \u20ac 1 \u4e00";
+    
+    for (String charset : charsets) {
+      assertNotNull(charset, Transcoder.getInstance(charset));
+      RandomAccessBuffer buffer = new RandomAccessBuffer();
+      MainframeOutput mo = new MainframeOutput(buffer.getOutputStream(), charset);
+      mo.writeString(value, value.length());
+      mo.writeString("abc", 5);
+      mo.writeString("abcdef", 2);
+      mo.writeString(null, 1);
+      mo.drainBuffer();
+      
+      byte[] expected = (value + "abc  ab ").getBytes(charset);
+      assertArrayEquals(charset, expected, buffer.toByteArray());
+      
+      MainframeInput mi = new MainframeInput(ByteBuffer.wrap(expected), charset);
+      mi.nextRecord(expected.length);
+      assertEquals(charset, new String(expected, charset).substring(0, value.length()), mi.readString(value.length()));
+      assertEquals("abc", mi.readString(5, true));
+      assertEquals("ab", mi.readString(2, true));
+      assertEquals("", mi.readString(1, true));
+    }
+  }
+  
+  private void writeRecords(MainframeOutput mo, RecordFormat format) throws Exception {
+    
+    RecordConfig config = new RecordConfig(0);
+    config.setFormat(format);
+    config.setBlockSize(1000);
+    mo.setRecordConfig(config);
+    for (int i = 0; i < 2000; i++) {
+      mo.writeString("record " + i, 10 + i % 50);
+      mo.writePacked(i, 7);
+      mo.nextRecord();
+    }
+    mo.close();
+  }
+  
+  @Test
+  public void channel() throws Exception {
+    
+    for (RecordFormat format : RecordFormat.values()) {
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      writeRecords(new MainframeOutput(expected, "IBM273"), format);
+      
+      File file = File.createTempFile("mainframe", ".dat");
+      file.deleteOnExit();
+      FileOutputStream out = new FileOutputStream(file);
+      writeRecords(new MainframeOutput(out.getChannel(), "IBM273", 4096), format);
+      
+      ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      writeRecords(new MainframeOutput(Channels.newChannel(actual), "IBM273"), format);
+      
+      byte[] bytes = expected.toByteArray();
+      assertTrue(bytes.length > 2 * 32760);
+      assertArrayEquals(format.name(), bytes, actual.toByteArray());
+      
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      byte[] fileBytes = new byte[(int) raf.length()];
+      raf.readFully(fileBytes);
+      raf.close();
+      assertArrayEquals(format.name(), bytes, fileBytes);
+      
+      file.delete();
+    }
+  }
 }
@@ -2,11 +2,21 @@ package de.ufinke.cubaja.io;
 
 import org.junit.*;
 import static org.junit.Assert.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 
 public class RandomAccesBufferTest {
 
   @Test
   public void dataInputOutput() throws Exception {
+    
+    checkDataInputOutput(new RandomAccessBuffer());
+    checkDataInputOutput(new RandomAccessBuffer(new BufferPool(), 16));
+    checkDataInputOutput(new DirectBuffer(new BufferPool(), 16));
+  }
+  
+  private void checkDataInputOutput(DataBuffer buf) throws Exception {
 
     byte[] byteArray = new byte[] {1, 2};
     byte bytePos = 1;
@@ -38,8 +48,6 @@ public class RandomAccesBufferTest {
     int byteFF = 0xFF;
     int byte77 = 0x77;
     
-    RandomAccessBuffer buf = new RandomAccessBuffer();
-    
     buf.write(byteArray);
     buf.writeByte(bytePos);
     buf.writeByte(byteNeg);
@@ -106,4 +114,188 @@ public class RandomAccesBufferTest {
     assertEquals(byteFF, buf.readUnsignedByte());
     assertEquals(byte77, buf.readUnsignedByte());
   }
+  
+  @Test
+  public void growth() throws Exception {
+    
+    RandomAccessBuffer buf = new RandomAccessBuffer(10, 10);
+    buf.write(new byte[11]);
+    assertEquals(20, buf.capacity());
+    buf.setPosition(1000);
+    assertEquals(1001, buf.capacity());
+    buf.write(new byte[2]);
+    assertEquals(1501, buf.capacity());
+    assertEquals(1002, buf.size());
+  }
+  
+  @Test
+  public void pool() throws Exception {
+    
+    BufferPool pool = new BufferPool(1 << 20, 2);
+    
+    byte[] array = pool.acquireArray(5000);
+    assertEquals(8192, array.length);
+    pool.release(array);
+    assertSame(array, pool.acquireArray(8000));
+    assertEquals(3 << 20, pool.acquireArray(3 << 20).length);
+    
+    ByteBuffer direct = pool.acquireDirect(100);
+    assertTrue(direct.isDirect());
+    assertEquals(4096, direct.capacity());
+    pool.release(direct);
+    assertSame(direct, pool.acquireDirect(4096));
+    
+    RandomAccessBuffer buf = new RandomAccessBuffer(pool, 4096);
+    byte[] first = pool.acquireArray(16384);
+    pool.release(first);
+    buf.write(new byte[5000]);
+    assertEquals(8192, buf.capacity());
+    buf.release();
+    assertEquals(0, buf.capacity());
+    assertEquals(8192, pool.acquireArray(8192).length);
+  }
+  
+  @Test
+  public void directChannel() throws Exception {
+    
+    DirectBuffer buf = new DirectBuffer(new BufferPool(), 4096);
+    byte[] data = new byte[100000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    buf.write(data);
+    assertEquals(131072, buf.capacity());
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    buf.drainTo(Channels.newChannel(bytes));
+    assertEquals(0, buf.size());
+    assertArrayEquals(data, bytes.toByteArray());
+    
+    assertEquals(data.length, buf.transferFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), data.length + 10));
+    assertArrayEquals(data, buf.toByteArray());
+    
+    buf.cut(10, 20);
+    assertEquals(10, buf.size());
+    buf.setPosition(0);
+    assertEquals(10, buf.readByte());
+    buf.release();
+  }
+  
+  @Test
+  public void bulk() throws Exception {
+    
+    int[] ints = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    long[] longs = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE};
+    double[] doubles = {0, 1.5, -2.25, Double.NaN};
+    short[] shorts = {0, 1, -1, Short.MAX_VALUE, Short.MIN_VALUE};
+    
+    RandomAccessBuffer buf = new RandomAccessBuffer(8, 8);
+    buf.writeInts(ints, 1, 4);
+    buf.writeLongs(longs, 0, longs.length);
+    buf.writeDoubles(doubles, 0, doubles.length);
+    buf.writeShorts(shorts, 0, shorts.length);
+    assertEquals(16 + 40 + 32 + 10, buf.size());
+    
+    buf.setPosition(0);
+    assertEquals(1, buf.readInt());
+    buf.setPosition(0);
+    int[] intResult = new int[5];
+    buf.readInts(intResult, 1, 4);
+    assertArrayEquals(ints, intResult);
+    long[] longResult = new long[5];
+    buf.readLongs(longResult, 0, 5);
+    assertArrayEquals(longs, longResult);
+    double[] doubleResult = new double[4];
+    buf.readDoubles(doubleResult, 0, 4);
+    assertArrayEquals(doubles, doubleResult, 0);
+    short[] shortResult = new short[5];
+    buf.readShorts(shortResult, 0, 5);
+    assertArrayEquals(shorts, shortResult);
+    
+    try {
+      buf.readInts(intResult, 0, 1);
+      fail();
+    } catch (EOFException e) {
+    }
+  }
+  
+  @Test
+  public void varint() throws Exception {
+    
+    int[] ints = {0, 1, 63, -64, 64, 127, 128, 300, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    long[] longs = {0, 1, -1, 1L << 35, Long.MAX_VALUE, Long.MIN_VALUE};
+    
+    RandomAccessBuffer buf = new RandomAccessBuffer(4, 4);
+    for (int v : ints) {
+      buf.writeVarInt(v);
+      buf.writeSignedVarInt(v);
+    }
+    for (long v : longs) {
+      buf.writeVarLong(v);
+      buf.writeSignedVarLong(v);
+    }
+    
+    buf.setPosition(0);
+    for (int v : ints) {
+      int start = buf.getPosition();
+      assertEquals(v, buf.readVarInt());
+      assertEquals(RandomAccessBuffer.varIntSize(v), buf.getPosition() - start);
+      assertEquals(v, buf.readSignedVarInt());
+    }
+    for (long v : longs) {
+      int start = buf.getPosition();
+      assertEquals(v, buf.readVarLong());
+      assertEquals(RandomAccessBuffer.varLongSize(v), buf.getPosition() - start);
+      assertEquals(v, buf.readSignedVarLong());
+    }
+    assertEquals(buf.size(), buf.getPosition());
+    
+    buf.reset();
+    buf.writeSignedVarInt(-64);
+    buf.writeVarInt(300);
+    assertEquals(3, buf.size());
+    assertArrayEquals(new byte[] {0x7F, (byte) 0xAC, 0x02}, buf.toByteArray());
+    
+    buf.reset();
+    buf.write(new byte[] {(byte) 0x80, (byte) 0x80});
+    buf.setPosition(0);
+    try {
+      buf.readVarInt();
+      fail();
+    } catch (EOFException e) {
+    }
+    
+    buf.reset();
+    buf.write(new byte[] {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0});
+    buf.setPosition(0);
+    try {
+      buf.readVarInt();
+      fail();
+    } catch (EOFException e) {
+      fail();
+    } catch (IOException e) {
+    }
+  }
+  
+  @Test
+  public void unchecked() throws Exception {
+    
+    RandomAccessBuffer buf = new RandomAccessBuffer(4, 4);
+    buf.ensureCapacity(1 + 2 + 4 + 8 + 5);
+    assertEquals(0, buf.size());
+    buf.putByte(-1);
+    buf.putShort(-2);
+    buf.putInt(-3);
+    buf.putLong(-4);
+    buf.putVarInt(1000);
+    assertEquals(17, buf.size());
+    
+    buf.setPosition(0);
+    buf.require(17);
+    assertEquals(-1, buf.getByte());
+    assertEquals(-2, buf.getShort());
+    assertEquals(-3, buf.getInt());
+    assertEquals(-4, buf.getLong());
+    assertEquals(1000, buf.getVarInt());
+  }
 }
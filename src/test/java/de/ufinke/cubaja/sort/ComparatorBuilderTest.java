@@ -0,0 +1,256 @@
+package de.ufinke.cubaja.sort;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+
+public class ComparatorBuilderTest {
+
+  static public class Customer {
+
+    private String name;
+    private int rating;
+
+    public Customer(String name) {
+
+      this(name, 0);
+    }
+
+    public Customer(String name, int rating) {
+
+      this.name = name;
+      this.rating = rating;
+    }
+
+    public String getName() {
+
+      return name;
+    }
+
+    public int getRating() {
+
+      return rating;
+    }
+  }
+
+  static public class Booking {
+
+    private int branch;
+    private long account;
+    private BigDecimal amount;
+    private boolean reversal;
+    private Customer customer;
+
+    public Booking(int branch, long account, BigDecimal amount, boolean reversal, Customer customer) {
+
+      this.branch = branch;
+      this.account = account;
+      this.amount = amount;
+      this.reversal = reversal;
+      this.customer = customer;
+    }
+
+    public int getBranch() {
+
+      return branch;
+    }
+
+    public long getAccount() {
+
+      return account;
+    }
+
+    public BigDecimal getAmount() {
+
+      return amount;
+    }
+
+    public boolean isReversal() {
+
+      return reversal;
+    }
+
+    public Customer getCustomer() {
+
+      return customer;
+    }
+  }
+
+  private List<Booking> createList() {
+
+    List<Booking> list = new ArrayList<Booking>();
+    list.add(new Booking(2, 100, new BigDecimal("1.00"), false, new Customer("b")));
+    list.add(new Booking(1, 100, null, true, null));
+    list.add(new Booking(1, 300, new BigDecimal("3.00"), false, new Customer("a")));
+    list.add(new Booking(1, 300, new BigDecimal("2.00"), false, new Customer(null)));
+    list.add(new Booking(2, 200, new BigDecimal("1.00"), true, new Customer("a")));
+    return list;
+  }
+
+  @Test
+  public void comparator() {
+
+    List<Booking> list = createList();
+
+    Collections.sort(list, ComparatorBuilder.of(Booking.class, "branch", "account desc", "amount nulls last"));
+    assertEquals(300, list.get(0).getAccount());
+    assertEquals(new BigDecimal("2.00"), list.get(0).getAmount());
+    assertEquals(new BigDecimal("3.00"), list.get(1).getAmount());
+    assertEquals(100, list.get(2).getAccount());
+    assertEquals(200, list.get(3).getAccount());
+    assertEquals(100, list.get(4).getAccount());
+
+    Collections.sort(list, ComparatorBuilder.of(Booking.class, "customer.name", "reversal desc", "amount"));
+    assertNull(list.get(0).getCustomer());
+    assertNull(list.get(1).getCustomer().getName());
+    assertEquals(200, list.get(2).getAccount());
+    assertEquals(300, list.get(3).getAccount());
+    assertEquals("b", list.get(4).getCustomer().getName());
+  }
+
+  @Test
+  public void keyFactory() {
+
+    KeyFactory<Booking, CompositeKey> keyFactory = ComparatorBuilder.keyFactory(Booking.class, "branch", "customer.name");
+    List<Booking> list = createList();
+
+    CompositeKey a = keyFactory.createKey(list.get(2));
+    CompositeKey b = keyFactory.createKey(list.get(3));
+    CompositeKey c = keyFactory.createKey(list.get(4));
+    CompositeKey d = keyFactory.createKey(new Booking(1, 0, null, false, new Customer("a")));
+
+    assertEquals("[1, a]", a.toString());
+    assertTrue(b.compareTo(a) < 0);
+    assertTrue(a.compareTo(c) < 0);
+    assertEquals(0, a.compareTo(d));
+    assertEquals(a, d);
+    assertEquals(a.hashCode(), d.hashCode());
+    assertFalse(a.equals(c));
+
+    KeyFactory<Booking, CompositeKey> otherFactory = ComparatorBuilder.keyFactory(Booking.class, "branch", "customer.name");
+    CompositeKey e = otherFactory.createKey(list.get(2));
+    assertSame(a.getClass(), e.getClass());
+    assertEquals(0, a.compareTo(e));
+  }
+
+  @Test
+  public void primitiveNullPath() {
+
+    List<Booking> list = new ArrayList<Booking>();
+    list.add(new Booking(1, 100, null, false, new Customer("a", 5)));
+    list.add(new Booking(1, 200, null, false, null));
+    list.add(new Booking(1, 300, null, false, new Customer("b", -1)));
+    list.add(new Booking(1, 400, null, false, new Customer("c", 0)));
+
+    Collections.sort(list, ComparatorBuilder.of(Booking.class, "customer.rating"));
+    assertEquals(200, list.get(0).getAccount());
+    assertEquals(300, list.get(1).getAccount());
+    assertEquals(400, list.get(2).getAccount());
+    assertEquals(100, list.get(3).getAccount());
+
+    Collections.sort(list, ComparatorBuilder.of(Booking.class, "customer.rating desc nulls last"));
+    assertEquals(100, list.get(0).getAccount());
+    assertEquals(400, list.get(1).getAccount());
+    assertEquals(300, list.get(2).getAccount());
+    assertEquals(200, list.get(3).getAccount());
+
+    KeyFactory<Booking, CompositeKey> keyFactory = ComparatorBuilder.keyFactory(Booking.class, "customer.rating");
+    CompositeKey absent = keyFactory.createKey(new Booking(1, 0, null, false, null));
+    CompositeKey zero = keyFactory.createKey(new Booking(1, 0, null, false, new Customer("x", 0)));
+    assertTrue(absent.compareTo(zero) < 0);
+    assertFalse(absent.equals(zero));
+  }
+
+  @Test
+  public void serializableKey() throws Exception {
+
+    KeyFactory<Booking, CompositeKey> keyFactory = ComparatorBuilder.keyFactory(Booking.class, "branch", "customer.rating", "customer.name");
+    CompositeKey key = keyFactory.createKey(new Booking(3, 0, null, false, new Customer("a", 7)));
+    CompositeKey absent = keyFactory.createKey(new Booking(3, 0, null, false, null));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(key);
+    out.writeObject(absent);
+    out.close();
+
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    CompositeKey keyCopy = (CompositeKey) in.readObject();
+    CompositeKey absentCopy = (CompositeKey) in.readObject();
+    in.close();
+
+    assertSame(key.getClass(), keyCopy.getClass());
+    assertEquals(key, keyCopy);
+    assertEquals(key.hashCode(), keyCopy.hashCode());
+    assertEquals(0, key.compareTo(keyCopy));
+    assertEquals(absent, absentCopy);
+    assertFalse(key.equals(absentCopy));
+
+    SortConfig config = new SortConfig();
+    config.setRunSize(1000);
+    Sorter<CompositeKey> sorter = new Sorter<CompositeKey>(new NaturalComparator<CompositeKey>(), config);
+    for (int i = 0; i < 10000; i++) {
+      sorter.add(keyFactory.createKey(new Booking(i % 3, 0, null, false, (i % 7 == 0) ? null : new Customer("c", i % 11))));
+    }
+    CompositeKey previous = null;
+    int count = 0;
+    for (CompositeKey sorted : sorter) {
+      if (previous != null) {
+        assertTrue(previous.compareTo(sorted) <= 0);
+      }
+      previous = sorted;
+      count++;
+    }
+    assertEquals(10000, count);
+
+    config.setProcessCount(2);
+    config.setProcessOptions("-Xmx64m");
+    ProcessSorter<CompositeKey> processSorter = new ProcessSorter<CompositeKey>(new NaturalComparator<CompositeKey>(), config);
+    for (int i = 0; i < 5000; i++) {
+      processSorter.add(keyFactory.createKey(new Booking(i % 5, 0, null, false, (i % 3 == 0) ? null : new Customer("p", i % 13))));
+    }
+    previous = null;
+    count = 0;
+    for (CompositeKey sorted : processSorter) {
+      assertSame(key.getClass(), sorted.getClass());
+      if (previous != null) {
+        assertTrue(previous.compareTo(sorted) <= 0);
+      }
+      previous = sorted;
+      count++;
+    }
+    assertEquals(5000, count);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void serializableComparator() throws Exception {
+
+    Comparator<Booking> comparator = ComparatorBuilder.of(Booking.class, "branch", "account desc");
+    assertTrue(comparator instanceof Serializable);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(comparator);
+    out.close();
+
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    Comparator<Booking> copy = (Comparator<Booking>) in.readObject();
+    in.close();
+
+    List<Booking> list = createList();
+    Collections.sort(list, copy);
+    for (int i = 1; i < list.size(); i++) {
+      assertTrue(comparator.compare(list.get(i - 1), list.get(i)) <= 0);
+    }
+    assertEquals(300, list.get(0).getAccount());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void unknownProperty() {
+
+    ComparatorBuilder.of(Booking.class, "unknown");
+  }
+}
@@ -0,0 +1,72 @@
+package de.ufinke.cubaja.sort;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+public class GrouperTest {
+
+  static private final KeyFactory<Integer, Integer> keyFactory = new KeyFactory<Integer, Integer>() {
+    
+    public Integer createKey(Integer data) {
+      
+      return data / 10;
+    }
+  };
+  
+  private List<Integer> createList() {
+    
+    return Arrays.asList(11, 12, 13, 21, 31, 32, 51);
+  }
+  
+  @Test
+  public void iterate() {
+    
+    Grouper<Integer, Integer> grouper = new Grouper<Integer, Integer>(createList(), keyFactory, new NaturalComparator<Integer>());
+    
+    List<Integer> keys = new ArrayList<Integer>();
+    List<Integer> sums = new ArrayList<Integer>();
+    for (Integer key : grouper) {
+      keys.add(key);
+      int sum = 0;
+      if (key == 1) {
+        sum = grouper.get(); // skip rest of group
+      } else {
+        for (Integer data : grouper.getGroup()) {
+          sum += data;
+        }
+      }
+      sums.add(sum);
+    }
+    
+    assertEquals(Arrays.asList(1, 2, 3, 5), keys);
+    assertEquals(Arrays.asList(11, 21, 63, 51), sums);
+  }
+  
+  @Test
+  public void process() throws Exception {
+    
+    Grouper<Integer, Integer> grouper = new Grouper<Integer, Integer>(createList(), keyFactory, new NaturalComparator<Integer>());
+    
+    final StringBuilder sb = new StringBuilder();
+    grouper.process(new GroupHandler<Integer, Integer>() {
+      
+      public void beginGroup(Integer key) {
+        
+        sb.append(key).append('(');
+      }
+      
+      public void processData(Integer data) {
+        
+        sb.append(data % 10);
+      }
+      
+      public void endGroup(Integer key) {
+        
+        sb.append(')');
+      }
+    });
+    
+    assertEquals("1(123)2(1)3(12)5(1)", sb.toString());
+  }
+}
@@ -65,4 +65,82 @@ public class MatcherTest {
       }
     }
   }
+
+  @Test
+  public void manySources() {
+    
+    Comparator<Integer> comparator = new NaturalComparator<Integer>();
+    Matcher<Integer> matcher = new Matcher<Integer>(comparator);
+    
+    List<MatchSource<Integer>> sources = new ArrayList<MatchSource<Integer>>();
+    for (int step = 1; step <= 30; step++) {
+      List<Integer> list = new ArrayList<Integer>();
+      for (int i = step; i <= 100; i += step) {
+        list.add(i);
+      }
+      sources.add(matcher.addSource(list));
+    }
+    
+    int expectedKey = 1;
+    for (Integer key : matcher) {
+      assertEquals(expectedKey++, key.intValue());
+      for (int step = 1; step <= 30; step++) {
+        MatchSource<Integer> source = sources.get(step - 1);
+        assertEquals(key % step == 0, source.matches());
+        if (step % 2 == 0) {
+          assertEquals(key % step == 0 ? 1 : 0, source.getList().size());
+        }
+      }
+    }
+    assertEquals(101, expectedKey);
+  }
+
+  @Test
+  public void hashedSource() {
+    
+    List<Integer> sorted = new ArrayList<Integer>();
+    sorted.add(1);
+    sorted.add(2);
+    sorted.add(2);
+    sorted.add(5);
+    
+    List<Integer> lookup = new ArrayList<Integer>();
+    lookup.add(5);
+    lookup.add(2);
+    lookup.add(9);
+    lookup.add(2);
+    
+    KeyFactory<Integer, Integer> keyFactory = new KeyFactory<Integer, Integer>() {
+      
+      public Integer createKey(Integer data) {
+        
+        return data;
+      }
+    };
+    
+    Matcher<Integer> matcher = new Matcher<Integer>(new NaturalComparator<Integer>());
+    MatchSource<Integer> sortedSource = matcher.addSource(sorted);
+    MatchSource<Integer> hashedSource = matcher.addHashedSource(lookup, keyFactory);
+    
+    List<Integer> keys = new ArrayList<Integer>();
+    for (Integer key : matcher) {
+      keys.add(key);
+      switch (key) {
+        case 1:
+          assertEquals(false, hashedSource.matches());
+          break;
+        case 2:
+          assertEquals(2, sortedSource.getList().size());
+          assertEquals(2, hashedSource.getList().size());
+          assertEquals(false, hashedSource.matches());
+          break;
+        case 5:
+          assertEquals(Integer.valueOf(5), hashedSource.get());
+          break;
+        default:
+          fail("unexpected key: " + key);
+      }
+    }
+    assertEquals(3, keys.size());
+  }
 }
@@ -66,4 +66,110 @@ public class MergerTest {
     assertEquals(4, resultList.get(index++).intValue());
     assertEquals(8, resultList.get(index++).intValue());
   }
+
+  @Test
+  public void prefetch() {
+    
+    List<Iterable<Integer>> sources = new ArrayList<Iterable<Integer>>();
+    for (int i = 0; i < 5; i++) {
+      List<Integer> list = new ArrayList<Integer>();
+      for (int j = 0; j < 3000; j++) {
+        list.add(j * 5 + i);
+      }
+      sources.add(list);
+    }
+    
+    Merger<Integer> merger = new Merger<Integer>(new NaturalComparator<Integer>(), sources, true);
+    int expected = 0;
+    for (Integer number : merger) {
+      assertEquals(expected++, number.intValue());
+    }
+    assertEquals(15000, expected);
+  }
+  
+  @Test(expected=IllegalStateException.class)
+  public void prefetchError() {
+    
+    Iterable<Integer> failing = new Iterable<Integer>() {
+      
+      public Iterator<Integer> iterator() {
+        
+        throw new IllegalStateException();
+      }
+    };
+    
+    for (Integer number : new Prefetcher<Integer>(failing)) {
+      fail(String.valueOf(number));
+    }
+  }
+  
+  @Test
+  public void prefetchPartial() {
+    
+    Iterable<Integer> failing = new Iterable<Integer>() {
+      
+      public Iterator<Integer> iterator() {
+        
+        return new Iterator<Integer>() {
+          
+          private int count;
+          
+          public boolean hasNext() {
+            
+            if (count == 1500) {
+              throw new IllegalArgumentException("failed");
+            }
+            return true;
+          }
+          
+          public Integer next() {
+            
+            return Integer.valueOf(count++);
+          }
+          
+          public void remove() {
+            
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+    
+    int count = 0;
+    try {
+      for (Integer number : new Prefetcher<Integer>(failing)) {
+        assertEquals(count++, number.intValue());
+      }
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    assertEquals(1500, count);
+  }
+  
+  @Test
+  public void prefetchClose() {
+    
+    List<Iterable<Integer>> sources = new ArrayList<Iterable<Integer>>();
+    for (int i = 0; i < 3; i++) {
+      List<Integer> list = new ArrayList<Integer>();
+      for (int j = 0; j < 5000; j++) {
+        list.add(j * 3 + i);
+      }
+      sources.add(list);
+    }
+    
+    Merger<Integer> merger = new Merger<Integer>(new NaturalComparator<Integer>(), sources, true);
+    Iterator<Integer> iterator = merger.iterator();
+    assertEquals(0, iterator.next().intValue());
+    merger.close();
+    try {
+      while (iterator.hasNext()) {
+        iterator.next();
+      }
+      fail();
+    } catch (IllegalStateException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
 }
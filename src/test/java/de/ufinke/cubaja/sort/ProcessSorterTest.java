@@ -0,0 +1,92 @@
+package de.ufinke.cubaja.sort;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+public class ProcessSorterTest {
+
+  @Test
+  public void sort() {
+
+    SortConfig config = new SortConfig();
+    config.setRunSize(1000);
+    config.setProcessCount(3);
+    config.setProcessOptions("-Xmx64m");
+
+    ProcessSorter<Integer> sorter = new ProcessSorter<Integer>(new NaturalComparator<Integer>(), config);
+
+    long putSum = 0;
+    Random random = new Random();
+    int count = 20000;
+    for (int i = 0; i < count; i++) {
+      int number = random.nextInt(5000);
+      putSum += number;
+      sorter.add(number);
+    }
+
+    long getSum = 0;
+    int getCount = 0;
+    int previous = Integer.MIN_VALUE;
+    for (Integer number : sorter) {
+      assertTrue(previous <= number);
+      previous = number;
+      getSum += number;
+      getCount++;
+    }
+
+    assertEquals(count, getCount);
+    assertEquals(putSum, getSum);
+  }
+
+  @Test
+  public void exhausted() {
+
+    SortConfig config = new SortConfig();
+    config.setRunSize(100);
+    config.setProcessCount(2);
+    config.setProcessOptions("-Xmx64m");
+
+    ProcessSorter<Integer> sorter = new ProcessSorter<Integer>(new NaturalComparator<Integer>(), config);
+    for (int i = 0; i < 500; i++) {
+      sorter.add(i % 7);
+    }
+
+    Iterator<Integer> iterator = sorter.iterator();
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertEquals(500, count);
+    assertFalse(iterator.hasNext());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void memory() {
+
+    ProcessSorter<String> sorter = new ProcessSorter<String>(new NaturalComparator<String>());
+    sorter.add("b");
+    sorter.add("c");
+    sorter.add("a");
+
+    Iterator<String> iterator = sorter.iterator();
+    assertEquals("a", iterator.next());
+    assertEquals("b", iterator.next());
+    assertEquals("c", iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void notSerializable() {
+
+    new ProcessSorter<Integer>(new Comparator<Integer>() {
+
+      public int compare(Integer a, Integer b) {
+
+        return a.compareTo(b);
+      }
+    });
+  }
+}
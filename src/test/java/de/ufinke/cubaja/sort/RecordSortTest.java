@@ -0,0 +1,131 @@
+package de.ufinke.cubaja.sort;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import de.ufinke.cubaja.io.*;
+import java.io.*;
+import java.util.*;
+
+public class RecordSortTest {
+
+  static private final String CHARSET = "IBM273";
+
+  // record layout: packed(5) 3 bytes, character 4 bytes, zoned(3) 3 bytes
+  static private final int RECORD_LENGTH = 10;
+
+  private void write(MainframeOutput out, int packed, String name, int zoned) throws IOException {
+
+    out.writePacked(packed, 5);
+    out.writeString(name, 4);
+    out.writeZoned(zoned, 3);
+    out.nextRecord();
+  }
+
+  @Test
+  public void sort() throws Exception {
+
+    ByteArrayOutputStream input = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(input, CHARSET);
+    write(mo, 12, "b   ", 5);
+    write(mo, -300, "a   ", 1);
+    write(mo, 12, "c   ", 7);
+    write(mo, 0, "d   ", -2);
+    write(mo, 12, "e   ", -7);
+    write(mo, -5, "f   ", 0);
+    mo.close();
+
+    RecordSort sort = new RecordSort(RECORD_LENGTH);
+    sort.addKey(0, 3, KeyFormat.PACKED, false);
+    sort.addKey(7, 3, KeyFormat.ZONED, true);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertEquals(6, sort.sort(new ByteArrayInputStream(input.toByteArray()), output));
+
+    MainframeInput mi = new MainframeInput(new ByteArrayInputStream(output.toByteArray()), CHARSET);
+    StringBuilder sb = new StringBuilder();
+    while (mi.nextRecord(RECORD_LENGTH)) {
+      mi.setPosition(3);
+      sb.append(mi.readString(4).trim());
+    }
+    assertEquals("afdcbe", sb.toString());
+  }
+
+  @Test
+  public void spill() throws Exception {
+
+    SortConfig config = new SortConfig();
+    config.setRunSize(1000);
+
+    ByteArrayOutputStream input = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(input, CHARSET);
+    Random random = new Random();
+    int count = 10000;
+    for (int i = 0; i < count; i++) {
+      write(mo, random.nextInt(199999) - 99999, "x   ", random.nextInt(999));
+    }
+    mo.close();
+
+    RecordSort sort = new RecordSort(RECORD_LENGTH, config);
+    sort.addKey(0, 3, KeyFormat.PACKED, true);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertEquals(count, sort.sort(new ByteArrayInputStream(input.toByteArray()), output));
+
+    MainframeInput mi = new MainframeInput(new ByteArrayInputStream(output.toByteArray()), CHARSET);
+    int previous = Integer.MAX_VALUE;
+    int records = 0;
+    while (mi.nextRecord(RECORD_LENGTH)) {
+      int value = mi.readPackedInt(5);
+      assertTrue(value <= previous);
+      previous = value;
+      records++;
+    }
+    assertEquals(count, records);
+  }
+
+  @Test
+  public void failure() throws Exception {
+
+    ByteArrayOutputStream input = new ByteArrayOutputStream();
+    MainframeOutput mo = new MainframeOutput(input, CHARSET);
+    write(mo, 1, "a   ", 1);
+    write(mo, 2, "b   ", 2);
+    mo.close();
+    byte[] truncated = Arrays.copyOf(input.toByteArray(), RECORD_LENGTH + 3);
+
+    final boolean[] closed = new boolean[2];
+    InputStream in = new ByteArrayInputStream(truncated) {
+
+      public void close() throws IOException {
+
+        closed[0] = true;
+        super.close();
+      }
+    };
+    OutputStream out = new ByteArrayOutputStream() {
+
+      public void close() throws IOException {
+
+        closed[1] = true;
+        super.close();
+      }
+    };
+
+    RecordSort sort = new RecordSort(RECORD_LENGTH);
+    sort.addKey(0, 3, KeyFormat.PACKED, false);
+
+    try {
+      sort.sort(in, out);
+      fail();
+    } catch (EOFException e) {
+      assertTrue(closed[0]);
+      assertTrue(closed[1]);
+    }
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void invalidKey() {
+
+    new RecordSort(RECORD_LENGTH).addKey(8, 3, KeyFormat.CHARACTER, false);
+  }
+}
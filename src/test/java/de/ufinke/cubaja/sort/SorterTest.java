@@ -3,6 +3,8 @@ package de.ufinke.cubaja.sort;
 import org.junit.*;
 import static org.junit.Assert.*;
 import de.ufinke.cubaja.config.*;
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
 
 public class SorterTest {
@@ -63,4 +65,93 @@ public class SorterTest {
       }
     }
   }
+  
+  @Test
+  public void checkpoint() throws Exception {
+    
+    SortConfig config = new SortConfig();
+    config.setRunSize(1000);
+    config.setCheckpoint("sorter_checkpoint_test");
+    
+    File manifest = new File(config.getWorkDirectory(), "sorter_checkpoint_test.manifest");
+    File runFile = new File(config.getWorkDirectory(), "sorter_checkpoint_test.run");
+    manifest.delete();
+    runFile.delete();
+    
+    int[] numbers = new int[10000];
+    long putSum = 0;
+    Random random = new Random();
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = random.nextInt(1000);
+      putSum += numbers[i];
+    }
+    
+    Comparator<Integer> comparator = new NaturalComparator<Integer>();
+    
+    // first attempt fails after 5000 objects
+    Sorter<Integer> failed = new Sorter<Integer>(comparator, config);
+    assertEquals(0, failed.getRestartPosition());
+    for (int i = 0; i < 5000; i++) {
+      failed.add(numbers[i]);
+    }
+    
+    // 4 runs with 1024 objects each are completed asynchronously
+    long timeout = System.currentTimeMillis() + 10000;
+    while (System.currentTimeMillis() < timeout && ! "4096".equals(readPosition(manifest))) {
+      Thread.sleep(50);
+    }
+    
+    // abort deletes the checkpoint; keep a copy to simulate a crashed process
+    File manifestCopy = new File(manifest.getPath() + ".copy");
+    File runFileCopy = new File(runFile.getPath() + ".copy");
+    Files.copy(manifest.toPath(), manifestCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Files.copy(runFile.toPath(), runFileCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    failed.abort();
+    waitForDeletion(manifest, runFile);
+    Files.move(manifestCopy.toPath(), manifest.toPath());
+    Files.move(runFileCopy.toPath(), runFile.toPath());
+    
+    Sorter<Integer> sorter = new Sorter<Integer>(comparator, config);
+    long position = sorter.getRestartPosition();
+    assertEquals(4096, position);
+    for (int i = (int) position; i < numbers.length; i++) {
+      sorter.add(numbers[i]);
+    }
+    
+    long getSum = 0;
+    int count = 0;
+    SequenceChecker<Integer> checker = new SequenceChecker<Integer>(comparator, sorter);
+    for (Integer number : checker) {
+      getSum += number;
+      count++;
+    }
+    
+    assertEquals(numbers.length, count);
+    assertEquals(putSum, getSum);
+    
+    waitForDeletion(manifest, runFile);
+  }
+  
+  private void waitForDeletion(File manifest, File runFile) throws Exception {
+    
+    // the checkpoint is deleted asynchronously, the manifest first
+    long timeout = System.currentTimeMillis() + 10000;
+    while (System.currentTimeMillis() < timeout && (manifest.exists() || runFile.exists())) {
+      Thread.sleep(50);
+    }
+    assertFalse(manifest.exists());
+    assertFalse(runFile.exists());
+  }
+  
+  private String readPosition(File manifest) throws Exception {
+    
+    if (! manifest.exists()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    InputStream in = new FileInputStream(manifest);
+    properties.load(in);
+    in.close();
+    return properties.getProperty("position");
+  }
 }
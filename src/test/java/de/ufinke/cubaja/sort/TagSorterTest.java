@@ -0,0 +1,66 @@
+package de.ufinke.cubaja.sort;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.Serializable;
+import java.util.*;
+
+public class TagSorterTest {
+
+  static public class Record implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    int key;
+    int sequence;
+    byte[] payload = new byte[500];
+  }
+
+  @Test
+  public void sort() throws Exception {
+
+    SortConfig config = new SortConfig();
+    config.setRunSize(1000);
+
+    KeyFactory<Record, Integer> keyFactory = new KeyFactory<Record, Integer>() {
+
+      public Integer createKey(Record data) {
+
+        return data.key;
+      }
+    };
+
+    TagSorter<Record, Integer> sorter = new TagSorter<Record, Integer>(keyFactory, new NaturalComparator<Integer>(), config);
+
+    long putSum = 0;
+    Random random = new Random();
+    int records = 20000;
+    for (int i = 0; i < records; i++) {
+      Record record = new Record();
+      record.key = random.nextInt(1000);
+      record.sequence = i;
+      record.payload[record.payload.length - 1] = (byte) record.key;
+      putSum += record.key;
+      sorter.add(record);
+    }
+
+    long getSum = 0;
+    int recNum = 0;
+    Record last = null;
+    for (Record record : sorter) {
+      if (last != null) {
+        assertTrue(last.key <= record.key);
+        if (last.key == record.key) {
+          assertTrue(last.sequence < record.sequence);
+        }
+      }
+      assertEquals((byte) record.key, record.payload[record.payload.length - 1]);
+      getSum += record.key;
+      recNum++;
+      last = record;
+    }
+
+    assertEquals(putSum, getSum);
+    assertEquals(records, recNum);
+  }
+}